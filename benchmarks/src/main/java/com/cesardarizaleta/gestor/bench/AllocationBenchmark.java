@@ -0,0 +1,88 @@
+package com.cesardarizaleta.gestor.bench;
+
+import com.cesardarizaleta.gestor.advanced.AllocationStrategy;
+import com.cesardarizaleta.gestor.advanced.Block;
+import com.cesardarizaleta.gestor.advanced.FreeListAllocator;
+import com.cesardarizaleta.gestor.advanced.WorkloadType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asignación y liberación con particiones variables sobre una memoria fragmentada. Cada
+ * operación deja la memoria como estaba, así que el estado es estable entre iteraciones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+    private static final int REQUESTS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    int blocks;
+
+    @Param({"UNIFORM", "SMALL", "BIMODAL"})
+    WorkloadType distribution;
+
+    @Param({"FIRST_FIT", "BEST_FIT", "WORST_FIT", "NEXT_FIT"})
+    AllocationStrategy strategy;
+
+    private FreeListAllocator allocator;
+    private String[] resident;
+    private int[] residentOffsets;
+    private String[] names;
+    private int[] sizes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        allocator = new FreeListAllocator(Layouts.memoryFor(blocks, distribution));
+        resident = Layouts.fragment(allocator, blocks, distribution);
+        allocator.setStrategy(strategy);
+        Map<String, Integer> offsets = new HashMap<>();
+        for (Block block : allocator.blocks()) {
+            if (!block.isFree()) offsets.put(block.getOwner(), block.getOffset());
+        }
+        residentOffsets = new int[resident.length];
+        for (int i = 0; i < resident.length; i++) residentOffsets[i] = offsets.get(resident[i]);
+        names = Layouts.names(REQUESTS, i -> "q" + i);
+        sizes = Layouts.sizes(REQUESTS, distribution, Layouts.SEED + 1);
+    }
+
+    /** Búsqueda de hueco según la estrategia y partición del hueco, seguida de su liberación. */
+    @Benchmark
+    public boolean allocateRelease() {
+        int i = cursor++ & (REQUESTS - 1);
+        boolean allocated = allocator.allocate(names[i], sizes[i]);
+        allocator.release(names[i]);
+        return allocated;
+    }
+
+    /**
+     * Libera un proceso rodeado de huecos (fusión de tres bloques) y lo vuelve a colocar en su
+     * offset original, partiendo otra vez el hueco fusionado; la estrategia no interviene.
+     */
+    @Benchmark
+    public boolean releaseMerge() {
+        int i = cursor++ % resident.length;
+        String name = resident[i];
+        int size = allocator.sizeOf(name);
+        allocator.release(name);
+        return allocator.allocateAt(name, size, residentOffsets[i]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.cesardarizaleta.gestor.bench;
+
+import com.cesardarizaleta.gestor.advanced.AllocatorMode;
+import com.cesardarizaleta.gestor.advanced.MemoryAllocator;
+import com.cesardarizaleta.gestor.advanced.WorkloadType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Asignación y liberación comparando particiones variables, buddy, slabs por clase de tamaño y arenas. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocatorModeBenchmark {
+    private static final int REQUESTS = 1024;
+
+    @Param({"1000", "10000"})
+    int blocks;
+
+    @Param({"UNIFORM", "SMALL", "BIMODAL"})
+    WorkloadType distribution;
+
+    @Param({"VARIABLE_PARTITIONS", "BUDDY", "SEGREGATED", "ARENAS", "BLOCK_STORE", "PAGED", "TIERED", "NUMA"})
+    AllocatorMode mode;
+
+    private MemoryAllocator allocator;
+    private String[] names;
+    private int[] sizes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        // Potencia de dos para el buddy, con margen para su redondeo y el de los slabs.
+        int memory = Integer.highestOneBit(Layouts.memoryFor(blocks, distribution)) * 4;
+        allocator = mode.create(memory);
+        Layouts.fragment(allocator, blocks, distribution);
+        names = Layouts.names(REQUESTS, i -> "q" + i);
+        sizes = Layouts.sizes(REQUESTS, distribution, Layouts.SEED + 1);
+    }
+
+    @Benchmark
+    public boolean allocateRelease() {
+        int i = cursor++ & (REQUESTS - 1);
+        boolean allocated = allocator.allocate(names[i], sizes[i]);
+        allocator.release(names[i]);
+        return allocated;
+    }
+}
@@ -0,0 +1,81 @@
+package com.cesardarizaleta.gestor.bench;
+
+import com.cesardarizaleta.gestor.advanced.CompactionPlanner;
+import com.cesardarizaleta.gestor.advanced.FreeListAllocator;
+import com.cesardarizaleta.gestor.advanced.WorkloadType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compactación completa y planificación de la compactación dirigida. La compactación destruye la
+ * fragmentación, así que la memoria se reconstruye antes de cada invocación; el perfilador gc
+ * contabiliza también esa reconstrucción.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactionBenchmark {
+
+    @State(Scope.Thread)
+    public static class Fragmented {
+        @Param({"1000", "10000", "100000"})
+        int blocks;
+
+        @Param({"UNIFORM", "SMALL", "BIMODAL"})
+        WorkloadType distribution;
+
+        FreeListAllocator allocator;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            allocator = new FreeListAllocator(Layouts.memoryFor(blocks, distribution));
+            Layouts.fragment(allocator, blocks, distribution);
+        }
+    }
+
+    /** Memoria fragmentada de solo lectura para el planificador. */
+    @State(Scope.Thread)
+    public static class Planning {
+        @Param({"1000", "10000", "100000"})
+        int blocks;
+
+        @Param({"UNIFORM", "SMALL", "BIMODAL"})
+        WorkloadType distribution;
+
+        CompactionPlanner planner;
+        int request;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            FreeListAllocator allocator = new FreeListAllocator(Layouts.memoryFor(blocks, distribution));
+            Layouts.fragment(allocator, blocks, distribution);
+            planner = new CompactionPlanner(allocator);
+            // El doble del mayor hueco obliga a reubicar procesos.
+            request = allocator.getLargestFreeBlock() * 2;
+        }
+    }
+
+    @Benchmark
+    public int compact(Fragmented state) {
+        return state.allocator.compact();
+    }
+
+    @Benchmark
+    public CompactionPlanner.Plan plan(Planning state) {
+        return state.planner.plan(state.request);
+    }
+}
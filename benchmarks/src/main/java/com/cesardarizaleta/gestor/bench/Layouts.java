@@ -0,0 +1,58 @@
+package com.cesardarizaleta.gestor.bench;
+
+import com.cesardarizaleta.gestor.advanced.MemoryAllocator;
+import com.cesardarizaleta.gestor.advanced.WorkloadType;
+
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Construye memorias fragmentadas reproducibles: asigna {@code blocks} procesos contiguos y
+ * libera uno de cada dos, de modo que cada proceso residente queda entre dos huecos.
+ */
+final class Layouts {
+    static final long SEED = 42;
+
+    private Layouts() {
+    }
+
+    /** Memoria total necesaria para {@code blocks} procesos más un hueco final del 25 %. */
+    static int memoryFor(int blocks, WorkloadType distribution) {
+        int[] sizes = sizes(blocks, distribution, SEED);
+        long sum = 0;
+        for (int size : sizes) sum += size;
+        long total = sum + sum / 4 + distribution.getMaxSize();
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Demasiados bloques para la distribución: " + blocks);
+        }
+        return (int) total;
+    }
+
+    /** Llena el asignador y libera los procesos impares; devuelve los nombres residentes. */
+    static String[] fragment(MemoryAllocator allocator, int blocks, WorkloadType distribution) {
+        int[] sizes = sizes(blocks, distribution, SEED);
+        String[] resident = new String[(blocks + 1) / 2];
+        for (int i = 0; i < blocks; i++) {
+            if (!allocator.allocate("p" + i, sizes[i])) {
+                throw new IllegalStateException("No cabe p" + i + " (" + sizes[i] + " MB)");
+            }
+        }
+        for (int i = 0; i < blocks; i++) {
+            if (i % 2 == 1) allocator.release("p" + i); else resident[i / 2] = "p" + i;
+        }
+        return resident;
+    }
+
+    static int[] sizes(int count, WorkloadType distribution, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) sizes[i] = distribution.nextSize(random);
+        return sizes;
+    }
+
+    static String[] names(int count, IntFunction<String> name) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) names[i] = name.apply(i);
+        return names;
+    }
+}
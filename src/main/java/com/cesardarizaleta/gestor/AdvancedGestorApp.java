@@ -1,9 +1,34 @@
 package com.cesardarizaleta.gestor;
 
+import com.cesardarizaleta.gestor.advanced.AllocationStrategy;
+import com.cesardarizaleta.gestor.advanced.AllocatorMode;
+import com.cesardarizaleta.gestor.advanced.Block;
+import com.cesardarizaleta.gestor.advanced.CompactionPlanner;
+import com.cesardarizaleta.gestor.advanced.EventSimulation;
+import com.cesardarizaleta.gestor.advanced.EvictionPolicyType;
+import com.cesardarizaleta.gestor.advanced.FreeListAllocator;
+import com.cesardarizaleta.gestor.advanced.IncrementalCompactor;
+import com.cesardarizaleta.gestor.advanced.LatencyHistogram;
+import com.cesardarizaleta.gestor.advanced.MemoryManager;
+import com.cesardarizaleta.gestor.advanced.MemoryMetrics;
+import com.cesardarizaleta.gestor.advanced.MemoryModel;
+import com.cesardarizaleta.gestor.advanced.MemorySnapshot;
+import com.cesardarizaleta.gestor.advanced.MemoryTier;
+import com.cesardarizaleta.gestor.advanced.NumaAllocator;
+import com.cesardarizaleta.gestor.advanced.OperationJournal;
+import com.cesardarizaleta.gestor.advanced.SlabAllocator;
+import com.cesardarizaleta.gestor.advanced.StateFile;
+import com.cesardarizaleta.gestor.advanced.SwapArea;
+import com.cesardarizaleta.gestor.advanced.TierMigrator;
+import com.cesardarizaleta.gestor.advanced.TimeDistribution;
+import com.cesardarizaleta.gestor.advanced.WorkloadType;
 import javafx.animation.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.chart.BarChart;
@@ -13,21 +38,73 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class AdvancedGestorApp extends Application {
     private final int TOTAL_MEMORY = 1024;
+    private List<Block> layout = List.of();
     private List<MemoryBlock> memoryBlocks = new ArrayList<>();
-    private HBox memoryVisualization = new HBox(2);
+    private MemoryMapCanvas memoryMap = new MemoryMapCanvas();
+    private boolean animateRelocations;
     private TextField processName = new TextField();
     private TextField processSize = new TextField();
     private Label statusLabel = new Label("Ready");
     private TableView<ProcessInfo> processTable = new TableView<>();
     private BarChart<String, Number> memoryChart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+    private final ObservableList<ProcessInfo> processRows = FXCollections.observableArrayList();
+    private final XYChart.Series<String, Number> processSeries = new XYChart.Series<>();
+    private final XYChart.Series<String, Number> reservedSeries = new XYChart.Series<>();
+    private final XYChart.Series<String, Number> occupiedSeries = new XYChart.Series<>();
+    private final XYChart.Series<String, Number> nodeUsedSeries = new XYChart.Series<>();
+    private final XYChart.Series<String, Number> nodeRemoteSeries = new XYChart.Series<>();
+    private Spinner<Integer> chartLimit = new Spinner<>(2, 1000, 40, 10);
     private Label memorySummary = new Label();
+    private Label metricsSummary = new Label();
+    private ObjectName metricsName;
     private ListView<String> swapList = new ListView<>();
+    private Label swapSummary = new Label();
+    private final SwapArea swapArea = SwapArea.createTemporary();
+    private final MemoryManager manager = new MemoryManager(new FreeListAllocator(TOTAL_MEMORY), swapArea);
+    // Todas las operaciones sobre el gestor pasan por el hilo del modelo.
+    private final MemoryModel model = new MemoryModel(manager);
+    // Solo se usa desde el hilo del modelo.
+    private OperationJournal journal;
+    private MemorySnapshot rendered;
+    private AnimationTimer refreshTimer;
+    private Timeline migrationTimer;
+    private final AtomicBoolean stepPending = new AtomicBoolean();
+    private Label policySummary = new Label();
+    private ComboBox<EvictionPolicyType> policyBox = new ComboBox<>();
+    private CheckBox autoSwapBox = new CheckBox("Swap automático");
+    private Spinner<Integer> compressedSwap = new Spinner<>(0, SwapArea.DEFAULT_CAPACITY, 0, 64);
+    private boolean syncingControls;
+    private ComboBox<AllocationStrategy> strategyBox = new ComboBox<>();
+    private ComboBox<AllocatorMode> modeBox = new ComboBox<>();
+    private Spinner<Integer> compactionBudget = new Spinner<>(1, TOTAL_MEMORY, 32, 8);
+    private AnimationTimer compactionTimer;
+    private SweepWindow sweepWindow;
+    private Slider timeline = new Slider(0, 0, 0);
+    private Label timelineLabel = new Label("Estado inicial");
+    private boolean updatingTimeline;
+    private ComboBox<TimeDistribution> arrivalBox = new ComboBox<>();
+    private ComboBox<TimeDistribution> lifetimeBox = new ComboBox<>();
+    private ComboBox<Integer> accelerationBox = new ComboBox<>();
+    private Button simulationBtn;
+    private Label simulationLabel = new Label("Simulación detenida");
+    private AnimationTimer simulationTimer;
+    private final AtomicBoolean simulationPending = new AtomicBoolean();
+    private EventSimulation simulation;
 
     @Override
     public void start(Stage stage) {
@@ -35,8 +112,6 @@ public class AdvancedGestorApp extends Application {
         root.setPadding(new Insets(10));
         root.setStyle("-fx-background-color: #f0f2f5;");
 
-        initializeMemory();
-
         ToolBar toolbar = createToolBar();
         root.setTop(toolbar);
 
@@ -50,15 +125,66 @@ public class AdvancedGestorApp extends Application {
         root.setCenter(mainContent);
 
         root.setBottom(createStatusBar());
+        model.execute(m -> journal = new OperationJournal(m, AllocatorMode.VARIABLE_PARTITIONS));
 
         Scene scene = new Scene(root, 1200, 700);
         stage.setTitle("Advanced Memory Manager");
         stage.setScene(scene);
         stage.show();
+
+        try {
+            metricsName = manager.getMetrics().register(MemoryMetrics.DEFAULT_NAME);
+        } catch (JMException e) {
+            showStatus("No se pudieron publicar las métricas por JMX: " + e.getMessage(), "warning");
+        }
+
+        refreshTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                refresh();
+            }
+        };
+        refreshTimer.start();
+
+        migrationTimer = new Timeline(new KeyFrame(Duration.millis(250), e -> migrateTiers()));
+        migrationTimer.setCycleCount(Animation.INDEFINITE);
+        migrationTimer.play();
+    }
+
+    // Migración en segundo plano: una pasada cada cuarto de segundo entre niveles o entre nodos NUMA.
+    private void migrateTiers() {
+        AllocatorMode mode = modeBox.getValue();
+        if (mode == AllocatorMode.TIERED) {
+            model.update(m -> {
+                if (m.migrate(TierMigrator.DEFAULT_BUDGET) == 0) return false;
+                journal.markChanged("Migración entre niveles");
+                return true;
+            });
+        } else if (mode == AllocatorMode.NUMA) {
+            model.update(m -> {
+                if (m.rebalance(NumaAllocator.DEFAULT_REBALANCE_BUDGET) == 0) return false;
+                journal.markChanged("Reequilibrado entre nodos");
+                return true;
+            });
+        }
     }
 
-    private void initializeMemory() {
-        memoryBlocks.add(new MemoryBlock("Free", TOTAL_MEMORY, "#28a745"));
+    // Como mucho una instantánea por pulso, por muchas operaciones que haya hecho el modelo.
+    private void refresh() {
+        model.requestSnapshot();
+        MemorySnapshot snapshot = model.getSnapshot();
+        if (snapshot == null || snapshot == rendered) return;
+        rendered = snapshot;
+        updateVisuals();
+    }
+
+    private void syncBlocks() {
+        layout = rendered.getBlocks();
+        List<MemoryBlock> view = new ArrayList<>(layout.size());
+        for (Block block : layout) {
+            view.add(new MemoryBlock(block.isFree() ? "Free" : block.getOwner(), block.getSize()));
+        }
+        memoryBlocks = view;
     }
 
     private ToolBar createToolBar() {
@@ -66,17 +192,164 @@ public class AdvancedGestorApp extends Application {
         Button btnCompact = createManagementButton("Compactación", this::compactMemory);
         Button btnSwap = createManagementButton("Swapping", this::handleSwapping);
         Button btnRelocate = createManagementButton("Reubicación", this::relocateProcess);
+        Button btnIncremental = createManagementButton("Compactación incremental", this::toggleIncrementalCompaction);
+        Button btnSweep = createManagementButton("Barrido de parámetros", this::openSweepWindow);
+        Button btnSave = createManagementButton("Guardar estado", this::saveState);
+        Button btnLoad = createManagementButton("Cargar estado", this::loadState);
+        compactionBudget.setPrefWidth(80);
+        compactionBudget.setEditable(true);
+
+        strategyBox.getItems().setAll(AllocationStrategy.values());
+        strategyBox.setValue(AllocationStrategy.FIRST_FIT);
+        strategyBox.setOnAction(e -> {
+            applyStrategy();
+            showStatus("Estrategia: " + strategyBox.getValue(), "info");
+        });
+
+        modeBox.getItems().setAll(AllocatorMode.values());
+        modeBox.setValue(AllocatorMode.VARIABLE_PARTITIONS);
+        modeBox.setOnAction(e -> switchMode(modeBox.getValue()));
+
+        policyBox.getItems().setAll(EvictionPolicyType.values());
+        policyBox.setValue(manager.getPolicy().getType());
+        policyBox.setOnAction(e -> {
+            EvictionPolicyType type = policyBox.getValue();
+            execute(m -> {
+                m.setPolicy(type);
+                journal.recordState("Política de desalojo: " + type, journal.getMode());
+            });
+            showStatus("Política de desalojo: " + type, "info");
+        });
+        autoSwapBox.setOnAction(e -> {
+            boolean autoSwap = autoSwapBox.isSelected();
+            execute(m -> {
+                m.setAutoSwap(autoSwap);
+                journal.recordState(autoSwap ? "Swap automático activado" : "Swap automático desactivado", journal.getMode());
+            });
+        });
 
         toolbar.getItems().addAll(
                 new Label("Memory Manager - Técnicas de Gestión "),
                 new Separator(),
                 btnCompact,
                 btnRelocate,
-                btnSwap
+                btnSwap,
+                new Separator(),
+                btnIncremental,
+                new Label("MB/frame:"),
+                compactionBudget,
+                new Separator(),
+                new Label("Modo:"),
+                modeBox,
+                new Label("Estrategia:"),
+                strategyBox,
+                new Separator(),
+                autoSwapBox,
+                policyBox,
+                new Separator(),
+                btnSweep,
+                new Separator(),
+                btnSave,
+                btnLoad
         );
         return toolbar;
     }
 
+    private void applyStrategy() {
+        AllocationStrategy strategy = strategyBox.getValue();
+        execute(m -> {
+            m.getAllocator().setStrategy(strategy);
+            journal.recordState("Estrategia: " + strategy, journal.getMode());
+        });
+    }
+
+    private void switchMode(AllocatorMode mode) {
+        stopIncrementalCompaction();
+        AllocationStrategy strategy = strategyBox.getValue();
+        execute(m -> {
+            m.setAllocator(mode.create(TOTAL_MEMORY));
+            m.getAllocator().setStrategy(strategy);
+            journal.recordState("Modo: " + mode, mode);
+        });
+        showStatus("Modo " + mode + ": memoria reiniciada", "info");
+    }
+
+    private void saveState() {
+        File file = stateChooser().showSaveDialog(memoryMap.getScene().getWindow());
+        if (file == null) return;
+        AllocatorMode mode = modeBox.getValue();
+        model.execute(m -> {
+            long start = System.nanoTime();
+            try {
+                StateFile.save(file.toPath(), m, mode);
+            } catch (IllegalArgumentException | UncheckedIOException e) {
+                post("Error al guardar: " + e.getMessage(), "error");
+                return;
+            }
+            post(String.format("Estado guardado en %s (%.1f ms)", file.getName(), (System.nanoTime() - start) / 1e6),
+                    "success");
+        });
+    }
+
+    private void loadState() {
+        File file = stateChooser().showOpenDialog(memoryMap.getScene().getWindow());
+        if (file == null) return;
+        Path path = file.toPath();
+        stopIncrementalCompaction();
+        stopSimulation();
+        execute(m -> {
+            long start = System.nanoTime();
+            AllocatorMode mode;
+            try {
+                mode = StateFile.load(path, m);
+            } catch (IllegalArgumentException | UncheckedIOException e) {
+                post("Error al cargar: " + e.getMessage(), "error");
+                return;
+            }
+            journal.recordState("Estado cargado de " + file.getName(), mode);
+            syncControls(m, mode);
+            post(String.format("Estado cargado de %s (%.1f ms)", file.getName(), (System.nanoTime() - start) / 1e6),
+                    "success");
+        });
+    }
+
+    // Se llama en el hilo del modelo cuando el modo o la configuración cambian por fuera de los controles.
+    private void syncControls(MemoryManager m, AllocatorMode mode) {
+        AllocationStrategy strategy = m.getAllocator().getStrategy();
+        EvictionPolicyType policy = m.getPolicy().getType();
+        boolean autoSwap = m.isAutoSwap();
+        int compressed = m.getSwapArea().getCompressedCapacity() / SwapArea.DEFAULT_BYTES_PER_MB;
+        Platform.runLater(() -> {
+            selectSilently(modeBox, mode);
+            selectSilently(strategyBox, strategy);
+            selectSilently(policyBox, policy);
+            autoSwapBox.setSelected(autoSwap);
+            syncingControls = true;
+            compressedSwap.getValueFactory().setValue(compressed);
+            syncingControls = false;
+        });
+    }
+
+    private static FileChooser stateChooser() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Instantánea del gestor");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Instantánea del gestor", "*.gmem"));
+        return chooser;
+    }
+
+    // Refleja el estado cargado en el control sin disparar su acción, que reiniciaría el modelo.
+    private static <T> void selectSilently(ComboBox<T> box, T value) {
+        EventHandler<ActionEvent> handler = box.getOnAction();
+        box.setOnAction(null);
+        box.setValue(value);
+        box.setOnAction(handler);
+    }
+
+    private void openSweepWindow() {
+        if (sweepWindow == null) sweepWindow = new SweepWindow();
+        sweepWindow.show();
+    }
+
     private Button createManagementButton(String text, Runnable action) {
         Button btn = new Button(text);
         btn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white;");
@@ -90,17 +363,46 @@ public class AdvancedGestorApp extends Application {
 
         VBox memorySection = new VBox(10);
         memorySection.getChildren().add(new Label("Espacio de Memoria Principal"));
-        memoryVisualization.setMinHeight(60);
-        memoryVisualization.setStyle("-fx-border-color: #ccc; -fx-background-color: #fff;");
-        updateMemoryDisplay();
-        memorySection.getChildren().addAll(memoryVisualization, memorySummary);
+        memoryMap.setMinHeight(60);
+        memoryMap.setPrefHeight(60);
+        memoryMap.setStyle("-fx-border-color: #ccc; -fx-background-color: #fff;");
+        memorySection.getChildren().addAll(memoryMap, memorySummary);
+
+        VBox metricsSection = new VBox(5);
+        Button resetMetricsBtn = createActionButton("Reiniciar métricas", "#6c757d", () -> manager.getMetrics().reset());
+        metricsSection.getChildren().addAll(new Label("Métricas (JMX: " + MemoryMetrics.DEFAULT_NAME + ")"),
+                metricsSummary, resetMetricsBtn);
 
         VBox swapSection = new VBox(10);
         swapSection.getChildren().add(new Label("Área de Swapping (Disco)"));
         swapList.setPrefHeight(100);
-        swapSection.getChildren().add(swapList);
+        swapList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(String name, boolean empty) {
+                super.updateItem(name, empty);
+                setText(empty || name == null ? null : name + " (" + rendered.getSwapped().getOrDefault(name, 0) + "MB)");
+            }
+        });
+        Button swapInBtn = createActionButton("Traer a Memoria", "#4a90e2", this::swapInSelected);
+        compressedSwap.setPrefWidth(90);
+        compressedSwap.setEditable(true);
+        compressedSwap.valueProperty().addListener((obs, old, megabytes) -> {
+            if (syncingControls) return;
+            execute(m -> {
+                if (!m.getSwapArea().setCompressedCapacity(megabytes)) {
+                    post("No hay sitio en el fichero de swap para reducir el nivel comprimido a " + megabytes + " MB",
+                            "error");
+                    syncControls(m, journal.getMode());
+                    return;
+                }
+                journal.recordState("Swap comprimido: " + megabytes + " MB", journal.getMode());
+            });
+        });
+        HBox compressedRow = new HBox(8, new Label("Swap comprimido en RAM (MB, 0 = desactivado):"), compressedSwap);
+        swapSection.getChildren().addAll(swapList, swapInBtn, compressedRow, swapSummary, policySummary);
 
-        leftPanel.getChildren().addAll(memorySection, createForm(), swapSection);
+        leftPanel.getChildren().addAll(memorySection, metricsSection, createForm(), createSimulation(), createTimeline(),
+                swapSection);
         return leftPanel;
     }
 
@@ -113,11 +415,179 @@ public class AdvancedGestorApp extends Application {
 
         Button addBtn = createActionButton("Agregar Proceso", "#28a745", this::addProcess);
         Button removeBtn = createActionButton("Liberar Proceso", "#dc3545", this::removeProcess);
+        Button accessBtn = createActionButton("Acceder", "#6f42c1", this::accessProcess);
 
-        form.add(new HBox(10, addBtn, removeBtn), 0, 2, 2, 1);
+        form.add(new HBox(10, addBtn, removeBtn, accessBtn), 0, 2, 2, 1);
         return form;
     }
 
+    private VBox createSimulation() {
+        arrivalBox.getItems().setAll(TimeDistribution.values());
+        arrivalBox.setValue(TimeDistribution.EXPONENTIAL);
+        lifetimeBox.getItems().setAll(TimeDistribution.values());
+        lifetimeBox.setValue(TimeDistribution.EXPONENTIAL);
+        accelerationBox.getItems().setAll(100, 1_000, 10_000, 100_000);
+        accelerationBox.setValue(1_000);
+        arrivalBox.setOnAction(e -> configureSimulation());
+        lifetimeBox.setOnAction(e -> configureSimulation());
+        accelerationBox.setOnAction(e -> configureSimulation());
+        simulationBtn = createActionButton("Iniciar simulación", "#17a2b8", this::toggleSimulation);
+        return new VBox(5, new Label("Simulación de Eventos"),
+                new HBox(8, new Label("Llegadas:"), arrivalBox, new Label("Vidas:"), lifetimeBox),
+                new HBox(8, new Label("Aceleración: x"), accelerationBox, simulationBtn), simulationLabel);
+    }
+
+    private void toggleSimulation() {
+        if (simulationTimer != null) {
+            stopSimulation();
+            execute(m -> journal.recordState("Simulación de eventos", journal.getMode()));
+            return;
+        }
+        model.update(m -> {
+            if (simulation == null) simulation = new EventSimulation(m, WorkloadType.UNIFORM, System.nanoTime());
+            return false;
+        });
+        configureSimulation();
+        startSimulation();
+    }
+
+    // La configuración se aplica en el hilo del modelo; la simulación conserva su reloj y sus procesos.
+    private void configureSimulation() {
+        TimeDistribution arrivals = arrivalBox.getValue();
+        TimeDistribution lifetimes = lifetimeBox.getValue();
+        int acceleration = accelerationBox.getValue();
+        model.update(m -> {
+            if (simulation == null) return false;
+            simulation.setArrivals(arrivals, simulation.getMeanInterarrival());
+            simulation.setLifetimes(lifetimes, simulation.getMeanLifetime());
+            simulation.setAcceleration(acceleration);
+            return false;
+        });
+    }
+
+    // Un avance por pulso como mucho, con el tiempo real transcurrido desde el anterior.
+    private void startSimulation() {
+        simulationPending.set(false);
+        simulationBtn.setText("Detener simulación");
+        simulationTimer = new AnimationTimer() {
+            private long last;
+
+            @Override
+            public void handle(long now) {
+                // Tras una pausa larga (ventana oculta, modelo ocupado) no se recupera de golpe.
+                double elapsed = last == 0 ? 0 : Math.min((now - last) / 1e9, 0.1);
+                last = now;
+                if (!simulationPending.compareAndSet(false, true)) return;
+                model.update(m -> {
+                    try {
+                        int events = simulation.advance(elapsed);
+                        if (events > 0) journal.markChanged("Simulación de eventos");
+                        String text = simulationText(simulation);
+                        Platform.runLater(() -> simulationLabel.setText(text));
+                        return events > 0;
+                    } finally {
+                        simulationPending.set(false);
+                    }
+                });
+            }
+        };
+        simulationTimer.start();
+    }
+
+    private static String simulationText(EventSimulation s) {
+        long seconds = (long) s.getTime();
+        return String.format("%d:%02d:%02d simulados (x%.0f%s) | %d vivos | %d llegadas, %d rechazadas | "
+                        + "frag. media %.3f | %d compactaciones | swap: %d salidas, %d entradas",
+                seconds / 3600, seconds / 60 % 60, seconds % 60, s.getAcceleration(), s.isLagging() ? ", con retraso" : "",
+                s.getLive(), s.getArrived(), s.getRejected(), s.getAverageFragmentation(), s.getCompactions(),
+                s.getSwapOuts(), s.getSwapIns());
+    }
+
+    private void stopSimulation() {
+        if (simulationTimer != null) {
+            simulationTimer.stop();
+            simulationTimer = null;
+            simulationBtn.setText("Iniciar simulación");
+        }
+    }
+
+    private VBox createTimeline() {
+        timeline.setBlockIncrement(1);
+        timeline.setMajorTickUnit(1);
+        timeline.setMinorTickCount(0);
+        timeline.setSnapToTicks(true);
+        // Al arrastrar solo se salta al soltar; con clic o teclado, en cada cambio.
+        timeline.valueChangingProperty().addListener((obs, was, changing) -> {
+            if (!changing) seekTimeline();
+        });
+        timeline.valueProperty().addListener((obs, old, value) -> {
+            if (!timeline.isValueChanging()) seekTimeline();
+        });
+
+        Button undoBtn = createActionButton("Deshacer", "#6c757d", () -> travel(j -> j.undo()));
+        Button redoBtn = createActionButton("Rehacer", "#6c757d", () -> travel(j -> j.redo()));
+        Button failureBtn = createActionButton("Último fallo", "#dc3545", () -> travel(j -> {
+            int index = j.lastFailureBefore(j.getPosition());
+            if (index < 0) return false;
+            j.seek(index);
+            return true;
+        }));
+        return new VBox(5, new Label("Historial de Operaciones"), timeline,
+                new HBox(10, undoBtn, redoBtn, failureBtn), timelineLabel);
+    }
+
+    private void seekTimeline() {
+        if (updatingTimeline) return;
+        int index = (int) Math.round(timeline.getValue());
+        travel(j -> {
+            if (index == j.getPosition() || index < j.getFirst() || index > j.getLast()) return false;
+            j.seek(index);
+            return true;
+        });
+    }
+
+    // Lleva el gestor a otro punto del historial; el movimiento devuelve false si no había adónde ir.
+    private void travel(Predicate<OperationJournal> move) {
+        stopIncrementalCompaction();
+        stopSimulation();
+        execute(m -> {
+            // El cambio pendiente se registra antes de que el movimiento lea las posiciones.
+            journal.flush();
+            if (!move.test(journal)) return;
+            syncControls(m, journal.getMode());
+            post(String.format("Estado %d de %d (%.2f ms, %d operaciones repetidas)", journal.getPosition(),
+                    journal.getLast(), journal.getLastSeekNanos() / 1e6, journal.getLastReplayed()), "info");
+        });
+    }
+
+    // Ejecuta en el hilo del modelo y después publica la posición del historial.
+    private void execute(Consumer<MemoryManager> action) {
+        model.execute(m -> {
+            try {
+                action.accept(m);
+            } finally {
+                publishTimeline();
+            }
+        });
+    }
+
+    private void publishTimeline() {
+        int first = journal.getFirst();
+        int last = journal.getLast();
+        int position = journal.getPosition();
+        String text = String.format("%d/%d: %s | %d puntos de control (%d KB)", position, last,
+                position > first ? journal.getEntry(position) : "Estado inicial",
+                journal.getCheckpointCount(), journal.getCheckpointBytes() / 1024);
+        Platform.runLater(() -> {
+            updatingTimeline = true;
+            timeline.setMin(first);
+            timeline.setMax(last);
+            timeline.setValue(position);
+            updatingTimeline = false;
+            timelineLabel.setText(text);
+        });
+    }
+
     private Button createActionButton(String text, String color, Runnable action) {
         Button btn = new Button(text);
         btn.setStyle("-fx-background-color: " + color + "; -fx-text-fill: white;");
@@ -135,7 +605,7 @@ public class AdvancedGestorApp extends Application {
         rightPanel.getChildren().addAll(
                 new Label("Procesos Activos"),
                 processTable,
-                new Label("Distribución de Memoria"),
+                new HBox(10, new Label("Distribución de Memoria"), new Label("Máx. barras:"), chartLimit),
                 memoryChart
         );
         return rightPanel;
@@ -148,12 +618,28 @@ public class AdvancedGestorApp extends Application {
         TableColumn<ProcessInfo, Number> sizeCol = new TableColumn<>("Tamaño");
         sizeCol.setCellValueFactory(new PropertyValueFactory<>("size"));
 
-        processTable.getColumns().addAll(nameCol, sizeCol);
+        TableColumn<ProcessInfo, String> classCol = new TableColumn<>("Clase");
+        classCol.setCellValueFactory(new PropertyValueFactory<>("sizeClass"));
+
+        processTable.getColumns().setAll(List.of(nameCol, sizeCol, classCol));
+        processTable.setItems(processRows);
         processTable.setPrefHeight(200);
     }
 
     private void setupChart() {
         memoryChart.setLegendVisible(false);
+        memoryChart.setAnimated(false);
+        processSeries.setName("Procesos");
+        reservedSeries.setName("Reservado por clase");
+        occupiedSeries.setName("Ocupado por clase");
+        nodeUsedSeries.setName("Usado por nodo");
+        nodeRemoteSeries.setName("Remoto por nodo");
+        memoryChart.getData().add(processSeries);
+        chartLimit.setPrefWidth(80);
+        chartLimit.setEditable(true);
+        chartLimit.valueProperty().addListener((obs, old, limit) -> {
+            if (rendered != null) updateChart(processSizes());
+        });
         ((CategoryAxis) memoryChart.getXAxis()).setLabel("Procesos");
         ((NumberAxis) memoryChart.getYAxis()).setLabel("MB");
         memoryChart.setPrefHeight(250);
@@ -177,207 +663,423 @@ public class AdvancedGestorApp extends Application {
 
         try {
             int size = Integer.parseInt(sizeText);
-            if (!allocateMemory(name, size)) {
-                showStatus("No hay espacio suficiente - Considere compactación/swapping", "warning");
-            } else {
-                showStatus("Proceso agregado: " + name, "success");
-                updateVisuals();
+            if (size <= 0) {
+                showStatus("Error: Tamaño inválido", "error");
+                return;
             }
+            execute(m -> {
+                if (m.contains(name)) {
+                    post("Error: El proceso ya existe", "error");
+                } else if (journal.add(name, size)) {
+                    post(placementMessage(m, "Proceso agregado: " + name), "success");
+                } else {
+                    post("No hay espacio suficiente - Considere compactación/swapping", "warning");
+                }
+            });
         } catch (NumberFormatException e) {
             showStatus("Error: Tamaño inválido", "error");
         }
     }
 
-    private boolean allocateMemory(String name, int size) {
-        for (int i = 0; i < memoryBlocks.size(); i++) {
-            MemoryBlock block = memoryBlocks.get(i);
-            if (block.isFree() && block.getSize() >= size) {
-                if (block.getSize() > size) {
-                    MemoryBlock newBlock = new MemoryBlock("Free", block.getSize() - size, "#28a745");
-                    memoryBlocks.add(i + 1, newBlock);
-                }
-                block.setName(name);
-                block.setColor("#dc3545");
-                block.setSize(size);
-                return true;
-            }
+    // Se llama en el hilo del modelo justo después de la operación.
+    private static String placementMessage(MemoryManager m, String message) {
+        CompactionPlanner.Plan plan = m.getLastPlan();
+        if (plan != null) {
+            message += String.format(" tras mover %d MB (ahorro de %d MB frente a compactar todo)",
+                    plan.getMovedMemory(), plan.getSavedMemory());
         }
-        return false;
+        if (m.getLastEvictions() > 0) {
+            message += " | " + m.getLastEvictions() + " proceso(s) desalojados a swap ("
+                    + m.getPolicy().getType() + ")";
+        }
+        return message;
+    }
+
+    private void accessProcess() {
+        String name = processName.getText();
+        execute(m -> {
+            boolean resident = m.getAllocator().contains(name);
+            if (!journal.access(name)) {
+                post(m.contains(name)
+                        ? "No hay espacio para traer " + name + " a memoria"
+                        : "Proceso no encontrado", "error");
+            } else if (resident) {
+                post("Acceso a " + name + " (acierto)", "success");
+            } else {
+                post(placementMessage(m, "Fallo: " + name + " traído desde swap"), "success");
+            }
+        });
     }
 
     private void removeProcess() {
         String name = processName.getText();
-        boolean removed = memoryBlocks.removeIf(block ->
-                !block.isFree() && block.getName().equals(name));
+        execute(m -> {
+            if (journal.remove(name)) {
+                post("Proceso liberado: " + name, "success");
+            } else {
+                post("Proceso no encontrado", "error");
+            }
+        });
+    }
 
-        if (removed) {
-            mergeFreeBlocks();
-            updateVisuals();
-            showStatus("Proceso liberado: " + name, "success");
-        } else {
-            showStatus("Proceso no encontrado", "error");
+    private void compactMemory() {
+        execute(m -> {
+            if (journal.compact() == 0) {
+                post("No hay bloques que desplazar", "info");
+                return;
+            }
+            Platform.runLater(this::animateMemoryTransition);
+            post("Memoria compactada", "success");
+        });
+    }
+
+    private void toggleIncrementalCompaction() {
+        if (compactionTimer != null) {
+            stopIncrementalCompaction();
+            showStatus("Compactación incremental detenida", "warning");
+            return;
         }
+        model.execute(m -> {
+            if (!(m.getAllocator() instanceof FreeListAllocator)) {
+                post("Compactación incremental solo disponible con particiones variables", "error");
+                return;
+            }
+            FreeListAllocator allocator = (FreeListAllocator) m.getAllocator();
+            IncrementalCompactor compactor = new IncrementalCompactor(allocator);
+            Platform.runLater(() -> startIncrementalCompaction(allocator, compactor));
+        });
     }
 
-    private void compactMemory() {
-        int totalUsed = memoryBlocks.stream()
-                .filter(b -> !b.isFree())
-                .mapToInt(MemoryBlock::getSize)
-                .sum();
-
-        int freeSize = TOTAL_MEMORY - totalUsed;
-
-        List<MemoryBlock> newBlocks = new ArrayList<>();
-        newBlocks.addAll(memoryBlocks.stream()
-                .filter(b -> !b.isFree())
-                .toList());
-        newBlocks.add(new MemoryBlock("Free", freeSize, "#28a745"));
-
-        animateMemoryTransition(memoryBlocks, newBlocks);
-        memoryBlocks = newBlocks;
-        showStatus("Memoria compactada", "success");
-        updateVisuals();
+    // Un paso por pulso como mucho; el compactador solo se usa desde el hilo del modelo.
+    private void startIncrementalCompaction(FreeListAllocator allocator, IncrementalCompactor compactor) {
+        stopIncrementalCompaction();
+        stepPending.set(false);
+        compactionTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (!stepPending.compareAndSet(false, true)) return;
+                int budget = compactionBudget.getValue();
+                AnimationTimer timer = this;
+                execute(m -> {
+                    try {
+                        // Un salto del historial o un estado cargado sustituyen el asignador.
+                        if (m.getAllocator() != allocator) {
+                            Platform.runLater(() -> {
+                                if (compactionTimer == timer) stopIncrementalCompaction();
+                            });
+                            post("Compactación incremental detenida: la memoria cambió", "warning");
+                            return;
+                        }
+                        IncrementalCompactor.Step step = compactor.step(budget);
+                        journal.markChanged("Compactación incremental");
+                        if (!step.isFinished()) {
+                            post(String.format("Compactando: %.0f%% | %d MB en este paso (%.3f ms) | %d MB en total",
+                                    step.getProgress() * 100, step.getMoved(), step.getPauseNanos() / 1e6,
+                                    compactor.getTotalMoved()), "info");
+                            return;
+                        }
+                        journal.recordState("Compactación incremental", journal.getMode());
+                        Platform.runLater(() -> {
+                            if (compactionTimer == timer) stopIncrementalCompaction();
+                        });
+                        post(String.format("Compactación incremental completa: %d MB movidos en %d pasos, pausa máx. %.3f ms",
+                                compactor.getTotalMoved(), compactor.getSteps(), compactor.getMaxPauseNanos() / 1e6), "success");
+                    } finally {
+                        stepPending.set(false);
+                    }
+                });
+            }
+        };
+        compactionTimer.start();
+    }
+
+    private void stopIncrementalCompaction() {
+        if (compactionTimer != null) {
+            compactionTimer.stop();
+            compactionTimer = null;
+        }
     }
 
     private void handleSwapping() {
-        String selected = processTable.getSelectionModel().getSelectedItem().getName();
-        if (selected != null) {
-            swapProcess(selected);
+        ProcessInfo selected = processTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showStatus("Seleccione un proceso de la tabla", "error");
+            return;
         }
+        swapProcess(selected.getName());
     }
 
     private void swapProcess(String processName) {
-        Optional<MemoryBlock> processBlock = memoryBlocks.stream()
-                .filter(b -> !b.isFree() && b.getName().equals(processName))
-                .findFirst();
-
-        if (processBlock.isPresent()) {
-            swapList.getItems().add(processName + " (" + processBlock.get().getSize() + "MB)");
-            memoryBlocks.remove(processBlock.get());
-            mergeFreeBlocks();
-            updateVisuals();
-            showStatus("Proceso en swapping: " + processName, "warning");
+        execute(m -> {
+            if (!m.getAllocator().contains(processName)) return;
+            if (!journal.swapOut(processName)) {
+                post("Área de swapping llena", "error");
+                return;
+            }
+            post("Proceso en swapping: " + processName, "warning");
+        });
+    }
+
+    private void swapInSelected() {
+        String name = swapList.getSelectionModel().getSelectedItem();
+        if (name == null) {
+            showStatus("Seleccione un proceso del área de swapping", "error");
+            return;
         }
+        execute(m -> {
+            if (m.getAllocator().contains(name)) {
+                post("Error: Ya hay un proceso " + name + " en memoria", "error");
+            } else if (!journal.swapIn(name)) {
+                post("No hay espacio para traer " + name + " a memoria", "warning");
+            } else {
+                post(placementMessage(m, "Proceso traído a memoria: " + name), "success");
+            }
+        });
     }
 
     private void relocateProcess() {
-        List<MemoryBlock> current = new ArrayList<>(memoryBlocks);
-        List<MemoryBlock> optimized = optimizeMemoryLayout(current);
-
-        if (!current.equals(optimized)) {
-            animateMemoryTransition(current, optimized);
-            memoryBlocks = optimized;
-            showStatus("Procesos reubicados", "success");
-            updateVisuals();
+        int size;
+        try {
+            size = Integer.parseInt(processSize.getText());
+        } catch (NumberFormatException e) {
+            size = 0;
         }
+        int requested = size;
+        execute(m -> {
+            if (relocateForRequestedSize(m, requested)) {
+                journal.recordState("Reubicación para " + requested + " MB", journal.getMode());
+                Platform.runLater(this::animateMemoryTransition);
+            } else if (journal.compact() > 0) {
+                Platform.runLater(this::animateMemoryTransition);
+                post("Procesos reubicados", "success");
+            }
+        });
     }
 
-    private List<MemoryBlock> optimizeMemoryLayout(List<MemoryBlock> blocks) {
-        List<MemoryBlock> optimized = new ArrayList<>();
-        List<MemoryBlock> usedBlocks = blocks.stream()
-                .filter(b -> !b.isFree())
-                .toList();
+    // Con un tamaño en el formulario, reubica solo lo necesario para abrir un hueco de ese tamaño.
+    private boolean relocateForRequestedSize(MemoryManager m, int size) {
+        if (!(m.getAllocator() instanceof FreeListAllocator)) return false;
+        FreeListAllocator freeList = (FreeListAllocator) m.getAllocator();
+        if (size <= 0 || freeList.getLargestFreeBlock() >= size) return false;
+
+        CompactionPlanner planner = new CompactionPlanner(freeList);
+        CompactionPlanner.Plan plan = planner.plan(size);
+        if (plan == null) return false;
+        planner.open(plan);
+        post(String.format("Hueco de %d MB abierto moviendo %d MB (compactar todo movería %d MB)",
+                size, plan.getMovedMemory(), plan.getFullCompactionMemory()), "success");
+        return true;
+    }
 
-        int totalUsed = usedBlocks.stream()
-                .mapToInt(MemoryBlock::getSize)
-                .sum();
+    // La siguiente disposición con procesos desplazados se dibuja deslizándolos desde su offset anterior.
+    private void animateMemoryTransition() {
+        animateRelocations = true;
+    }
 
-        optimized.addAll(usedBlocks);
-        optimized.add(new MemoryBlock("Free", TOTAL_MEMORY - totalUsed, "#28a745"));
-        return optimized;
+    private void updateVisuals() {
+        syncBlocks();
+        updateMemoryDisplay();
+        Map<String, Integer> sizes = processSizes();
+        updateProcessTable(sizes);
+        updateChart(sizes);
+        updateMemorySummary();
+        updateMetrics();
+        updateSwapArea();
+        strategyBox.setDisable(!rendered.supportsStrategies());
     }
 
-    private void mergeFreeBlocks() {
-        List<MemoryBlock> merged = new ArrayList<>();
-        MemoryBlock currentFree = null;
+    private void updateSwapArea() {
+        MemorySnapshot s = rendered;
+        updateSwapList(s.getSwapped().keySet());
+        swapSummary.setText(String.format(
+                "Swap: %d/%d MB | Salidas: %d (%.1f µs, %d KB) | Entradas: %d (%.1f µs, %d KB)",
+                s.getSwapUsed(), s.getSwapCapacity(),
+                s.getSwapOuts(), s.getAverageSwapOutMicros(), s.getBytesWritten() / 1024,
+                s.getSwapIns(), s.getAverageSwapInMicros(), s.getBytesRead() / 1024)
+                + (s.getCompressedCapacity() == 0 ? "" : String.format(
+                "%nComprimido: %d/%d KB en RAM | ratio %.2f | comprimir %.1f µs, descomprimir %.1f µs | %.0f%% de entradas desde RAM",
+                s.getCompressedUsed() / 1024, s.getCompressedCapacity() / 1024, s.getCompressionRatio(),
+                s.getAverageCompressMicros(), s.getAverageDecompressMicros(), s.getRamSwapInShare() * 100)));
+        policySummary.setText(String.format("%s: %d aciertos | %d fallos | %d desalojos | tasa de aciertos %.1f%%",
+                s.getPolicyType(), s.getHits(), s.getMisses(), s.getEvictions(), s.getHitRate() * 100));
+    }
 
-        for (MemoryBlock block : memoryBlocks) {
-            if (block.isFree()) {
-                if (currentFree == null) {
-                    currentFree = block;
-                } else {
-                    currentFree.setSize(currentFree.getSize() + block.getSize());
-                }
-            } else {
-                if (currentFree != null) {
-                    merged.add(currentFree);
-                    currentFree = null;
-                }
-                merged.add(block);
-            }
+    // Como en la tabla de procesos, solo se quitan y añaden los que cambiaron para no perder la selección.
+    private void updateSwapList(Set<String> swapped) {
+        ObservableList<String> items = swapList.getItems();
+        items.removeIf(name -> !swapped.contains(name));
+        Set<String> listed = new HashSet<>(items);
+        for (String name : swapped) {
+            if (!listed.contains(name)) items.add(name);
         }
+        // Las celdas muestran el tamaño de la instantánea, que puede cambiar con el mismo nombre.
+        swapList.refresh();
+    }
 
-        if (currentFree != null) {
-            merged.add(currentFree);
+    // El aviso espera a una disposición con movimientos, por si antes llega una instantánea previa a la operación.
+    private void updateMemoryDisplay() {
+        if (animateRelocations) {
+            animateRelocations = !memoryMap.animateTo(layout, rendered.getTotalMemory());
+        } else {
+            memoryMap.setBlocks(layout, rendered.getTotalMemory());
         }
+    }
+
+    // Solo quita, actualiza o añade las filas que cambiaron; el resto conserva su fila y selección.
+    private void updateProcessTable(Map<String, Integer> sizes) {
+        Map<String, ProcessInfo> current = new LinkedHashMap<>();
+        sizes.forEach((name, size) -> current.put(name, new ProcessInfo(name, size, sizeClassLabel(name))));
 
-        memoryBlocks = merged;
+        processRows.removeIf(row -> !current.containsKey(row.getName()));
+        for (int i = 0; i < processRows.size(); i++) {
+            ProcessInfo fresh = current.remove(processRows.get(i).getName());
+            if (!fresh.equals(processRows.get(i))) processRows.set(i, fresh);
+        }
+        processRows.addAll(current.values());
+    }
+
+    // MB por proceso en orden de offset; con paginación un proceso puede ocupar varios bloques.
+    private Map<String, Integer> processSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (MemoryBlock block : memoryBlocks) {
+            if (!block.isFree()) sizes.merge(block.getName(), block.getSize(), Integer::sum);
+        }
+        return sizes;
     }
 
-    private void animateMemoryTransition(List<MemoryBlock> oldBlocks, List<MemoryBlock> newBlocks) {
-        ParallelTransition transition = new ParallelTransition();
+    private String sizeClassLabel(String name) {
+        if (!rendered.isSegregated()) return "-";
+        int classSize = rendered.getSizeClasses().getOrDefault(name, 0);
+        if (classSize == 0) return "General";
+        return rendered.getClassStats().stream()
+                .filter(c -> c.getClassSize() == classSize)
+                .findFirst()
+                .map(c -> classSize + "MB (" + c.getUsedSlots() + "/" + c.getTotalSlots() + ")")
+                .orElse(classSize + "MB");
+    }
 
-        for (MemoryBlock block : oldBlocks) {
-            FadeTransition ft = new FadeTransition(Duration.millis(300), block.getNode());
-            ft.setToValue(0);
-            transition.getChildren().add(ft);
+    // Por encima de "Máx. barras" procesos se muestran los mayores y un acumulado "Otros".
+    private void updateChart(Map<String, Integer> processes) {
+        int limit = chartLimit.getValue();
+        Map<String, Number> bars = new LinkedHashMap<>();
+        if (processes.size() <= limit) {
+            bars.putAll(processes);
+        } else {
+            PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            long total = 0;
+            for (Map.Entry<String, Integer> process : processes.entrySet()) {
+                total += process.getValue();
+                top.add(process);
+                if (top.size() >= limit) top.poll();
+            }
+            List<Map.Entry<String, Integer>> largest = new ArrayList<>(top);
+            largest.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            for (Map.Entry<String, Integer> process : largest) {
+                bars.put(process.getKey(), process.getValue());
+                total -= process.getValue();
+            }
+            bars.put("Otros", total);
+        }
+        applyBars(processSeries, bars);
+
+        Map<String, Number> reserved = new LinkedHashMap<>();
+        Map<String, Number> occupied = new LinkedHashMap<>();
+        for (SlabAllocator.SizeClassStats stats : rendered.getClassStats()) {
+            String category = "Clase " + stats.getClassSize() + "MB";
+            reserved.put(category, stats.getReservedMemory());
+            occupied.put(category, stats.getOccupiedMemory());
         }
+        showSeries(rendered.isSegregated(), reservedSeries, reserved, occupiedSeries, occupied);
 
-        transition.setOnFinished(e -> {
-            memoryVisualization.getChildren().clear();
-            newBlocks.forEach(b -> {
-                Pane node = b.getNode();
-                node.setOpacity(0);
-                FadeTransition ft = new FadeTransition(Duration.millis(300), node);
-                ft.setToValue(1);
-                ft.play();
-                memoryVisualization.getChildren().add(node);
-            });
-        });
+        Map<String, Number> nodeUsed = new LinkedHashMap<>();
+        Map<String, Number> nodeRemote = new LinkedHashMap<>();
+        for (int node = 0; node < rendered.getNodeCount(); node++) {
+            nodeUsed.put("Nodo " + node, rendered.getNodeUsed(node));
+            nodeRemote.put("Nodo " + node, rendered.getNodeRemote(node));
+        }
+        showSeries(rendered.getNodeCount() > 0, nodeUsedSeries, nodeUsed, nodeRemoteSeries, nodeRemote);
+        memoryChart.setLegendVisible(memoryChart.getData().size() > 1);
+    }
 
-        transition.play();
+    // Las series por clase de slab y por nodo solo están en el gráfico en sus modos.
+    private void showSeries(boolean visible, XYChart.Series<String, Number> first, Map<String, Number> firstBars,
+                            XYChart.Series<String, Number> second, Map<String, Number> secondBars) {
+        if (!visible) {
+            memoryChart.getData().removeAll(List.of(first, second));
+            return;
+        }
+        applyBars(first, firstBars);
+        applyBars(second, secondBars);
+        if (!memoryChart.getData().contains(first)) memoryChart.getData().addAll(List.of(first, second));
     }
 
-    private void updateVisuals() {
-        updateMemoryDisplay();
-        updateProcessTable();
-        updateChart();
-        updateMemorySummary();
+    // Aplica a la serie solo las barras que desaparecen, cambian de valor o son nuevas.
+    private static void applyBars(XYChart.Series<String, Number> series, Map<String, Number> bars) {
+        Map<String, Number> pending = new LinkedHashMap<>(bars);
+        series.getData().removeIf(d -> !pending.containsKey(d.getXValue()));
+        for (XYChart.Data<String, Number> data : series.getData()) {
+            Number value = pending.remove(data.getXValue());
+            if (!value.equals(data.getYValue())) data.setYValue(value);
+        }
+        pending.forEach((category, value) -> series.getData().add(new XYChart.Data<>(category, value)));
     }
 
-    private void updateMemoryDisplay() {
-        memoryVisualization.getChildren().clear();
-        memoryBlocks.forEach(block -> {
-            Pane node = block.getNode();
-            node.setPrefWidth((double) block.getSize() / TOTAL_MEMORY * 800);
-            Tooltip.install(node, new Tooltip(block.toString()));
-            memoryVisualization.getChildren().add(node);
-        });
+    private void updateMemorySummary() {
+        int used = rendered.getUsedMemory();
+        memorySummary.setText(String.format("Memoria Usada: %d MB (%.1f%%) | Libre: %d MB | Frag. interna: %d MB",
+                used, (used * 100.0) / rendered.getTotalMemory(), rendered.getFreeMemory(),
+                rendered.getInternalFragmentation()));
     }
 
-    private void updateProcessTable() {
-        ObservableList<ProcessInfo> processes = FXCollections.observableArrayList();
-        memoryBlocks.stream()
-                .filter(b -> !b.isFree())
-                .forEach(b -> processes.add(new ProcessInfo(b.getName(), b.getSize())));
-        processTable.setItems(processes);
+    // Las métricas admiten lecturas desde otros hilos; no hace falta pasar por el modelo.
+    private void updateMetrics() {
+        MemoryMetrics metrics = manager.getMetrics();
+        metricsSummary.setText(String.format(
+                "%s%n%s%n%s%nFrag. externa: %.3f | Mayor hueco: %d MB | Huecos: %d%n"
+                        + "Fallos: %d | Compactaciones dirigidas: %d | MB movidos: %d | Swap: %d salidas, %d entradas, %d desalojos",
+                latencyLine("Asignación", metrics.getAllocateLatency()),
+                latencyLine("Liberación", metrics.getReleaseLatency()),
+                latencyLine("Compactación", metrics.getCompactLatency()),
+                metrics.getExternalFragmentation(), metrics.getLargestFreeBlock(), metrics.getFreeBlockCount(),
+                metrics.getAllocationFailures(), metrics.getTargetedCompactions(), metrics.getMovedMemory(),
+                metrics.getSwapOuts(), metrics.getSwapIns(), metrics.getEvictions())
+                + (metrics.getPageAccesses() == 0 ? "" : String.format(
+                        "%nPaginación: %d traducciones | TLB %.1f%% aciertos | fallos de página %.2f%% | %.1f ns por traducción",
+                        metrics.getPageAccesses(), metrics.getTlbHitRate() * 100, metrics.getPageFaultRate() * 100,
+                        metrics.getTranslationNanosPerAccess()))
+                + tierLine(metrics) + nodeLine(metrics));
     }
 
-    private void updateChart() {
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        memoryBlocks.stream()
-                .filter(b -> !b.isFree())
-                .forEach(b -> series.getData().add(new XYChart.Data<>(b.getName(), b.getSize())));
-        memoryChart.getData().setAll(series);
+    private String nodeLine(MemoryMetrics metrics) {
+        if (rendered.getNodeCount() == 0) return "";
+        StringBuilder usage = new StringBuilder();
+        for (int node = 0; node < rendered.getNodeCount(); node++) {
+            usage.append(node == 0 ? "" : ", ").append(String.format("%d: %.0f%%", node,
+                    rendered.getNodeUsed(node) * 100.0 / rendered.getNodeCapacity(node)));
+        }
+        return String.format("%nNodos: %s | %.1f%% de asignaciones remotas | %.1f%% de accesos remotos"
+                        + " | %.0f ns por acceso | %d reequilibrados, %d MB",
+                usage, metrics.getRemoteAllocationRatio() * 100, metrics.getRemoteAccessRatio() * 100,
+                metrics.getNodeNanosPerAccess(), metrics.getRebalanceMoves(), metrics.getRebalancedMemory());
     }
 
-    private void updateMemorySummary() {
-        int used = memoryBlocks.stream()
-                .filter(b -> !b.isFree())
-                .mapToInt(MemoryBlock::getSize)
-                .sum();
-        memorySummary.setText(String.format("Memoria Usada: %d MB (%.1f%%) | Libre: %d MB",
-                used, (used * 100.0) / TOTAL_MEMORY, TOTAL_MEMORY - used));
+    private String tierLine(MemoryMetrics metrics) {
+        List<MemoryTier> tiers = rendered.getTiers();
+        if (tiers.isEmpty()) return "";
+        StringBuilder usage = new StringBuilder();
+        for (int i = 0; i < tiers.size(); i++) {
+            usage.append(i == 0 ? "" : ", ").append(tiers.get(i).getName()).append(' ')
+                    .append(rendered.getTierUsed(i)).append('/').append(tiers.get(i).getCapacity()).append(" MB");
+        }
+        return String.format("%nNiveles: %s | %.0f%% de accesos en el más rápido | %.0f ns por acceso frente a %.0f ns"
+                        + " sin niveles | %d promociones, %d degradaciones",
+                usage, metrics.getFastTierShare() * 100, metrics.getTierNanosPerAccess(),
+                metrics.getFlatTierNanosPerAccess(), metrics.getPromotions(), metrics.getDemotions());
+    }
+
+    private static String latencyLine(String label, LatencyHistogram histogram) {
+        return String.format("%s: %d | p50 %.2f µs | p99 %.2f µs | máx %.2f µs", label, histogram.getCount(),
+                histogram.percentile(0.50) / 1e3, histogram.percentile(0.99) / 1e3, histogram.getMax() / 1e3);
     }
 
     private void showStatus(String message, String type) {
@@ -391,6 +1093,28 @@ public class AdvancedGestorApp extends Application {
         statusLabel.setStyle("-fx-text-fill: " + color + ";");
     }
 
+    // Muestra el resultado de una operación del hilo del modelo en el hilo de JavaFX.
+    private void post(String message, String type) {
+        Platform.runLater(() -> showStatus(message, type));
+    }
+
+    @Override
+    public void stop() {
+        stopIncrementalCompaction();
+        stopSimulation();
+        if (refreshTimer != null) refreshTimer.stop();
+        if (migrationTimer != null) migrationTimer.stop();
+        model.close();
+        swapArea.close();
+        if (metricsName != null) {
+            try {
+                MemoryMetrics.unregister(metricsName);
+            } catch (JMException e) {
+                // La JVM está terminando; no hay nada más que hacer.
+            }
+        }
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -398,33 +1122,18 @@ public class AdvancedGestorApp extends Application {
     static class MemoryBlock {
         private String name;
         private int size;
-        private String color;
-        private Pane node;
 
-        public MemoryBlock(String name, int size, String color) {
+        public MemoryBlock(String name, int size) {
             this.name = name;
             this.size = size;
-            this.color = color;
-            this.node = new Pane();
-            updateNode();
         }
 
         public String getName() { return name; }
         public int getSize() { return size; }
         public boolean isFree() { return name.equals("Free"); }
-        public Pane getNode() { return node; }
 
         public void setName(String name) { this.name = name; }
         public void setSize(int size) { this.size = size; }
-        public void setColor(String color) {
-            this.color = color;
-            updateNode();
-        }
-
-        private void updateNode() {
-            node.setStyle("-fx-background-color: " + color + ";");
-            node.setMinHeight(40);
-        }
 
         @Override
         public String toString() {
@@ -435,13 +1144,28 @@ public class AdvancedGestorApp extends Application {
     public static class ProcessInfo {
         private final String name;
         private final Integer size;
+        private final String sizeClass;
 
-        public ProcessInfo(String name, Integer size) {
+        public ProcessInfo(String name, Integer size, String sizeClass) {
             this.name = name;
             this.size = size;
+            this.sizeClass = sizeClass;
         }
 
         public String getName() { return name; }
         public Integer getSize() { return size; }
+        public String getSizeClass() { return sizeClass; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ProcessInfo)) return false;
+            ProcessInfo other = (ProcessInfo) o;
+            return name.equals(other.name) && size.equals(other.size) && sizeClass.equals(other.sizeClass);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, size, sizeClass);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+package com.cesardarizaleta.gestor;
+
+import com.cesardarizaleta.gestor.advanced.Block;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Mapa de memoria dibujado en un único {@link Canvas}. Cada columna de píxeles cubre un tramo de
+ * offsets; si contiene varios bloques se pinta con la mezcla de libre y usado según la fracción
+ * ocupada. Solo se repintan las columnas cuyo color cambió respecto al último dibujo, y el tooltip
+ * localiza el bloque bajo el ratón por búsqueda binaria en los offsets. Las reubicaciones se
+ * animan con un único temporizador que desliza cada tramo movido de su offset anterior al nuevo.
+ */
+class MemoryMapCanvas extends Pane {
+    private static final int FREE = 0x28a745;
+    private static final int USED = 0xdc3545;
+    private static final int SEPARATOR = 0xffffff;
+    // Ancho mínimo en píxeles para dibujar la separación entre dos bloques.
+    private static final double SEPARATOR_MIN_WIDTH = 4;
+    private static final int MOVING = 0xfd7e14;
+    private static final long RELOCATION_NANOS = 600_000_000L;
+    // Tramos que se interpolan en cada fotograma; con más, los menores aparecen ya en su destino.
+    private static final int MAX_ANIMATED_RUNS = 2048;
+
+    private final Canvas canvas = new Canvas();
+    private final Tooltip tooltip = new Tooltip();
+    private List<Block> blocks = List.of();
+    private int[] offsets = new int[0];
+    private int totalMemory = 1;
+    private int[] painted;
+    private List<Run> runs = List.of();
+    private List<Block> fixed = List.of();
+    private long relocationStart = -1;
+    private double progress;
+    private final AnimationTimer relocation = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (relocationStart < 0) relocationStart = now;
+            double t = Math.min(1, (double) (now - relocationStart) / RELOCATION_NANOS);
+            progress = t * t * (3 - 2 * t);
+            if (t >= 1) {
+                stop();
+                runs = List.of();
+                fixed = List.of();
+            }
+            redraw();
+        }
+    };
+
+    MemoryMapCanvas() {
+        getChildren().add(canvas);
+        canvas.setOnMouseMoved(this::showBlockAt);
+        canvas.setOnMouseExited(e -> tooltip.hide());
+    }
+
+    /**
+     * Sustituye el contenido y repinta las columnas que cambian. Una reubicación en curso solo se
+     * interrumpe si la disposición es distinta de la que se está animando.
+     */
+    void setBlocks(List<Block> blocks, int totalMemory) {
+        if (!runs.isEmpty() && totalMemory == this.totalMemory && sameLayout(blocks)) return;
+        relocation.stop();
+        runs = List.of();
+        fixed = List.of();
+        replace(blocks, totalMemory);
+        redraw();
+    }
+
+    /**
+     * Como {@link #setBlocks}, pero los procesos que cambiaron de offset se deslizan desde el
+     * anterior. Los bloques contiguos con el mismo desplazamiento se mueven como un solo tramo.
+     * Devuelve false, sin animar, si ningún proceso se movió.
+     */
+    boolean animateTo(List<Block> blocks, int totalMemory) {
+        Map<String, Integer> before = new HashMap<>();
+        if (totalMemory == this.totalMemory) {
+            for (Block block : this.blocks) {
+                // Un proceso repartido en varios bloques, como con paginación, no tiene un único origen.
+                if (!block.isFree()) before.merge(block.getOwner(), block.getOffset(), (a, b) -> -1);
+            }
+        }
+        List<Run> moved = new ArrayList<>();
+        Run last = null;
+        for (Block block : blocks) {
+            Integer from = block.isFree() ? null : before.get(block.getOwner());
+            if (from == null || from < 0 || from == block.getOffset()) {
+                last = null;
+                continue;
+            }
+            if (last != null && last.to + last.size == block.getOffset() && last.to - last.from == block.getOffset() - from) {
+                last.size += block.getSize();
+            } else {
+                last = new Run(from, block.getOffset(), block.getSize());
+                moved.add(last);
+            }
+            last.owners.add(block.getOwner());
+        }
+        if (moved.isEmpty()) {
+            setBlocks(blocks, totalMemory);
+            return false;
+        }
+        if (moved.size() > MAX_ANIMATED_RUNS) {
+            moved.sort(Comparator.comparingInt((Run run) -> run.size).reversed());
+            moved = new ArrayList<>(moved.subList(0, MAX_ANIMATED_RUNS));
+        }
+        Set<String> animated = new HashSet<>();
+        for (Run run : moved) animated.addAll(run.owners);
+        List<Block> stay = new ArrayList<>();
+        for (Block block : blocks) {
+            if (!block.isFree() && !animated.contains(block.getOwner())) stay.add(block);
+        }
+        replace(blocks, totalMemory);
+        runs = moved;
+        fixed = stay;
+        progress = 0;
+        relocationStart = -1;
+        relocation.start();
+        redraw();
+        return true;
+    }
+
+    private boolean sameLayout(List<Block> other) {
+        if (other.size() != blocks.size()) return false;
+        for (int i = 0; i < other.size(); i++) {
+            Block a = other.get(i);
+            Block b = blocks.get(i);
+            if (a.getOffset() != b.getOffset() || a.getSize() != b.getSize() || !Objects.equals(a.getOwner(), b.getOwner())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void replace(List<Block> blocks, int totalMemory) {
+        this.blocks = blocks;
+        this.totalMemory = totalMemory;
+        offsets = new int[blocks.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = blocks.get(i).getOffset();
+        }
+    }
+
+    /** Bloque que contiene el offset dado, o null fuera de la memoria. */
+    Block blockAt(int offset) {
+        int i = Arrays.binarySearch(offsets, offset);
+        if (i < 0) i = -i - 2;
+        return i < 0 || i >= offsets.length ? null : blocks.get(i);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = Math.max(0, getWidth() - snappedLeftInset() - snappedRightInset());
+        double height = Math.max(0, getHeight() - snappedTopInset() - snappedBottomInset());
+        canvas.relocate(snappedLeftInset(), snappedTopInset());
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            painted = null;
+            redraw();
+        }
+    }
+
+    private void redraw() {
+        int width = (int) canvas.getWidth();
+        if (width == 0 || canvas.getHeight() == 0) return;
+        int[] colors = columnColors(width);
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        if (painted == null || painted.length != width) {
+            paintRange(g, colors, 0, width);
+        } else {
+            int x = 0;
+            while (x < width) {
+                if (colors[x] == painted[x]) {
+                    x++;
+                    continue;
+                }
+                int from = x;
+                while (x < width && colors[x] != painted[x]) x++;
+                paintRange(g, colors, from, x);
+            }
+        }
+        painted = colors;
+    }
+
+    // Agrupa columnas consecutivas del mismo color en un solo rectángulo.
+    private void paintRange(GraphicsContext g, int[] colors, int from, int to) {
+        double height = canvas.getHeight();
+        int x = from;
+        while (x < to) {
+            int color = colors[x];
+            int start = x;
+            while (x < to && colors[x] == color) x++;
+            g.setFill(Color.rgb(color >> 16 & 0xff, color >> 8 & 0xff, color & 0xff));
+            g.fillRect(start, 0, x - start, height);
+        }
+    }
+
+    // Fracción ocupada de cada columna, en O(bloques + columnas).
+    private int[] columnColors(int width) {
+        if (!runs.isEmpty()) return relocationColors(width);
+        double scale = (double) width / totalMemory;
+        double[] used = new double[width];
+        boolean[] separator = new boolean[width];
+        double previousWidth = 0;
+        for (Block block : blocks) {
+            double start = block.getOffset() * scale;
+            double end = Math.min(width, block.getEnd() * scale);
+            double blockWidth = end - start;
+            if (block.getOffset() > 0 && blockWidth >= SEPARATOR_MIN_WIDTH && previousWidth >= SEPARATOR_MIN_WIDTH) {
+                separator[Math.min(width - 1, (int) start)] = true;
+            }
+            previousWidth = blockWidth;
+            if (!block.isFree()) cover(used, start, end);
+        }
+        int[] colors = new int[width];
+        for (int col = 0; col < width; col++) {
+            colors[col] = separator[col] ? SEPARATOR : mix(Math.min(1, used[col]));
+        }
+        return colors;
+    }
+
+    // Durante una reubicación: los bloques quietos como siempre y los tramos en su posición interpolada.
+    private int[] relocationColors(int width) {
+        double scale = (double) width / totalMemory;
+        double[] used = new double[width];
+        double[] moving = new double[width];
+        for (Block block : fixed) cover(used, block.getOffset() * scale, Math.min(width, block.getEnd() * scale));
+        for (Run run : runs) {
+            double start = (run.from + (run.to - run.from) * progress) * scale;
+            cover(moving, start, Math.min(width, start + run.size * scale));
+        }
+        int[] colors = new int[width];
+        for (int col = 0; col < width; col++) {
+            colors[col] = blend(mix(Math.min(1, used[col])), MOVING, Math.min(1, moving[col]));
+        }
+        return colors;
+    }
+
+    private static void cover(double[] columns, double start, double end) {
+        for (int col = (int) start; col < end && col < columns.length; col++) {
+            columns[col] += Math.min(end, col + 1) - Math.max(start, col);
+        }
+    }
+
+    private static int mix(double usedFraction) {
+        if (usedFraction <= 0) return FREE;
+        if (usedFraction >= 1) return USED;
+        return blend(FREE, USED, usedFraction);
+    }
+
+    private static int blend(int from, int to, double t) {
+        if (t >= 1) return to;
+        return channel(from >> 16, to >> 16, t) << 16 | channel(from >> 8, to >> 8, t) << 8 | channel(from, to, t);
+    }
+
+    private static int channel(int from, int to, double t) {
+        from &= 0xff;
+        to &= 0xff;
+        return (int) Math.round(from + (to - from) * t);
+    }
+
+    private void showBlockAt(MouseEvent e) {
+        if (canvas.getWidth() == 0) return;
+        Block block = blockAt((int) (e.getX() / canvas.getWidth() * totalMemory));
+        if (block == null) {
+            tooltip.hide();
+            return;
+        }
+        tooltip.setText(block + " [" + block.getOffset() + "-" + block.getEnd() + " MB]");
+        tooltip.show(canvas, e.getScreenX() + 12, e.getScreenY() + 12);
+    }
+
+    // Procesos contiguos que se desplazan lo mismo; se dibujan como un solo rectángulo.
+    private static final class Run {
+        final int from;
+        final int to;
+        int size;
+        final List<String> owners = new ArrayList<>();
+
+        Run(int from, int to, int size) {
+            this.from = from;
+            this.to = to;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.cesardarizaleta.gestor;
+
+import com.cesardarizaleta.gestor.advanced.AllocationStrategy;
+import com.cesardarizaleta.gestor.advanced.CompactionPolicy;
+import com.cesardarizaleta.gestor.advanced.MemoryManager;
+import com.cesardarizaleta.gestor.advanced.ParameterSweep;
+import com.cesardarizaleta.gestor.advanced.WorkloadType;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ventana del barrido de parámetros: lanza {@link ParameterSweep} fuera del hilo de JavaFX con
+ * todos los núcleos y muestra los resultados en una tabla y un gráfico por métrica.
+ */
+class SweepWindow {
+    private final Stage stage = new Stage();
+    private final TextField memories = new TextField("512,1024,2048");
+    private final ComboBox<WorkloadType> workloadBox = new ComboBox<>();
+    private final Spinner<Integer> operations = new Spinner<>(1_000, 10_000_000, 100_000, 10_000);
+    private final Spinner<Integer> targetLoad = new Spinner<>(1, 1_000_000, 800, 100);
+    private final ComboBox<Metric> metricBox = new ComboBox<>();
+    private final TableView<ParameterSweep.Result> table = new TableView<>();
+    private final BarChart<String, Number> chart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+    private final ProgressBar progress = new ProgressBar(0);
+    private final Label status = new Label();
+    private final Button runButton = new Button("Ejecutar barrido");
+    private List<ParameterSweep.Result> results = List.of();
+
+    SweepWindow() {
+        workloadBox.getItems().setAll(WorkloadType.values());
+        workloadBox.setValue(WorkloadType.UNIFORM);
+        operations.setEditable(true);
+        targetLoad.setEditable(true);
+        metricBox.getItems().setAll(Metric.values());
+        metricBox.setValue(Metric.FAILURE_RATE);
+        metricBox.setOnAction(e -> updateChart());
+        runButton.setOnAction(e -> run());
+
+        setupTable();
+        chart.setAnimated(false);
+        ((CategoryAxis) chart.getXAxis()).setLabel("Memoria / compactación");
+        chart.setPrefHeight(280);
+
+        HBox controls = new HBox(10,
+                new Label("Memorias (MB):"), memories,
+                new Label("Carga:"), workloadBox,
+                new Label("Operaciones:"), operations,
+                new Label("Carga viva (MB):"), targetLoad,
+                runButton);
+        VBox root = new VBox(10, controls, new HBox(10, progress, status), table,
+                new HBox(10, new Label("Métrica:"), metricBox), chart);
+        root.setPadding(new Insets(10));
+
+        stage.setTitle("Barrido de parámetros");
+        stage.setScene(new Scene(root, 1100, 700));
+    }
+
+    void show() {
+        stage.show();
+        stage.toFront();
+    }
+
+    private void setupTable() {
+        table.getColumns().add(column("Estrategia", r -> r.getConfig().getStrategy()));
+        table.getColumns().add(column("Memoria (MB)", r -> r.getConfig().getMemory()));
+        table.getColumns().add(column("Compactación", r -> r.getConfig().getPolicy()));
+        table.getColumns().add(column("Carga", r -> r.getConfig().getWorkload()));
+        table.getColumns().add(column("Fallos", r -> String.format("%.2f%%", r.getFailureRate() * 100)));
+        table.getColumns().add(column("Frag. externa", r -> String.format("%.3f", r.getMeanFragmentation())));
+        table.getColumns().add(column("MB movidos", ParameterSweep.Result::getMovedMemory));
+        table.getColumns().add(column("ops/s", r -> String.format("%.0f", r.getOpsPerSecond())));
+        table.setPrefHeight(250);
+    }
+
+    private static <T> TableColumn<ParameterSweep.Result, T> column(String title,
+                                                                   Function<ParameterSweep.Result, T> value) {
+        TableColumn<ParameterSweep.Result, T> col = new TableColumn<>(title);
+        col.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(value.apply(c.getValue())));
+        return col;
+    }
+
+    private void run() {
+        List<Integer> memorySizes;
+        try {
+            memorySizes = Arrays.stream(memories.getText().split(","))
+                    .map(String::strip)
+                    .map(Integer::valueOf)
+                    .toList();
+        } catch (NumberFormatException e) {
+            status.setText("Error: lista de memorias inválida");
+            return;
+        }
+        ParameterSweep sweep;
+        try {
+            sweep = new ParameterSweep(List.of(AllocationStrategy.values()), memorySizes,
+                    List.of(CompactionPolicy.values()), List.of(workloadBox.getValue()));
+            sweep.setOperations(operations.getValue());
+            sweep.setTargetLoad(targetLoad.getValue());
+        } catch (IllegalArgumentException e) {
+            status.setText("Error: " + e.getMessage());
+            return;
+        }
+
+        int total = sweep.configurations().size();
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger done = new AtomicInteger();
+        Task<List<ParameterSweep.Result>> task = new Task<>() {
+            @Override
+            protected List<ParameterSweep.Result> call() {
+                sweep.setListener(r -> updateProgress(done.incrementAndGet(), total));
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                Logger log = Logger.getLogger(MemoryManager.class.getName());
+                Level level = log.getLevel();
+                log.setLevel(Level.WARNING);
+                try {
+                    return sweep.run(pool);
+                } finally {
+                    log.setLevel(level);
+                    pool.shutdown();
+                }
+            }
+        };
+        progress.progressProperty().bind(task.progressProperty());
+        runButton.setDisable(true);
+        status.setText(String.format("Ejecutando %d simulaciones con %d hilos...", total, threads));
+        long start = System.nanoTime();
+        task.setOnSucceeded(e -> {
+            results = task.getValue();
+            table.getItems().setAll(results);
+            updateChart();
+            runButton.setDisable(false);
+            status.setText(String.format("%d simulaciones en %.2f s", total, (System.nanoTime() - start) / 1e9));
+        });
+        task.setOnFailed(e -> {
+            runButton.setDisable(false);
+            status.setText("Error: " + task.getException().getMessage());
+        });
+        Thread worker = new Thread(task, "sweep");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Una serie por estrategia; cada categoría es una combinación de memoria y compactación.
+    private void updateChart() {
+        Metric metric = metricBox.getValue();
+        ((NumberAxis) chart.getYAxis()).setLabel(metric.toString());
+        List<XYChart.Series<String, Number>> series = Arrays.stream(AllocationStrategy.values())
+                .map(strategy -> {
+                    XYChart.Series<String, Number> s = new XYChart.Series<>();
+                    s.setName(strategy.toString());
+                    results.stream()
+                            .filter(r -> r.getConfig().getStrategy() == strategy)
+                            .forEach(r -> s.getData().add(new XYChart.Data<>(
+                                    r.getConfig().getMemory() + "MB / " + r.getConfig().getPolicy(),
+                                    metric.value.applyAsDouble(r))));
+                    return s;
+                })
+                .toList();
+        chart.getData().setAll(series);
+    }
+
+    private enum Metric {
+        FAILURE_RATE("Tasa de fallos", ParameterSweep.Result::getFailureRate),
+        FRAGMENTATION("Fragmentación externa media", ParameterSweep.Result::getMeanFragmentation),
+        MOVED("MB movidos", r -> r.getMovedMemory()),
+        THROUGHPUT("Operaciones por segundo", ParameterSweep.Result::getOpsPerSecond);
+
+        private final String label;
+        private final ToDoubleFunction<ParameterSweep.Result> value;
+
+        Metric(String label, ToDoubleFunction<ParameterSweep.Result> value) {
+            this.label = label;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+}
@@ -0,0 +1,128 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Base de las políticas: cuenta aciertos, fallos y desalojos, y guarda y carga su estado en las
+ * instantáneas de {@link StateFile} para que restaurar un punto de control no altere el orden de
+ * las víctimas siguientes.
+ */
+abstract class AbstractEvictionPolicy implements EvictionPolicy {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private String lastVictim;
+
+    @Override
+    public final void recordInsert(String name) {
+        lastVictim = null;
+        onInsert(name);
+    }
+
+    @Override
+    public final void recordHit(String name) {
+        lastVictim = null;
+        hits++;
+        onHit(name);
+    }
+
+    @Override
+    public final void recordMiss(String name) {
+        lastVictim = null;
+        misses++;
+        onMiss(name);
+    }
+
+    @Override
+    public final void recordRemoval(String name) {
+        lastVictim = null;
+        onRemove(name);
+    }
+
+    @Override
+    public final String selectVictim() {
+        String victim = evict();
+        if (victim != null) evictions++;
+        lastVictim = victim;
+        return victim;
+    }
+
+    @Override
+    public final void cancelEviction(String name) {
+        if (name == null || !name.equals(lastVictim)) {
+            throw new IllegalStateException("Solo se puede deshacer la última víctima elegida: " + name);
+        }
+        lastVictim = null;
+        evictions--;
+        undoEvict(name);
+    }
+
+    @Override
+    public long getHits() { return hits; }
+
+    @Override
+    public long getMisses() { return misses; }
+
+    @Override
+    public long getEvictions() { return evictions; }
+
+    /** Bytes que ocupa el estado en una instantánea binaria, contadores incluidos. */
+    final long stateBytes() {
+        return 3L * Long.BYTES + contentBytes();
+    }
+
+    final void writeState(ByteBuffer out) {
+        out.putLong(hits).putLong(misses).putLong(evictions);
+        writeContent(out);
+    }
+
+    /** Carga el estado guardado; solo sobre una política recién creada. */
+    final void readState(ByteBuffer in) {
+        hits = in.getLong();
+        misses = in.getLong();
+        evictions = in.getLong();
+        readContent(in);
+    }
+
+    protected abstract long contentBytes();
+
+    protected abstract void writeContent(ByteBuffer out);
+
+    protected abstract void readContent(ByteBuffer in);
+
+    static long namesBytes(Collection<String> names) {
+        long bytes = Integer.BYTES;
+        for (String name : names) bytes += StateFile.stringBytes(name);
+        return bytes;
+    }
+
+    static void putNames(ByteBuffer out, Collection<String> names) {
+        out.putInt(names.size());
+        for (String name : names) StateFile.putString(out, name);
+    }
+
+    static List<String> getNames(ByteBuffer in) {
+        int count = StateFile.getLength(in, Integer.BYTES);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) names.add(StateFile.getString(in));
+        return names;
+    }
+
+    protected abstract void onInsert(String name);
+
+    protected abstract void onHit(String name);
+
+    protected void onMiss(String name) {
+        onInsert(name);
+    }
+
+    protected abstract void onRemove(String name);
+
+    protected abstract String evict();
+
+    /** Devuelve la última víctima de {@link #evict()} al sitio y estado que tenía antes. */
+    protected abstract void undoEvict(String name);
+}
@@ -0,0 +1,17 @@
+package com.cesardarizaleta.gestor.advanced;
+
+public enum AllocationStrategy {
+    FIRST_FIT("Primer ajuste"),
+    BEST_FIT("Mejor ajuste"),
+    WORST_FIT("Peor ajuste"),
+    NEXT_FIT("Siguiente ajuste");
+
+    private final String label;
+
+    AllocationStrategy(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() { return label; }
+}
@@ -0,0 +1,34 @@
+package com.cesardarizaleta.gestor.advanced;
+
+public enum AllocatorMode {
+    VARIABLE_PARTITIONS("Particiones variables"),
+    BUDDY("Sistema buddy"),
+    SEGREGATED("Ajuste segregado (slabs)"),
+    ARENAS("Arenas concurrentes"),
+    BLOCK_STORE("Almacén compacto de 64 bits"),
+    PAGED("Paginación"),
+    TIERED("Memoria por niveles"),
+    NUMA("Nodos NUMA");
+
+    private final String label;
+
+    AllocatorMode(String label) {
+        this.label = label;
+    }
+
+    public MemoryAllocator create(int totalMemory) {
+        return switch (this) {
+            case VARIABLE_PARTITIONS -> new FreeListAllocator(totalMemory);
+            case BUDDY -> new BuddyAllocator(totalMemory);
+            case SEGREGATED -> new SlabAllocator(totalMemory);
+            case ARENAS -> new ArenaAllocator(totalMemory);
+            case BLOCK_STORE -> new BlockStoreAllocator(totalMemory);
+            case PAGED -> new PagedAllocator(totalMemory);
+            case TIERED -> new TieredAllocator(totalMemory);
+            case NUMA -> new NumaAllocator(totalMemory);
+        };
+    }
+
+    @Override
+    public String toString() { return label; }
+}
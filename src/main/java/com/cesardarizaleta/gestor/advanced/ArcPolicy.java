@@ -0,0 +1,139 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adaptive Replacement Cache: T1 (vistos una vez) y T2 (vistos varias veces) con sus listas
+ * fantasma B1/B2. Un fallo que encuentra el proceso en B1 o B2 desplaza el objetivo {@code p}
+ * hacia recencia o frecuencia. El tamaño de la caché es el número de residentes, que aquí
+ * varía porque los procesos no miden lo mismo.
+ */
+class ArcPolicy extends AbstractEvictionPolicy {
+    private final LinkedNames t1 = new LinkedNames();
+    private final LinkedNames t2 = new LinkedNames();
+    private final LinkedNames b1 = new LinkedNames();
+    private final LinkedNames b2 = new LinkedNames();
+    private double p;
+    private boolean lastMissFromB2;
+    // Lo que cambió el último desalojo, para deshacerlo: de qué lista salió y los fantasmas recortados.
+    private boolean lastFromT1;
+    private final List<String> trimmedB1 = new ArrayList<>();
+    private final List<String> trimmedB2 = new ArrayList<>();
+
+    @Override
+    protected void onInsert(String name) {
+        if (t1.contains(name) || t2.contains(name)) {
+            onHit(name);
+            return;
+        }
+        // Un proceso nuevo con el nombre de un fantasma empieza sin historial: así ningún residente
+        // está a la vez en una lista fantasma y deshacer su desalojo no pierde el fantasma.
+        b1.remove(name);
+        b2.remove(name);
+        t1.add(name);
+        trimGhosts();
+    }
+
+    @Override
+    protected void onHit(String name) {
+        if (t1.remove(name) || t2.remove(name)) {
+            t2.add(name);
+        }
+    }
+
+    @Override
+    protected void onMiss(String name) {
+        int c = Math.max(1, t1.size() + t2.size());
+        lastMissFromB2 = false;
+        if (b1.remove(name)) {
+            p = Math.min(c, p + Math.max(1.0, (double) b2.size() / Math.max(1, b1.size())));
+            t2.add(name);
+        } else if (b2.remove(name)) {
+            p = Math.max(0, p - Math.max(1.0, (double) b1.size() / Math.max(1, b2.size())));
+            lastMissFromB2 = true;
+            t2.add(name);
+        } else {
+            t1.add(name);
+        }
+        trimGhosts();
+    }
+
+    @Override
+    protected void onRemove(String name) {
+        t1.remove(name);
+        t2.remove(name);
+        b1.remove(name);
+        b2.remove(name);
+    }
+
+    @Override
+    protected String evict() {
+        boolean fromT1 = !t1.isEmpty()
+                && (t1.size() > p || (lastMissFromB2 && t1.size() >= p) || t2.isEmpty());
+        LinkedNames source = fromT1 ? t1 : t2;
+        String victim = source.pollFirst();
+        if (victim == null) return null;
+        (fromT1 ? b1 : b2).add(victim);
+        lastFromT1 = fromT1;
+        trimmedB1.clear();
+        trimmedB2.clear();
+        int c = Math.max(1, t1.size() + t2.size());
+        while (b1.size() > c) trimmedB1.add(b1.pollFirst());
+        while (b2.size() > c) trimmedB2.add(b2.pollFirst());
+        return victim;
+    }
+
+    // p no cambia al desalojar; basta con devolver la víctima y los fantasmas recortados a su sitio.
+    @Override
+    protected void undoEvict(String name) {
+        (lastFromT1 ? b1 : b2).remove(name);
+        prepend(b1, trimmedB1);
+        prepend(b2, trimmedB2);
+        (lastFromT1 ? t1 : t2).addFirst(name);
+        trimmedB1.clear();
+        trimmedB2.clear();
+    }
+
+    // Los recortados salieron del principio en este orden; vuelven al revés para quedar igual.
+    private static void prepend(LinkedNames list, List<String> names) {
+        for (int i = names.size() - 1; i >= 0; i--) list.addFirst(names.get(i));
+    }
+
+    double getTarget() { return p; }
+
+    @Override
+    protected long contentBytes() {
+        return Double.BYTES + 1 + namesBytes(t1) + namesBytes(t2) + namesBytes(b1) + namesBytes(b2);
+    }
+
+    @Override
+    protected void writeContent(ByteBuffer out) {
+        out.putDouble(p).put((byte) (lastMissFromB2 ? 1 : 0));
+        putNames(out, t1);
+        putNames(out, t2);
+        putNames(out, b1);
+        putNames(out, b2);
+    }
+
+    @Override
+    protected void readContent(ByteBuffer in) {
+        p = in.getDouble();
+        lastMissFromB2 = in.get() != 0;
+        if (!(p >= 0)) {
+            throw new IllegalArgumentException("Objetivo de ARC inválido: " + p);
+        }
+        for (LinkedNames list : List.of(t1, t2, b1, b2)) list.addAll(getNames(in));
+    }
+
+    // Cada lista fantasma se limita al número de residentes, como |T1|+|B1| <= c en ARC.
+    private void trimGhosts() {
+        int c = Math.max(1, t1.size() + t2.size());
+        while (b1.size() > c) b1.pollFirst();
+        while (b2.size() > c) b2.pollFirst();
+    }
+
+    @Override
+    public EvictionPolicyType getType() { return EvictionPolicyType.ARC; }
+}
@@ -0,0 +1,295 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asignador seguro para varios hilos: el espacio de direcciones se reparte en arenas contiguas,
+ * cada una con sus propias particiones variables y su propio cerrojo. Cada hilo tiene una arena
+ * de origen; si no hay hueco en ella, roba de las siguientes. Un proceso debe caber en una arena
+ * y la compactación no cruza sus límites.
+ */
+public class ArenaAllocator implements MemoryAllocator {
+    public static final int DEFAULT_ARENAS = 4;
+
+    private final int totalMemory;
+    private final Arena[] arenas;
+    private final ConcurrentHashMap<String, Arena> owners = new ConcurrentHashMap<>();
+    private final LongAdder usedMemory = new LongAdder();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+    private volatile AllocationStrategy strategy = AllocationStrategy.FIRST_FIT;
+
+    public ArenaAllocator(int totalMemory) {
+        this(totalMemory, DEFAULT_ARENAS);
+    }
+
+    public ArenaAllocator(int totalMemory, int arenaCount) {
+        if (arenaCount <= 0 || totalMemory < arenaCount) {
+            throw new IllegalArgumentException("Arenas inválidas: " + arenaCount + " para " + totalMemory + " MB");
+        }
+        this.totalMemory = totalMemory;
+        this.arenas = new Arena[arenaCount];
+        int base = 0;
+        for (int i = 0; i < arenaCount; i++) {
+            // Las primeras arenas absorben el resto de la división.
+            int size = totalMemory / arenaCount + (i < totalMemory % arenaCount ? 1 : 0);
+            arenas[i] = new Arena(base, size);
+            base += size;
+        }
+    }
+
+    @Override
+    public boolean allocate(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        int home = homeArena();
+        // Reserva el nombre antes de buscar hueco para rechazar duplicados concurrentes.
+        if (owners.putIfAbsent(name, arenas[home]) != null) return false;
+        for (int k = 0; k < arenas.length; k++) {
+            Arena arena = arenas[(home + k) % arenas.length];
+            if (size > arena.size) continue;
+            lock(arena);
+            try {
+                if (!arena.allocator.allocate(name, size)) continue;
+                owners.put(name, arena);
+            } finally {
+                arena.lock.unlock();
+            }
+            usedMemory.add(size);
+            if (k > 0) steals.increment();
+            return true;
+        }
+        owners.remove(name);
+        return false;
+    }
+
+    @Override
+    public boolean release(String name) {
+        Arena arena = owners.get(name);
+        if (arena == null) return false;
+        int size;
+        lock(arena);
+        try {
+            size = arena.allocator.sizeOf(name);
+            if (size == 0 || !arena.allocator.release(name)) return false;
+            // Dentro del cerrojo: en cuanto se suelta, otro hilo puede volver a asignar el nombre.
+            owners.remove(name, arena);
+        } finally {
+            arena.lock.unlock();
+        }
+        usedMemory.add(-size);
+        return true;
+    }
+
+    @Override
+    public int compact() {
+        int moved = 0;
+        for (Arena arena : arenas) {
+            lock(arena);
+            try {
+                moved += arena.allocator.compact();
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+        return moved;
+    }
+
+    /** Bloques en orden de offset; cada arena se copia bajo su cerrojo. */
+    @Override
+    public List<Block> blocks() {
+        List<Block> result = new ArrayList<>();
+        for (Arena arena : arenas) {
+            lock(arena);
+            try {
+                PartitionedAllocator.addShifted(result, arena.base, arena.allocator.blocks());
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int sizeOf(String name) {
+        Arena arena = owners.get(name);
+        if (arena == null) return 0;
+        lock(arena);
+        try {
+            return arena.allocator.sizeOf(name);
+        } finally {
+            arena.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String name) { return sizeOf(name) > 0; }
+
+    @Override
+    public int getTotalMemory() { return totalMemory; }
+
+    @Override
+    public int getUsedMemory() { return usedMemory.intValue(); }
+
+    @Override
+    public int getLargestFreeBlock() {
+        int largest = 0;
+        for (Arena arena : arenas) {
+            lock(arena);
+            try {
+                largest = Math.max(largest, arena.allocator.getLargestFreeBlock());
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+        return largest;
+    }
+
+    @Override
+    public int getFreeBlockCount() {
+        int count = 0;
+        for (Arena arena : arenas) {
+            lock(arena);
+            try {
+                count += arena.allocator.getFreeBlockCount();
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean supportsStrategies() { return true; }
+
+    @Override
+    public AllocationStrategy getStrategy() { return strategy; }
+
+    @Override
+    public void setStrategy(AllocationStrategy strategy) {
+        this.strategy = strategy;
+        for (Arena arena : arenas) {
+            lock(arena);
+            try {
+                arena.allocator.setStrategy(strategy);
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+    }
+
+    /** Reparte la disposición por arenas; ningún bloque puede cruzar el límite de una arena. */
+    @Override
+    public void restore(List<Block> layout, Map<String, Integer> requested) {
+        int[] bases = new int[arenas.length];
+        int[] sizes = new int[arenas.length];
+        for (int i = 0; i < arenas.length; i++) {
+            bases[i] = arenas[i].base;
+            sizes[i] = arenas[i].size;
+        }
+        List<List<Block>> parts = PartitionedAllocator.split(layout, bases, sizes);
+        for (int i = 0; i < arenas.length; i++) {
+            Arena arena = arenas[i];
+            lock(arena);
+            try {
+                arena.allocator.restore(parts.get(i), requested);
+            } finally {
+                arena.lock.unlock();
+            }
+            for (Block block : parts.get(i)) {
+                if (block.isFree()) continue;
+                owners.put(block.getOwner(), arena);
+                usedMemory.add(block.getSize());
+            }
+        }
+    }
+
+    /** Bytes del estado de cada arena que la disposición no refleja, en una instantánea. */
+    int stateBytes() {
+        int bytes = 0;
+        for (Arena arena : arenas) bytes += arena.allocator.stateBytes();
+        return bytes;
+    }
+
+    void writeState(ByteBuffer out) {
+        for (Arena arena : arenas) {
+            lock(arena);
+            try {
+                arena.allocator.writeState(out);
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+    }
+
+    void readState(ByteBuffer in) {
+        for (Arena arena : arenas) {
+            lock(arena);
+            try {
+                arena.allocator.readState(in);
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+    }
+
+    public int getArenaCount() { return arenas.length; }
+
+    /** Offset inicial de cada arena. */
+    public int getArenaBase(int arena) { return arenas[arena].base; }
+
+    public int getArenaSize(int arena) { return arenas[arena].size; }
+
+    /** Cerrojos tomados desde la creación o el último {@link #resetStats()}. */
+    public long getLockAcquisitions() { return acquisitions.sum(); }
+
+    /** Cerrojos que estaban ocupados por otro hilo al intentar tomarlos. */
+    public long getContendedAcquisitions() { return contended.sum(); }
+
+    /** Asignaciones servidas por una arena distinta de la de origen del hilo. */
+    public long getSteals() { return steals.sum(); }
+
+    public double getContentionRate() {
+        long total = acquisitions.sum();
+        return total == 0 ? 0 : (double) contended.sum() / total;
+    }
+
+    public void resetStats() {
+        acquisitions.reset();
+        contended.reset();
+        steals.reset();
+    }
+
+    private int homeArena() {
+        long id = Thread.currentThread().getId();
+        return (int) Long.remainderUnsigned(id * 0x9E3779B97F4A7C15L >>> 16, arenas.length);
+    }
+
+    private void lock(Arena arena) {
+        acquisitions.increment();
+        if (arena.lock.tryLock()) return;
+        contended.increment();
+        arena.lock.lock();
+    }
+
+    private static final class Arena {
+        final int base;
+        final int size;
+        final FreeListAllocator allocator;
+        final ReentrantLock lock = new ReentrantLock();
+
+        Arena(int base, int size) {
+            this.base = base;
+            this.size = size;
+            this.allocator = new FreeListAllocator(size);
+        }
+    }
+}
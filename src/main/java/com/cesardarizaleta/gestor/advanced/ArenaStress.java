@@ -0,0 +1,182 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prueba de carga del {@link ArenaAllocator}: miles de tareas productoras asignan y liberan a la
+ * vez. Se ejecuta con grupos de 1, 2, 4... hilos de plataforma hasta el número de núcleos y, si
+ * la JVM los ofrece (Java 21 o posterior), con un hilo virtual por tarea; cada fila informa del
+ * rendimiento, la contención de cerrojos y los robos entre arenas.
+ */
+public class ArenaStress {
+    public static final String CSV_HEADER =
+            "executor,threads,tasks,operations,elapsed_ms,ops_per_sec,speedup,contention_rate,steals,failures";
+
+    private final int memory;
+    private final int arenas;
+    private final int tasks;
+    private final int operationsPerTask;
+    private final int maxLive;
+
+    public ArenaStress(int memory, int arenas, int tasks, int operationsPerTask, int maxLive) {
+        if (tasks <= 0 || operationsPerTask <= 0 || maxLive <= 0) {
+            throw new IllegalArgumentException("Parámetros de carga inválidos");
+        }
+        this.memory = memory;
+        this.arenas = arenas;
+        this.tasks = tasks;
+        this.operationsPerTask = operationsPerTask;
+        this.maxLive = maxLive;
+    }
+
+    /** Ejecuta todas las tareas en el ejecutor dado sobre un asignador nuevo. */
+    public Result run(String label, int threads, ExecutorService executor) throws InterruptedException {
+        ArenaAllocator allocator = new ArenaAllocator(memory, arenas);
+        List<Callable<Long>> work = new ArrayList<>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            int task = t;
+            work.add(() -> producer(allocator, task));
+        }
+        long start = System.nanoTime();
+        long failures = 0;
+        for (Future<Long> future : executor.invokeAll(work)) {
+            try {
+                failures += future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Tarea fallida", e.getCause());
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(label, threads, (long) tasks * operationsPerTask, elapsed,
+                allocator.getContentionRate(), allocator.getSteals(), failures);
+    }
+
+    // Cada tarea mantiene hasta maxLive procesos propios y libera el más antiguo al superarlo.
+    private long producer(ArenaAllocator allocator, int task) {
+        SplittableRandom random = new SplittableRandom(task);
+        ArrayDeque<String> live = new ArrayDeque<>();
+        long failures = 0;
+        for (int i = 0; i < operationsPerTask; i++) {
+            if (live.size() >= maxLive || (!live.isEmpty() && random.nextInt(3) == 0)) {
+                allocator.release(live.poll());
+                continue;
+            }
+            String name = task + "-" + i;
+            if (allocator.allocate(name, 1 + random.nextInt(8))) live.add(name); else failures++;
+        }
+        live.forEach(allocator::release);
+        return failures;
+    }
+
+    /** Ejecutor con un hilo virtual por tarea, o null si la JVM no los soporta. */
+    static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static final class Result {
+        private final String executor;
+        private final int threads;
+        private final long operations;
+        private final long elapsedNanos;
+        private final double contentionRate;
+        private final long steals;
+        private final long failures;
+
+        Result(String executor, int threads, long operations, long elapsedNanos, double contentionRate,
+               long steals, long failures) {
+            this.executor = executor;
+            this.threads = threads;
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.contentionRate = contentionRate;
+            this.steals = steals;
+            this.failures = failures;
+        }
+
+        public String getExecutor() { return executor; }
+        public int getThreads() { return threads; }
+        public long getOperations() { return operations; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public double getContentionRate() { return contentionRate; }
+        public long getSteals() { return steals; }
+        public long getFailures() { return failures; }
+
+        public double getOpsPerSecond() {
+            return elapsedNanos == 0 ? 0 : operations / (elapsedNanos / 1e9);
+        }
+    }
+
+    /**
+     * Uso: {@code ArenaStress [--memory MB] [--arenas N] [--tasks N] [--operations N por tarea]
+     * [--live N procesos por tarea]}.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int memory = 262_144;
+        int arenas = Math.max(ArenaAllocator.DEFAULT_ARENAS, cores);
+        int tasks = 2_000;
+        int operations = 1_000;
+        int live = 16;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--memory" -> memory = Integer.parseInt(args[++i]);
+                case "--arenas" -> arenas = Integer.parseInt(args[++i]);
+                case "--tasks" -> tasks = Integer.parseInt(args[++i]);
+                case "--operations" -> operations = Integer.parseInt(args[++i]);
+                case "--live" -> live = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        ArenaStress stress = new ArenaStress(memory, arenas, tasks, operations, live);
+
+        // Una ronda descartada para que el JIT no penalice a la primera configuración.
+        ExecutorService warmup = Executors.newFixedThreadPool(cores);
+        try {
+            stress.run("calentamiento", cores, warmup);
+        } finally {
+            warmup.shutdown();
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                results.add(stress.run("plataforma", threads, pool));
+            } finally {
+                pool.shutdown();
+            }
+            if (threads == cores) break;
+        }
+        ExecutorService virtual = virtualThreadExecutor();
+        if (virtual != null) {
+            try {
+                results.add(stress.run("virtual", tasks, virtual));
+            } finally {
+                virtual.shutdown();
+            }
+        } else {
+            System.err.println("Hilos virtuales no disponibles en esta JVM (" + Runtime.version().feature()
+                    + "); hacen falta Java 21 o posterior, así que solo se comparan hilos de plataforma");
+        }
+
+        double baseline = results.get(0).getOpsPerSecond();
+        System.out.println(CSV_HEADER);
+        for (Result r : results) {
+            System.out.printf("%s,%d,%d,%d,%d,%.0f,%.2f,%.4f,%d,%d%n",
+                    r.executor, r.threads, tasks, r.operations, r.elapsedNanos / 1_000_000, r.getOpsPerSecond(),
+                    r.getOpsPerSecond() / baseline, r.contentionRate, r.steals, r.failures);
+        }
+    }
+}
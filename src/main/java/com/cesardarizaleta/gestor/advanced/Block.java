@@ -0,0 +1,33 @@
+package com.cesardarizaleta.gestor.advanced;
+
+/**
+ * Bloque contiguo del espacio de direcciones simulado. Un bloque sin dueño está libre.
+ */
+public final class Block {
+    private int offset;
+    private int size;
+    private String owner;
+    Block prev;
+    Block next;
+
+    Block(int offset, int size, String owner) {
+        this.offset = offset;
+        this.size = size;
+        this.owner = owner;
+    }
+
+    public int getOffset() { return offset; }
+    public int getSize() { return size; }
+    public int getEnd() { return offset + size; }
+    public String getOwner() { return owner; }
+    public boolean isFree() { return owner == null; }
+
+    void setOffset(int offset) { this.offset = offset; }
+    void setSize(int size) { this.size = size; }
+    void setOwner(String owner) { this.owner = owner; }
+
+    @Override
+    public String toString() {
+        return isFree() ? "Libre: " + size + "MB" : owner + ": " + size + "MB";
+    }
+}
@@ -0,0 +1,606 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Almacén compacto de bloques para espacios de direcciones enormes: offsets y tamaños en bytes
+ * como {@code long}, en arrays primitivos paralelos (estructura de arrays) indexados por ranura.
+ * Los nombres se internan en un {@link NameTable} y cada bloque guarda solo el id de su dueño, así
+ * que un millón de bloques no crea un millón de objetos. Los bloques forman una lista doblemente
+ * enlazada por offset y los huecos dos treaps (por offset y por tamaño) sobre las mismas ranuras,
+ * con búsquedas O(log n) para todas las estrategias como en {@link FreeListAllocator}.
+ */
+public final class BlockStore {
+    /** Dueño de las ranuras libres. */
+    public static final int FREE = -1;
+    private static final int NIL = -1;
+
+    private final long capacity;
+    private final NameTable names;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    // Columnas por ranura.
+    private long[] offsets;
+    private long[] sizes;
+    private int[] owners;
+    private int[] prev;
+    private int[] next;
+    private int[] priorities;
+    // Treap de huecos por offset, aumentado con el mayor tamaño del subárbol. Los enlaces de los
+    // treaps intercalan los dos hijos de cada ranura: [left(ranura)] y [right(ranura)].
+    private int[] offsetLinks;
+    private long[] maxSizes;
+    // Treap de huecos por (tamaño, offset).
+    private int[] sizeLinks;
+
+    private int[] recycled = new int[16];
+    private int recycledCount;
+    private int slotCount;
+    private int[] slotOfName = new int[16];
+
+    private int head;
+    private int offsetRoot = NIL;
+    private int sizeRoot = NIL;
+    private int blockCount;
+    private int holeCount;
+    private long usedBytes;
+    private AllocationStrategy strategy = AllocationStrategy.FIRST_FIT;
+    private long nextFitCursor;
+
+    // Resultado de las particiones del treap por offset.
+    private int splitLeft;
+    private int splitRight;
+
+    public BlockStore(long capacity) {
+        this(capacity, 16);
+    }
+
+    /** @param expectedBlocks ranuras reservadas de antemano para evitar crecimientos. */
+    public BlockStore(long capacity, int expectedBlocks) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + capacity);
+        }
+        this.capacity = capacity;
+        this.names = new NameTable(expectedBlocks);
+        allocateColumns(Math.max(2, expectedBlocks));
+        head = newSlot(0, capacity, FREE);
+        blockCount = 1;
+        index(head);
+    }
+
+    public AllocationStrategy getStrategy() { return strategy; }
+
+    public void setStrategy(AllocationStrategy strategy) {
+        this.strategy = strategy;
+        nextFitCursor = 0;
+    }
+
+    public boolean allocate(String name, long size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        if (slotOf(name) != NIL) return false;
+        int hole = find(size);
+        if (hole == NIL) return false;
+
+        unindex(hole);
+        int id = names.intern(name);
+        int slot = newSlot(offsets[hole], size, id);
+        linkBefore(slot, hole);
+        blockCount++;
+        if (id >= slotOfName.length) slotOfName = Arrays.copyOf(slotOfName, Math.max(id + 1, slotOfName.length * 2));
+        slotOfName[id] = slot;
+        usedBytes += size;
+        nextFitCursor = offsets[slot] + size;
+
+        offsets[hole] += size;
+        sizes[hole] -= size;
+        if (sizes[hole] == 0) {
+            unlink(hole);
+        } else {
+            index(hole);
+        }
+        return true;
+    }
+
+    public boolean release(String name) {
+        int slot = slotOf(name);
+        if (slot == NIL) return false;
+        int id = owners[slot];
+        names.remove(id);
+        slotOfName[id] = NIL;
+        usedBytes -= sizes[slot];
+        owners[slot] = FREE;
+
+        int before = prev[slot];
+        if (before != NIL && owners[before] == FREE) {
+            unindex(before);
+            sizes[before] += sizes[slot];
+            unlink(slot);
+            slot = before;
+        }
+        int after = next[slot];
+        if (after != NIL && owners[after] == FREE) {
+            unindex(after);
+            sizes[slot] += sizes[after];
+            unlink(after);
+        }
+        index(slot);
+        return true;
+    }
+
+    /** Mueve los bloques usados al inicio; devuelve los bytes desplazados. */
+    public long compact() {
+        long moved = 0;
+        long cursor = 0;
+        int last = NIL;
+        int processes = 0;
+        for (int slot = head, following; slot != NIL; slot = following) {
+            following = next[slot];
+            if (owners[slot] == FREE) {
+                recycle(slot);
+                continue;
+            }
+            if (offsets[slot] != cursor) {
+                moved += sizes[slot];
+                offsets[slot] = cursor;
+            }
+            prev[slot] = last;
+            if (last == NIL) head = slot; else next[last] = slot;
+            last = slot;
+            cursor += sizes[slot];
+            processes++;
+        }
+        if (last == NIL) head = NIL; else next[last] = NIL;
+        offsetRoot = NIL;
+        sizeRoot = NIL;
+        holeCount = 0;
+        blockCount = processes;
+        if (cursor < capacity) {
+            int tail = newSlot(cursor, capacity - cursor, FREE);
+            prev[tail] = last;
+            if (last == NIL) head = tail; else next[last] = tail;
+            blockCount++;
+            index(tail);
+        }
+        // Como en FreeListAllocator, el cursor solo vuelve al inicio si algo se ha movido.
+        if (moved > 0) nextFitCursor = 0;
+        return moved;
+    }
+
+    /**
+     * Reconstruye el almacén vacío a partir de los tamaños en orden de offset, negativos para los
+     * huecos, y de los nombres de los procesos en el mismo orden. Los bloques se enlazan sin buscar
+     * huecos y el treap por offset se construye en O(n) porque los huecos ya llegan ordenados.
+     */
+    public void restore(long[] layout, String[] processNames) {
+        if (getProcessCount() > 0) {
+            throw new IllegalStateException("Solo se puede restaurar sobre un almacén vacío");
+        }
+        if (offsets.length < layout.length) allocateColumns(layout.length);
+        slotCount = 0;
+        recycledCount = 0;
+        head = NIL;
+        blockCount = 0;
+        usedBytes = 0;
+        nextFitCursor = 0;
+        int[] holes = new int[layout.length];
+        int holeTotal = 0;
+        int named = 0;
+        int last = NIL;
+        long cursor = 0;
+        for (long signed : layout) {
+            long size = Math.abs(signed);
+            if (signed == 0 || cursor + size > capacity) {
+                throw new IllegalArgumentException("Bloque inválido en el offset " + cursor + ": " + signed);
+            }
+            if (signed < 0 && last != NIL && owners[last] == FREE) {
+                sizes[last] += size;
+                cursor += size;
+                continue;
+            }
+            int owner = FREE;
+            if (signed > 0) {
+                String name = processNames[named++];
+                if (names.find(name) >= 0) {
+                    throw new IllegalArgumentException("Proceso duplicado: " + name);
+                }
+                owner = names.intern(name);
+            }
+            int slot = newSlot(cursor, size, owner);
+            prev[slot] = last;
+            if (last == NIL) head = slot; else next[last] = slot;
+            last = slot;
+            blockCount++;
+            if (owner == FREE) {
+                holes[holeTotal++] = slot;
+            } else {
+                if (owner >= slotOfName.length) slotOfName = Arrays.copyOf(slotOfName, Math.max(owner + 1, slotOfName.length * 2));
+                slotOfName[owner] = slot;
+                usedBytes += size;
+            }
+            cursor += size;
+        }
+        if (cursor != capacity || named != processNames.length) {
+            throw new IllegalArgumentException("La disposición cubre " + cursor + " de " + capacity + " bytes");
+        }
+        buildIndex(holes, holeTotal);
+    }
+
+    /** Recorre los bloques por offset, incluidos los huecos, sin crear objetos. */
+    public void forEach(BlockVisitor visitor) {
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            visitor.visit(offsets[slot], sizes[slot], owners[slot]);
+        }
+    }
+
+    /** Bytes del proceso, o 0 si no está residente. */
+    public long sizeOf(String name) {
+        int slot = slotOf(name);
+        return slot == NIL ? 0 : sizes[slot];
+    }
+
+    /** Offset del proceso, o -1 si no está residente. */
+    public long offsetOf(String name) {
+        int slot = slotOf(name);
+        return slot == NIL ? -1 : offsets[slot];
+    }
+
+    public boolean contains(String name) { return slotOf(name) != NIL; }
+
+    /** Nombre asociado al id de dueño que entrega {@link #forEach}. */
+    public String nameOf(int owner) { return owner == FREE ? null : names.name(owner); }
+
+    public long getCapacity() { return capacity; }
+
+    /** Bytes del cursor del siguiente ajuste, que la disposición no refleja, en una instantánea. */
+    int stateBytes() { return Long.BYTES; }
+
+    void writeState(ByteBuffer out) { out.putLong(nextFitCursor); }
+
+    /** Tras {@link #restore}, recupera el cursor del siguiente ajuste. */
+    void readState(ByteBuffer in) {
+        long cursor = in.getLong();
+        if (cursor < 0 || cursor > capacity) {
+            throw new IllegalArgumentException("Cursor del siguiente ajuste inválido: " + cursor);
+        }
+        nextFitCursor = cursor;
+    }
+
+    public long getUsedBytes() { return usedBytes; }
+
+    public long getFreeBytes() { return capacity - usedBytes; }
+
+    /** Bloques en la lista, incluidos los huecos. */
+    public int getBlockCount() { return blockCount; }
+
+    public int getProcessCount() { return blockCount - holeCount; }
+
+    public int getHoleCount() { return holeCount; }
+
+    public long getLargestHole() { return offsetRoot == NIL ? 0 : maxSizes[offsetRoot]; }
+
+    public double getExternalFragmentation() {
+        long free = getFreeBytes();
+        return free == 0 ? 0 : 1.0 - (double) getLargestHole() / free;
+    }
+
+    /** Bytes de heap reservados por las columnas y la tabla de nombres, sin contar las cadenas. */
+    public long footprintBytes() {
+        long slots = offsets.length;
+        return slots * (3 * Long.BYTES + 8 * Integer.BYTES)
+                + (long) Integer.BYTES * (recycled.length + slotOfName.length)
+                + names.footprintBytes();
+    }
+
+    private int slotOf(String name) {
+        int id = names.find(name);
+        return id < 0 || id >= slotOfName.length ? NIL : slotOfName[id];
+    }
+
+    private int find(long size) {
+        return switch (strategy) {
+            case FIRST_FIT -> leftmostFit(offsetRoot, size, Long.MIN_VALUE);
+            case NEXT_FIT -> {
+                int hole = leftmostFit(offsetRoot, size, nextFitCursor);
+                yield hole != NIL ? hole : leftmostFit(offsetRoot, size, Long.MIN_VALUE);
+            }
+            case BEST_FIT -> bestFit(size);
+            case WORST_FIT -> {
+                int hole = sizeRoot;
+                if (hole != NIL) while (sizeLinks[right(hole)] != NIL) hole = sizeLinks[right(hole)];
+                yield hole != NIL && sizes[hole] >= size ? hole : NIL;
+            }
+        };
+    }
+
+    // Hueco de menor offset >= minOffset con tamaño suficiente, podando por maxSizes.
+    private int leftmostFit(int node, long size, long minOffset) {
+        while (node != NIL && maxSizes[node] >= size) {
+            if (offsets[node] < minOffset) {
+                node = offsetLinks[right(node)];
+                continue;
+            }
+            int left = leftmostFit(offsetLinks[left(node)], size, minOffset);
+            if (left != NIL) return left;
+            if (sizes[node] >= size) return node;
+            node = offsetLinks[right(node)];
+        }
+        return NIL;
+    }
+
+    private int bestFit(long size) {
+        int best = NIL;
+        for (int node = sizeRoot; node != NIL; ) {
+            if (sizes[node] >= size) {
+                best = node;
+                node = sizeLinks[left(node)];
+            } else {
+                node = sizeLinks[right(node)];
+            }
+        }
+        return best;
+    }
+
+    // Un hueco no debe cambiar de offset ni de tamaño mientras esté indexado.
+    private void index(int hole) {
+        priorities[hole] = random.nextInt();
+        offsetLinks[left(hole)] = offsetLinks[right(hole)] = NIL;
+        sizeLinks[left(hole)] = sizeLinks[right(hole)] = NIL;
+        maxSizes[hole] = sizes[hole];
+        offsetRoot = offsetInsert(offsetRoot, hole);
+        sizeRoot = sizeInsert(sizeRoot, hole);
+        holeCount++;
+    }
+
+    // Los huecos llegan ordenados por offset; para el treap por tamaño se ordenan aparte.
+    private void buildIndex(int[] holes, int count) {
+        for (int i = 0; i < count; i++) {
+            priorities[holes[i]] = random.nextInt();
+        }
+        offsetRoot = cartesian(holes, count, offsetLinks, true);
+        int[] bySize = Arrays.copyOf(holes, count);
+        sortBySize(bySize);
+        sizeRoot = cartesian(bySize, count, sizeLinks, false);
+        holeCount = count;
+    }
+
+    // Árbol cartesiano en O(n) sobre ranuras ya ordenadas por la clave del treap: cada nodo
+    // desapilado tiene sus subárboles completos y se puede actualizar su maxSizes.
+    private int cartesian(int[] sorted, int count, int[] links, boolean augmented) {
+        int[] stack = new int[count];
+        int top = 0;
+        for (int i = 0; i < count; i++) {
+            int node = sorted[i];
+            int popped = NIL;
+            while (top > 0 && priorities[stack[top - 1]] < priorities[node]) {
+                popped = stack[--top];
+                if (augmented) update(popped);
+            }
+            links[left(node)] = popped;
+            links[right(node)] = NIL;
+            if (top > 0) links[right(stack[top - 1])] = node;
+            stack[top++] = node;
+        }
+        if (augmented) {
+            for (int i = top - 1; i >= 0; i--) update(stack[i]);
+        }
+        return top == 0 ? NIL : stack[0];
+    }
+
+    // Ordenación por mezcla ascendente, sin objetos por elemento.
+    private void sortBySize(int[] slots) {
+        int[] source = slots;
+        int[] target = new int[slots.length];
+        for (int width = 1; width < slots.length; width *= 2) {
+            for (int from = 0; from < slots.length; from += 2 * width) {
+                int middle = Math.min(from + width, slots.length);
+                int to = Math.min(from + 2 * width, slots.length);
+                int i = from;
+                int j = middle;
+                for (int k = from; k < to; k++) {
+                    target[k] = j >= to || i < middle && !sizeBefore(source[j], source[i]) ? source[i++] : source[j++];
+                }
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != slots) System.arraycopy(source, 0, slots, 0, slots.length);
+    }
+
+    private void unindex(int hole) {
+        offsetRoot = offsetDelete(offsetRoot, offsets[hole]);
+        sizeRoot = sizeDelete(sizeRoot, hole);
+        holeCount--;
+    }
+
+    private int offsetInsert(int node, int fresh) {
+        if (node == NIL) return fresh;
+        if (priorities[fresh] > priorities[node]) {
+            offsetSplit(node, offsets[fresh]);
+            offsetLinks[left(fresh)] = splitLeft;
+            offsetLinks[right(fresh)] = splitRight;
+            return update(fresh);
+        }
+        if (offsets[fresh] < offsets[node]) {
+            offsetLinks[left(node)] = offsetInsert(offsetLinks[left(node)], fresh);
+        } else {
+            offsetLinks[right(node)] = offsetInsert(offsetLinks[right(node)], fresh);
+        }
+        return update(node);
+    }
+
+    private int offsetDelete(int node, long offset) {
+        if (node == NIL) return NIL;
+        if (offset == offsets[node]) return offsetMerge(offsetLinks[left(node)], offsetLinks[right(node)]);
+        if (offset < offsets[node]) {
+            offsetLinks[left(node)] = offsetDelete(offsetLinks[left(node)], offset);
+        } else {
+            offsetLinks[right(node)] = offsetDelete(offsetLinks[right(node)], offset);
+        }
+        return update(node);
+    }
+
+    private void offsetSplit(int node, long offset) {
+        if (node == NIL) {
+            splitLeft = splitRight = NIL;
+        } else if (offsets[node] < offset) {
+            offsetSplit(offsetLinks[right(node)], offset);
+            offsetLinks[right(node)] = splitLeft;
+            splitLeft = update(node);
+        } else {
+            offsetSplit(offsetLinks[left(node)], offset);
+            offsetLinks[left(node)] = splitRight;
+            splitRight = update(node);
+        }
+    }
+
+    private int offsetMerge(int left, int right) {
+        if (left == NIL) return right;
+        if (right == NIL) return left;
+        if (priorities[left] > priorities[right]) {
+            offsetLinks[right(left)] = offsetMerge(offsetLinks[right(left)], right);
+            return update(left);
+        }
+        offsetLinks[left(right)] = offsetMerge(left, offsetLinks[left(right)]);
+        return update(right);
+    }
+
+    private int update(int node) {
+        long max = sizes[node];
+        if (offsetLinks[left(node)] != NIL && maxSizes[offsetLinks[left(node)]] > max) max = maxSizes[offsetLinks[left(node)]];
+        if (offsetLinks[right(node)] != NIL && maxSizes[offsetLinks[right(node)]] > max) max = maxSizes[offsetLinks[right(node)]];
+        maxSizes[node] = max;
+        return node;
+    }
+
+    private boolean sizeBefore(int a, int b) {
+        return sizes[a] < sizes[b] || sizes[a] == sizes[b] && offsets[a] < offsets[b];
+    }
+
+    // El treap por tamaño se reequilibra por rotaciones para no necesitar otra partición.
+    private int sizeInsert(int node, int fresh) {
+        if (node == NIL) return fresh;
+        if (sizeBefore(fresh, node)) {
+            sizeLinks[left(node)] = sizeInsert(sizeLinks[left(node)], fresh);
+            if (priorities[sizeLinks[left(node)]] > priorities[node]) return rotateRight(node);
+        } else {
+            sizeLinks[right(node)] = sizeInsert(sizeLinks[right(node)], fresh);
+            if (priorities[sizeLinks[right(node)]] > priorities[node]) return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int sizeDelete(int node, int hole) {
+        if (node == NIL) return NIL;
+        if (node == hole) return sizeMerge(sizeLinks[left(node)], sizeLinks[right(node)]);
+        if (sizeBefore(hole, node)) {
+            sizeLinks[left(node)] = sizeDelete(sizeLinks[left(node)], hole);
+        } else {
+            sizeLinks[right(node)] = sizeDelete(sizeLinks[right(node)], hole);
+        }
+        return node;
+    }
+
+    private int sizeMerge(int left, int right) {
+        if (left == NIL) return right;
+        if (right == NIL) return left;
+        if (priorities[left] > priorities[right]) {
+            sizeLinks[right(left)] = sizeMerge(sizeLinks[right(left)], right);
+            return left;
+        }
+        sizeLinks[left(right)] = sizeMerge(left, sizeLinks[left(right)]);
+        return right;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = sizeLinks[left(node)];
+        sizeLinks[left(node)] = sizeLinks[right(pivot)];
+        sizeLinks[right(pivot)] = node;
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = sizeLinks[right(node)];
+        sizeLinks[right(node)] = sizeLinks[left(pivot)];
+        sizeLinks[left(pivot)] = node;
+        return pivot;
+    }
+
+    // Los dos hijos de una ranura quedan contiguos y comparten línea de caché.
+    private static int left(int slot) { return 2 * slot; }
+
+    private static int right(int slot) { return 2 * slot + 1; }
+
+    private void linkBefore(int slot, int successor) {
+        int before = prev[successor];
+        prev[slot] = before;
+        next[slot] = successor;
+        prev[successor] = slot;
+        if (before == NIL) head = slot; else next[before] = slot;
+    }
+
+    // Saca la ranura de la lista y la deja para reutilizar.
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NIL) head = after; else next[before] = after;
+        if (after != NIL) prev[after] = before;
+        blockCount--;
+        recycle(slot);
+    }
+
+    private void recycle(int slot) {
+        owners[slot] = FREE;
+        if (recycledCount == recycled.length) recycled = Arrays.copyOf(recycled, recycled.length * 2);
+        recycled[recycledCount++] = slot;
+    }
+
+    private int newSlot(long offset, long size, int owner) {
+        int slot;
+        if (recycledCount > 0) {
+            slot = recycled[--recycledCount];
+        } else {
+            if (slotCount == offsets.length) growColumns(offsets.length * 2);
+            slot = slotCount++;
+        }
+        offsets[slot] = offset;
+        sizes[slot] = size;
+        owners[slot] = owner;
+        prev[slot] = next[slot] = NIL;
+        return slot;
+    }
+
+    private void allocateColumns(int slots) {
+        offsets = new long[slots];
+        sizes = new long[slots];
+        owners = new int[slots];
+        prev = new int[slots];
+        next = new int[slots];
+        priorities = new int[slots];
+        offsetLinks = new int[2 * slots];
+        maxSizes = new long[slots];
+        sizeLinks = new int[2 * slots];
+    }
+
+    private void growColumns(int slots) {
+        offsets = Arrays.copyOf(offsets, slots);
+        sizes = Arrays.copyOf(sizes, slots);
+        owners = Arrays.copyOf(owners, slots);
+        prev = Arrays.copyOf(prev, slots);
+        next = Arrays.copyOf(next, slots);
+        priorities = Arrays.copyOf(priorities, slots);
+        offsetLinks = Arrays.copyOf(offsetLinks, 2 * slots);
+        maxSizes = Arrays.copyOf(maxSizes, slots);
+        sizeLinks = Arrays.copyOf(sizeLinks, 2 * slots);
+    }
+
+    /** Recibe cada bloque; {@code owner} es {@link #FREE} o un id para {@link #nameOf}. */
+    @FunctionalInterface
+    public interface BlockVisitor {
+        void visit(long offset, long size, int owner);
+    }
+}
@@ -0,0 +1,95 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapta un {@link BlockStore} de bytes a la interfaz en MB de {@link MemoryAllocator}. El modelo
+ * vive en los arrays primitivos del almacén; los {@link Block} solo se crean al pedir la vista.
+ */
+public class BlockStoreAllocator implements MemoryAllocator {
+    public static final long BYTES_PER_MB = 1L << 20;
+
+    private final int totalMemory;
+    private final BlockStore store;
+
+    public BlockStoreAllocator(int totalMemory) {
+        if (totalMemory <= 0) {
+            throw new IllegalArgumentException("totalMemory debe ser positivo: " + totalMemory);
+        }
+        this.totalMemory = totalMemory;
+        this.store = new BlockStore(totalMemory * BYTES_PER_MB);
+    }
+
+    /** Almacén subyacente, con offsets y tamaños en bytes. */
+    public BlockStore getStore() { return store; }
+
+    @Override
+    public boolean allocate(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        return store.allocate(name, size * BYTES_PER_MB);
+    }
+
+    @Override
+    public boolean release(String name) { return store.release(name); }
+
+    @Override
+    public int compact() { return (int) (store.compact() / BYTES_PER_MB); }
+
+    @Override
+    public int sizeOf(String name) { return (int) (store.sizeOf(name) / BYTES_PER_MB); }
+
+    @Override
+    public boolean contains(String name) { return store.contains(name); }
+
+    @Override
+    public List<Block> blocks() {
+        List<Block> result = new ArrayList<>(store.getBlockCount());
+        store.forEach((offset, size, owner) -> result.add(
+                new Block((int) (offset / BYTES_PER_MB), (int) (size / BYTES_PER_MB), store.nameOf(owner))));
+        return result;
+    }
+
+    @Override
+    public int getTotalMemory() { return totalMemory; }
+
+    @Override
+    public int getUsedMemory() { return (int) (store.getUsedBytes() / BYTES_PER_MB); }
+
+    @Override
+    public int getLargestFreeBlock() { return (int) (store.getLargestHole() / BYTES_PER_MB); }
+
+    @Override
+    public int getFreeBlockCount() { return store.getHoleCount(); }
+
+    @Override
+    public boolean supportsStrategies() { return true; }
+
+    @Override
+    public AllocationStrategy getStrategy() { return store.getStrategy(); }
+
+    @Override
+    public void setStrategy(AllocationStrategy strategy) { store.setStrategy(strategy); }
+
+    @Override
+    public void restore(List<Block> layout, Map<String, Integer> requested) {
+        long[] sizes = new long[layout.size()];
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < sizes.length; i++) {
+            Block block = layout.get(i);
+            sizes[i] = block.getSize() * BYTES_PER_MB;
+            if (block.isFree()) sizes[i] = -sizes[i]; else names.add(block.getOwner());
+        }
+        store.restore(sizes, names.toArray(new String[0]));
+    }
+
+    int stateBytes() { return store.stateBytes(); }
+
+    void writeState(ByteBuffer out) { store.writeState(out); }
+
+    void readState(ByteBuffer in) { store.readState(in); }
+}
@@ -0,0 +1,79 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.SplittableRandom;
+
+/**
+ * Llena un {@link BlockStore} con millones de bloques de tamaño arbitrario en bytes sobre un
+ * espacio de varios TB, libera la mitad, vuelve a asignar y compacta; informa del tiempo de cada
+ * fase y de los bytes de heap por bloque.
+ */
+public class BlockStoreFootprint {
+    private static final long TB = 1L << 40;
+
+    /** Uso: {@code BlockStoreFootprint [--terabytes N] [--blocks N] [--seed N]}. */
+    public static void main(String[] args) {
+        long terabytes = 4;
+        int blocks = 1_000_000;
+        long seed = 42;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--terabytes" -> terabytes = Long.parseLong(args[++i]);
+                case "--blocks" -> blocks = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        long capacity = terabytes * TB;
+        // Tamaño medio de media capacidad por bloque para que la primera pasada quepa entera.
+        long maxSize = Math.max(2, capacity / blocks);
+        SplittableRandom random = new SplittableRandom(seed);
+        long heapBefore = usedHeap();
+
+        BlockStore store = new BlockStore(capacity, blocks + 1);
+        store.setStrategy(AllocationStrategy.BEST_FIT);
+        long start = System.nanoTime();
+        int placed = 0;
+        for (int i = 0; i < blocks; i++) {
+            if (store.allocate("p" + i, 1 + random.nextLong(maxSize))) placed++;
+        }
+        report("asignar", start, placed);
+
+        start = System.nanoTime();
+        int released = 0;
+        for (int i = 0; i < blocks; i += 2) {
+            if (store.release("p" + i)) released++;
+        }
+        report("liberar", start, released);
+        System.out.printf("huecos=%d fragmentacion=%.3f%n", store.getHoleCount(), store.getExternalFragmentation());
+
+        start = System.nanoTime();
+        placed = 0;
+        for (int i = 0; i < blocks; i += 2) {
+            if (store.allocate("q" + i, 1 + random.nextLong(maxSize / 2))) placed++;
+        }
+        report("reasignar", start, placed);
+
+        start = System.nanoTime();
+        long moved = store.compact();
+        report("compactar", start, store.getProcessCount());
+
+        long heap = usedHeap() - heapBefore;
+        System.out.printf("capacidad=%d TB bloques=%d usados=%d bytes movidos=%d%n",
+                terabytes, store.getBlockCount(), store.getUsedBytes(), moved);
+        System.out.printf("columnas=%.1f MB (%.1f B/bloque) heap=%.1f MB (%.1f B/bloque, nombres incluidos)%n",
+                store.footprintBytes() / 1e6, (double) store.footprintBytes() / store.getBlockCount(),
+                heap / 1e6, (double) heap / store.getBlockCount());
+    }
+
+    private static void report(String phase, long start, int operations) {
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%s: %d operaciones en %.1f ms (%.0f ns/op)%n",
+                phase, operations, ms, operations == 0 ? 0 : ms * 1e6 / operations);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,274 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sistema buddy binario con unidad mínima de 1 MB. Cada orden tiene una lista doblemente
+ * enlazada de bloques libres (arrays de índices) y un bitmap, así que dividir o fusionar con
+ * el buddy cuesta O(1) por nivel.
+ */
+public class BuddyAllocator implements MemoryAllocator {
+    private static final int NONE = -1;
+
+    private final int totalMemory;
+    private final int maxOrder;
+    private final int[] heads;
+    private final int[] freeCounts;
+    private final int[] next;
+    private final int[] prev;
+    private final long[][] freeBits;
+    private final Map<String, Allocation> allocations = new HashMap<>();
+    private final Map<Integer, Allocation> allocationsByOffset = new HashMap<>();
+    private int usedMemory;
+    private int requestedMemory;
+
+    public BuddyAllocator(int totalMemory) {
+        if (totalMemory <= 0 || Integer.bitCount(totalMemory) != 1) {
+            throw new IllegalArgumentException("El buddy requiere una potencia de dos: " + totalMemory);
+        }
+        this.totalMemory = totalMemory;
+        this.maxOrder = Integer.numberOfTrailingZeros(totalMemory);
+        this.heads = new int[maxOrder + 1];
+        this.freeCounts = new int[maxOrder + 1];
+        this.next = new int[totalMemory];
+        this.prev = new int[totalMemory];
+        this.freeBits = new long[maxOrder + 1][];
+        for (int order = 0; order <= maxOrder; order++) {
+            heads[order] = NONE;
+            freeBits[order] = new long[((totalMemory >> order) + 63) / 64];
+        }
+        push(0, maxOrder);
+    }
+
+    @Override
+    public boolean allocate(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        if (size > totalMemory || allocations.containsKey(name)) return false;
+
+        int order = orderFor(size);
+        int found = order;
+        while (found <= maxOrder && heads[found] == NONE) found++;
+        if (found > maxOrder) return false;
+
+        int offset = heads[found];
+        unlink(offset, found);
+        while (found > order) {
+            found--;
+            push(offset + (1 << found), found);
+        }
+
+        Allocation allocation = new Allocation(name, offset, order, size);
+        allocations.put(name, allocation);
+        allocationsByOffset.put(offset, allocation);
+        usedMemory += 1 << order;
+        requestedMemory += size;
+        return true;
+    }
+
+    @Override
+    public boolean release(String name) {
+        Allocation allocation = allocations.remove(name);
+        if (allocation == null) return false;
+        allocationsByOffset.remove(allocation.offset);
+        usedMemory -= 1 << allocation.order;
+        requestedMemory -= allocation.requested;
+
+        int offset = allocation.offset;
+        int order = allocation.order;
+        while (order < maxOrder) {
+            int buddy = offset ^ (1 << order);
+            if (!isFree(buddy, order)) break;
+            unlink(buddy, order);
+            offset = Math.min(offset, buddy);
+            order++;
+        }
+        push(offset, order);
+        return true;
+    }
+
+    /** Marca directamente los bloques guardados, que ya están alineados a su orden. */
+    @Override
+    public void restore(List<Block> layout, Map<String, Integer> requested) {
+        if (!allocations.isEmpty()) {
+            throw new IllegalStateException("Solo se puede restaurar sobre memoria vacía");
+        }
+        int cursor = 0;
+        for (Block block : layout) {
+            int size = block.getSize();
+            if (block.getOffset() != cursor || Integer.bitCount(size) != 1 || (cursor & (size - 1)) != 0) {
+                throw new IllegalArgumentException("Bloque buddy inválido: " + block + " en " + block.getOffset());
+            }
+            cursor += size;
+        }
+        if (cursor != totalMemory) {
+            throw new IllegalArgumentException("La disposición cubre " + cursor + " MB de " + totalMemory);
+        }
+        unlink(0, maxOrder);
+        for (Block block : layout) {
+            int order = Integer.numberOfTrailingZeros(block.getSize());
+            if (block.isFree()) {
+                push(block.getOffset(), order);
+                continue;
+            }
+            int size = requested.getOrDefault(block.getOwner(), block.getSize());
+            Allocation allocation = new Allocation(block.getOwner(), block.getOffset(), order, size);
+            if (allocations.put(block.getOwner(), allocation) != null) {
+                throw new IllegalArgumentException("Proceso duplicado: " + block.getOwner());
+            }
+            allocationsByOffset.put(block.getOffset(), allocation);
+            usedMemory += block.getSize();
+            requestedMemory += size;
+        }
+    }
+
+    /** Los bloques buddy están alineados a su tamaño y no se pueden desplazar. */
+    @Override
+    public int compact() {
+        return 0;
+    }
+
+    @Override
+    public List<Block> blocks() {
+        List<Block> result = new ArrayList<>();
+        int offset = 0;
+        while (offset < totalMemory) {
+            Allocation allocation = allocationsByOffset.get(offset);
+            int size;
+            if (allocation != null) {
+                size = 1 << allocation.order;
+                result.add(new Block(offset, size, allocation.name));
+            } else {
+                size = 1 << freeOrderAt(offset);
+                result.add(new Block(offset, size, null));
+            }
+            offset += size;
+        }
+        return result;
+    }
+
+    @Override
+    public int sizeOf(String name) {
+        Allocation allocation = allocations.get(name);
+        return allocation == null ? 0 : allocation.requested;
+    }
+
+    @Override
+    public int getTotalMemory() { return totalMemory; }
+
+    @Override
+    public int getUsedMemory() { return usedMemory; }
+
+    @Override
+    public int getInternalFragmentation() { return usedMemory - requestedMemory; }
+
+    @Override
+    public int getLargestFreeBlock() {
+        for (int order = maxOrder; order >= 0; order--) {
+            if (heads[order] != NONE) return 1 << order;
+        }
+        return 0;
+    }
+
+    @Override
+    public int getFreeBlockCount() {
+        int count = 0;
+        for (int freeCount : freeCounts) count += freeCount;
+        return count;
+    }
+
+    public int getFreeBlockCount(int order) { return freeCounts[order]; }
+
+    public int getMaxOrder() { return maxOrder; }
+
+    /** Bytes del orden de las listas libres, que decide qué bloque se parte, en una instantánea. */
+    int stateBytes() {
+        return (maxOrder + 1) * Integer.BYTES + getFreeBlockCount() * Integer.BYTES;
+    }
+
+    void writeState(ByteBuffer out) {
+        for (int order = 0; order <= maxOrder; order++) {
+            out.putInt(freeCounts[order]);
+            for (int offset = heads[order]; offset != NONE; offset = next[offset]) out.putInt(offset);
+        }
+    }
+
+    /** Tras {@link #restore}, reordena las listas libres, que deben tener los mismos bloques. */
+    void readState(ByteBuffer in) {
+        for (int order = 0; order <= maxOrder; order++) {
+            int count = in.getInt();
+            if (count != freeCounts[order]) {
+                throw new IllegalArgumentException("Lista libre de orden " + order + " con " + count
+                        + " bloques y hay " + freeCounts[order]);
+            }
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                int offset = in.getInt();
+                if (offset < 0 || offset >= totalMemory || (offset & ((1 << order) - 1)) != 0 || !isFree(offset, order)) {
+                    throw new IllegalArgumentException("Bloque libre inválido de orden " + order + ": " + offset);
+                }
+                unlink(offset, order);
+                offsets[i] = offset;
+            }
+            for (int i = count - 1; i >= 0; i--) push(offsets[i], order);
+        }
+    }
+
+    private static int orderFor(int size) {
+        return size == 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    private int freeOrderAt(int offset) {
+        for (int order = 0; order <= maxOrder; order++) {
+            if ((offset & ((1 << order) - 1)) != 0) break;
+            if (isFree(offset, order)) return order;
+        }
+        throw new IllegalStateException("Offset sin bloque: " + offset);
+    }
+
+    private boolean isFree(int offset, int order) {
+        int index = offset >> order;
+        return (freeBits[order][index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void push(int offset, int order) {
+        int index = offset >> order;
+        freeBits[order][index >>> 6] |= 1L << index;
+        prev[offset] = NONE;
+        next[offset] = heads[order];
+        if (heads[order] != NONE) prev[heads[order]] = offset;
+        heads[order] = offset;
+        freeCounts[order]++;
+    }
+
+    private void unlink(int offset, int order) {
+        int index = offset >> order;
+        freeBits[order][index >>> 6] &= ~(1L << index);
+        if (prev[offset] != NONE) {
+            next[prev[offset]] = next[offset];
+        } else {
+            heads[order] = next[offset];
+        }
+        if (next[offset] != NONE) prev[next[offset]] = prev[offset];
+        freeCounts[order]--;
+    }
+
+    private static final class Allocation {
+        final String name;
+        final int offset;
+        final int order;
+        final int requested;
+
+        Allocation(String name, int offset, int order, int requested) {
+            this.name = name;
+            this.offset = offset;
+            this.order = order;
+            this.requested = requested;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Segunda oportunidad: anillo doblemente enlazado con bit de referencia y una manecilla. */
+class ClockPolicy extends AbstractEvictionPolicy {
+    private final Map<String, Node> nodes = new HashMap<>();
+    private Node hand;
+    // Nodos a los que la última búsqueda de víctima quitó el bit de referencia, en orden.
+    private final List<Node> swept = new ArrayList<>();
+    private Node lastVictim;
+
+    @Override
+    protected void onInsert(String name) {
+        Node node = nodes.get(name);
+        if (node != null) {
+            node.referenced = true;
+            return;
+        }
+        node = new Node(name);
+        nodes.put(name, node);
+        if (hand == null) {
+            node.prev = node;
+            node.next = node;
+            hand = node;
+        } else {
+            // Se inserta justo detrás de la manecilla: será el último en revisarse.
+            node.prev = hand.prev;
+            node.next = hand;
+            hand.prev.next = node;
+            hand.prev = node;
+        }
+    }
+
+    @Override
+    protected void onHit(String name) {
+        Node node = nodes.get(name);
+        if (node != null) node.referenced = true;
+    }
+
+    @Override
+    protected void onRemove(String name) {
+        Node node = nodes.remove(name);
+        if (node != null) unlink(node);
+    }
+
+    @Override
+    protected String evict() {
+        if (hand == null) return null;
+        swept.clear();
+        while (hand.referenced) {
+            hand.referenced = false;
+            swept.add(hand);
+            hand = hand.next;
+        }
+        Node victim = hand;
+        lastVictim = victim;
+        nodes.remove(victim.name);
+        unlink(victim);
+        return victim.name;
+    }
+
+    // Tras desenlazarla, la víctima conserva sus vecinos, que siguen siendo contiguos.
+    @Override
+    protected void undoEvict(String name) {
+        Node victim = lastVictim;
+        lastVictim = null;
+        nodes.put(name, victim);
+        if (hand == null) {
+            victim.prev = victim;
+            victim.next = victim;
+        } else {
+            victim.prev.next = victim;
+            victim.next.prev = victim;
+        }
+        for (Node node : swept) node.referenced = true;
+        hand = swept.isEmpty() ? victim : swept.get(0);
+        swept.clear();
+    }
+
+    @Override
+    protected long contentBytes() {
+        return namesBytes(nodes.keySet()) + nodes.size();
+    }
+
+    // El anillo desde la manecilla, con el bit de referencia de cada nodo.
+    @Override
+    protected void writeContent(ByteBuffer out) {
+        out.putInt(nodes.size());
+        Node node = hand;
+        for (int i = 0; i < nodes.size(); i++, node = node.next) {
+            StateFile.putString(out, node.name);
+            out.put((byte) (node.referenced ? 1 : 0));
+        }
+    }
+
+    // Cada nodo se inserta detrás de la manecilla, que se queda en el primero: el anillo sale igual.
+    @Override
+    protected void readContent(ByteBuffer in) {
+        int count = StateFile.getLength(in, Integer.BYTES + 1);
+        for (int i = 0; i < count; i++) {
+            String name = StateFile.getString(in);
+            boolean referenced = in.get() != 0;
+            if (nodes.containsKey(name)) {
+                throw new IllegalArgumentException("Proceso repetido en el reloj: " + name);
+            }
+            onInsert(name);
+            nodes.get(name).referenced = referenced;
+        }
+    }
+
+    private void unlink(Node node) {
+        if (node.next == node) {
+            hand = null;
+            return;
+        }
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        if (hand == node) hand = node.next;
+    }
+
+    @Override
+    public EvictionPolicyType getType() { return EvictionPolicyType.CLOCK; }
+
+    private static final class Node {
+        final String name;
+        boolean referenced = true;
+        Node prev;
+        Node next;
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Compactación dirigida: prueba las ventanas contiguas de bloques que, vaciadas, dejan un hueco
+ * del tamaño pedido, de menos a más MB ocupados, y reubica sus procesos en huecos fuera de ella.
+ */
+public class CompactionPlanner {
+    /** Ventanas que se prueban como mucho por plan, empezando por las que menos MB mueven. */
+    public static final int MAX_WINDOWS = 256;
+
+    private final FreeListAllocator allocator;
+
+    public CompactionPlanner(FreeListAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * Plan para abrir un hueco de {@code size} MB, o null si no se encuentra. Cada ventana se
+     * reparte con mejor ajuste decreciente, una heurística: puede no dar con un plan que exista ni
+     * con el que menos mueve.
+     */
+    public Plan plan(int size) {
+        if (size > allocator.getFreeMemory()) return null;
+        List<Block> blocks = allocator.blocks();
+        int n = blocks.size();
+        int[] usedPrefix = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            Block block = blocks.get(i);
+            usedPrefix[i + 1] = usedPrefix[i] + (block.isFree() ? 0 : block.getSize());
+        }
+
+        // Para cada inicio, la ventana mínima [i, j) cuyo tramo alcanza el tamaño pedido.
+        List<int[]> windows = new ArrayList<>();
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            if (j < i) j = i;
+            while (j < n && blocks.get(j).getOffset() - blocks.get(i).getOffset() < size) j++;
+            if (blocks.get(j - 1).getEnd() - blocks.get(i).getOffset() < size) break;
+            windows.add(new int[]{i, j, usedPrefix[j] - usedPrefix[i]});
+        }
+        windows.sort(Comparator.comparingInt(w -> w[2]));
+
+        // Un solo índice de huecos para todas las ventanas; cada una lo deja como lo encontró.
+        TreeSet<Long> holes = new TreeSet<>();
+        for (Block block : blocks) {
+            if (block.isFree()) holes.add(hole(block.getOffset(), block.getSize()));
+        }
+        for (int[] window : windows.subList(0, Math.min(windows.size(), MAX_WINDOWS))) {
+            List<Move> moves = placeOutside(blocks, window[0], window[1], holes);
+            if (moves != null) {
+                return new Plan(blocks.get(window[0]).getOffset(), size, moves, window[2], fullCompactionCost(blocks));
+            }
+        }
+        return null;
+    }
+
+    /** Realiza las reubicaciones del plan, dejando libre el hueco en {@link Plan#getHoleOffset()}. */
+    public void open(Plan plan) {
+        for (Move move : plan.moves) {
+            allocator.moveTo(allocator.blockOf(move.process), move.target);
+        }
+    }
+
+    /** Ejecuta el plan y asigna el proceso en el hueco abierto. */
+    public boolean execute(Plan plan, String name) {
+        open(plan);
+        return allocator.allocateAt(name, plan.size, plan.holeOffset);
+    }
+
+    // Mejor ajuste decreciente de los procesos de la ventana en los huecos que quedan fuera. Los
+    // cambios en el índice se anotan (los huecos quitados como -1 - hueco) y se deshacen al revés.
+    private static List<Move> placeOutside(List<Block> blocks, int from, int to, TreeSet<Long> holes) {
+        List<Long> changes = new ArrayList<>();
+        List<Block> movers = new ArrayList<>();
+        for (int k = from; k < to; k++) {
+            Block block = blocks.get(k);
+            if (block.isFree()) {
+                long hole = hole(block.getOffset(), block.getSize());
+                holes.remove(hole);
+                changes.add(-1 - hole);
+            } else {
+                movers.add(block);
+            }
+        }
+        movers.sort(Comparator.comparingInt(Block::getSize).reversed());
+
+        try {
+            List<Move> moves = new ArrayList<>();
+            for (Block mover : movers) {
+                Long hole = holes.ceiling(hole(0, mover.getSize()));
+                if (hole == null) return null;
+                holes.remove(hole);
+                changes.add(-1 - hole);
+                int offset = (int) (long) hole;
+                moves.add(new Move(mover.getOwner(), mover.getSize(), offset));
+                int rest = (int) (hole >>> 32) - mover.getSize();
+                if (rest > 0) {
+                    long remainder = hole(offset + mover.getSize(), rest);
+                    holes.add(remainder);
+                    changes.add(remainder);
+                }
+            }
+            return moves;
+        } finally {
+            for (int k = changes.size() - 1; k >= 0; k--) {
+                long change = changes.get(k);
+                if (change < 0) holes.add(-1 - change); else holes.remove(change);
+            }
+        }
+    }
+
+    // Tamaño en la parte alta y offset en la baja: el techo de (tamaño, 0) es el mejor ajuste.
+    private static long hole(int offset, int size) {
+        return (long) size << 32 | offset;
+    }
+
+    static int fullCompactionCost(List<Block> blocks) {
+        int cost = 0;
+        int cursor = 0;
+        for (Block block : blocks) {
+            if (block.isFree()) continue;
+            if (block.getOffset() != cursor) cost += block.getSize();
+            cursor += block.getSize();
+        }
+        return cost;
+    }
+
+    public static final class Plan {
+        private final int holeOffset;
+        private final int size;
+        private final List<Move> moves;
+        private final int movedMemory;
+        private final int fullCompactionMemory;
+
+        Plan(int holeOffset, int size, List<Move> moves, int movedMemory, int fullCompactionMemory) {
+            this.holeOffset = holeOffset;
+            this.size = size;
+            this.moves = List.copyOf(moves);
+            this.movedMemory = movedMemory;
+            this.fullCompactionMemory = fullCompactionMemory;
+        }
+
+        public int getHoleOffset() { return holeOffset; }
+        public int getSize() { return size; }
+        public List<Move> getMoves() { return moves; }
+        public int getMovedMemory() { return movedMemory; }
+        public int getFullCompactionMemory() { return fullCompactionMemory; }
+        public int getSavedMemory() { return fullCompactionMemory - movedMemory; }
+    }
+
+    public static final class Move {
+        private final String process;
+        private final int size;
+        private final int target;
+
+        Move(String process, int size, int target) {
+            this.process = process;
+            this.size = size;
+            this.target = target;
+        }
+
+        public String getProcess() { return process; }
+        public int getSize() { return size; }
+        public int getTarget() { return target; }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cesardarizaleta.gestor.advanced;
+
+/** Qué hace el gestor cuando una asignación falla por falta de un hueco contiguo. */
+public enum CompactionPolicy {
+    NONE("Sin compactación"),
+    FULL("Compactación completa"),
+    TARGETED("Compactación dirigida");
+
+    private final String label;
+
+    CompactionPolicy(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() { return label; }
+}
@@ -0,0 +1,444 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Simulación de eventos discretos sobre un {@link MemoryManager}: un calendario de eventos en una
+ * cola de prioridad ordenada por tiempo simulado, llegadas de procesos con intervalos y vidas
+ * aleatorios, accesos a procesos vivos y disparadores periódicos de compactación y de swap. El
+ * reloj salta de evento en evento, así que horas simuladas se recorren en segundos; con
+ * {@link #advance(double)} avanza al ritmo del reloj real multiplicado por la aceleración.
+ * Los tiempos están en segundos simulados. Solo se usa desde el hilo del gestor.
+ */
+public class EventSimulation {
+    public static final String CSV_HEADER =
+            "sim_hours,events,live,used_mb,ext_fragmentation,free_blocks,largest_free_mb,rejected,compactions,swap_outs,swap_ins";
+    /** Tope de eventos por llamada a {@link #advance(double)}; si se alcanza, el reloj se retrasa. */
+    public static final int MAX_EVENTS_PER_ADVANCE = 50_000;
+
+    private final MemoryManager manager;
+    private final WorkloadType sizes;
+    private final SplittableRandom random;
+    private final PriorityQueue<Event> calendar = new PriorityQueue<>();
+    private final Population hot = new Population();
+    private final Population cold = new Population();
+
+    private TimeDistribution arrivals = TimeDistribution.EXPONENTIAL;
+    private double meanInterarrival = 12;
+    private TimeDistribution lifetimes = TimeDistribution.EXPONENTIAL;
+    private double meanLifetime = 300;
+    private double meanAccessInterval = 5;
+    private double hotFraction = 0.2;
+    private double hotShare = 0.8;
+    private double compactionPeriod = 60;
+    private double compactionThreshold = 0.5;
+    private double swapPeriod = 10;
+    private double lowWatermark = 0.05;
+    private double highWatermark = 0.15;
+    private double migrationPeriod = 5;
+    private int migrationBudget = TierMigrator.DEFAULT_BUDGET;
+    private double acceleration = 1000;
+
+    private double now;
+    private long sequence;
+    private long created;
+    private long events;
+    private long arrived;
+    private long departed;
+    private long rejected;
+    private long accesses;
+    private long compactions;
+    private double fragmentationSum;
+    private long fragmentationSamples;
+    private boolean lagging;
+    private boolean accessPending;
+
+    public EventSimulation(MemoryManager manager, WorkloadType sizes, long seed) {
+        this.manager = manager;
+        this.sizes = sizes;
+        this.random = new SplittableRandom(seed);
+        schedule(arrivals.sample(random, meanInterarrival), Kind.ARRIVAL, null);
+        scheduleAccess();
+        schedule(compactionPeriod, Kind.COMPACTION_CHECK, null);
+        schedule(swapPeriod, Kind.SWAP_CHECK, null);
+        schedule(migrationPeriod, Kind.MIGRATION, null);
+    }
+
+    /**
+     * Avanza el reloj {@code wallSeconds} por la aceleración y procesa los eventos vencidos, como
+     * mucho {@link #MAX_EVENTS_PER_ADVANCE}. Devuelve los eventos procesados.
+     */
+    public int advance(double wallSeconds) {
+        return runUntil(now + wallSeconds * acceleration, MAX_EVENTS_PER_ADVANCE);
+    }
+
+    /** Procesa todos los eventos hasta {@code time}, sin tope. */
+    public int runUntil(double time) {
+        return runUntil(time, Integer.MAX_VALUE);
+    }
+
+    private int runUntil(double time, int budget) {
+        int processed = 0;
+        while (!calendar.isEmpty() && calendar.peek().time <= time) {
+            if (processed == budget) {
+                lagging = true;
+                return processed;
+            }
+            Event event = calendar.poll();
+            now = event.time;
+            handle(event);
+            processed++;
+            events++;
+        }
+        now = Math.max(now, time);
+        lagging = false;
+        return processed;
+    }
+
+    private void handle(Event event) {
+        switch (event.kind) {
+            case ARRIVAL -> {
+                arrive();
+                schedule(arrivals.sample(random, meanInterarrival), Kind.ARRIVAL, null);
+            }
+            case DEPARTURE -> depart(event.name);
+            case ACCESS -> {
+                accessPending = false;
+                if (meanAccessInterval == 0) return;
+                Population target = cold.isEmpty() || !hot.isEmpty() && random.nextDouble() < hotShare ? hot : cold;
+                if (!target.isEmpty()) {
+                    manager.access(target.pick(random));
+                    accesses++;
+                }
+                scheduleAccess();
+            }
+            case COMPACTION_CHECK -> {
+                MemoryAllocator allocator = manager.getAllocator();
+                double fragmentation = allocator.getExternalFragmentation();
+                fragmentationSum += fragmentation;
+                fragmentationSamples++;
+                if (compactionThreshold < 1 && fragmentation > compactionThreshold && manager.compact() > 0) compactions++;
+                schedule(compactionPeriod, Kind.COMPACTION_CHECK, null);
+            }
+            case SWAP_CHECK -> {
+                balanceSwap();
+                schedule(swapPeriod, Kind.SWAP_CHECK, null);
+            }
+            case MIGRATION -> {
+                if (migrationBudget > 0) {
+                    manager.migrate(migrationBudget);
+                    manager.rebalance(migrationBudget);
+                }
+                schedule(migrationPeriod, Kind.MIGRATION, null);
+            }
+        }
+    }
+
+    private void arrive() {
+        String name;
+        do {
+            name = "s" + created++;
+        } while (manager.contains(name));
+        if (!manager.add(name, sizes.nextSize(random))) {
+            rejected++;
+            return;
+        }
+        arrived++;
+        (random.nextDouble() < hotFraction ? hot : cold).add(name);
+        schedule(lifetimes.sample(random, meanLifetime), Kind.DEPARTURE, name);
+    }
+
+    private void depart(String name) {
+        if (!hot.remove(name) && !cold.remove(name)) return;
+        manager.remove(name);
+        departed++;
+    }
+
+    // Por debajo de la marca baja desaloja hasta la alta; por encima de la alta trae procesos
+    // de swap, del más antiguo al más nuevo, mientras sigan quedando libres los MB de la marca baja.
+    private void balanceSwap() {
+        MemoryAllocator allocator = manager.getAllocator();
+        int total = allocator.getTotalMemory();
+        if (allocator.getFreeMemory() < lowWatermark * total) {
+            manager.reclaim((int) Math.ceil(highWatermark * total));
+            return;
+        }
+        if (allocator.getFreeMemory() <= highWatermark * total) return;
+        for (Map.Entry<String, Integer> swapped : manager.getSwapArea().getProcesses().entrySet()) {
+            if (allocator.getFreeMemory() - swapped.getValue() < lowWatermark * total) continue;
+            manager.swapIn(swapped.getKey());
+        }
+    }
+
+    private void scheduleAccess() {
+        schedule(TimeDistribution.EXPONENTIAL.sample(random, meanAccessInterval), Kind.ACCESS, null);
+        accessPending = true;
+    }
+
+    private void schedule(double delay, Kind kind, String name) {
+        calendar.add(new Event(now + delay, sequence++, kind, name));
+    }
+
+    public void setArrivals(TimeDistribution distribution, double meanInterarrival) {
+        requirePositive(meanInterarrival, "El intervalo medio entre llegadas");
+        this.arrivals = distribution;
+        this.meanInterarrival = meanInterarrival;
+    }
+
+    public void setLifetimes(TimeDistribution distribution, double meanLifetime) {
+        requirePositive(meanLifetime, "La vida media");
+        this.lifetimes = distribution;
+        this.meanLifetime = meanLifetime;
+    }
+
+    /** Intervalo medio entre accesos a un proceso vivo al azar; 0 los desactiva. */
+    public void setMeanAccessInterval(double meanAccessInterval) {
+        if (meanAccessInterval < 0) {
+            throw new IllegalArgumentException("Intervalo de acceso negativo: " + meanAccessInterval);
+        }
+        this.meanAccessInterval = meanAccessInterval;
+        if (!accessPending && meanAccessInterval > 0) scheduleAccess();
+    }
+
+    /**
+     * Una fracción {@code hotFraction} de los procesos, elegidos al llegar, recibe una fracción
+     * {@code hotShare} de los accesos; con las dos iguales los accesos son uniformes.
+     */
+    public void setAccessSkew(double hotFraction, double hotShare) {
+        if (hotFraction < 0 || hotFraction > 1 || hotShare < 0 || hotShare > 1) {
+            throw new IllegalArgumentException("Sesgo de accesos inválido: " + hotFraction + ", " + hotShare);
+        }
+        this.hotFraction = hotFraction;
+        this.hotShare = hotShare;
+    }
+
+    /**
+     * Cada {@code period} segundos mide la fragmentación externa y compacta si supera
+     * {@code threshold}; con 1 solo se mide.
+     */
+    public void setCompactionTrigger(double period, double threshold) {
+        requirePositive(period, "El periodo de compactación");
+        this.compactionPeriod = period;
+        this.compactionThreshold = threshold;
+    }
+
+    /** Cada {@code period} segundos mantiene la memoria libre entre las dos fracciones del total. */
+    public void setSwapTrigger(double period, double lowWatermark, double highWatermark) {
+        requirePositive(period, "El periodo de swap");
+        if (lowWatermark < 0 || lowWatermark > highWatermark || highWatermark > 1) {
+            throw new IllegalArgumentException("Marcas de agua inválidas: " + lowWatermark + ", " + highWatermark);
+        }
+        this.swapPeriod = period;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+    }
+
+    /**
+     * Con memoria por niveles o NUMA, una pasada de migración o de reequilibrado de hasta
+     * {@code budget} MB cada {@code period} segundos; un presupuesto 0 la desactiva.
+     */
+    public void setMigration(double period, int budget) {
+        requirePositive(period, "El periodo de migración");
+        if (budget < 0) {
+            throw new IllegalArgumentException("Presupuesto de migración negativo: " + budget);
+        }
+        this.migrationPeriod = period;
+        this.migrationBudget = budget;
+    }
+
+    /** Segundos simulados por segundo real en {@link #advance(double)}. */
+    public void setAcceleration(double acceleration) {
+        requirePositive(acceleration, "La aceleración");
+        this.acceleration = acceleration;
+    }
+
+    private static void requirePositive(double value, String what) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException(what + " debe ser positivo: " + value);
+        }
+    }
+
+    public double getMeanInterarrival() { return meanInterarrival; }
+    public double getMeanLifetime() { return meanLifetime; }
+    /** Reloj simulado en segundos. */
+    public double getTime() { return now; }
+    public double getAcceleration() { return acceleration; }
+    /** Si el último avance agotó el tope de eventos y el reloj quedó por detrás del objetivo. */
+    public boolean isLagging() { return lagging; }
+    public long getEvents() { return events; }
+    public int getLive() { return hot.size() + cold.size(); }
+    public long getArrived() { return arrived; }
+    public long getDeparted() { return departed; }
+    /** Llegadas que no cupieron ni tras compactar o desalojar. */
+    public long getRejected() { return rejected; }
+    public long getAccesses() { return accesses; }
+    public long getCompactions() { return compactions; }
+    /**
+     * Salidas a swap contadas por las métricas del gestor, así que incluyen los desalojos
+     * automáticos al asignar y no solo los de la marca de agua; se ponen a cero con ellas.
+     */
+    public long getSwapOuts() { return manager.getMetrics().getSwapOuts(); }
+    /** Entradas desde swap según las métricas del gestor, también las de los accesos. */
+    public long getSwapIns() { return manager.getMetrics().getSwapIns(); }
+
+    /** Media de la fragmentación externa medida en cada comprobación de compactación. */
+    public double getAverageFragmentation() {
+        return fragmentationSamples == 0 ? 0 : fragmentationSum / fragmentationSamples;
+    }
+
+    public double getRejectionRate() {
+        long total = arrived + rejected;
+        return total == 0 ? 0 : (double) rejected / total;
+    }
+
+    // Procesos vivos con borrado y elección al azar en tiempo constante.
+    private static final class Population {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+
+        void add(String name) {
+            index.put(name, names.size());
+            names.add(name);
+        }
+
+        boolean remove(String name) {
+            Integer position = index.remove(name);
+            if (position == null) return false;
+            String last = names.remove(names.size() - 1);
+            if (position < names.size()) {
+                names.set(position, last);
+                index.put(last, position);
+            }
+            return true;
+        }
+
+        String pick(SplittableRandom random) { return names.get(random.nextInt(names.size())); }
+        boolean isEmpty() { return names.isEmpty(); }
+        int size() { return names.size(); }
+    }
+
+    private enum Kind { ARRIVAL, DEPARTURE, ACCESS, COMPACTION_CHECK, SWAP_CHECK, MIGRATION }
+
+    // A igual tiempo se respeta el orden de programación, para que la simulación sea reproducible.
+    private static final class Event implements Comparable<Event> {
+        final double time;
+        final long sequence;
+        final Kind kind;
+        final String name;
+
+        Event(double time, long sequence, Kind kind, String name) {
+            this.time = time;
+            this.sequence = sequence;
+            this.kind = kind;
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Double.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Uso: {@code EventSimulation [--mode M] [--strategy S] [--policy P] [--auto-swap] [--memory MB]
+     * [--workload UNIFORM|SMALL|BIMODAL] [--arrival DISTRIBUCIÓN:MEDIA] [--lifetime DISTRIBUCIÓN:MEDIA]
+     * [--access MEDIA] [--skew FRACCIÓN:PARTE] [--compact PERIODO:UMBRAL] [--swap PERIODO:BAJA:ALTA] [--tiers MB:ns,MB:ns]
+     * [--nodes N] [--migrate PERIODO:MB] [--hours H] [--sample S] [--seed N] [--out fichero.csv]}, con tiempos
+     * en segundos simulados. Emite una fila CSV cada {@code --sample} segundos y un resumen con la
+     * aceleración conseguida; {@code --tiers} implica el modo {@code TIERED} y {@code --nodes} el
+     * modo {@code NUMA}.
+     */
+    public static void main(String[] args) throws IOException {
+        AllocatorMode mode = AllocatorMode.VARIABLE_PARTITIONS;
+        AllocationStrategy strategy = AllocationStrategy.FIRST_FIT;
+        EvictionPolicyType policy = EvictionPolicyType.LRU;
+        boolean autoSwap = false;
+        int memory = 1024;
+        WorkloadType workload = WorkloadType.UNIFORM;
+        double hours = 8;
+        double sample = 600;
+        long seed = 42;
+        Path csv = null;
+        String tiers = null;
+        int nodes = 0;
+        List<String[]> timing = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode" -> mode = AllocatorMode.valueOf(args[++i]);
+                case "--strategy" -> strategy = AllocationStrategy.valueOf(args[++i]);
+                case "--policy" -> policy = EvictionPolicyType.valueOf(args[++i]);
+                case "--auto-swap" -> autoSwap = true;
+                case "--memory" -> memory = Integer.parseInt(args[++i]);
+                case "--workload" -> workload = WorkloadType.valueOf(args[++i]);
+                case "--tiers" -> tiers = args[++i];
+                case "--nodes" -> nodes = Integer.parseInt(args[++i]);
+                case "--arrival", "--lifetime", "--access", "--skew", "--compact", "--swap", "--migrate" ->
+                        timing.add(new String[] {args[i], args[++i]});
+                case "--hours" -> hours = Double.parseDouble(args[++i]);
+                case "--sample" -> sample = Double.parseDouble(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--out" -> csv = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        requirePositive(sample, "El intervalo de muestreo");
+        Logger.getLogger(MemoryManager.class.getName()).setLevel(Level.WARNING);
+
+        MemoryAllocator allocator = tiers != null ? TieredAllocator.parse(tiers)
+                : nodes > 0 ? new NumaAllocator(memory, nodes) : mode.create(memory);
+        allocator.setStrategy(strategy);
+        PrintStream out = csv == null ? System.out : new PrintStream(csv.toFile(), StandardCharsets.UTF_8);
+        try (SwapArea swap = SwapArea.createTemporary()) {
+            MemoryManager manager = new MemoryManager(allocator, swap);
+            manager.setPolicy(policy);
+            manager.setAutoSwap(autoSwap);
+            EventSimulation simulation = new EventSimulation(manager, workload, seed);
+            for (String[] option : timing) {
+                String[] v = option[1].split(":");
+                switch (option[0]) {
+                    case "--arrival" -> simulation.setArrivals(TimeDistribution.valueOf(v[0]), Double.parseDouble(v[1]));
+                    case "--lifetime" -> simulation.setLifetimes(TimeDistribution.valueOf(v[0]), Double.parseDouble(v[1]));
+                    case "--access" -> simulation.setMeanAccessInterval(Double.parseDouble(v[0]));
+                    case "--skew" -> simulation.setAccessSkew(Double.parseDouble(v[0]), Double.parseDouble(v[1]));
+                    case "--compact" -> simulation.setCompactionTrigger(Double.parseDouble(v[0]), Double.parseDouble(v[1]));
+                    case "--migrate" -> simulation.setMigration(Double.parseDouble(v[0]), Integer.parseInt(v[1]));
+                    default -> simulation.setSwapTrigger(Double.parseDouble(v[0]), Double.parseDouble(v[1]), Double.parseDouble(v[2]));
+                }
+            }
+
+            out.println(CSV_HEADER);
+            long start = System.nanoTime();
+            double end = hours * 3600;
+            for (double t = Math.min(sample, end); ; t = Math.min(t + sample, end)) {
+                simulation.runUntil(t);
+                MemoryAllocator current = manager.getAllocator();
+                out.printf("%.3f,%d,%d,%d,%.4f,%d,%d,%d,%d,%d,%d%n", t / 3600, simulation.getEvents(), simulation.getLive(),
+                        current.getUsedMemory(), current.getExternalFragmentation(), current.getFreeBlockCount(),
+                        current.getLargestFreeBlock(), simulation.getRejected(), simulation.getCompactions(),
+                        simulation.getSwapOuts(), simulation.getSwapIns());
+                if (t >= end) break;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("%.1f h simuladas en %.2f s (x%.0f) | %d eventos | %d llegadas, %d rechazadas (%.2f%%)"
+                            + " | fragmentación externa media %.3f | %d compactaciones | swap: %d salidas, %d entradas%n",
+                    hours, seconds, end / seconds, simulation.getEvents(), simulation.getArrived(), simulation.getRejected(),
+                    simulation.getRejectionRate() * 100, simulation.getAverageFragmentation(), simulation.getCompactions(),
+                    simulation.getSwapOuts(), simulation.getSwapIns());
+            for (String section : FeatureReport.sections(manager.getMetrics(), swap)) System.err.println(section);
+        } finally {
+            if (out != System.out) out.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.cesardarizaleta.gestor.advanced;
+
+/**
+ * Política de selección de víctimas para el swapping automático. Sigue los procesos residentes
+ * y cuenta aciertos, fallos y desalojos.
+ */
+public interface EvictionPolicy {
+    /** Un proceso nuevo queda residente. */
+    void recordInsert(String name);
+
+    /** Acceso a un proceso residente. */
+    void recordHit(String name);
+
+    /** Acceso a un proceso que estaba en swap y vuelve a ser residente. */
+    void recordMiss(String name);
+
+    /**
+     * El proceso deja de ser residente por una causa ajena a la política o se elimina del swap;
+     * la política lo olvida del todo, también en su historial.
+     */
+    void recordRemoval(String name);
+
+    /** Elige un residente para desalojar y deja de seguirlo, o null si no hay ninguno. */
+    String selectVictim();
+
+    /**
+     * Deshace la última {@link #selectVictim()} cuando el desalojo no se pudo hacer, p. ej. por
+     * falta de sitio en swap: la víctima vuelve a su posición y no cuenta como desalojada. Solo
+     * vale justo después de elegirla, sin otras operaciones en medio.
+     */
+    void cancelEviction(String name);
+
+    EvictionPolicyType getType();
+
+    long getHits();
+
+    long getMisses();
+
+    long getEvictions();
+
+    default double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+}
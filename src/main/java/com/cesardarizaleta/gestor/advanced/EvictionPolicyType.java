@@ -0,0 +1,26 @@
+package com.cesardarizaleta.gestor.advanced;
+
+public enum EvictionPolicyType {
+    LRU("LRU"),
+    CLOCK("CLOCK"),
+    LFU("LFU"),
+    ARC("ARC");
+
+    private final String label;
+
+    EvictionPolicyType(String label) {
+        this.label = label;
+    }
+
+    public EvictionPolicy create() {
+        return switch (this) {
+            case LRU -> new LruPolicy();
+            case CLOCK -> new ClockPolicy();
+            case LFU -> new LfuPolicy();
+            case ARC -> new ArcPolicy();
+        };
+    }
+
+    @Override
+    public String toString() { return label; }
+}
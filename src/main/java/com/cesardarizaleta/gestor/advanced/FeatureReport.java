@@ -0,0 +1,46 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Líneas de resumen de las funciones opcionales del gestor (swap comprimido, niveles, nodos NUMA
+ * y paginación), leídas de sus métricas y del área de swap. Solo aparecen las que se han usado.
+ */
+final class FeatureReport {
+    private FeatureReport() {
+    }
+
+    static List<String> sections(MemoryMetrics metrics, SwapArea swap) {
+        List<String> sections = new ArrayList<>();
+        if (swap.getCompressedStores() > 0) {
+            sections.add(String.format("swap comprimido: %d imágenes | ratio %.2f | comprimir %.1f µs, descomprimir %.1f µs"
+                            + " | %.1f%% de entradas desde RAM | %d escritas al fichero",
+                    swap.getCompressedStores(), swap.getCompressionRatio(), swap.getAverageCompressMicros(),
+                    swap.getAverageDecompressMicros(), swap.getRamSwapInShare() * 100, swap.getWritebacks()));
+        }
+        if (metrics.getTierAccesses() > 0) {
+            sections.add(String.format("niveles: %d accesos | %.1f%% en el más rápido | %.0f ns por acceso frente a %.0f ns"
+                            + " sin niveles (%+.1f%%) | %d promociones, %d degradaciones, %d MB migrados",
+                    metrics.getTierAccesses(), metrics.getFastTierShare() * 100, metrics.getTierNanosPerAccess(),
+                    metrics.getFlatTierNanosPerAccess(),
+                    (metrics.getTierNanosPerAccess() / metrics.getFlatTierNanosPerAccess() - 1) * 100,
+                    metrics.getPromotions(), metrics.getDemotions(), metrics.getMigratedMemory()));
+        }
+        if (metrics.getNodeAllocations() > 0) {
+            sections.add(String.format("nodos: %d asignaciones, %.1f%% remotas | %.1f%% de accesos remotos"
+                            + " | %.0f ns por acceso | %d reequilibrados, %d MB",
+                    metrics.getNodeAllocations(), metrics.getRemoteAllocationRatio() * 100,
+                    metrics.getRemoteAccessRatio() * 100, metrics.getNodeNanosPerAccess(),
+                    metrics.getRebalanceMoves(), metrics.getRebalancedMemory()));
+        }
+        if (metrics.getPageAccesses() > 0) {
+            sections.add(String.format("paginación: %d traducciones | TLB %.1f%% aciertos | fallos de página %.2f%%"
+                            + " | %.1f ns por traducción (%.2f ms simulados en total)",
+                    metrics.getPageAccesses(), metrics.getTlbHitRate() * 100, metrics.getPageFaultRate() * 100,
+                    metrics.getTranslationNanosPerAccess(),
+                    metrics.getPageAccesses() * metrics.getTranslationNanosPerAccess() / 1e6));
+        }
+        return sections;
+    }
+}
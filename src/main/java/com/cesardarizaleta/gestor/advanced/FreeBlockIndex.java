@@ -0,0 +1,179 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+/**
+ * Índice de huecos libres: un treap por offset aumentado con el tamaño máximo del subárbol
+ * (primer/siguiente ajuste) y un árbol ordenado por tamaño (mejor/peor ajuste). Todas las
+ * búsquedas son O(log n). Un bloque no debe cambiar de offset ni de tamaño mientras esté indexado.
+ */
+final class FreeBlockIndex {
+    private static final Comparator<Block> BY_SIZE = Comparator
+            .comparingInt(Block::getSize)
+            .thenComparingInt(Block::getOffset);
+
+    private final NavigableSet<Block> bySize = new TreeSet<>(BY_SIZE);
+    private final SplittableRandom random = new SplittableRandom(42);
+    private Node root;
+
+    void add(Block block) {
+        bySize.add(block);
+        root = insert(root, new Node(block, random.nextInt()));
+    }
+
+    void remove(Block block) {
+        bySize.remove(block);
+        root = delete(root, block.getOffset());
+    }
+
+    void clear() {
+        bySize.clear();
+        root = null;
+    }
+
+    int count() { return bySize.size(); }
+
+    int largest() { return bySize.isEmpty() ? 0 : bySize.last().getSize(); }
+
+    Block lowest() {
+        Node node = root;
+        if (node == null) return null;
+        while (node.left != null) node = node.left;
+        return node.block;
+    }
+
+    Iterable<Block> bySize() { return bySize; }
+
+    /** Hueco libre que contiene el offset dado, o null si cae en un bloque usado. */
+    Block containing(int offset) {
+        Node node = root;
+        Block floor = null;
+        while (node != null) {
+            if (node.block.getOffset() <= offset) {
+                floor = node.block;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return floor != null && offset < floor.getEnd() ? floor : null;
+    }
+
+    Block find(AllocationStrategy strategy, int size, int cursor) {
+        return switch (strategy) {
+            case FIRST_FIT -> firstFit(size);
+            case BEST_FIT -> bestFit(size);
+            case WORST_FIT -> worstFit(size);
+            case NEXT_FIT -> nextFit(size, cursor);
+        };
+    }
+
+    Block firstFit(int size) {
+        return leftmostFit(root, size, Integer.MIN_VALUE);
+    }
+
+    Block nextFit(int size, int fromOffset) {
+        Block block = leftmostFit(root, size, fromOffset);
+        return block != null ? block : firstFit(size);
+    }
+
+    Block bestFit(int size) {
+        return bySize.ceiling(new Block(Integer.MIN_VALUE, size, null));
+    }
+
+    Block worstFit(int size) {
+        if (bySize.isEmpty()) return null;
+        Block largest = bySize.last();
+        return largest.getSize() >= size ? largest : null;
+    }
+
+    // Hueco de menor offset >= minOffset con tamaño suficiente, podando por maxSize.
+    private static Block leftmostFit(Node node, int size, int minOffset) {
+        while (node != null && node.maxSize >= size) {
+            if (node.block.getOffset() < minOffset) {
+                node = node.right;
+                continue;
+            }
+            Block left = leftmostFit(node.left, size, minOffset);
+            if (left != null) return left;
+            if (node.block.getSize() >= size) return node.block;
+            node = node.right;
+        }
+        return null;
+    }
+
+    private static Node insert(Node node, Node fresh) {
+        if (node == null) return fresh;
+        if (fresh.priority > node.priority) {
+            Node[] parts = split(node, fresh.block.getOffset());
+            fresh.left = parts[0];
+            fresh.right = parts[1];
+            return fresh.update();
+        }
+        if (fresh.block.getOffset() < node.block.getOffset()) {
+            node.left = insert(node.left, fresh);
+        } else {
+            node.right = insert(node.right, fresh);
+        }
+        return node.update();
+    }
+
+    private static Node delete(Node node, int offset) {
+        if (node == null) return null;
+        if (offset == node.block.getOffset()) return merge(node.left, node.right);
+        if (offset < node.block.getOffset()) {
+            node.left = delete(node.left, offset);
+        } else {
+            node.right = delete(node.right, offset);
+        }
+        return node.update();
+    }
+
+    private static Node[] split(Node node, int offset) {
+        if (node == null) return new Node[]{null, null};
+        if (node.block.getOffset() < offset) {
+            Node[] parts = split(node.right, offset);
+            node.right = parts[0];
+            return new Node[]{node.update(), parts[1]};
+        }
+        Node[] parts = split(node.left, offset);
+        node.left = parts[1];
+        return new Node[]{parts[0], node.update()};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static final class Node {
+        final Block block;
+        final int priority;
+        Node left;
+        Node right;
+        int maxSize;
+
+        Node(Block block, int priority) {
+            this.block = block;
+            this.priority = priority;
+            this.maxSize = block.getSize();
+        }
+
+        Node update() {
+            int max = block.getSize();
+            if (left != null && left.maxSize > max) max = left.maxSize;
+            if (right != null && right.maxSize > max) max = right.maxSize;
+            maxSize = max;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Particiones variables con huecos indexados por tamaño y offset, de modo que cada estrategia
+ * encuentra su hueco en O(log n). Los bloques forman una lista doblemente enlazada por offset y
+ * un índice por nombre, así que liberar solo fusiona con los vecinos inmediatos.
+ */
+public class FreeListAllocator implements MemoryAllocator {
+    private final int totalMemory;
+    private final Map<String, Block> owners = new HashMap<>();
+    private final FreeBlockIndex freeIndex = new FreeBlockIndex();
+    private Block head;
+    private AllocationStrategy strategy = AllocationStrategy.FIRST_FIT;
+    private int nextFitCursor;
+    private int usedMemory;
+
+    public FreeListAllocator(int totalMemory) {
+        if (totalMemory <= 0) {
+            throw new IllegalArgumentException("totalMemory debe ser positivo: " + totalMemory);
+        }
+        this.totalMemory = totalMemory;
+        head = new Block(0, totalMemory, null);
+        freeIndex.add(head);
+    }
+
+    @Override
+    public AllocationStrategy getStrategy() { return strategy; }
+
+    @Override
+    public boolean supportsStrategies() { return true; }
+
+    @Override
+    public void setStrategy(AllocationStrategy strategy) {
+        this.strategy = strategy;
+        nextFitCursor = 0;
+    }
+
+    @Override
+    public boolean allocate(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        if (owners.containsKey(name)) return false;
+        Block hole = freeIndex.find(strategy, size, nextFitCursor);
+        if (hole == null) return false;
+
+        Block block = carve(hole, hole.getOffset(), name, size);
+        nextFitCursor = block.getEnd();
+        return true;
+    }
+
+    @Override
+    public boolean release(String name) {
+        Block block = owners.remove(name);
+        if (block == null) return false;
+        free(block);
+        return true;
+    }
+
+    @Override
+    public int compact() {
+        int moved = 0;
+        int cursor = 0;
+        Block last = null;
+        for (Block block = head; block != null; block = block.next) {
+            if (block.isFree()) continue;
+            if (block.getOffset() != cursor) {
+                moved += block.getSize();
+                block.setOffset(cursor);
+            }
+            block.prev = last;
+            if (last == null) head = block; else last.next = block;
+            last = block;
+            cursor += block.getSize();
+        }
+        // Sin desplazamientos la lista ya era [usados..., hueco final] y el relink no cambió nada.
+        if (moved == 0) return 0;
+
+        relinkTail(last, cursor);
+        nextFitCursor = 0;
+        return moved;
+    }
+
+    /** Enlaza los bloques guardados tal cual, sin buscar huecos; los huecos contiguos se fusionan. */
+    @Override
+    public void restore(List<Block> layout, Map<String, Integer> requested) {
+        if (!owners.isEmpty()) {
+            throw new IllegalStateException("Solo se puede restaurar sobre memoria vacía");
+        }
+        Block first = null;
+        Block last = null;
+        int cursor = 0;
+        for (Block saved : layout) {
+            if (saved.getOffset() != cursor || saved.getSize() <= 0) {
+                throw new IllegalArgumentException("Disposición no contigua en el offset " + saved.getOffset());
+            }
+            cursor += saved.getSize();
+            if (saved.isFree() && last != null && last.isFree()) {
+                last.setSize(last.getSize() + saved.getSize());
+                continue;
+            }
+            Block block = new Block(saved.getOffset(), saved.getSize(), saved.getOwner());
+            block.prev = last;
+            if (last == null) first = block; else last.next = block;
+            last = block;
+        }
+        if (cursor != totalMemory) {
+            throw new IllegalArgumentException("La disposición cubre " + cursor + " MB de " + totalMemory);
+        }
+        freeIndex.clear();
+        head = first;
+        nextFitCursor = 0;
+        for (Block block = head; block != null; block = block.next) {
+            if (block.isFree()) {
+                freeIndex.add(block);
+            } else if (owners.put(block.getOwner(), block) != null) {
+                throw new IllegalArgumentException("Proceso duplicado: " + block.getOwner());
+            } else {
+                usedMemory += block.getSize();
+            }
+        }
+    }
+
+    @Override
+    public List<Block> blocks() {
+        List<Block> result = new ArrayList<>();
+        for (Block block = head; block != null; block = block.next) {
+            result.add(block);
+        }
+        return result;
+    }
+
+    @Override
+    public int sizeOf(String name) {
+        Block block = owners.get(name);
+        return block == null ? 0 : block.getSize();
+    }
+
+    @Override
+    public int getTotalMemory() { return totalMemory; }
+
+    @Override
+    public int getUsedMemory() { return usedMemory; }
+
+    @Override
+    public int getFreeBlockCount() { return freeIndex.count(); }
+
+    @Override
+    public int getLargestFreeBlock() { return freeIndex.largest(); }
+
+    Block lowestFreeBlock() { return freeIndex.lowest(); }
+
+    Block blockOf(String name) { return owners.get(name); }
+
+    /** Bytes del cursor del siguiente ajuste, que la disposición no refleja, en una instantánea. */
+    int stateBytes() { return Integer.BYTES; }
+
+    void writeState(ByteBuffer out) { out.putInt(nextFitCursor); }
+
+    /** Tras {@link #restore}, recupera el cursor del siguiente ajuste. */
+    void readState(ByteBuffer in) {
+        int cursor = in.getInt();
+        if (cursor < 0 || cursor > totalMemory) {
+            throw new IllegalArgumentException("Cursor del siguiente ajuste inválido: " + cursor);
+        }
+        nextFitCursor = cursor;
+    }
+
+    /** Asigna el proceso exactamente en el offset indicado, que debe estar libre. */
+    public boolean allocateAt(String name, int size, int offset) {
+        if (owners.containsKey(name)) return false;
+        Block hole = freeIndex.containing(offset);
+        if (hole == null || offset + size > hole.getEnd()) return false;
+        carve(hole, offset, name, size);
+        return true;
+    }
+
+    /** Copia el bloque a un offset libre y libera su posición anterior. */
+    void moveTo(Block block, int offset) {
+        Block hole = freeIndex.containing(offset);
+        if (block.isFree() || hole == null || offset + block.getSize() > hole.getEnd()) {
+            throw new IllegalStateException("Destino no libre para " + block + " en " + offset);
+        }
+        Block moved = carve(hole, offset, block.getOwner(), block.getSize());
+        free(block);
+        nextFitCursor = moved.getEnd();
+    }
+
+    /**
+     * Desliza un bloque usado sobre el hueco que lo precede; el hueco pasa detrás y se fusiona
+     * con el siguiente si también está libre.
+     */
+    void slideDown(Block block) {
+        Block hole = block.prev;
+        if (hole == null || !hole.isFree() || block.isFree()) {
+            throw new IllegalStateException("El bloque no tiene un hueco inmediatamente antes: " + block);
+        }
+        freeIndex.remove(hole);
+        unlink(hole);
+        block.setOffset(hole.getOffset());
+        hole.setOffset(block.getEnd());
+        linkAfter(block, hole);
+
+        Block next = hole.next;
+        if (next != null && next.isFree()) {
+            freeIndex.remove(next);
+            hole.setSize(hole.getSize() + next.getSize());
+            unlink(next);
+        }
+        freeIndex.add(hole);
+        nextFitCursor = 0;
+    }
+
+    private void relinkTail(Block last, int cursor) {
+        freeIndex.clear();
+        Block tail = null;
+        if (cursor < totalMemory) {
+            tail = new Block(cursor, totalMemory - cursor, null);
+            freeIndex.add(tail);
+            tail.prev = last;
+        }
+        if (last == null) head = tail; else last.next = tail;
+    }
+
+    // Divide el hueco en [antes][bloque][después] y registra el nuevo dueño.
+    private Block carve(Block hole, int offset, String name, int size) {
+        freeIndex.remove(hole);
+        if (offset > hole.getOffset()) {
+            Block before = hole;
+            hole = new Block(offset, before.getEnd() - offset, null);
+            before.setSize(offset - before.getOffset());
+            linkAfter(before, hole);
+            freeIndex.add(before);
+        }
+        if (hole.getSize() > size) {
+            Block rest = new Block(offset + size, hole.getSize() - size, null);
+            linkAfter(hole, rest);
+            freeIndex.add(rest);
+            hole.setSize(size);
+        }
+        hole.setOwner(name);
+        owners.put(name, hole);
+        usedMemory += size;
+        return hole;
+    }
+
+    private void free(Block block) {
+        usedMemory -= block.getSize();
+        block.setOwner(null);
+
+        Block next = block.next;
+        if (next != null && next.isFree()) {
+            freeIndex.remove(next);
+            block.setSize(block.getSize() + next.getSize());
+            unlink(next);
+        }
+        Block prev = block.prev;
+        if (prev != null && prev.isFree()) {
+            freeIndex.remove(prev);
+            prev.setSize(prev.getSize() + block.getSize());
+            unlink(block);
+            block = prev;
+        }
+        freeIndex.add(block);
+    }
+
+    private static void linkAfter(Block block, Block fresh) {
+        fresh.prev = block;
+        fresh.next = block.next;
+        if (block.next != null) block.next.prev = fresh;
+        block.next = fresh;
+    }
+
+    private void unlink(Block block) {
+        if (block.prev != null) block.prev.next = block.next; else head = block.next;
+        if (block.next != null) block.next.prev = block.prev;
+        block.prev = null;
+        block.next = null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.cesardarizaleta.gestor.advanced;
+
+/**
+ * Compactación por pasos con un presupuesto de MB copiados por paso. Un bloque solo cambia de
+ * offset cuando se ha copiado entero, así que entre pasos la disposición siempre es válida; si
+ * el hueco o el bloque cambian entre pasos la copia en curso se descarta y se reinicia.
+ */
+public class IncrementalCompactor {
+    private final FreeListAllocator allocator;
+    private Block pending;
+    private int pendingTarget;
+    private int pendingCopied;
+    private long totalMoved;
+    private long totalPauseNanos;
+    private long maxPauseNanos;
+    private int steps;
+
+    public IncrementalCompactor(FreeListAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    public Step step(int budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("El presupuesto debe ser positivo: " + budget);
+        }
+        long start = System.nanoTime();
+        int moved = 0;
+        int relocated = 0;
+        boolean finished = false;
+
+        while (moved < budget) {
+            Block hole = allocator.lowestFreeBlock();
+            if (hole == null || hole.next == null) {
+                finished = true;
+                break;
+            }
+            Block target = hole.next;
+            if (target != pending || pendingTarget != hole.getOffset()) {
+                pending = target;
+                pendingTarget = hole.getOffset();
+                pendingCopied = 0;
+            }
+            int chunk = Math.min(budget - moved, target.getSize() - pendingCopied);
+            pendingCopied += chunk;
+            moved += chunk;
+            if (pendingCopied == target.getSize()) {
+                allocator.slideDown(target);
+                pending = null;
+                relocated++;
+            }
+        }
+
+        long pause = System.nanoTime() - start;
+        steps++;
+        totalMoved += moved;
+        totalPauseNanos += pause;
+        maxPauseNanos = Math.max(maxPauseNanos, pause);
+        return new Step(moved, relocated, pause, progress(), finished || isFinished());
+    }
+
+    public boolean isFinished() {
+        Block hole = allocator.lowestFreeBlock();
+        return hole == null || hole.next == null;
+    }
+
+    /** Fracción de la memoria usada que ya está en su posición final. */
+    public double progress() {
+        int used = allocator.getUsedMemory();
+        if (used == 0 || isFinished()) return 1.0;
+        return Math.min(1.0, (double) allocator.lowestFreeBlock().getOffset() / used);
+    }
+
+    public long getTotalMoved() { return totalMoved; }
+    public long getTotalPauseNanos() { return totalPauseNanos; }
+    public long getMaxPauseNanos() { return maxPauseNanos; }
+    public int getSteps() { return steps; }
+
+    public static final class Step {
+        private final int moved;
+        private final int relocated;
+        private final long pauseNanos;
+        private final double progress;
+        private final boolean finished;
+
+        Step(int moved, int relocated, long pauseNanos, double progress, boolean finished) {
+            this.moved = moved;
+            this.relocated = relocated;
+            this.pauseNanos = pauseNanos;
+            this.progress = progress;
+            this.finished = finished;
+        }
+
+        public int getMoved() { return moved; }
+        public int getRelocated() { return relocated; }
+        public long getPauseNanos() { return pauseNanos; }
+        public double getProgress() { return progress; }
+        public boolean isFinished() { return finished; }
+    }
+}
@@ -0,0 +1,89 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales: exactas por debajo de 32 ns y,
+ * por encima, 16 cubetas por potencia de dos (error relativo máximo del 6,25 %). Registrar no
+ * reserva memoria. Se escribe desde un solo hilo; desde otros hilos se ven el número, el total y el
+ * máximo al día, y las cubetas de forma aproximada.
+ */
+public final class LatencyHistogram {
+    private static final int LINEAR = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int BUCKETS = LINEAR + 59 * SUB_BUCKETS;
+    /** Bytes que ocupa el histograma en una instantánea binaria. */
+    static final int STATE_BYTES = Long.BYTES * (3 + BUCKETS);
+
+    private final long[] counts = new long[BUCKETS];
+    private volatile long count;
+    private volatile long total;
+    private volatile long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[index(nanos)]++;
+        total += nanos;
+        if (nanos > max) max = nanos;
+        count++;
+    }
+
+    public long getCount() { return count; }
+    public long getMax() { return max; }
+    /** Suma de todas las latencias registradas. */
+    public long getTotal() { return total; }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /** Límite superior de la cubeta que contiene el percentil {@code p} (0-1), acotado por el máximo. */
+    public long percentile(double p) {
+        long n = count;
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    void writeTo(ByteBuffer out) {
+        out.putLong(count).putLong(total).putLong(max);
+        out.asLongBuffer().put(counts);
+        out.position(out.position() + Long.BYTES * BUCKETS);
+    }
+
+    void readFrom(ByteBuffer in) {
+        count = in.getLong();
+        total = in.getLong();
+        max = in.getLong();
+        in.asLongBuffer().get(counts);
+        in.position(in.position() + Long.BYTES * BUCKETS);
+    }
+
+    static int index(long value) {
+        if (value < LINEAR) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+        int top = (int) (value >>> shift);
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR) return index;
+        int k = index - LINEAR;
+        int shift = k / SUB_BUCKETS + 1;
+        long top = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,147 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Menos frecuentemente usado en O(1): lista ordenada de nodos de frecuencia, cada uno con sus
+ * procesos en orden LRU para desempatar.
+ */
+class LfuPolicy extends AbstractEvictionPolicy {
+    private final Map<String, FrequencyNode> owners = new HashMap<>();
+    private FrequencyNode head;
+    private long lastVictimFrequency;
+
+    @Override
+    protected void onInsert(String name) {
+        if (owners.containsKey(name)) {
+            onHit(name);
+            return;
+        }
+        FrequencyNode first = head;
+        if (first == null || first.frequency != 1) {
+            first = new FrequencyNode(1);
+            linkBefore(first, head);
+        }
+        first.items.add(name);
+        owners.put(name, first);
+    }
+
+    @Override
+    protected void onHit(String name) {
+        FrequencyNode node = owners.get(name);
+        if (node == null) return;
+        FrequencyNode target = node.next;
+        if (target == null || target.frequency != node.frequency + 1) {
+            target = new FrequencyNode(node.frequency + 1);
+            linkAfter(node, target);
+        }
+        target.items.add(name);
+        owners.put(name, target);
+        removeItem(node, name);
+    }
+
+    @Override
+    protected void onRemove(String name) {
+        FrequencyNode node = owners.remove(name);
+        if (node != null) removeItem(node, name);
+    }
+
+    @Override
+    protected String evict() {
+        if (head == null) return null;
+        String victim = head.items.iterator().next();
+        lastVictimFrequency = head.frequency;
+        owners.remove(victim);
+        removeItem(head, victim);
+        return victim;
+    }
+
+    // La víctima era la más antigua de la menor frecuencia: vuelve delante de su nodo.
+    @Override
+    protected void undoEvict(String name) {
+        FrequencyNode node = head;
+        if (node == null || node.frequency != lastVictimFrequency) {
+            node = new FrequencyNode(lastVictimFrequency);
+            linkBefore(node, head);
+        }
+        node.items.addFirst(name);
+        owners.put(name, node);
+    }
+
+    @Override
+    protected long contentBytes() {
+        long bytes = Integer.BYTES;
+        for (FrequencyNode node = head; node != null; node = node.next) bytes += Long.BYTES + namesBytes(node.items);
+        return bytes;
+    }
+
+    // Los nodos de menor a mayor frecuencia, cada uno con sus procesos en orden LRU.
+    @Override
+    protected void writeContent(ByteBuffer out) {
+        int count = 0;
+        for (FrequencyNode node = head; node != null; node = node.next) count++;
+        out.putInt(count);
+        for (FrequencyNode node = head; node != null; node = node.next) {
+            out.putLong(node.frequency);
+            putNames(out, node.items);
+        }
+    }
+
+    @Override
+    protected void readContent(ByteBuffer in) {
+        int count = StateFile.getLength(in, Long.BYTES + Integer.BYTES);
+        FrequencyNode last = null;
+        for (int i = 0; i < count; i++) {
+            FrequencyNode node = new FrequencyNode(in.getLong());
+            List<String> names = getNames(in);
+            if (names.isEmpty() || node.frequency <= (last == null ? 0 : last.frequency)) {
+                throw new IllegalArgumentException("Nodo de frecuencia inválido: " + node.frequency);
+            }
+            for (String name : names) {
+                if (owners.put(name, node) != null) {
+                    throw new IllegalArgumentException("Proceso repetido en LFU: " + name);
+                }
+                node.items.add(name);
+            }
+            if (last == null) head = node; else linkAfter(last, node);
+            last = node;
+        }
+    }
+
+    private void removeItem(FrequencyNode node, String name) {
+        node.items.remove(name);
+        if (!node.items.isEmpty()) return;
+        if (node.prev != null) node.prev.next = node.next; else head = node.next;
+        if (node.next != null) node.next.prev = node.prev;
+    }
+
+    private void linkBefore(FrequencyNode fresh, FrequencyNode next) {
+        fresh.next = next;
+        if (next != null) next.prev = fresh;
+        head = fresh;
+    }
+
+    private static void linkAfter(FrequencyNode node, FrequencyNode fresh) {
+        fresh.prev = node;
+        fresh.next = node.next;
+        if (node.next != null) node.next.prev = fresh;
+        node.next = fresh;
+    }
+
+    @Override
+    public EvictionPolicyType getType() { return EvictionPolicyType.LFU; }
+
+    private static final class FrequencyNode {
+        final long frequency;
+        final LinkedNames items = new LinkedNames();
+        FrequencyNode prev;
+        FrequencyNode next;
+
+        FrequencyNode(long frequency) {
+            this.frequency = frequency;
+        }
+    }
+}
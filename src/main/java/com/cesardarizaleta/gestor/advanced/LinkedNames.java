@@ -0,0 +1,106 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.AbstractCollection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Conjunto de nombres en orden, como un {@link java.util.LinkedHashSet} que además inserta por
+ * delante en O(1): las políticas lo usan para devolver una víctima a su sitio al deshacer.
+ */
+final class LinkedNames extends AbstractCollection<String> {
+    private final Map<String, Node> nodes = new HashMap<>();
+    // Centinela del anillo: head.next es el primero y head.prev el último.
+    private final Node head = new Node(null);
+
+    LinkedNames() {
+        head.prev = head;
+        head.next = head;
+    }
+
+    /** Añade al final si no estaba. */
+    @Override
+    public boolean add(String name) { return linkBefore(name, head); }
+
+    /** Añade al principio si no estaba. */
+    boolean addFirst(String name) { return linkBefore(name, head.next); }
+
+    /** Quita y devuelve el primero, o null si está vacío. */
+    String pollFirst() {
+        if (head.next == head) return null;
+        String first = head.next.name;
+        remove(first);
+        return first;
+    }
+
+    @Override
+    public boolean remove(Object name) {
+        Node node = nodes.remove(name);
+        if (node == null) return false;
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object name) { return nodes.containsKey(name); }
+
+    @Override
+    public int size() { return nodes.size(); }
+
+    @Override
+    public void clear() {
+        nodes.clear();
+        head.prev = head;
+        head.next = head;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<>() {
+            private Node next = head.next;
+            private Node last;
+
+            @Override
+            public boolean hasNext() { return next != head; }
+
+            @Override
+            public String next() {
+                if (next == head) throw new NoSuchElementException();
+                last = next;
+                next = next.next;
+                return last.name;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) throw new IllegalStateException();
+                LinkedNames.this.remove(last.name);
+                last = null;
+            }
+        };
+    }
+
+    private boolean linkBefore(String name, Node successor) {
+        if (nodes.containsKey(name)) return false;
+        Node node = new Node(name);
+        node.prev = successor.prev;
+        node.next = successor;
+        successor.prev.next = node;
+        successor.prev = node;
+        nodes.put(name, node);
+        return true;
+    }
+
+    private static final class Node {
+        final String name;
+        Node prev;
+        Node next;
+
+        Node(String name) {
+            this.name = name;
+        }
+    }
+}
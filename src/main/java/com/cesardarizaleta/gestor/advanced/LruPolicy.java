@@ -0,0 +1,47 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+
+/** Menos recientemente usado: una lista enlazada de nombres en orden de acceso. */
+class LruPolicy extends AbstractEvictionPolicy {
+    private final LinkedNames order = new LinkedNames();
+
+    @Override
+    protected void onInsert(String name) {
+        order.remove(name);
+        order.add(name);
+    }
+
+    @Override
+    protected void onHit(String name) {
+        onInsert(name);
+    }
+
+    @Override
+    protected void onRemove(String name) {
+        order.remove(name);
+    }
+
+    @Override
+    protected String evict() {
+        return order.pollFirst();
+    }
+
+    // La víctima era la menos reciente: vuelve al principio del orden.
+    @Override
+    protected void undoEvict(String name) {
+        order.addFirst(name);
+    }
+
+    @Override
+    protected long contentBytes() { return namesBytes(order); }
+
+    @Override
+    protected void writeContent(ByteBuffer out) { putNames(out, order); }
+
+    @Override
+    protected void readContent(ByteBuffer in) { order.addAll(getNames(in)); }
+
+    @Override
+    public EvictionPolicyType getType() { return EvictionPolicyType.LRU; }
+}
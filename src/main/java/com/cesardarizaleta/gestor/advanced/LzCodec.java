@@ -0,0 +1,122 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.Arrays;
+
+/**
+ * Compresor LZ77 de una pasada en Java puro, con el formato de secuencias de LZ4: un byte de
+ * control con la longitud de literales y de coincidencia, los literales y un desplazamiento de
+ * dos bytes. Busca coincidencias de 4 bytes con una tabla hash sin cadenas, así que es rápido y
+ * comprime poco; basta para las imágenes del swap, con tramos repetidos y tramos aleatorios.
+ * La última secuencia solo lleva literales.
+ */
+final class LzCodec {
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 65_535;
+    private static final int HASH_BITS = 12;
+
+    private final int[] table = new int[1 << HASH_BITS];
+
+    /** Tamaño máximo de la salida para {@code length} bytes de entrada, incluso sin compresión. */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Comprime {@code src[0, length)} en {@code dst} a partir de {@code offset}, que debe tener sitio
+     * para {@link #maxCompressedLength(int)} bytes, y devuelve los bytes escritos.
+     */
+    int compress(byte[] src, int length, byte[] dst, int offset) {
+        // Posición + 1 de la última aparición de cada hash; 0 es vacío.
+        Arrays.fill(table, 0);
+        int anchor = 0;
+        int ip = 0;
+        int op = offset;
+        while (ip <= length - MIN_MATCH) {
+            int sequence = readInt(src, ip);
+            int hash = (sequence * 0x9E3779B1) >>> (32 - HASH_BITS);
+            int ref = table[hash] - 1;
+            table[hash] = ip + 1;
+            if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                ip++;
+                continue;
+            }
+            int match = MIN_MATCH;
+            while (ip + match < length && src[ref + match] == src[ip + match]) match++;
+            op = writeSequence(src, anchor, ip - anchor, dst, op, ip - ref, match - MIN_MATCH);
+            ip += match;
+            anchor = ip;
+        }
+        return writeSequence(src, anchor, length - anchor, dst, op, 0, 0) - offset;
+    }
+
+    /** Descomprime {@code src[offset, end)} al principio de {@code dst} y devuelve los bytes escritos. */
+    static int decompress(byte[] src, int offset, int end, byte[] dst) {
+        int ip = offset;
+        int op = 0;
+        while (ip < end) {
+            int token = src[ip++] & 0xFF;
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int extra;
+                do {
+                    if (ip == end) throw corrupt();
+                    extra = src[ip++] & 0xFF;
+                    literals += extra;
+                } while (extra == 255);
+            }
+            if (ip + literals > end || op + literals > dst.length) throw corrupt();
+            System.arraycopy(src, ip, dst, op, literals);
+            ip += literals;
+            op += literals;
+            if (ip == end) break;
+
+            if (ip + 2 > end) throw corrupt();
+            int distance = (src[ip++] & 0xFF) | (src[ip++] & 0xFF) << 8;
+            int match = token & 15;
+            if (match == 15) {
+                int extra;
+                do {
+                    if (ip == end) throw corrupt();
+                    extra = src[ip++] & 0xFF;
+                    match += extra;
+                } while (extra == 255);
+            }
+            match += MIN_MATCH;
+            int ref = op - distance;
+            if (distance == 0 || ref < 0 || op + match > dst.length) throw corrupt();
+            // Byte a byte: con desplazamientos cortos el origen solapa lo que se está escribiendo.
+            for (int stop = op + match; op < stop; op++) dst[op] = dst[ref++];
+        }
+        return op;
+    }
+
+    // Sin desplazamiento es la secuencia final, solo de literales.
+    private static int writeSequence(byte[] src, int start, int literals, byte[] dst, int op, int offset, int match) {
+        dst[op++] = (byte) (Math.min(literals, 15) << 4 | Math.min(match, 15));
+        if (literals >= 15) op = writeLength(dst, op, literals - 15);
+        System.arraycopy(src, start, dst, op, literals);
+        op += literals;
+        if (offset == 0) return op;
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        if (match >= 15) op = writeLength(dst, op, match - 15);
+        return op;
+    }
+
+    private static int writeLength(byte[] dst, int op, int length) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int readInt(byte[] src, int i) {
+        return (src[i] & 0xFF) | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF) << 16 | (src[i + 3] & 0xFF) << 24;
+    }
+
+    private static IllegalStateException corrupt() {
+        return new IllegalStateException("Datos comprimidos corruptos");
+    }
+}
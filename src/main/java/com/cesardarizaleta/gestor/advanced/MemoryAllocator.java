@@ -0,0 +1,68 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Política de asignación sobre un espacio de direcciones simulado, sin dependencias de JavaFX.
+ * Los tamaños se expresan en MB.
+ */
+public interface MemoryAllocator {
+    boolean allocate(String name, int size);
+
+    boolean release(String name);
+
+    /** Mueve los procesos al inicio de la memoria; devuelve los MB desplazados. */
+    int compact();
+
+    /** MB que ocupa el proceso, o 0 si no está residente. */
+    int sizeOf(String name);
+
+    default boolean contains(String name) { return sizeOf(name) > 0; }
+
+    /** Bloques ordenados por offset, incluidos los huecos libres. */
+    List<Block> blocks();
+
+    int getTotalMemory();
+
+    int getUsedMemory();
+
+    default int getFreeMemory() { return getTotalMemory() - getUsedMemory(); }
+
+    /** Mayor hueco contiguo libre en MB. */
+    default int getLargestFreeBlock() {
+        return blocks().stream().filter(Block::isFree).mapToInt(Block::getSize).max().orElse(0);
+    }
+
+    default int getFreeBlockCount() {
+        return (int) blocks().stream().filter(Block::isFree).count();
+    }
+
+    /** Fragmentación externa: 1 - mayor hueco / memoria libre (0 si la memoria libre es contigua). */
+    default double getExternalFragmentation() {
+        int free = getFreeMemory();
+        return free == 0 ? 0 : 1.0 - (double) getLargestFreeBlock() / free;
+    }
+
+    /** MB reservados que exceden lo solicitado por los procesos. */
+    default int getInternalFragmentation() { return 0; }
+
+    default boolean supportsStrategies() { return false; }
+
+    default AllocationStrategy getStrategy() { return AllocationStrategy.FIRST_FIT; }
+
+    default void setStrategy(AllocationStrategy strategy) { }
+
+    /**
+     * Reconstruye sobre memoria vacía una disposición devuelta por {@link #blocks()}, con los MB
+     * que pidió cada proceso. Por defecto reasigna los procesos en orden de offset, así que los
+     * asignadores que eligen la posición por sí mismos pueden no reproducir los mismos offsets.
+     */
+    default void restore(List<Block> layout, Map<String, Integer> requested) {
+        for (Block block : layout) {
+            if (!block.isFree() && !allocate(block.getOwner(), requested.getOrDefault(block.getOwner(), block.getSize()))) {
+                throw new IllegalArgumentException("No se pudo restaurar " + block);
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.logging.Logger;
+
+/**
+ * Coordina el asignador, el área de swap y la política de desalojo. Es el punto de entrada
+ * sin interfaz gráfica para todas las operaciones sobre procesos.
+ */
+public class MemoryManager {
+    private static final Logger LOG = Logger.getLogger(MemoryManager.class.getName());
+
+    private MemoryAllocator allocator;
+    private final SwapArea swapArea;
+    private EvictionPolicy policy = EvictionPolicyType.LRU.create();
+    private boolean autoSwap;
+    private CompactionPolicy compactionPolicy = CompactionPolicy.TARGETED;
+    private final MemoryMetrics metrics = new MemoryMetrics();
+    private final TierMigrator migrator = new TierMigrator();
+    private CompactionPlanner.Plan lastPlan;
+    private int lastEvictions;
+
+    public MemoryManager(MemoryAllocator allocator, SwapArea swapArea) {
+        this.allocator = allocator;
+        this.swapArea = swapArea;
+        metrics.updateGauges(allocator);
+    }
+
+    public MemoryAllocator getAllocator() { return allocator; }
+
+    /** Cambia de asignador; los procesos residentes se pierden y los de swap se conservan. */
+    public void setAllocator(MemoryAllocator allocator) {
+        this.allocator = allocator;
+        this.policy = policy.getType().create();
+        migrator.retain(this::contains);
+        metrics.updateGauges(allocator);
+    }
+
+    public SwapArea getSwapArea() { return swapArea; }
+
+    public EvictionPolicy getPolicy() { return policy; }
+
+    /** Cambia de política y le presenta los residentes actuales en orden de offset. */
+    public void setPolicy(EvictionPolicyType type) {
+        policy = type.create();
+        allocator.blocks().stream()
+                .filter(b -> !b.isFree())
+                .map(Block::getOwner)
+                .distinct()
+                .forEach(policy::recordInsert);
+    }
+
+    /** Sustituye la política por una ya cargada de una instantánea, con su propio orden de víctimas. */
+    void restorePolicy(EvictionPolicy policy) { this.policy = policy; }
+
+    public boolean isAutoSwap() { return autoSwap; }
+
+    public void setAutoSwap(boolean autoSwap) { this.autoSwap = autoSwap; }
+
+    public CompactionPolicy getCompactionPolicy() { return compactionPolicy; }
+
+    public void setCompactionPolicy(CompactionPolicy compactionPolicy) { this.compactionPolicy = compactionPolicy; }
+
+    /** MB desplazados por compactaciones completas y dirigidas desde el último reinicio de métricas. */
+    public long getMovedMemory() { return metrics.getMovedMemory(); }
+
+    public MemoryMetrics getMetrics() { return metrics; }
+
+    /** Temperaturas y migración entre niveles; solo se usan con {@link TieredAllocator}. */
+    public TierMigrator getMigrator() { return migrator; }
+
+    /** Plan de compactación dirigida usado por la última operación, o null. */
+    public CompactionPlanner.Plan getLastPlan() { return lastPlan; }
+
+    /** Procesos desalojados a swap por la última operación. */
+    public int getLastEvictions() { return lastEvictions; }
+
+    public boolean contains(String name) {
+        return allocator.contains(name) || swapArea.contains(name);
+    }
+
+    public boolean add(String name, int size) {
+        if (contains(name)) return false;
+        boolean placed = place(name, size);
+        if (placed) policy.recordInsert(name); else metrics.recordAllocationFailure();
+        metrics.updateGauges(allocator);
+        return placed;
+    }
+
+    public boolean remove(String name) {
+        boolean released = release(name);
+        metrics.updateGauges(allocator);
+        boolean removed = released || swapArea.discard(name);
+        if (removed) {
+            // También si estaba en swap: ARC aún lo recuerda en sus listas fantasma.
+            policy.recordRemoval(name);
+            migrator.forget(name);
+        }
+        return removed;
+    }
+
+    public boolean swapOut(String name) {
+        int size = allocator.sizeOf(name);
+        if (size == 0 || !swapArea.swapOut(name, size)) return false;
+        release(name);
+        policy.recordRemoval(name);
+        metrics.recordSwapOut();
+        metrics.updateGauges(allocator);
+        return true;
+    }
+
+    public boolean swapIn(String name) {
+        if (!bringBack(name)) return false;
+        policy.recordInsert(name);
+        metrics.updateGauges(allocator);
+        return true;
+    }
+
+    /** Acceso a un proceso: acierto si es residente; si está en swap es un fallo y se trae. */
+    public boolean access(String name) {
+        lastPlan = null;
+        lastEvictions = 0;
+        boolean tiered = allocator instanceof TieredAllocator;
+        if (allocator.contains(name)) {
+            policy.recordHit(name);
+            translate(name, false);
+            if (tiered) chargeTier(name, false);
+            chargeNode(name);
+            return true;
+        }
+        if (!swapArea.contains(name)) return false;
+        // Un fallo calienta el proceso antes de traerlo, así que vuelve al nivel más rápido con sitio.
+        if (tiered) migrator.recordAccess(name);
+        if (!bringBack(name)) return false;
+        policy.recordMiss(name);
+        translate(name, true);
+        if (tiered) chargeTier(name, true);
+        chargeNode(name);
+        metrics.updateGauges(allocator);
+        return true;
+    }
+
+    // Coste del acceso en el nivel del proceso, más el disco si venía de swap, y la referencia sin niveles.
+    private void chargeTier(String name, boolean faulted) {
+        TieredAllocator tiers = (TieredAllocator) allocator;
+        int tier = tiers.tierOf(name);
+        if (!faulted) migrator.recordAccess(name);
+        long disk = faulted ? TieredAllocator.DISK_ACCESS_NANOS : 0;
+        metrics.recordTierAccess(tier == 0, disk + tiers.getTiers().get(tier).getAccessNanos(),
+                disk + Math.round(tiers.getFlatAccessNanos()));
+    }
+
+    /**
+     * Una pasada del motor de migración entre niveles, moviendo como mucho unos {@code budget} MB;
+     * devuelve los MB movidos, 0 si el asignador no es por niveles.
+     */
+    public int migrate(int budget) {
+        if (!(allocator instanceof TieredAllocator)) return 0;
+        TierMigrator.Pass pass = migrator.migrate((TieredAllocator) allocator, budget);
+        metrics.recordMigration(pass.getPromotions(), pass.getDemotions(), pass.getMoved());
+        if (pass.getMoved() > 0) metrics.updateGauges(allocator);
+        return pass.getMoved();
+    }
+
+    // Con memoria NUMA el acceso cuesta según la distancia del nodo local del proceso al que lo aloja.
+    private void chargeNode(String name) {
+        if (!(allocator instanceof NumaAllocator)) return;
+        NumaAllocator numa = (NumaAllocator) allocator;
+        metrics.recordNodeAccess(numa.isRemote(name), numa.accessNanos(name));
+    }
+
+    /**
+     * Una pasada de reequilibrado entre nodos NUMA, moviendo como mucho unos {@code budget} MB;
+     * devuelve los MB movidos, 0 si el asignador no es NUMA o los nodos están equilibrados.
+     */
+    public int rebalance(int budget) {
+        if (!(allocator instanceof NumaAllocator)) return 0;
+        NumaAllocator.Rebalance pass = ((NumaAllocator) allocator).rebalance(budget);
+        metrics.recordRebalance(pass.getMoves(), pass.getMoved());
+        if (pass.getMoved() > 0) metrics.updateGauges(allocator);
+        return pass.getMoved();
+    }
+
+    // Con paginación el acceso traduce cada página; si el proceso venía de swap todas han fallado.
+    private void translate(String name, boolean faulted) {
+        if (!(allocator instanceof PagedAllocator)) return;
+        PagedAllocator paged = (PagedAllocator) allocator;
+        int pages = paged.pageCountOf(name);
+        int hits = paged.touch(name);
+        metrics.recordTranslations(pages, hits, PagedAllocator.translationNanos(pages, hits), faulted ? pages : 0);
+    }
+
+    /**
+     * Desaloja a swap las víctimas de la política hasta que haya {@code freeTarget} MB libres o no
+     * quede a quién desalojar, como un demonio de reclamación. Devuelve los procesos desalojados.
+     */
+    public int reclaim(int freeTarget) {
+        int evicted = 0;
+        while (allocator.getFreeMemory() < freeTarget && evictOne()) evicted++;
+        if (evicted > 0) metrics.updateGauges(allocator);
+        return evicted;
+    }
+
+    public int compact() {
+        int moved = fullCompaction();
+        metrics.updateGauges(allocator);
+        return moved;
+    }
+
+    private int fullCompaction() {
+        long start = System.nanoTime();
+        int moved = allocator.compact();
+        metrics.recordCompaction(System.nanoTime() - start, moved);
+        return moved;
+    }
+
+    private boolean allocate(String name, int size) {
+        long start = System.nanoTime();
+        boolean allocated = allocator instanceof TieredAllocator
+                ? ((TieredAllocator) allocator).allocate(name, size, migrator.isHot(name))
+                : allocator.allocate(name, size);
+        metrics.recordAllocate(System.nanoTime() - start);
+        if (allocated && allocator instanceof NumaAllocator) {
+            metrics.recordNodeAllocation(((NumaAllocator) allocator).isRemote(name));
+        }
+        return allocated;
+    }
+
+    private boolean release(String name) {
+        long start = System.nanoTime();
+        boolean released = allocator.release(name);
+        if (released) metrics.recordRelease(System.nanoTime() - start);
+        return released;
+    }
+
+    private boolean bringBack(String name) {
+        if (!swapArea.contains(name) || allocator.contains(name)) return false;
+        if (!place(name, swapArea.sizeOf(name))) return false;
+        swapArea.swapIn(name);
+        metrics.recordSwapIn();
+        return true;
+    }
+
+    // Asigna; si falla compacta según la política y, con swap automático, desaloja víctimas.
+    private boolean place(String name, int size) {
+        lastPlan = null;
+        lastEvictions = 0;
+        if (size > allocator.getTotalMemory()) return false;
+        while (true) {
+            if (allocate(name, size) || allocateAfterCompaction(name, size)) return true;
+            if (!autoSwap || !evictOne()) return false;
+            lastEvictions++;
+        }
+    }
+
+    private boolean allocateAfterCompaction(String name, int size) {
+        return switch (compactionPolicy) {
+            case NONE -> false;
+            case FULL -> size <= allocator.getFreeMemory() && fullCompaction() > 0 && allocate(name, size);
+            case TARGETED -> allocateWithPlanner(name, size);
+        };
+    }
+
+    private boolean allocateWithPlanner(String name, int size) {
+        if (!(allocator instanceof FreeListAllocator)) return false;
+        CompactionPlanner planner = new CompactionPlanner((FreeListAllocator) allocator);
+        CompactionPlanner.Plan plan = planner.plan(size);
+        if (plan == null || !planner.execute(plan, name)) return false;
+        lastPlan = plan;
+        metrics.recordTargetedCompaction(plan.getMovedMemory());
+        LOG.info(String.format("Compactación dirigida para %s (%d MB): %d reubicaciones, %d MB movidos, "
+                        + "%d MB ahorrados frente a la compactación completa (%d MB)",
+                name, size, plan.getMoves().size(), plan.getMovedMemory(),
+                plan.getSavedMemory(), plan.getFullCompactionMemory()));
+        return true;
+    }
+
+    // Toda salida de memoria pasa por recordRemoval, así que la víctima siempre es residente; si
+    // el swap no la admite, la política la recupera tal como estaba.
+    private boolean evictOne() {
+        String victim = policy.selectVictim();
+        if (victim == null) return false;
+        int size = allocator.sizeOf(victim);
+        if (size == 0) {
+            throw new IllegalStateException("La política eligió un proceso no residente: " + victim);
+        }
+        if (!swapArea.swapOut(victim, size)) {
+            policy.cancelEviction(victim);
+            return false;
+        }
+        release(victim);
+        metrics.recordEviction();
+        metrics.recordSwapOut();
+        LOG.fine(() -> "Desalojado a swap por " + policy.getType() + ": " + victim);
+        return true;
+    }
+}
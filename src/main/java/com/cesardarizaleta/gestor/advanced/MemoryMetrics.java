@@ -0,0 +1,279 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * Latencias de asignación, liberación (con fusión de huecos) y compactación, contadores de
+ * compactación, swap, traducción de páginas, niveles y nodos NUMA, e indicadores de
+ * fragmentación del asignador actual. Lo actualiza el {@link MemoryManager} en su hilo y se
+ * puede leer desde cualquier otro, p. ej. por JMX: los contadores son volátiles y los
+ * histogramas que se cargan o se ponen a cero se sustituyen por otros ya completos en vez de
+ * sobrescribirse.
+ */
+public class MemoryMetrics implements MemoryMetricsMBean {
+    public static final String DEFAULT_NAME = "com.cesardarizaleta.gestor:type=MemoryManager";
+
+    private volatile LatencyHistogram allocate = new LatencyHistogram();
+    private volatile LatencyHistogram release = new LatencyHistogram();
+    private volatile LatencyHistogram compact = new LatencyHistogram();
+
+    private volatile double externalFragmentation;
+    private volatile int largestFreeBlock;
+    private volatile int freeBlockCount;
+    private volatile int usedMemory;
+
+    private volatile long allocationFailures;
+    private volatile long targetedCompactions;
+    private volatile long movedMemory;
+    private volatile long swapOuts;
+    private volatile long swapIns;
+    private volatile long evictions;
+    private volatile long pageAccesses;
+    private volatile long tlbHits;
+    private volatile long pageFaults;
+    private volatile long translationNanos;
+    private volatile long tierAccesses;
+    private volatile long fastTierAccesses;
+    private volatile long tierNanos;
+    private volatile long flatTierNanos;
+    private volatile long promotions;
+    private volatile long demotions;
+    private volatile long migratedMemory;
+    private volatile long nodeAllocations;
+    private volatile long remoteAllocations;
+    private volatile long nodeAccesses;
+    private volatile long remoteAccesses;
+    private volatile long nodeNanos;
+    private volatile long rebalanceMoves;
+    private volatile long rebalancedMemory;
+    private volatile boolean resetRequested;
+
+    private static final int COUNTER_COUNT = 24;
+    /** Bytes de latencias y contadores en una instantánea binaria; los indicadores se recalculan. */
+    static final int STATE_BYTES = 3 * LatencyHistogram.STATE_BYTES + COUNTER_COUNT * Long.BYTES;
+
+    void recordAllocate(long nanos) { allocate.record(nanos); }
+    void recordRelease(long nanos) { release.record(nanos); }
+
+    void recordCompaction(long nanos, int moved) {
+        compact.record(nanos);
+        movedMemory += moved;
+    }
+
+    void recordTargetedCompaction(int moved) {
+        targetedCompactions++;
+        movedMemory += moved;
+    }
+
+    void recordAllocationFailure() { allocationFailures++; }
+    void recordSwapOut() { swapOuts++; }
+    void recordSwapIn() { swapIns++; }
+    void recordEviction() { evictions++; }
+
+    void recordTranslations(int pages, int hits, long nanos, int faults) {
+        pageAccesses += pages;
+        tlbHits += hits;
+        translationNanos += nanos;
+        pageFaults += faults;
+    }
+
+    void recordTierAccess(boolean fastest, long nanos, long flatNanos) {
+        tierAccesses++;
+        if (fastest) fastTierAccesses++;
+        tierNanos += nanos;
+        flatTierNanos += flatNanos;
+    }
+
+    void recordMigration(int promoted, int demoted, int moved) {
+        promotions += promoted;
+        demotions += demoted;
+        migratedMemory += moved;
+    }
+
+    void recordNodeAllocation(boolean remote) {
+        nodeAllocations++;
+        if (remote) remoteAllocations++;
+    }
+
+    void recordNodeAccess(boolean remote, long nanos) {
+        nodeAccesses++;
+        if (remote) remoteAccesses++;
+        nodeNanos += nanos;
+    }
+
+    void recordRebalance(int moves, int moved) {
+        rebalanceMoves += moves;
+        rebalancedMemory += moved;
+    }
+
+    void updateGauges(MemoryAllocator allocator) {
+        if (resetRequested) {
+            resetRequested = false;
+            clear();
+        }
+        largestFreeBlock = allocator.getLargestFreeBlock();
+        freeBlockCount = allocator.getFreeBlockCount();
+        usedMemory = allocator.getUsedMemory();
+        externalFragmentation = allocator.getExternalFragmentation();
+    }
+
+    void writeState(ByteBuffer out) {
+        allocate.writeTo(out);
+        release.writeTo(out);
+        compact.writeTo(out);
+        for (long counter : counters()) out.putLong(counter);
+    }
+
+    /**
+     * Lee latencias y contadores guardados sin tocar los actuales; el resultado los sustituye. Una
+     * puesta a cero pendiente se aplica igualmente en la siguiente operación.
+     */
+    Runnable readState(ByteBuffer in) {
+        LatencyHistogram loadedAllocate = new LatencyHistogram();
+        LatencyHistogram loadedRelease = new LatencyHistogram();
+        LatencyHistogram loadedCompact = new LatencyHistogram();
+        loadedAllocate.readFrom(in);
+        loadedRelease.readFrom(in);
+        loadedCompact.readFrom(in);
+        long[] counters = new long[COUNTER_COUNT];
+        for (int i = 0; i < counters.length; i++) counters[i] = in.getLong();
+        return () -> {
+            allocate = loadedAllocate;
+            release = loadedRelease;
+            compact = loadedCompact;
+            setCounters(counters);
+        };
+    }
+
+    // El orden de los contadores en las instantáneas; setCounters los lee en el mismo.
+    private long[] counters() {
+        return new long[] {
+                allocationFailures, targetedCompactions, movedMemory, swapOuts, swapIns, evictions,
+                pageAccesses, tlbHits, pageFaults, translationNanos,
+                tierAccesses, fastTierAccesses, tierNanos, flatTierNanos, promotions, demotions, migratedMemory,
+                nodeAllocations, remoteAllocations, nodeAccesses, remoteAccesses, nodeNanos, rebalanceMoves,
+                rebalancedMemory
+        };
+    }
+
+    private void setCounters(long[] counters) {
+        allocationFailures = counters[0];
+        targetedCompactions = counters[1];
+        movedMemory = counters[2];
+        swapOuts = counters[3];
+        swapIns = counters[4];
+        evictions = counters[5];
+        pageAccesses = counters[6];
+        tlbHits = counters[7];
+        pageFaults = counters[8];
+        translationNanos = counters[9];
+        tierAccesses = counters[10];
+        fastTierAccesses = counters[11];
+        tierNanos = counters[12];
+        flatTierNanos = counters[13];
+        promotions = counters[14];
+        demotions = counters[15];
+        migratedMemory = counters[16];
+        nodeAllocations = counters[17];
+        remoteAllocations = counters[18];
+        nodeAccesses = counters[19];
+        remoteAccesses = counters[20];
+        nodeNanos = counters[21];
+        rebalanceMoves = counters[22];
+        rebalancedMemory = counters[23];
+    }
+
+    public LatencyHistogram getAllocateLatency() { return allocate; }
+    public LatencyHistogram getReleaseLatency() { return release; }
+    public LatencyHistogram getCompactLatency() { return compact; }
+
+    /** Registra estas métricas en el servidor de MBeans de la plataforma. */
+    public ObjectName register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(name);
+        if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public static void unregister(ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) server.unregisterMBean(name);
+    }
+
+    private static double micros(long nanos) { return nanos / 1e3; }
+
+    @Override public double getAllocateP50Micros() { return micros(allocate.percentile(0.50)); }
+    @Override public double getAllocateP99Micros() { return micros(allocate.percentile(0.99)); }
+    @Override public double getAllocateMaxMicros() { return micros(allocate.getMax()); }
+    @Override public long getAllocateCount() { return allocate.getCount(); }
+
+    @Override public double getReleaseP50Micros() { return micros(release.percentile(0.50)); }
+    @Override public double getReleaseP99Micros() { return micros(release.percentile(0.99)); }
+    @Override public double getReleaseMaxMicros() { return micros(release.getMax()); }
+    @Override public long getReleaseCount() { return release.getCount(); }
+
+    @Override public double getCompactP50Micros() { return micros(compact.percentile(0.50)); }
+    @Override public double getCompactP99Micros() { return micros(compact.percentile(0.99)); }
+    @Override public double getCompactMaxMicros() { return micros(compact.getMax()); }
+    @Override public long getCompactCount() { return compact.getCount(); }
+
+    @Override public double getExternalFragmentation() { return externalFragmentation; }
+    @Override public int getLargestFreeBlock() { return largestFreeBlock; }
+    @Override public int getFreeBlockCount() { return freeBlockCount; }
+    @Override public int getUsedMemory() { return usedMemory; }
+
+    @Override public long getAllocationFailures() { return allocationFailures; }
+    @Override public long getTargetedCompactions() { return targetedCompactions; }
+    @Override public long getMovedMemory() { return movedMemory; }
+    @Override public long getSwapOuts() { return swapOuts; }
+    @Override public long getSwapIns() { return swapIns; }
+    @Override public long getEvictions() { return evictions; }
+
+    @Override public long getPageAccesses() { return pageAccesses; }
+    @Override public double getTlbHitRate() { return pageAccesses == 0 ? 0 : (double) tlbHits / pageAccesses; }
+    @Override public double getPageFaultRate() { return pageAccesses == 0 ? 0 : (double) pageFaults / pageAccesses; }
+    @Override public double getTranslationNanosPerAccess() {
+        return pageAccesses == 0 ? 0 : (double) translationNanos / pageAccesses;
+    }
+
+    @Override public long getTierAccesses() { return tierAccesses; }
+    @Override public double getFastTierShare() { return tierAccesses == 0 ? 0 : (double) fastTierAccesses / tierAccesses; }
+    @Override public double getTierNanosPerAccess() { return tierAccesses == 0 ? 0 : (double) tierNanos / tierAccesses; }
+    @Override public double getFlatTierNanosPerAccess() {
+        return tierAccesses == 0 ? 0 : (double) flatTierNanos / tierAccesses;
+    }
+    @Override public long getPromotions() { return promotions; }
+    @Override public long getDemotions() { return demotions; }
+    @Override public long getMigratedMemory() { return migratedMemory; }
+
+    @Override public long getNodeAllocations() { return nodeAllocations; }
+    @Override public double getRemoteAllocationRatio() {
+        return nodeAllocations == 0 ? 0 : (double) remoteAllocations / nodeAllocations;
+    }
+    @Override public long getNodeAccesses() { return nodeAccesses; }
+    @Override public double getRemoteAccessRatio() { return nodeAccesses == 0 ? 0 : (double) remoteAccesses / nodeAccesses; }
+    @Override public double getNodeNanosPerAccess() { return nodeAccesses == 0 ? 0 : (double) nodeNanos / nodeAccesses; }
+    @Override public long getRebalanceMoves() { return rebalanceMoves; }
+    @Override public long getRebalancedMemory() { return rebalancedMemory; }
+
+    /**
+     * Pone a cero latencias y contadores tras la siguiente operación del gestor, en su hilo; los
+     * indicadores reflejan siempre el estado actual.
+     */
+    @Override
+    public void reset() {
+        resetRequested = true;
+    }
+
+    private void clear() {
+        allocate = new LatencyHistogram();
+        release = new LatencyHistogram();
+        compact = new LatencyHistogram();
+        setCounters(new long[COUNTER_COUNT]);
+    }
+}
@@ -0,0 +1,63 @@
+package com.cesardarizaleta.gestor.advanced;
+
+/** Atributos publicados por JMX; las latencias están en microsegundos. */
+public interface MemoryMetricsMBean {
+    double getAllocateP50Micros();
+    double getAllocateP99Micros();
+    double getAllocateMaxMicros();
+    long getAllocateCount();
+
+    double getReleaseP50Micros();
+    double getReleaseP99Micros();
+    double getReleaseMaxMicros();
+    long getReleaseCount();
+
+    double getCompactP50Micros();
+    double getCompactP99Micros();
+    double getCompactMaxMicros();
+    long getCompactCount();
+
+    double getExternalFragmentation();
+    int getLargestFreeBlock();
+    int getFreeBlockCount();
+    int getUsedMemory();
+
+    long getAllocationFailures();
+    long getTargetedCompactions();
+    long getMovedMemory();
+    long getSwapOuts();
+    long getSwapIns();
+    long getEvictions();
+
+    /** Traducciones de página hechas en modo paginado. */
+    long getPageAccesses();
+    double getTlbHitRate();
+    double getPageFaultRate();
+    /** Coste simulado medio de traducción, en nanosegundos. */
+    double getTranslationNanosPerAccess();
+
+    /** Accesos con memoria por niveles. */
+    long getTierAccesses();
+    /** Fracción de esos accesos servidos por el nivel más rápido. */
+    double getFastTierShare();
+    /** Coste simulado medio por acceso, en nanosegundos, incluidos los fallos que van a disco. */
+    double getTierNanosPerAccess();
+    /** El mismo coste si la colocación ignorase los niveles, como referencia. */
+    double getFlatTierNanosPerAccess();
+    long getPromotions();
+    long getDemotions();
+    long getMigratedMemory();
+
+    /** Asignaciones con memoria NUMA. */
+    long getNodeAllocations();
+    /** Fracción de esas asignaciones servidas fuera del nodo local. */
+    double getRemoteAllocationRatio();
+    long getNodeAccesses();
+    double getRemoteAccessRatio();
+    /** Coste simulado medio por acceso según la distancia al nodo, en nanosegundos. */
+    double getNodeNanosPerAccess();
+    long getRebalanceMoves();
+    long getRebalancedMemory();
+
+    void reset();
+}
@@ -0,0 +1,93 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ejecuta todas las operaciones sobre un {@link MemoryManager} en un único hilo propio y publica
+ * {@link MemorySnapshot instantáneas} bajo demanda. Un consumidor (p. ej. un temporizador de la
+ * interfaz) pide como mucho una instantánea por ciclo con {@link #requestSnapshot()}; si el modelo
+ * no cambió o ya hay una en preparación, la petición no hace nada, de modo que el ritmo de las
+ * operaciones no depende del de los redibujados.
+ */
+public class MemoryModel implements Closeable {
+    private static final Logger LOG = Logger.getLogger(MemoryModel.class.getName());
+
+    private final MemoryManager manager;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "memory-model");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<MemorySnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+
+    public MemoryModel(MemoryManager manager) {
+        this.manager = manager;
+        requestSnapshot();
+    }
+
+    /** Encola una operación; se ejecuta en el hilo del modelo, en orden de llegada. */
+    public void execute(Consumer<MemoryManager> operation) {
+        update(m -> {
+            operation.accept(m);
+            return true;
+        });
+    }
+
+    /**
+     * Como {@link #execute}, para operaciones periódicas que a menudo no hacen nada: devuelven si
+     * cambiaron el gestor y solo entonces habrá una instantánea nueva.
+     */
+    public void update(Predicate<MemoryManager> operation) {
+        executor.execute(() -> {
+            boolean changed = true;
+            try {
+                changed = operation.test(manager);
+            } catch (RuntimeException e) {
+                LOG.log(Level.SEVERE, "Operación fallida en el modelo de memoria", e);
+            } finally {
+                if (changed) version.incrementAndGet();
+            }
+        });
+    }
+
+    /** Última instantánea publicada, o null si aún no hay ninguna. */
+    public MemorySnapshot getSnapshot() { return snapshot.get(); }
+
+    /** Pide una instantánea nueva si el modelo cambió desde la última y no hay otra en curso. */
+    public void requestSnapshot() {
+        MemorySnapshot current = snapshot.get();
+        if (current != null && current.getVersion() == version.get()) return;
+        if (!snapshotPending.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            try {
+                snapshot.set(MemorySnapshot.of(manager, version.get()));
+            } finally {
+                snapshotPending.set(false);
+            }
+        });
+    }
+
+    /** Termina las operaciones encoladas y detiene el hilo del modelo. */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) executor.shutdownNow();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia inmutable del estado del gestor en un instante: disposición de bloques, ocupación, swap
+ * y contadores de la política. Se construye en el hilo del modelo y se puede leer desde cualquier
+ * otro hilo.
+ */
+public final class MemorySnapshot {
+    private final long version;
+    private final List<Block> blocks;
+    private final int totalMemory;
+    private final int usedMemory;
+    private final int internalFragmentation;
+    private final boolean supportsStrategies;
+    private final Map<String, Integer> sizeClasses;
+    private final List<SlabAllocator.SizeClassStats> classStats;
+    private final List<MemoryTier> tiers;
+    private final int[] tierUsed;
+    private final int[] nodeCapacity;
+    private final int[] nodeUsed;
+    private final int[] nodeRemote;
+    private final Map<String, Integer> swapped;
+    private final int swapUsed;
+    private final int swapCapacity;
+    private final long swapOuts;
+    private final long swapIns;
+    private final double averageSwapOutMicros;
+    private final double averageSwapInMicros;
+    private final long bytesWritten;
+    private final long bytesRead;
+    private final int compressedCapacity;
+    private final long compressedUsed;
+    private final double compressionRatio;
+    private final double averageCompressMicros;
+    private final double averageDecompressMicros;
+    private final double ramSwapInShare;
+    private final EvictionPolicyType policyType;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final double hitRate;
+
+    private MemorySnapshot(long version, MemoryManager manager) {
+        MemoryAllocator allocator = manager.getAllocator();
+        SwapArea swap = manager.getSwapArea();
+        EvictionPolicy policy = manager.getPolicy();
+
+        this.version = version;
+        List<Block> copy = new ArrayList<>();
+        for (Block block : allocator.blocks()) {
+            copy.add(new Block(block.getOffset(), block.getSize(), block.getOwner()));
+        }
+        this.blocks = Collections.unmodifiableList(copy);
+        this.totalMemory = allocator.getTotalMemory();
+        this.usedMemory = allocator.getUsedMemory();
+        this.internalFragmentation = allocator.getInternalFragmentation();
+        this.supportsStrategies = allocator.supportsStrategies();
+        if (allocator instanceof SlabAllocator) {
+            SlabAllocator slabs = (SlabAllocator) allocator;
+            Map<String, Integer> classes = new HashMap<>();
+            for (Block block : copy) {
+                if (!block.isFree()) classes.put(block.getOwner(), slabs.sizeClassOf(block.getOwner()));
+            }
+            this.sizeClasses = Collections.unmodifiableMap(classes);
+            this.classStats = List.copyOf(slabs.getClassStats());
+        } else {
+            this.sizeClasses = Map.of();
+            this.classStats = List.of();
+        }
+        if (allocator instanceof TieredAllocator) {
+            TieredAllocator tiered = (TieredAllocator) allocator;
+            this.tiers = tiered.getTiers();
+            this.tierUsed = new int[tiers.size()];
+            for (int i = 0; i < tierUsed.length; i++) tierUsed[i] = tiered.getUsedMemory(i);
+        } else {
+            this.tiers = List.of();
+            this.tierUsed = new int[0];
+        }
+        if (allocator instanceof NumaAllocator) {
+            NumaAllocator numa = (NumaAllocator) allocator;
+            int nodes = numa.getNodeCount();
+            this.nodeCapacity = new int[nodes];
+            this.nodeUsed = new int[nodes];
+            this.nodeRemote = new int[nodes];
+            for (int i = 0; i < nodes; i++) {
+                nodeCapacity[i] = numa.getNodeCapacity(i);
+                nodeUsed[i] = numa.getUsedMemory(i);
+                nodeRemote[i] = numa.getRemoteMemory(i);
+            }
+        } else {
+            this.nodeCapacity = new int[0];
+            this.nodeUsed = new int[0];
+            this.nodeRemote = new int[0];
+        }
+        this.swapped = Collections.unmodifiableMap(swap.getProcesses());
+        this.swapUsed = swap.getUsed();
+        this.swapCapacity = swap.getCapacity();
+        this.swapOuts = swap.getSwapOuts();
+        this.swapIns = swap.getSwapIns();
+        this.averageSwapOutMicros = swap.getAverageSwapOutMicros();
+        this.averageSwapInMicros = swap.getAverageSwapInMicros();
+        this.bytesWritten = swap.getBytesWritten();
+        this.bytesRead = swap.getBytesRead();
+        this.compressedCapacity = swap.getCompressedCapacity();
+        this.compressedUsed = swap.getCompressedUsed();
+        this.compressionRatio = swap.getCompressionRatio();
+        this.averageCompressMicros = swap.getAverageCompressMicros();
+        this.averageDecompressMicros = swap.getAverageDecompressMicros();
+        this.ramSwapInShare = swap.getRamSwapInShare();
+        this.policyType = policy.getType();
+        this.hits = policy.getHits();
+        this.misses = policy.getMisses();
+        this.evictions = policy.getEvictions();
+        this.hitRate = policy.getHitRate();
+    }
+
+    /** Debe llamarse desde el hilo que posee el gestor. */
+    public static MemorySnapshot of(MemoryManager manager, long version) {
+        return new MemorySnapshot(version, manager);
+    }
+
+    public long getVersion() { return version; }
+    public List<Block> getBlocks() { return blocks; }
+    public int getTotalMemory() { return totalMemory; }
+    public int getUsedMemory() { return usedMemory; }
+    public int getFreeMemory() { return totalMemory - usedMemory; }
+    public int getInternalFragmentation() { return internalFragmentation; }
+    public boolean supportsStrategies() { return supportsStrategies; }
+    public boolean isSegregated() { return !classStats.isEmpty(); }
+
+    /** Clase de slab de cada proceso residente (0 = asignador general); vacío fuera del modo slab. */
+    public Map<String, Integer> getSizeClasses() { return sizeClasses; }
+    public List<SlabAllocator.SizeClassStats> getClassStats() { return classStats; }
+
+    /** Niveles de memoria del más rápido al más lento; vacío si el modo no es por niveles. */
+    public List<MemoryTier> getTiers() { return tiers; }
+    public int getTierUsed(int tier) { return tierUsed[tier]; }
+
+    /** Nodos NUMA; 0 si el modo no es NUMA. */
+    public int getNodeCount() { return nodeUsed.length; }
+    public int getNodeCapacity(int node) { return nodeCapacity[node]; }
+    public int getNodeUsed(int node) { return nodeUsed[node]; }
+    /** MB del nodo ocupados por procesos cuyo nodo local es otro. */
+    public int getNodeRemote(int node) { return nodeRemote[node]; }
+
+    /** Procesos en swap, en orden de llegada, con su tamaño en MB. */
+    public Map<String, Integer> getSwapped() { return swapped; }
+    public int getSwapUsed() { return swapUsed; }
+    public int getSwapCapacity() { return swapCapacity; }
+    public long getSwapOuts() { return swapOuts; }
+    public long getSwapIns() { return swapIns; }
+    public double getAverageSwapOutMicros() { return averageSwapOutMicros; }
+    public double getAverageSwapInMicros() { return averageSwapInMicros; }
+    public long getBytesWritten() { return bytesWritten; }
+    public long getBytesRead() { return bytesRead; }
+    /** Bytes reales del nivel comprimido; 0 si está desactivado. */
+    public int getCompressedCapacity() { return compressedCapacity; }
+    public long getCompressedUsed() { return compressedUsed; }
+    public double getCompressionRatio() { return compressionRatio; }
+    public double getAverageCompressMicros() { return averageCompressMicros; }
+    public double getAverageDecompressMicros() { return averageDecompressMicros; }
+    public double getRamSwapInShare() { return ramSwapInShare; }
+
+    public EvictionPolicyType getPolicyType() { return policyType; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public double getHitRate() { return hitRate; }
+}
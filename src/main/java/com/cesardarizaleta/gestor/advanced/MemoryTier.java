@@ -0,0 +1,24 @@
+package com.cesardarizaleta.gestor.advanced;
+
+/** Nivel de memoria de un {@link TieredAllocator}: capacidad en MB y coste simulado de un acceso. */
+public final class MemoryTier {
+    private final String name;
+    private final int capacity;
+    private final int accessNanos;
+
+    public MemoryTier(String name, int capacity, int accessNanos) {
+        if (capacity <= 0 || accessNanos <= 0) {
+            throw new IllegalArgumentException("Nivel inválido: " + capacity + " MB, " + accessNanos + " ns");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.accessNanos = accessNanos;
+    }
+
+    public String getName() { return name; }
+    public int getCapacity() { return capacity; }
+    public int getAccessNanos() { return accessNanos; }
+
+    @Override
+    public String toString() { return name + " (" + capacity + " MB, " + accessNanos + " ns)"; }
+}
@@ -0,0 +1,100 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.Arrays;
+
+/**
+ * Internado de nombres de proceso a identificadores enteros densos con direccionamiento abierto.
+ * Los identificadores liberados se reutilizan, así que el tamaño sigue al número de nombres vivos.
+ */
+public final class NameTable {
+    private static final int EMPTY = -1;
+
+    private String[] names;
+    private int[] freeIds = new int[16];
+    private int freeIdCount;
+    private int nextId;
+    private int size;
+    // Cada entrada guarda un id o EMPTY; capacidad potencia de dos y carga máxima de 1/2.
+    private int[] table;
+
+    public NameTable() {
+        this(16);
+    }
+
+    /** @param expected nombres previstos, para no redimensionar al internarlos. */
+    public NameTable(int expected) {
+        int capacity = Math.max(16, expected);
+        names = new String[capacity];
+        table = emptyTable(Integer.highestOneBit(capacity - 1) << 2);
+    }
+
+    /** Id del nombre, creándolo si no existe. */
+    public int intern(String name) {
+        int slot = slotOf(name);
+        if (table[slot] != EMPTY) return table[slot];
+        int id = freeIdCount > 0 ? freeIds[--freeIdCount] : nextId++;
+        if (id >= names.length) names = Arrays.copyOf(names, names.length * 2);
+        names[id] = name;
+        table[slot] = id;
+        if (++size * 2 > table.length) rehash(table.length * 2);
+        return id;
+    }
+
+    /** Id del nombre, o -1 si no está internado. */
+    public int find(String name) {
+        return table[slotOf(name)];
+    }
+
+    public String name(int id) { return names[id]; }
+
+    public int size() { return size; }
+
+    /** Olvida el nombre; su id puede reutilizarse en el siguiente {@link #intern}. */
+    public void remove(int id) {
+        int slot = slotOf(names[id]);
+        if (table[slot] != id) return;
+        table[slot] = EMPTY;
+        // Desplaza hacia atrás las entradas siguientes del mismo grupo para no dejar huecos.
+        int mask = table.length - 1;
+        for (int i = (slot + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            int moved = table[i];
+            table[i] = EMPTY;
+            table[slotOf(names[moved])] = moved;
+        }
+        names[id] = null;
+        if (freeIdCount == freeIds.length) freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        freeIds[freeIdCount++] = id;
+        size--;
+    }
+
+    /** Bytes aproximados de las tablas, sin contar las cadenas. */
+    public long footprintBytes() {
+        return 4L * table.length + 8L * names.length + 4L * freeIds.length;
+    }
+
+    // Posición del nombre en la tabla, o la primera libre de su grupo.
+    private int slotOf(String name) {
+        int mask = table.length - 1;
+        int i = mix(name.hashCode()) & mask;
+        while (table[i] != EMPTY && !names[table[i]].equals(name)) i = (i + 1) & mask;
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        table = emptyTable(capacity);
+        for (int id = 0; id < nextId; id++) {
+            if (names[id] != null) table[slotOf(names[id])] = id;
+        }
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
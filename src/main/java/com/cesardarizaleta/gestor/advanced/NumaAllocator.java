@@ -0,0 +1,162 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Memoria repartida entre nodos NUMA, cada uno una partición de {@link PartitionedAllocator}.
+ * Cada proceso tiene un nodo local, que se deduce de su nombre para que las operaciones repetidas
+ * por el historial lo coloquen igual; se asigna en él si cabe y, si no, en el nodo remoto más
+ * cercano. Los nodos están unidos en anillo y la distancia sigue la convención de ACPI: 10 el
+ * propio nodo y 10 más por cada salto, con un coste de acceso proporcional.
+ */
+public class NumaAllocator extends PartitionedAllocator {
+    public static final int DEFAULT_NODES = 4;
+    public static final int LOCAL_DISTANCE = 10;
+    /** Coste simulado de un acceso a memoria del propio nodo. */
+    public static final int LOCAL_ACCESS_NANOS = 100;
+    /** Diferencia de ocupación entre el nodo más lleno y el más vacío a partir de la que se reequilibra. */
+    public static final double REBALANCE_THRESHOLD = 0.25;
+    /** MB que puede mover una pasada de reequilibrado por defecto. */
+    public static final int DEFAULT_REBALANCE_BUDGET = 64;
+
+    public NumaAllocator(int totalMemory) {
+        this(totalMemory, DEFAULT_NODES);
+    }
+
+    /** Nodos iguales; el último se queda el resto de la división. */
+    public NumaAllocator(int totalMemory, int nodes) {
+        super(capacities(totalMemory, nodes));
+    }
+
+    private static int[] capacities(int totalMemory, int nodes) {
+        if (nodes <= 0 || totalMemory < nodes) {
+            throw new IllegalArgumentException("No se pueden repartir " + totalMemory + " MB en " + nodes + " nodos");
+        }
+        int[] capacities = new int[nodes];
+        int capacity = totalMemory / nodes;
+        for (int i = 0; i < nodes; i++) capacities[i] = i == nodes - 1 ? totalMemory - capacity * i : capacity;
+        return capacities;
+    }
+
+    /** Se asigna en el nodo local si cabe y, si no, en el más cercano con un hueco suficiente. */
+    @Override
+    public boolean allocate(String name, int size) {
+        return allocateInOrder(name, size, byDistance(homeOf(name)));
+    }
+
+    /**
+     * Mientras la ocupación del nodo más lleno supere en {@link #REBALANCE_THRESHOLD} a la del más
+     * vacío, mueve un proceso del primero al segundo, hasta mover {@code budget} MB. Prefiere los
+     * que vuelven así a su nodo local, luego los que ya eran remotos y, entre ellos, los mayores
+     * que reduzcan la diferencia.
+     */
+    public Rebalance rebalance(int budget) {
+        Rebalance pass = new Rebalance();
+        while (pass.moved < budget) {
+            int fullest = 0;
+            int emptiest = 0;
+            for (int node = 1; node < pools.length; node++) {
+                if (utilisation(node) > utilisation(fullest)) fullest = node;
+                if (utilisation(node) < utilisation(emptiest)) emptiest = node;
+            }
+            double gap = utilisation(fullest) - utilisation(emptiest);
+            if (gap < REBALANCE_THRESHOLD) break;
+            String chosen = pickForRebalance(fullest, emptiest, gap);
+            if (chosen == null) break;
+            int size = sizeOf(chosen);
+            release(chosen);
+            if (!allocateIn(chosen, size, emptiest)) {
+                // pickForRebalance ya comprobó el sitio; si aun así falla, el proceso vuelve a su
+                // nodo, donde acaba de dejar libre su hueco, y la pasada termina.
+                if (!allocateIn(chosen, size, fullest)) {
+                    throw new IllegalStateException("Sin sitio para devolver " + chosen + " al nodo " + fullest);
+                }
+                break;
+            }
+            pass.moves++;
+            pass.moved += size;
+        }
+        return pass;
+    }
+
+    private String pickForRebalance(int from, int to, double gap) {
+        int free = pools[to].getFreeMemory();
+        Comparator<String> order = rebalanceOrder(to);
+        String best = null;
+        for (String name : residents(from)) {
+            int size = sizeOf(name);
+            double after = (double) (pools[from].getUsedMemory() - size) / pools[from].getTotalMemory()
+                    - (double) (pools[to].getUsedMemory() + size) / pools[to].getTotalMemory();
+            if (size > free || Math.abs(after) >= gap) continue;
+            if (best == null || order.compare(name, best) < 0) best = name;
+        }
+        return best;
+    }
+
+    private Comparator<String> rebalanceOrder(int to) {
+        return Comparator.<String>comparingInt(name -> homeOf(name) == to ? 0 : isRemote(name) ? 1 : 2)
+                .thenComparing(Comparator.comparingInt(this::sizeOf).reversed())
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    public int getNodeCount() { return getPartitionCount(); }
+
+    /** Nodo local del proceso, resida o no en memoria. */
+    public int homeOf(String name) { return Math.floorMod(name.hashCode(), pools.length); }
+
+    /** Nodo en el que reside el proceso, o -1 si no es residente. */
+    public int nodeOf(String name) { return partitionOf(name); }
+
+    /** Un proceso residente fuera de su nodo local. */
+    public boolean isRemote(String name) {
+        int node = nodeOf(name);
+        return node >= 0 && node != homeOf(name);
+    }
+
+    /** Distancia entre nodos en el anillo, con la escala de ACPI. */
+    public int distance(int from, int to) {
+        int hops = Math.abs(from - to);
+        return LOCAL_DISTANCE * (1 + Math.min(hops, pools.length - hops));
+    }
+
+    /** Coste simulado de un acceso del proceso desde su nodo local, o 0 si no es residente. */
+    public long accessNanos(String name) {
+        int node = nodeOf(name);
+        return node < 0 ? 0 : (long) LOCAL_ACCESS_NANOS * distance(homeOf(name), node) / LOCAL_DISTANCE;
+    }
+
+    public int getNodeCapacity(int node) { return pools[node].getTotalMemory(); }
+
+    /** MB del nodo ocupados por procesos de otros nodos. */
+    public int getRemoteMemory(int node) {
+        int remote = 0;
+        for (Block block : pools[node].blocks()) {
+            if (!block.isFree() && homeOf(block.getOwner()) != node) remote += block.getSize();
+        }
+        return remote;
+    }
+
+    public double utilisation(int node) {
+        return (double) pools[node].getUsedMemory() / pools[node].getTotalMemory();
+    }
+
+    // El nodo local primero y después los demás de más cerca a más lejos; a igual distancia, por número.
+    private List<Integer> byDistance(int home) {
+        List<Integer> nodes = new ArrayList<>();
+        for (int node = 0; node < pools.length; node++) nodes.add(node);
+        nodes.sort(Comparator.<Integer>comparingInt(node -> distance(home, node)).thenComparing(Comparator.naturalOrder()));
+        return nodes;
+    }
+
+    /** Resultado de una pasada de reequilibrado. */
+    public static final class Rebalance {
+        private int moves;
+        private int moved;
+
+        public int getMoves() { return moves; }
+        /** MB copiados entre nodos, sin contar la compactación de los destinos. */
+        public int getMoved() { return moved; }
+    }
+}
@@ -0,0 +1,289 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Diario de solo anexado de las operaciones sobre un {@link MemoryManager}, con puntos de control
+ * periódicos en forma de instantáneas de {@link StateFile}. El estado {@code i} es el resultado de
+ * las {@code i} primeras operaciones; ir a cualquiera restaura el punto de control anterior más
+ * cercano y repite como mucho {@code interval} operaciones, sea cual sea la longitud del historial.
+ * Hacer una operación nueva después de retroceder descarta el futuro, como deshacer y rehacer.
+ * Solo se usa desde el hilo del gestor.
+ */
+public final class OperationJournal {
+    public static final int DEFAULT_INTERVAL = 128;
+    public static final int DEFAULT_CAPACITY = 16_384;
+    /** Tope de memoria de los puntos de control, que incluyen las imágenes del swap. */
+    public static final long MAX_CHECKPOINT_BYTES = 256L << 20;
+
+    private final MemoryManager manager;
+    private final int interval;
+    private final int capacity;
+    private final List<Entry> entries = new ArrayList<>();
+    private final TreeMap<Integer, byte[]> checkpoints = new TreeMap<>();
+    private AllocatorMode mode;
+    private int first;
+    private int position;
+    private String pendingChange;
+    private long checkpointBytes;
+    private long lastSeekNanos;
+    private int lastReplayed;
+
+    public OperationJournal(MemoryManager manager, AllocatorMode mode) {
+        this(manager, mode, DEFAULT_INTERVAL, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param interval operaciones entre puntos de control, que acotan lo que se repite al saltar.
+     * @param capacity operaciones conservadas; al superarlas se olvidan las más antiguas.
+     */
+    public OperationJournal(MemoryManager manager, AllocatorMode mode, int interval, int capacity) {
+        if (interval <= 0 || capacity < interval) {
+            throw new IllegalArgumentException("Intervalo o capacidad inválidos: " + interval + ", " + capacity);
+        }
+        this.manager = manager;
+        this.mode = mode;
+        this.interval = interval;
+        this.capacity = capacity;
+        checkpoint(0);
+    }
+
+    public boolean add(String name, int size) {
+        beforeOperation();
+        boolean placed = manager.add(name, size);
+        record(new Entry(Kind.ADD, name, size, placed));
+        return placed;
+    }
+
+    public boolean remove(String name) {
+        beforeOperation();
+        boolean removed = manager.remove(name);
+        record(new Entry(Kind.REMOVE, name, 0, removed));
+        return removed;
+    }
+
+    public boolean swapOut(String name) {
+        beforeOperation();
+        boolean done = manager.swapOut(name);
+        record(new Entry(Kind.SWAP_OUT, name, 0, done));
+        return done;
+    }
+
+    public boolean swapIn(String name) {
+        beforeOperation();
+        boolean done = manager.swapIn(name);
+        record(new Entry(Kind.SWAP_IN, name, 0, done));
+        return done;
+    }
+
+    public boolean access(String name) {
+        beforeOperation();
+        boolean done = manager.access(name);
+        record(new Entry(Kind.ACCESS, name, 0, done));
+        return done;
+    }
+
+    public int compact() {
+        beforeOperation();
+        int moved = manager.compact();
+        record(new Entry(Kind.COMPACT, null, moved, true));
+        return moved;
+    }
+
+    /**
+     * Registra un cambio hecho directamente sobre el gestor (modo, estrategia, reubicaciones...)
+     * como una entrada con su propio punto de control.
+     */
+    public void recordState(String description, AllocatorMode mode) {
+        this.mode = mode;
+        pendingChange = null;
+        truncateFuture();
+        record(new Entry(Kind.STATE, description, 0, true));
+    }
+
+    /**
+     * Anota que el gestor cambió por fuera del diario sin guardar aún el estado, para cambios
+     * muy frecuentes como los pasos de la compactación incremental. Se registra como una sola
+     * entrada antes de la siguiente operación o con {@link #flush}.
+     */
+    public void markChanged(String description) {
+        pendingChange = description;
+    }
+
+    /**
+     * Registra el cambio anotado con {@link #markChanged}, si lo hay. Como cualquier operación,
+     * descarta el futuro si se había retrocedido, así que las posiciones deben leerse después.
+     */
+    public void flush() {
+        if (pendingChange != null) recordState(pendingChange, mode);
+    }
+
+    /**
+     * Lleva el gestor al estado tras {@code index} operaciones. No cambia el historial, así que no
+     * se puede saltar con un cambio anotado sin registrar: hay que llamar antes a {@link #flush}.
+     */
+    public void seek(int index) {
+        if (pendingChange != null) {
+            throw new IllegalStateException("Cambio sin registrar en el historial: " + pendingChange);
+        }
+        if (index < first || index > getLast()) {
+            throw new IllegalArgumentException("Fuera del historial [" + first + ", " + getLast() + "]: " + index);
+        }
+        long start = System.nanoTime();
+        Map.Entry<Integer, byte[]> checkpoint = checkpoints.floorEntry(index);
+        mode = StateFile.restore(checkpoint.getValue(), manager);
+        for (int i = checkpoint.getKey() + 1; i <= index; i++) {
+            replay(getEntry(i));
+        }
+        lastReplayed = index - checkpoint.getKey();
+        position = index;
+        lastSeekNanos = System.nanoTime() - start;
+    }
+
+    public boolean undo() {
+        if (position == first) return false;
+        seek(position - 1);
+        return true;
+    }
+
+    public boolean redo() {
+        if (position == getLast()) return false;
+        seek(position + 1);
+        return true;
+    }
+
+    /** Estado justo antes de la última operación fallida anterior a {@code index}, o -1. */
+    public int lastFailureBefore(int index) {
+        for (int i = Math.min(index, getLast()); i > first; i--) {
+            if (!getEntry(i).isSuccess()) return i - 1;
+        }
+        return -1;
+    }
+
+    /** Operación que llevó al estado {@code index} (de {@code getFirst() + 1} a {@code getLast()}). */
+    public Entry getEntry(int index) { return entries.get(index - first - 1); }
+
+    /** Estado más antiguo que se conserva. */
+    public int getFirst() { return first; }
+
+    public int getLast() { return first + entries.size(); }
+
+    public int getPosition() { return position; }
+
+    public AllocatorMode getMode() { return mode; }
+
+    public int getCheckpointCount() { return checkpoints.size(); }
+
+    public long getCheckpointBytes() { return checkpointBytes; }
+
+    public long getLastSeekNanos() { return lastSeekNanos; }
+
+    /** Operaciones repetidas en el último salto. */
+    public int getLastReplayed() { return lastReplayed; }
+
+    private void beforeOperation() {
+        flush();
+        truncateFuture();
+    }
+
+    private void truncateFuture() {
+        if (position == getLast()) return;
+        entries.subList(position - first, entries.size()).clear();
+        for (byte[] state : checkpoints.tailMap(position, false).values()) checkpointBytes -= state.length;
+        checkpoints.tailMap(position, false).clear();
+    }
+
+    private void record(Entry entry) {
+        entries.add(entry);
+        position++;
+        if (entry.kind == Kind.STATE || position - checkpoints.lastKey() >= interval) checkpoint(position);
+        trim();
+    }
+
+    // Olvida por tramos enteros entre puntos de control para que el primero siempre tenga uno.
+    private void trim() {
+        while (getLast() - first > capacity || checkpointBytes > MAX_CHECKPOINT_BYTES) {
+            Integer next = checkpoints.higherKey(first);
+            if (next == null || next > position) return;
+            entries.subList(0, next - first).clear();
+            for (byte[] state : checkpoints.headMap(next).values()) checkpointBytes -= state.length;
+            checkpoints.headMap(next).clear();
+            first = next;
+        }
+    }
+
+    // La instantánea incluye la política y el estado interno del asignador, así que repetir las
+    // operaciones desde ella reproduce exactamente el gestor vivo, que no se toca.
+    private void checkpoint(int index) {
+        byte[] state = StateFile.capture(manager, mode);
+        checkpoints.put(index, state);
+        checkpointBytes += state.length;
+    }
+
+    private void replay(Entry entry) {
+        switch (entry.kind) {
+            case ADD -> manager.add(entry.name, entry.size);
+            case REMOVE -> manager.remove(entry.name);
+            case SWAP_OUT -> manager.swapOut(entry.name);
+            case SWAP_IN -> manager.swapIn(entry.name);
+            case ACCESS -> manager.access(entry.name);
+            case COMPACT -> manager.compact();
+            // Toda entrada de estado tiene punto de control, así que nunca queda por delante de él.
+            case STATE -> throw new IllegalStateException("Entrada de estado sin punto de control: " + entry);
+        }
+    }
+
+    public enum Kind {
+        ADD("Agregar"),
+        REMOVE("Liberar"),
+        SWAP_OUT("Swap out"),
+        SWAP_IN("Swap in"),
+        ACCESS("Acceso"),
+        COMPACT("Compactación"),
+        STATE("Cambio");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    public static final class Entry {
+        private final Kind kind;
+        private final String name;
+        private final int size;
+        private final boolean success;
+
+        Entry(Kind kind, String name, int size, boolean success) {
+            this.kind = kind;
+            this.name = name;
+            this.size = size;
+            this.success = success;
+        }
+
+        public Kind getKind() { return kind; }
+        /** Proceso afectado, o la descripción en las entradas de estado. */
+        public String getName() { return name; }
+        /** MB pedidos al agregar, o MB movidos al compactar. */
+        public int getSize() { return size; }
+        public boolean isSuccess() { return success; }
+
+        @Override
+        public String toString() {
+            String text = switch (kind) {
+                case ADD -> kind + " " + name + " (" + size + " MB)";
+                case COMPACT -> kind + " (" + size + " MB movidos)";
+                case STATE -> name;
+                default -> kind + " " + name;
+            };
+            return success ? text : text + " - fallo";
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memoria paginada: la memoria física se divide en marcos de {@code pageSize} MB y cada proceso
+ * tiene una tabla de páginas con el marco de cada página, así que cualquier petición que quepa
+ * en los marcos libres se sirve sin huecos contiguos ni compactación, a cambio de redondear al
+ * marco y de traducir cada acceso. Los marcos se dan siempre de menor a mayor, de modo que las
+ * páginas de un proceso quedan en orden de offset y {@link #blocks()} basta para reconstruir las
+ * tablas. Las traducciones pasan por un {@link Tlb}; en un fallo se recorre la tabla de páginas.
+ */
+public class PagedAllocator implements MemoryAllocator {
+    public static final int DEFAULT_PAGE_SIZE = 4;
+    public static final int DEFAULT_TLB_SETS = 16;
+    public static final int DEFAULT_TLB_WAYS = 4;
+    /** Coste simulado de una traducción servida por el TLB. */
+    public static final int TLB_HIT_NANOS = 1;
+    /** Coste simulado de leer un nivel de la tabla de páginas en memoria. */
+    public static final int WALK_LEVEL_NANOS = 60;
+    public static final int PAGE_TABLE_LEVELS = 2;
+
+    private final int pageSize;
+    private final PageTable[] frameOwners;
+    private final BitSet freeFrames;
+    private final Map<String, PageTable> tables = new HashMap<>();
+    private final Tlb tlb;
+    private int nextProcess;
+    private int usedFrames;
+    private int requestedMemory;
+
+    public PagedAllocator(int totalMemory) {
+        this(totalMemory, DEFAULT_PAGE_SIZE, DEFAULT_TLB_SETS, DEFAULT_TLB_WAYS);
+    }
+
+    public PagedAllocator(int totalMemory, int pageSize, int tlbSets, int tlbWays) {
+        if (pageSize <= 0 || totalMemory <= 0 || totalMemory % pageSize != 0) {
+            throw new IllegalArgumentException("La memoria (" + totalMemory + " MB) debe ser múltiplo del marco ("
+                    + pageSize + " MB)");
+        }
+        this.pageSize = pageSize;
+        this.frameOwners = new PageTable[totalMemory / pageSize];
+        this.freeFrames = new BitSet(frameOwners.length);
+        freeFrames.set(0, frameOwners.length);
+        this.tlb = new Tlb(tlbSets, tlbWays);
+    }
+
+    @Override
+    public boolean allocate(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        if (tables.containsKey(name)) return false;
+        int pages = (size + pageSize - 1) / pageSize;
+        if (pages > frameOwners.length - usedFrames) return false;
+
+        PageTable table = new PageTable(name, nextProcess++, pages, size);
+        int frame = -1;
+        for (int page = 0; page < pages; page++) {
+            frame = freeFrames.nextSetBit(frame + 1);
+            map(table, page, frame);
+        }
+        add(table);
+        return true;
+    }
+
+    @Override
+    public boolean release(String name) {
+        PageTable table = tables.remove(name);
+        if (table == null) return false;
+        for (int frame : table.frames) {
+            frameOwners[frame] = null;
+            freeFrames.set(frame);
+        }
+        usedFrames -= table.frames.length;
+        requestedMemory -= table.requested;
+        tlb.invalidate(table.process);
+        return true;
+    }
+
+    /** Cualquier marco libre sirve para cualquier página; no hay nada que compactar. */
+    @Override
+    public int compact() {
+        return 0;
+    }
+
+    @Override
+    public int sizeOf(String name) {
+        PageTable table = tables.get(name);
+        return table == null ? 0 : table.requested;
+    }
+
+    /** Marcos libres y ocupados, agrupando los consecutivos del mismo proceso en un bloque. */
+    @Override
+    public List<Block> blocks() {
+        List<Block> result = new ArrayList<>();
+        int start = 0;
+        for (int frame = 1; frame <= frameOwners.length; frame++) {
+            if (frame < frameOwners.length && frameOwners[frame] == frameOwners[start]) continue;
+            PageTable owner = frameOwners[start];
+            result.add(new Block(start * pageSize, (frame - start) * pageSize, owner == null ? null : owner.name));
+            start = frame;
+        }
+        return result;
+    }
+
+    @Override
+    public int getTotalMemory() { return frameOwners.length * pageSize; }
+
+    @Override
+    public int getUsedMemory() { return usedFrames * pageSize; }
+
+    /** La mayor petición que se puede servir: todos los marcos libres, sean o no contiguos. */
+    @Override
+    public int getLargestFreeBlock() { return getFreeMemory(); }
+
+    @Override
+    public int getInternalFragmentation() { return getUsedMemory() - requestedMemory; }
+
+    /** Vuelve a asignar los marcos guardados, que ya están en orden de página para cada proceso. */
+    @Override
+    public void restore(List<Block> layout, Map<String, Integer> requested) {
+        if (!tables.isEmpty()) {
+            throw new IllegalStateException("Solo se puede restaurar sobre memoria vacía");
+        }
+        Map<String, List<Integer>> frames = new LinkedHashMap<>();
+        int cursor = 0;
+        for (Block block : layout) {
+            if (block.getOffset() != cursor || block.getSize() % pageSize != 0) {
+                throw new IllegalArgumentException("Bloque no alineado a marcos de " + pageSize + " MB: " + block);
+            }
+            cursor += block.getSize();
+            if (cursor > getTotalMemory()) {
+                throw new IllegalArgumentException("La disposición excede los " + getTotalMemory() + " MB");
+            }
+            if (block.isFree()) continue;
+            List<Integer> owned = frames.computeIfAbsent(block.getOwner(), name -> new ArrayList<>());
+            for (int offset = block.getOffset(); offset < cursor; offset += pageSize) owned.add(offset / pageSize);
+        }
+        if (cursor != getTotalMemory()) {
+            throw new IllegalArgumentException("La disposición cubre " + cursor + " MB de " + getTotalMemory());
+        }
+        for (Map.Entry<String, List<Integer>> entry : frames.entrySet()) {
+            List<Integer> owned = entry.getValue();
+            int size = requested.getOrDefault(entry.getKey(), owned.size() * pageSize);
+            PageTable table = new PageTable(entry.getKey(), nextProcess++, owned.size(), size);
+            for (int page = 0; page < owned.size(); page++) map(table, page, owned.get(page));
+            add(table);
+        }
+    }
+
+    /**
+     * Traduce una vez cada página del proceso, en orden, como un recorrido completo de su espacio
+     * de direcciones. Devuelve los aciertos del TLB, o -1 si el proceso no es residente.
+     */
+    public int touch(String name) {
+        PageTable table = tables.get(name);
+        if (table == null) return -1;
+        int hits = 0;
+        for (int page = 0; page < table.frames.length; page++) {
+            if (tlb.lookup(table.process, page)) hits++;
+        }
+        return hits;
+    }
+
+    /** Coste simulado de {@code pages} traducciones con {@code hits} aciertos del TLB. */
+    public static long translationNanos(int pages, int hits) {
+        return (long) pages * TLB_HIT_NANOS + (long) (pages - hits) * PAGE_TABLE_LEVELS * WALK_LEVEL_NANOS;
+    }
+
+    /** Marco de la página, o -1 si el proceso no es residente o no tiene esa página. */
+    public int frameOf(String name, int page) {
+        PageTable table = tables.get(name);
+        return table == null || page < 0 || page >= table.frames.length ? -1 : table.frames[page];
+    }
+
+    public int pageCountOf(String name) {
+        PageTable table = tables.get(name);
+        return table == null ? 0 : table.frames.length;
+    }
+
+    public int getPageSize() { return pageSize; }
+
+    public int getFrameCount() { return frameOwners.length; }
+
+    public Tlb getTlb() { return tlb; }
+
+    /**
+     * Bytes del estado de traducción en una instantánea: el identificador de cada proceso, que
+     * forma parte de las claves del TLB, y las entradas del TLB.
+     */
+    int stateBytes() {
+        int bytes = 2 * Integer.BYTES + tlb.stateBytes();
+        for (String name : tables.keySet()) bytes += StateFile.stringBytes(name) + Integer.BYTES;
+        return bytes;
+    }
+
+    void writeState(ByteBuffer out) {
+        out.putInt(nextProcess).putInt(tables.size());
+        // En orden de identificador, para que la misma memoria dé siempre los mismos bytes.
+        List<PageTable> ordered = new ArrayList<>(tables.values());
+        ordered.sort(Comparator.comparingInt(table -> table.process));
+        for (PageTable table : ordered) {
+            StateFile.putString(out, table.name);
+            out.putInt(table.process);
+        }
+        tlb.writeState(out);
+    }
+
+    /** Tras {@link #restore}, devuelve a cada proceso su identificador guardado y carga el TLB. */
+    void readState(ByteBuffer in) {
+        int savedNext = in.getInt();
+        int count = StateFile.getLength(in, 2 * Integer.BYTES);
+        if (count != tables.size()) {
+            throw new IllegalArgumentException("Identificadores para " + count + " procesos y hay " + tables.size());
+        }
+        BitSet seen = new BitSet();
+        for (int i = 0; i < count; i++) {
+            String name = StateFile.getString(in);
+            int process = in.getInt();
+            PageTable table = tables.get(name);
+            if (table == null || process < 0 || process >= savedNext || seen.get(process)) {
+                throw new IllegalArgumentException("Identificador de proceso inválido para " + name + ": " + process);
+            }
+            seen.set(process);
+            table.process = process;
+        }
+        nextProcess = savedNext;
+        tlb.readState(in);
+    }
+
+    private void map(PageTable table, int page, int frame) {
+        if (frameOwners[frame] != null) {
+            throw new IllegalArgumentException("Marco " + frame + " ocupado por " + frameOwners[frame].name);
+        }
+        table.frames[page] = frame;
+        frameOwners[frame] = table;
+        freeFrames.clear(frame);
+    }
+
+    private void add(PageTable table) {
+        tables.put(table.name, table);
+        usedFrames += table.frames.length;
+        requestedMemory += table.requested;
+    }
+
+    private static final class PageTable {
+        final String name;
+        int process;
+        final int[] frames;
+        final int requested;
+
+        PageTable(String name, int process, int pages, int requested) {
+            this.name = name;
+            this.process = process;
+            this.frames = new int[pages];
+            this.requested = requested;
+        }
+    }
+}
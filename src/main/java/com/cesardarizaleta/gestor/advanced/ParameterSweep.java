@@ -0,0 +1,285 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ejecuta la misma carga bajo todas las combinaciones de estrategia, memoria total, política de
+ * compactación y tipo de carga. Cada simulación es independiente (su propio asignador, gestor y
+ * swap), así que se reparten entre los hilos de un {@link ForkJoinPool}; los resultados se
+ * devuelven en el orden de {@link #configurations()}.
+ */
+public class ParameterSweep {
+    public static final String CSV_HEADER =
+            "strategy,memory_mb,compaction,workload,operations,adds,failures,failure_rate,mean_ext_fragmentation,moved_mb,ops_per_sec";
+
+    private final List<AllocationStrategy> strategies;
+    private final List<Integer> memories;
+    private final List<CompactionPolicy> policies;
+    private final List<WorkloadType> workloads;
+    private int operations = 100_000;
+    private int targetLoad = 800;
+    private long seed = 42;
+    private Consumer<Result> listener = r -> { };
+
+    public ParameterSweep(List<AllocationStrategy> strategies, List<Integer> memories,
+                          List<CompactionPolicy> policies, List<WorkloadType> workloads) {
+        if (strategies.isEmpty() || memories.isEmpty() || policies.isEmpty() || workloads.isEmpty()) {
+            throw new IllegalArgumentException("Cada dimensión del barrido necesita al menos un valor");
+        }
+        this.strategies = List.copyOf(strategies);
+        this.memories = List.copyOf(memories);
+        this.policies = List.copyOf(policies);
+        this.workloads = List.copyOf(workloads);
+    }
+
+    public int getOperations() { return operations; }
+
+    public void setOperations(int operations) {
+        if (operations <= 0) {
+            throw new IllegalArgumentException("El número de operaciones debe ser positivo: " + operations);
+        }
+        this.operations = operations;
+    }
+
+    public int getTargetLoad() { return targetLoad; }
+
+    /** Carga viva (MB) hacia la que tiende la carga generada, igual para todas las memorias. */
+    public void setTargetLoad(int targetLoad) { this.targetLoad = targetLoad; }
+
+    public long getSeed() { return seed; }
+
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /** Se invoca desde el hilo trabajador al terminar cada simulación. */
+    public void setListener(Consumer<Result> listener) { this.listener = listener; }
+
+    public List<Config> configurations() {
+        List<Config> configs = new ArrayList<>();
+        for (WorkloadType workload : workloads) {
+            for (int memory : memories) {
+                for (CompactionPolicy policy : policies) {
+                    for (AllocationStrategy strategy : strategies) {
+                        configs.add(new Config(strategy, memory, policy, workload));
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    public List<Result> run() {
+        return run(ForkJoinPool.commonPool());
+    }
+
+    public List<Result> run(ForkJoinPool pool) {
+        List<Config> configs = configurations();
+        return pool.invoke(new SweepTask(configs, 0, configs.size()));
+    }
+
+    /** Una simulación completa, en el hilo que llama. */
+    public Result simulate(Config config) {
+        MemoryAllocator allocator = new FreeListAllocator(config.memory);
+        allocator.setStrategy(config.strategy);
+        WorkloadGenerator generator = new WorkloadGenerator(config.workload, targetLoad, seed);
+        // La carga no usa swap; basta un área mínima para el gestor.
+        SwapArea swap = SwapArea.createTemporary(1, 1);
+        try {
+            MemoryManager manager = new MemoryManager(allocator, swap);
+            manager.setCompactionPolicy(config.policy);
+            long adds = 0;
+            long failures = 0;
+            double fragmentation = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                WorkloadGenerator.Operation op = generator.next();
+                if (op.isAdd()) {
+                    adds++;
+                    if (!manager.add(op.getName(), op.getSize())) failures++;
+                } else {
+                    manager.remove(op.getName());
+                }
+                fragmentation += allocator.getExternalFragmentation();
+            }
+            long elapsed = System.nanoTime() - start;
+            Result result = new Result(config, operations, adds, failures, fragmentation / operations,
+                    manager.getMovedMemory(), elapsed);
+            listener.accept(result);
+            return result;
+        } finally {
+            swap.close();
+            try {
+                Files.deleteIfExists(swap.getFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public static void writeCsv(List<Result> results, PrintStream out) {
+        out.println(CSV_HEADER);
+        for (Result r : results) {
+            Config c = r.config;
+            out.printf("%s,%d,%s,%s,%d,%d,%d,%.4f,%.4f,%d,%.0f%n",
+                    c.strategy.name(), c.memory, c.policy.name(), c.workload.name(), r.operations, r.adds,
+                    r.failures, r.getFailureRate(), r.meanFragmentation, r.movedMemory, r.getOpsPerSecond());
+        }
+    }
+
+    private final class SweepTask extends RecursiveTask<List<Result>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Config> configs;
+        private final int from;
+        private final int to;
+
+        SweepTask(List<Config> configs, int from, int to) {
+            this.configs = configs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Result> compute() {
+            if (to - from == 1) return List.of(simulate(configs.get(from)));
+            int mid = (from + to) >>> 1;
+            SweepTask left = new SweepTask(configs, from, mid);
+            left.fork();
+            List<Result> right = new SweepTask(configs, mid, to).compute();
+            List<Result> merged = new ArrayList<>(left.join());
+            merged.addAll(right);
+            return merged;
+        }
+    }
+
+    public static final class Config {
+        private final AllocationStrategy strategy;
+        private final int memory;
+        private final CompactionPolicy policy;
+        private final WorkloadType workload;
+
+        public Config(AllocationStrategy strategy, int memory, CompactionPolicy policy, WorkloadType workload) {
+            if (memory <= 0) {
+                throw new IllegalArgumentException("La memoria debe ser positiva: " + memory);
+            }
+            this.strategy = strategy;
+            this.memory = memory;
+            this.policy = policy;
+            this.workload = workload;
+        }
+
+        public AllocationStrategy getStrategy() { return strategy; }
+        public int getMemory() { return memory; }
+        public CompactionPolicy getPolicy() { return policy; }
+        public WorkloadType getWorkload() { return workload; }
+
+        @Override
+        public String toString() {
+            return strategy + " / " + memory + "MB / " + policy + " / " + workload;
+        }
+    }
+
+    public static final class Result {
+        private final Config config;
+        private final long operations;
+        private final long adds;
+        private final long failures;
+        private final double meanFragmentation;
+        private final long movedMemory;
+        private final long elapsedNanos;
+
+        Result(Config config, long operations, long adds, long failures, double meanFragmentation,
+               long movedMemory, long elapsedNanos) {
+            this.config = config;
+            this.operations = operations;
+            this.adds = adds;
+            this.failures = failures;
+            this.meanFragmentation = meanFragmentation;
+            this.movedMemory = movedMemory;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Config getConfig() { return config; }
+        public long getOperations() { return operations; }
+        public long getAdds() { return adds; }
+        public long getFailures() { return failures; }
+        public double getMeanFragmentation() { return meanFragmentation; }
+        public long getMovedMemory() { return movedMemory; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /** Fracción de altas rechazadas. */
+        public double getFailureRate() {
+            return adds == 0 ? 0 : (double) failures / adds;
+        }
+
+        public double getOpsPerSecond() {
+            return elapsedNanos == 0 ? 0 : operations / (elapsedNanos / 1e9);
+        }
+    }
+
+    /**
+     * Uso: {@code ParameterSweep [--memory 512,1024,2048] [--strategy FIRST_FIT,...]
+     * [--compaction NONE,FULL,TARGETED] [--workload UNIFORM,SMALL,BIMODAL] [--operations N]
+     * [--load MB] [--seed S] [--threads N] [--out fichero.csv]}. Sin opciones barre todos los valores.
+     */
+    public static void main(String[] args) throws IOException {
+        List<AllocationStrategy> strategies = List.of(AllocationStrategy.values());
+        List<Integer> memories = List.of(512, 1024, 2048);
+        List<CompactionPolicy> policies = List.of(CompactionPolicy.values());
+        List<WorkloadType> workloads = List.of(WorkloadType.values());
+        Integer operations = null;
+        Integer load = null;
+        Long seed = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path csv = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--memory" -> memories = Arrays.stream(args[++i].split(",")).map(Integer::valueOf).toList();
+                case "--strategy" -> strategies = Arrays.stream(args[++i].split(",")).map(AllocationStrategy::valueOf).toList();
+                case "--compaction" -> policies = Arrays.stream(args[++i].split(",")).map(CompactionPolicy::valueOf).toList();
+                case "--workload" -> workloads = Arrays.stream(args[++i].split(",")).map(WorkloadType::valueOf).toList();
+                case "--operations" -> operations = Integer.valueOf(args[++i]);
+                case "--load" -> load = Integer.valueOf(args[++i]);
+                case "--seed" -> seed = Long.valueOf(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--out" -> csv = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        Logger.getLogger(MemoryManager.class.getName()).setLevel(Level.WARNING);
+
+        ParameterSweep sweep = new ParameterSweep(strategies, memories, policies, workloads);
+        if (operations != null) sweep.setOperations(operations);
+        if (load != null) sweep.setTargetLoad(load);
+        if (seed != null) sweep.setSeed(seed);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        List<Result> results;
+        try {
+            results = sweep.run(pool);
+        } finally {
+            pool.shutdown();
+        }
+        PrintStream out = csv == null ? System.out : new PrintStream(csv.toFile(), StandardCharsets.UTF_8);
+        try {
+            writeCsv(results, out);
+        } finally {
+            if (out != System.out) out.close();
+        }
+        System.err.printf("%d simulaciones en %.2f s con %d hilos%n",
+                results.size(), (System.nanoTime() - start) / 1e9, threads);
+    }
+}
@@ -0,0 +1,196 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memoria repartida en particiones contiguas, cada una con su propio {@link FreeListAllocator}.
+ * El espacio de direcciones es la concatenación de las particiones, así que un bloque nunca cruza
+ * de una a otra. Las subclases solo deciden en qué partición se coloca cada proceso.
+ */
+public abstract class PartitionedAllocator implements MemoryAllocator {
+    final FreeListAllocator[] pools;
+    private final int[] bases;
+    private final int[] capacities;
+    private final Map<String, Integer> partitionOf = new HashMap<>();
+    private final int totalMemory;
+
+    PartitionedAllocator(int[] capacities) {
+        this.capacities = capacities.clone();
+        this.pools = new FreeListAllocator[capacities.length];
+        this.bases = new int[capacities.length];
+        int base = 0;
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new FreeListAllocator(capacities[i]);
+            bases[i] = base;
+            base += capacities[i];
+        }
+        this.totalMemory = base;
+    }
+
+    /** Asigna en la primera partición de {@code order} con un hueco suficiente. */
+    final boolean allocateInOrder(String name, int size, List<Integer> order) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        if (partitionOf.containsKey(name)) return false;
+        for (int partition : order) {
+            if (pools[partition].allocate(name, size)) {
+                partitionOf.put(name, partition);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Asigna en una partición concreta, compactándola si hay memoria libre pero no un hueco suficiente. */
+    public boolean allocateIn(String name, int size, int partition) {
+        if (partitionOf.containsKey(name) || size > pools[partition].getFreeMemory()) return false;
+        if (!pools[partition].allocate(name, size)) {
+            pools[partition].compact();
+            if (!pools[partition].allocate(name, size)) return false;
+        }
+        partitionOf.put(name, partition);
+        return true;
+    }
+
+    @Override
+    public boolean release(String name) {
+        Integer partition = partitionOf.remove(name);
+        return partition != null && pools[partition].release(name);
+    }
+
+    /** Compacta cada partición por separado; los procesos no cambian de partición. */
+    @Override
+    public int compact() {
+        int moved = 0;
+        for (FreeListAllocator pool : pools) moved += pool.compact();
+        return moved;
+    }
+
+    @Override
+    public int sizeOf(String name) {
+        Integer partition = partitionOf.get(name);
+        return partition == null ? 0 : pools[partition].sizeOf(name);
+    }
+
+    @Override
+    public boolean contains(String name) { return partitionOf.containsKey(name); }
+
+    /** Bloques de todas las particiones seguidos, con los offsets desplazados a la base de cada una. */
+    @Override
+    public List<Block> blocks() {
+        List<Block> result = new ArrayList<>();
+        for (int i = 0; i < pools.length; i++) addShifted(result, bases[i], pools[i].blocks());
+        return result;
+    }
+
+    @Override
+    public int getTotalMemory() { return totalMemory; }
+
+    @Override
+    public int getUsedMemory() {
+        int used = 0;
+        for (FreeListAllocator pool : pools) used += pool.getUsedMemory();
+        return used;
+    }
+
+    @Override
+    public int getLargestFreeBlock() {
+        int largest = 0;
+        for (FreeListAllocator pool : pools) largest = Math.max(largest, pool.getLargestFreeBlock());
+        return largest;
+    }
+
+    @Override
+    public int getFreeBlockCount() {
+        int count = 0;
+        for (FreeListAllocator pool : pools) count += pool.getFreeBlockCount();
+        return count;
+    }
+
+    @Override
+    public boolean supportsStrategies() { return true; }
+
+    @Override
+    public AllocationStrategy getStrategy() { return pools[0].getStrategy(); }
+
+    @Override
+    public void setStrategy(AllocationStrategy strategy) {
+        for (FreeListAllocator pool : pools) pool.setStrategy(strategy);
+    }
+
+    /** Reparte la disposición entre las particiones por offset y restaura cada una. */
+    @Override
+    public void restore(List<Block> layout, Map<String, Integer> requested) {
+        if (!partitionOf.isEmpty()) {
+            throw new IllegalStateException("Solo se puede restaurar sobre memoria vacía");
+        }
+        List<List<Block>> parts = split(layout, bases, capacities);
+        for (int i = 0; i < pools.length; i++) {
+            pools[i].restore(parts.get(i), requested);
+            for (Block block : parts.get(i)) {
+                if (!block.isFree()) partitionOf.put(block.getOwner(), i);
+            }
+        }
+    }
+
+    /** Bytes del estado de cada partición que la disposición no refleja, en una instantánea. */
+    int stateBytes() {
+        int bytes = 0;
+        for (FreeListAllocator pool : pools) bytes += pool.stateBytes();
+        return bytes;
+    }
+
+    void writeState(ByteBuffer out) {
+        for (FreeListAllocator pool : pools) pool.writeState(out);
+    }
+
+    void readState(ByteBuffer in) {
+        for (FreeListAllocator pool : pools) pool.readState(in);
+    }
+
+    /** Partición del proceso, o -1 si no es residente. */
+    final int partitionOf(String name) { return partitionOf.getOrDefault(name, -1); }
+
+    final int getPartitionCount() { return pools.length; }
+
+    public int getUsedMemory(int partition) { return pools[partition].getUsedMemory(); }
+
+    public int getFreeMemory(int partition) { return pools[partition].getFreeMemory(); }
+
+    /** Procesos residentes en la partición, en orden de offset. */
+    public List<String> residents(int partition) {
+        List<String> names = new ArrayList<>();
+        for (Block block : pools[partition].blocks()) {
+            if (!block.isFree()) names.add(block.getOwner());
+        }
+        return names;
+    }
+
+    /** Añade los bloques de una partición con los offsets desplazados a su base. */
+    static void addShifted(List<Block> result, int base, List<Block> blocks) {
+        for (Block block : blocks) result.add(new Block(base + block.getOffset(), block.getSize(), block.getOwner()));
+    }
+
+    /**
+     * Reparte una disposición ordenada por offset entre particiones contiguas, con los offsets
+     * relativos a cada una; ningún bloque puede cruzar el límite de una partición.
+     */
+    static List<List<Block>> split(List<Block> layout, int[] bases, int[] capacities) {
+        List<List<Block>> parts = new ArrayList<>();
+        for (int i = 0; i < bases.length; i++) parts.add(new ArrayList<>());
+        int partition = 0;
+        for (Block block : layout) {
+            while (partition < bases.length - 1 && block.getOffset() >= bases[partition + 1]) partition++;
+            if (block.getOffset() < bases[partition] || block.getEnd() > bases[partition] + capacities[partition]) {
+                throw new IllegalArgumentException("El bloque cruza el límite de una partición: " + block);
+            }
+            parts.get(partition).add(new Block(block.getOffset() - bases[partition], block.getSize(), block.getOwner()));
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,34 @@
+package com.cesardarizaleta.gestor.advanced;
+
+/**
+ * Contenido sintético y determinista de las páginas de un proceso, para que el swap mueva bytes
+ * reales y pueda verificarlos al volver. Mezcla tramos repetitivos y aleatorios, como una imagen
+ * real con código, datos y zonas a cero.
+ */
+final class ProcessImage {
+    private ProcessImage() {
+    }
+
+    static void fill(String name, int pageIndex, byte[] page) {
+        long state = name.hashCode() * 0x9E3779B97F4A7C15L + pageIndex;
+        int i = 0;
+        while (i < page.length) {
+            state = state * 6364136223846793005L + 1442695040888963407L;
+            int run = 16 + (int) ((state >>> 33) & 127);
+            int kind = (int) ((state >>> 60) & 3);
+            int end = Math.min(page.length, i + run);
+            for (; i < end; i++) {
+                if (kind == 0) {
+                    page[i] = 0;
+                } else if (kind == 1) {
+                    page[i] = (byte) (pageIndex + i);
+                } else {
+                    state ^= state << 13;
+                    state ^= state >>> 7;
+                    state ^= state << 17;
+                    page[i] = (byte) state;
+                }
+            }
+        }
+    }
+}
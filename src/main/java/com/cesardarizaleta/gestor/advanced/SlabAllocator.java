@@ -0,0 +1,462 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ajuste segregado: los tamaños pequeños se redondean a una clase y se sirven desde slabs con
+ * una pila de ranuras libres (pop/push O(1)). Los slabs y las peticiones grandes se reservan en
+ * un {@link FreeListAllocator} general; allí los nombres de proceso llevan el prefijo "p:", que
+ * los de los slabs no tienen, así que un proceso no puede coincidir con un slab ni liberarlo.
+ */
+public class SlabAllocator implements MemoryAllocator {
+    public static final int[] DEFAULT_CLASSES = {4, 8, 16, 32};
+    public static final int DEFAULT_SLAB_SIZE = 64;
+    private static final String LARGE_PREFIX = "p:";
+
+    private FreeListAllocator general;
+    private final SizeClass[] classes;
+    private final int slabSize;
+    private final Map<String, Slab> slabsByName = new HashMap<>();
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final Map<String, Integer> largeAllocations = new HashMap<>();
+    private int requestedMemory;
+    private int slabSequence;
+    private List<Block> restoredLayout;
+    private Map<String, Integer> restoredRequested;
+
+    public SlabAllocator(int totalMemory) {
+        this(totalMemory, DEFAULT_CLASSES, DEFAULT_SLAB_SIZE);
+    }
+
+    public SlabAllocator(int totalMemory, int[] classSizes, int slabSize) {
+        int[] sorted = classSizes.clone();
+        Arrays.sort(sorted);
+        if (sorted.length == 0 || sorted[0] <= 0 || sorted[sorted.length - 1] > slabSize) {
+            throw new IllegalArgumentException("Clases inválidas para slabs de " + slabSize + "MB");
+        }
+        this.general = new FreeListAllocator(totalMemory);
+        this.slabSize = slabSize;
+        this.classes = new SizeClass[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            classes[i] = new SizeClass(sorted[i]);
+        }
+    }
+
+    @Override
+    public boolean allocate(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        if (contains(name)) return false;
+
+        SizeClass sizeClass = classFor(size);
+        if (sizeClass == null) {
+            if (!general.allocate(LARGE_PREFIX + name, size)) return false;
+            largeAllocations.put(name, size);
+            requestedMemory += size;
+            return true;
+        }
+
+        Slab slab = sizeClass.partial.isEmpty() ? newSlab(sizeClass) : sizeClass.partial.iterator().next();
+        if (slab == null) return false;
+
+        int index = slab.pop(name);
+        if (slab.isFull()) sizeClass.partial.remove(slab);
+        slots.put(name, new Slot(slab, index, size));
+        sizeClass.usedSlots++;
+        sizeClass.requested += size;
+        requestedMemory += size;
+        return true;
+    }
+
+    @Override
+    public boolean release(String name) {
+        Integer large = largeAllocations.remove(name);
+        if (large != null) {
+            requestedMemory -= large;
+            return general.release(LARGE_PREFIX + name);
+        }
+
+        Slot slot = slots.remove(name);
+        if (slot == null) return false;
+        Slab slab = slot.slab;
+        SizeClass sizeClass = slab.sizeClass;
+        slab.push(slot.index);
+        sizeClass.usedSlots--;
+        sizeClass.requested -= slot.requested;
+        requestedMemory -= slot.requested;
+
+        sizeClass.partial.add(slab);
+        if (slab.isEmpty() && sizeClass.partial.size() > 1) {
+            // Se conserva un slab vacío por clase para no reservar y liberar en bucle.
+            sizeClass.partial.remove(slab);
+            sizeClass.slabs--;
+            slabsByName.remove(slab.name);
+            general.release(slab.name);
+        }
+        return true;
+    }
+
+    @Override
+    public int compact() {
+        return general.compact();
+    }
+
+    @Override
+    public List<Block> blocks() {
+        List<Block> result = new ArrayList<>();
+        for (Block block : general.blocks()) {
+            if (block.isFree()) {
+                result.add(block);
+                continue;
+            }
+            Slab slab = slabsByName.get(block.getOwner());
+            if (slab == null) {
+                result.add(new Block(block.getOffset(), block.getSize(), block.getOwner().substring(LARGE_PREFIX.length())));
+                continue;
+            }
+            int classSize = slab.sizeClass.size;
+            for (int i = 0; i < slab.owners.length; i++) {
+                result.add(new Block(block.getOffset() + i * classSize, classSize, slab.owners[i]));
+            }
+            int tail = slabSize - slab.owners.length * classSize;
+            if (tail > 0) {
+                result.add(new Block(block.getEnd() - tail, tail, null));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int sizeOf(String name) {
+        Slot slot = slots.get(name);
+        if (slot != null) return slot.requested;
+        return largeAllocations.getOrDefault(name, 0);
+    }
+
+    @Override
+    public int getTotalMemory() { return general.getTotalMemory(); }
+
+    @Override
+    public int getUsedMemory() { return general.getUsedMemory(); }
+
+    /** Los huecos externos son los del asignador general; las ranuras libres cuentan como internas. */
+    @Override
+    public int getLargestFreeBlock() { return general.getLargestFreeBlock(); }
+
+    @Override
+    public int getFreeBlockCount() { return general.getFreeBlockCount(); }
+
+    @Override
+    public int getInternalFragmentation() { return general.getUsedMemory() - requestedMemory; }
+
+    @Override
+    public boolean supportsStrategies() { return true; }
+
+    @Override
+    public void setStrategy(AllocationStrategy strategy) { general.setStrategy(strategy); }
+
+    @Override
+    public AllocationStrategy getStrategy() { return general.getStrategy(); }
+
+    /** Tamaño de clase que sirve al proceso, o 0 si se reservó en el asignador general. */
+    public int sizeClassOf(String name) {
+        Slot slot = slots.get(name);
+        return slot == null ? 0 : slot.slab.sizeClass.size;
+    }
+
+    public List<SizeClassStats> getClassStats() {
+        List<SizeClassStats> stats = new ArrayList<>();
+        for (SizeClass sizeClass : classes) {
+            stats.add(new SizeClassStats(sizeClass.size, sizeClass.slabs,
+                    sizeClass.slabs * (slabSize / sizeClass.size), sizeClass.usedSlots, sizeClass.requested));
+        }
+        return stats;
+    }
+
+    /**
+     * La disposición no distingue las ranuras de un slab de los bloques del asignador general, así
+     * que aquí solo se guarda y {@link #readState} reconstruye los slabs con el estado guardado.
+     */
+    @Override
+    public void restore(List<Block> layout, Map<String, Integer> requested) {
+        if (!slots.isEmpty() || !largeAllocations.isEmpty()) {
+            throw new IllegalStateException("Solo se puede restaurar sobre memoria vacía");
+        }
+        restoredLayout = layout;
+        restoredRequested = requested;
+    }
+
+    /** Bytes de los slabs, sus pilas de ranuras libres y el orden de los parciales en una instantánea. */
+    int stateBytes() {
+        int bytes = (2 + classes.length) * Integer.BYTES + general.stateBytes();
+        for (Slab slab : slabsByName.values()) bytes += (4 + slab.top) * Integer.BYTES;
+        for (SizeClass sizeClass : classes) bytes += sizeClass.partial.size() * Integer.BYTES;
+        return bytes;
+    }
+
+    void writeState(ByteBuffer out) {
+        Map<Slab, Integer> ordinals = new HashMap<>();
+        out.putInt(slabSequence).putInt(slabsByName.size());
+        for (Block block : general.blocks()) {
+            Slab slab = block.isFree() ? null : slabsByName.get(block.getOwner());
+            if (slab == null) continue;
+            ordinals.put(slab, ordinals.size());
+            out.putInt(block.getOffset()).putInt(Arrays.asList(classes).indexOf(slab.sizeClass)).putInt(slab.number);
+            out.putInt(slab.top);
+            for (int i = 0; i < slab.top; i++) out.putInt(slab.freeStack[i]);
+        }
+        for (SizeClass sizeClass : classes) {
+            out.putInt(sizeClass.partial.size());
+            for (Slab slab : sizeClass.partial) out.putInt(ordinals.get(slab));
+        }
+        general.writeState(out);
+    }
+
+    /** Tras {@link #restore}, reconstruye los slabs y el asignador general tal como estaban. */
+    void readState(ByteBuffer in) {
+        if (restoredLayout == null) {
+            throw new IllegalStateException("No hay una disposición restaurada");
+        }
+        int sequence = in.getInt();
+        Slab[] slabs = new Slab[StateFile.getLength(in, 4 * Integer.BYTES)];
+        int[] offsets = new int[slabs.length];
+        for (int k = 0; k < slabs.length; k++) {
+            offsets[k] = in.getInt();
+            int classIndex = in.getInt();
+            int number = in.getInt();
+            if (classIndex < 0 || classIndex >= classes.length || number <= 0 || number > sequence
+                    || (k > 0 && offsets[k] < offsets[k - 1] + slabSize)) {
+                throw new IllegalArgumentException("Slab inválido en el offset " + offsets[k]);
+            }
+            slabs[k] = new Slab(number, classes[classIndex], slabSize / classes[classIndex].size);
+            int top = in.getInt();
+            if (top < 0 || top > slabs[k].owners.length) {
+                throw new IllegalArgumentException("Pila de ranuras inválida en " + slabs[k].name);
+            }
+            for (int i = 0; i < top; i++) slabs[k].freeStack[i] = in.getInt();
+            slabs[k].top = top;
+        }
+        List<List<Slab>> partials = new ArrayList<>();
+        for (SizeClass sizeClass : classes) {
+            List<Slab> partial = new ArrayList<>();
+            for (int n = StateFile.getLength(in, Integer.BYTES); n > 0; n--) {
+                Slab slab = slabs[in.getInt()];
+                if (slab.sizeClass != sizeClass || slab.isFull() || partial.contains(slab)) {
+                    throw new IllegalArgumentException("Slab parcial inválido: " + slab.name);
+                }
+                partial.add(slab);
+            }
+            partials.add(partial);
+        }
+
+        // Los slabs vuelven al asignador general como un solo bloque y sus ranuras, a los slabs.
+        List<Block> generalLayout = new ArrayList<>();
+        Map<String, Slot> restoredSlots = new HashMap<>();
+        Map<String, Integer> large = new HashMap<>();
+        int k = 0;
+        for (int j = 0; j < restoredLayout.size(); j++) {
+            Block block = restoredLayout.get(j);
+            if (k < slabs.length && block.getOffset() == offsets[k]) {
+                Slab slab = slabs[k++];
+                int classSize = slab.sizeClass.size;
+                for (int i = 0; i < slab.owners.length; i++) {
+                    Block slot = restoredLayout.get(j + i);
+                    if (slot.getOffset() != block.getOffset() + i * classSize || slot.getSize() != classSize) {
+                        throw new IllegalArgumentException("Ranura inválida en " + slab.name + ": " + slot);
+                    }
+                    slab.owners[i] = slot.getOwner();
+                    if (slot.isFree()) continue;
+                    int requested = restoredRequested.getOrDefault(slot.getOwner(), classSize);
+                    if (requested <= 0 || requested > classSize || restoredSlots.put(slot.getOwner(), new Slot(slab, i, requested)) != null) {
+                        throw new IllegalArgumentException("Ranura inválida en " + slab.name + ": " + slot);
+                    }
+                }
+                j += slab.owners.length - 1;
+                int tail = slabSize - slab.owners.length * classSize;
+                if (tail > 0) {
+                    Block rest = restoredLayout.get(++j);
+                    if (!rest.isFree() || rest.getOffset() != block.getOffset() + slabSize - tail || rest.getSize() != tail) {
+                        throw new IllegalArgumentException("Final de slab inválido en " + slab.name + ": " + rest);
+                    }
+                }
+                checkFreeStack(slab);
+                generalLayout.add(new Block(block.getOffset(), slabSize, slab.name));
+            } else if (block.isFree()) {
+                generalLayout.add(block);
+            } else {
+                if (restoredSlots.containsKey(block.getOwner()) || large.put(block.getOwner(), block.getSize()) != null) {
+                    throw new IllegalArgumentException("Proceso duplicado: " + block.getOwner());
+                }
+                generalLayout.add(new Block(block.getOffset(), block.getSize(), LARGE_PREFIX + block.getOwner()));
+            }
+        }
+        if (k != slabs.length) {
+            throw new IllegalArgumentException("Slab fuera de la disposición en el offset " + offsets[k]);
+        }
+        for (String name : large.keySet()) {
+            if (restoredSlots.containsKey(name)) throw new IllegalArgumentException("Proceso duplicado: " + name);
+        }
+        FreeListAllocator rebuilt = new FreeListAllocator(general.getTotalMemory());
+        rebuilt.setStrategy(general.getStrategy());
+        rebuilt.restore(generalLayout, Map.of());
+        rebuilt.readState(in);
+
+        general = rebuilt;
+        restoredLayout = null;
+        restoredRequested = null;
+        slabSequence = sequence;
+        slabsByName.clear();
+        for (Slab slab : slabs) slabsByName.put(slab.name, slab);
+        slots.clear();
+        slots.putAll(restoredSlots);
+        largeAllocations.clear();
+        largeAllocations.putAll(large);
+        requestedMemory = 0;
+        for (int size : large.values()) requestedMemory += size;
+        for (int i = 0; i < classes.length; i++) {
+            SizeClass sizeClass = classes[i];
+            sizeClass.partial.clear();
+            sizeClass.partial.addAll(partials.get(i));
+            sizeClass.slabs = 0;
+            sizeClass.usedSlots = 0;
+            sizeClass.requested = 0;
+        }
+        for (Slab slab : slabs) {
+            slab.sizeClass.slabs++;
+            if (!slab.isFull() && !slab.sizeClass.partial.contains(slab)) {
+                throw new IllegalArgumentException("Slab con ranuras libres fuera de los parciales: " + slab.name);
+            }
+        }
+        for (Slot slot : restoredSlots.values()) {
+            slot.slab.sizeClass.usedSlots++;
+            slot.slab.sizeClass.requested += slot.requested;
+            requestedMemory += slot.requested;
+        }
+    }
+
+    // Las ranuras de la pila deben ser exactamente las libres, cada una una sola vez.
+    private static void checkFreeStack(Slab slab) {
+        boolean[] seen = new boolean[slab.owners.length];
+        int free = 0;
+        for (String owner : slab.owners) {
+            if (owner == null) free++;
+        }
+        for (int i = 0; i < slab.top; i++) {
+            int index = slab.freeStack[i];
+            if (index < 0 || index >= seen.length || seen[index] || slab.owners[index] != null) {
+                throw new IllegalArgumentException("Pila de ranuras inválida en " + slab.name);
+            }
+            seen[index] = true;
+        }
+        if (free != slab.top) {
+            throw new IllegalArgumentException("Pila de ranuras inválida en " + slab.name);
+        }
+    }
+
+    private SizeClass classFor(int size) {
+        for (SizeClass sizeClass : classes) {
+            if (size <= sizeClass.size) return sizeClass;
+        }
+        return null;
+    }
+
+    private Slab newSlab(SizeClass sizeClass) {
+        Slab slab = new Slab(slabSequence + 1, sizeClass, slabSize / sizeClass.size);
+        if (!general.allocate(slab.name, slabSize)) return null;
+        slabSequence++;
+        slabsByName.put(slab.name, slab);
+        sizeClass.partial.add(slab);
+        sizeClass.slabs++;
+        return slab;
+    }
+
+    public static final class SizeClassStats {
+        private final int classSize;
+        private final int slabs;
+        private final int totalSlots;
+        private final int usedSlots;
+        private final int requested;
+
+        SizeClassStats(int classSize, int slabs, int totalSlots, int usedSlots, int requested) {
+            this.classSize = classSize;
+            this.slabs = slabs;
+            this.totalSlots = totalSlots;
+            this.usedSlots = usedSlots;
+            this.requested = requested;
+        }
+
+        public int getClassSize() { return classSize; }
+        public int getSlabs() { return slabs; }
+        public int getTotalSlots() { return totalSlots; }
+        public int getUsedSlots() { return usedSlots; }
+        public int getRequested() { return requested; }
+        public int getReservedMemory() { return totalSlots * classSize; }
+        public int getOccupiedMemory() { return usedSlots * classSize; }
+    }
+
+    private static final class SizeClass {
+        final int size;
+        final LinkedHashSet<Slab> partial = new LinkedHashSet<>();
+        int slabs;
+        int usedSlots;
+        int requested;
+
+        SizeClass(int size) {
+            this.size = size;
+        }
+    }
+
+    private static final class Slab {
+        final int number;
+        final String name;
+        final SizeClass sizeClass;
+        final String[] owners;
+        final int[] freeStack;
+        int top;
+
+        Slab(int number, SizeClass sizeClass, int slotCount) {
+            this.number = number;
+            this.name = "[slab " + sizeClass.size + "MB #" + number + "]";
+            this.sizeClass = sizeClass;
+            this.owners = new String[slotCount];
+            this.freeStack = new int[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                freeStack[i] = slotCount - 1 - i;
+            }
+            this.top = slotCount;
+        }
+
+        int pop(String owner) {
+            int index = freeStack[--top];
+            owners[index] = owner;
+            return index;
+        }
+
+        void push(int index) {
+            owners[index] = null;
+            freeStack[top++] = index;
+        }
+
+        boolean isFull() { return top == 0; }
+        boolean isEmpty() { return top == owners.length; }
+    }
+
+    private static final class Slot {
+        final Slab slab;
+        final int index;
+        final int requested;
+
+        Slot(Slab slab, int index, int requested) {
+            this.slab = slab;
+            this.index = index;
+            this.requested = requested;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Instantáneas binarias versionadas del estado completo, leídas y escritas con ficheros mapeados
+ * en memoria. Un fichero empieza por la firma, la versión del formato y el tipo de contenido:
+ * <ul>
+ *   <li>Gestor: modo, estrategia, políticas, disposición de bloques con sus procesos y los MB
+ *   que pidió cada uno, ranuras e imágenes del swap, latencias y contadores de las métricas,
+ *   temperaturas de los procesos para la memoria por niveles, estado de la política de desalojo
+ *   y el estado del asignador que la disposición no refleja: cursores del siguiente ajuste,
+ *   orden de las listas libres del buddy, slabs del ajuste segregado o identificadores de proceso
+ *   y entradas del TLB.</li>
+ *   <li>Almacén: estrategia y disposición de un {@link BlockStore} en bytes.</li>
+ * </ul>
+ * La disposición son los tamaños en orden de offset, negativos para los huecos, como un único
+ * array de {@code long} que se copia en bloque, seguidos de los nombres en el mismo orden. Al
+ * cargar no se vuelve a ejecutar ninguna operación: los bloques se enlazan directamente.
+ */
+public final class StateFile {
+    /** "GMEM" en ASCII. */
+    private static final int MAGIC = 0x474D454D;
+    public static final int VERSION = 7;
+    private static final int KIND_MANAGER = 1;
+    private static final int KIND_STORE = 2;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    private StateFile() {
+    }
+
+    /** Guarda el gestor, que debe estar usando un asignador del modo indicado. */
+    public static void save(Path file, MemoryManager manager, AllocatorMode mode) {
+        managerContent(manager, mode).write(file);
+    }
+
+    /**
+     * Sustituye el estado del gestor por el guardado y devuelve el modo de asignación. El área de
+     * swap del gestor debe tener la misma capacidad que la guardada; si el fichero no es válido el
+     * gestor no cambia.
+     */
+    public static AllocatorMode load(Path file, MemoryManager manager) {
+        return restoreManager(read(file, KIND_MANAGER), manager);
+    }
+
+    /** La misma instantánea que {@link #save(Path, MemoryManager, AllocatorMode)}, en memoria. */
+    public static byte[] capture(MemoryManager manager, AllocatorMode mode) {
+        return managerContent(manager, mode).toBytes();
+    }
+
+    public static AllocatorMode restore(byte[] state, MemoryManager manager) {
+        return restoreManager(header(ByteBuffer.wrap(state), KIND_MANAGER, "memoria"), manager);
+    }
+
+    private static Content managerContent(MemoryManager manager, AllocatorMode mode) {
+        Layout layout = Layout.of(manager.getAllocator());
+        SwapArea swap = manager.getSwapArea();
+        String[] settings = {
+                mode.name(),
+                manager.getAllocator().getStrategy().name(),
+                manager.getCompactionPolicy().name(),
+                manager.getPolicy().getType().name()
+        };
+        AbstractEvictionPolicy policy = (AbstractEvictionPolicy) manager.getPolicy();
+        AllocatorState allocatorState = AllocatorState.of(manager.getAllocator());
+        long size = HEADER_BYTES + 1 + layout.bytes() + (long) Integer.BYTES * layout.names.length
+                + swap.stateBytes() + MemoryMetrics.STATE_BYTES + manager.getMigrator().stateBytes()
+                + policy.stateBytes() + allocatorState.bytes.getAsInt();
+        for (String setting : settings) size += stringBytes(setting);
+        return new Content(size, out -> {
+            out.putInt(MAGIC).putInt(VERSION).putInt(KIND_MANAGER);
+            for (String setting : settings) putString(out, setting);
+            out.put((byte) (manager.isAutoSwap() ? 1 : 0));
+            layout.write(out);
+            // MB pedidos por cada proceso, que difieren del bloque en los modos que redondean.
+            for (String name : layout.names) out.putInt(manager.getAllocator().sizeOf(name));
+            swap.writeState(out);
+            manager.getMetrics().writeState(out);
+            manager.getMigrator().writeState(out);
+            policy.writeState(out);
+            allocatorState.writer.write(out);
+        });
+    }
+
+    // Se lee y valida todo el fichero antes de tocar el gestor.
+    private static AllocatorMode restoreManager(ByteBuffer in, MemoryManager manager) {
+        AllocatorMode mode;
+        CompactionPolicy compactionPolicy;
+        AbstractEvictionPolicy policy;
+        boolean autoSwap;
+        MemoryAllocator allocator;
+        Runnable swap;
+        Runnable metrics;
+        Runnable migrator;
+        try {
+            mode = AllocatorMode.valueOf(getString(in));
+            AllocationStrategy strategy = AllocationStrategy.valueOf(getString(in));
+            compactionPolicy = CompactionPolicy.valueOf(getString(in));
+            policy = (AbstractEvictionPolicy) EvictionPolicyType.valueOf(getString(in)).create();
+            autoSwap = in.get() != 0;
+            Layout layout = Layout.read(in);
+            Map<String, Integer> requested = new HashMap<>();
+            for (String name : layout.names) requested.put(name, in.getInt());
+
+            allocator = mode.create(Math.toIntExact(layout.capacity));
+            allocator.setStrategy(strategy);
+            allocator.restore(layout.toBlocks(), requested);
+            swap = manager.getSwapArea().readState(in);
+            metrics = manager.getMetrics().readState(in);
+            migrator = manager.getMigrator().readState(in);
+            policy.readState(in);
+            AllocatorState.of(allocator).reader.accept(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ArithmeticException e) {
+            throw corrupted(e);
+        }
+        swap.run();
+        metrics.run();
+        migrator.run();
+        manager.setAllocator(allocator);
+        manager.restorePolicy(policy);
+        manager.setCompactionPolicy(compactionPolicy);
+        manager.setAutoSwap(autoSwap);
+        manager.getMetrics().updateGauges(allocator);
+        return mode;
+    }
+
+    public static void save(Path file, BlockStore store) {
+        Layout layout = Layout.of(store);
+        String strategy = store.getStrategy().name();
+        new Content(HEADER_BYTES + stringBytes(strategy) + layout.bytes(), out -> {
+            out.putInt(MAGIC).putInt(VERSION).putInt(KIND_STORE);
+            putString(out, strategy);
+            layout.write(out);
+        }).write(file);
+    }
+
+    public static BlockStore loadStore(Path file) {
+        ByteBuffer in = read(file, KIND_STORE);
+        try {
+            AllocationStrategy strategy = AllocationStrategy.valueOf(getString(in));
+            Layout layout = Layout.read(in);
+            BlockStore store = new BlockStore(layout.capacity, layout.sizes.length);
+            store.setStrategy(strategy);
+            store.restore(layout.sizes, layout.names);
+            return store;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ArithmeticException e) {
+            throw corrupted(e);
+        }
+    }
+
+    /** Estado interno del asignador tal como lo guarda una instantánea del gestor. */
+    static byte[] allocatorState(MemoryAllocator allocator) {
+        AllocatorState state = AllocatorState.of(allocator);
+        ByteBuffer out = ByteBuffer.allocate(state.bytes.getAsInt());
+        state.writer.write(out);
+        return out.array();
+    }
+
+    private static IllegalArgumentException corrupted(RuntimeException cause) {
+        return new IllegalArgumentException("Instantánea truncada o dañada", cause);
+    }
+
+    static int stringBytes(String value) {
+        return Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[getLength(in, 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee un número de elementos y comprueba que caben en lo que queda del fichero, con al menos
+     * {@code minBytes} cada uno, para no reservar arrays a partir de una longitud dañada.
+     */
+    static int getLength(ByteBuffer in, int minBytes) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining() / minBytes) {
+            throw new IllegalArgumentException("Longitud inválida en la instantánea: " + length);
+        }
+        return length;
+    }
+
+    private static ByteBuffer read(Path file, int kind) {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // El mapeo sigue siendo válido después de cerrar el canal.
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la instantánea " + file, e);
+        }
+        return header(in, kind, file.toString());
+    }
+
+    private static ByteBuffer header(ByteBuffer in, int kind, String source) {
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+            throw new IllegalArgumentException("No es una instantánea del gestor: " + source);
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Versión de instantánea no soportada: " + version);
+        }
+        int savedKind = in.getInt();
+        if (savedKind != kind) {
+            throw new IllegalArgumentException("La instantánea contiene " + (savedKind == KIND_STORE ? "un almacén" : "un gestor")
+                    + " y se esperaba otro tipo de contenido");
+        }
+        return in;
+    }
+
+    /** Contenido de tamaño conocido de antemano, que se vuelca en un mapeo o en un array. */
+    private static final class Content {
+        final long size;
+        final Writer writer;
+
+        Content(long size, Writer writer) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Instantánea demasiado grande para un solo mapeo: " + size + " bytes");
+            }
+            this.size = size;
+            this.writer = writer;
+        }
+
+        void write(Path file) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                fill(out);
+                out.force();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo guardar la instantánea " + file, e);
+            }
+        }
+
+        byte[] toBytes() {
+            ByteBuffer out = ByteBuffer.allocate((int) size);
+            fill(out);
+            return out.array();
+        }
+
+        private void fill(ByteBuffer out) {
+            writer.write(out);
+            if (out.hasRemaining()) {
+                throw new IllegalStateException("Tamaño de instantánea mal calculado: sobran " + out.remaining() + " bytes");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(ByteBuffer out);
+    }
+
+    /**
+     * Estado de un asignador que su disposición no refleja y que decide dónde caen las asignaciones
+     * siguientes; se lee sobre el asignador ya restaurado.
+     */
+    private static final class AllocatorState {
+        static final AllocatorState NONE = new AllocatorState(() -> 0, out -> { }, in -> { });
+
+        final IntSupplier bytes;
+        final Writer writer;
+        final Consumer<ByteBuffer> reader;
+
+        AllocatorState(IntSupplier bytes, Writer writer, Consumer<ByteBuffer> reader) {
+            this.bytes = bytes;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        static AllocatorState of(MemoryAllocator allocator) {
+            if (allocator instanceof FreeListAllocator) {
+                FreeListAllocator a = (FreeListAllocator) allocator;
+                return new AllocatorState(a::stateBytes, a::writeState, a::readState);
+            }
+            if (allocator instanceof BuddyAllocator) {
+                BuddyAllocator a = (BuddyAllocator) allocator;
+                return new AllocatorState(a::stateBytes, a::writeState, a::readState);
+            }
+            if (allocator instanceof PagedAllocator) {
+                PagedAllocator a = (PagedAllocator) allocator;
+                return new AllocatorState(a::stateBytes, a::writeState, a::readState);
+            }
+            if (allocator instanceof BlockStoreAllocator) {
+                BlockStoreAllocator a = (BlockStoreAllocator) allocator;
+                return new AllocatorState(a::stateBytes, a::writeState, a::readState);
+            }
+            if (allocator instanceof ArenaAllocator) {
+                ArenaAllocator a = (ArenaAllocator) allocator;
+                return new AllocatorState(a::stateBytes, a::writeState, a::readState);
+            }
+            if (allocator instanceof SlabAllocator) {
+                SlabAllocator a = (SlabAllocator) allocator;
+                return new AllocatorState(a::stateBytes, a::writeState, a::readState);
+            }
+            if (allocator instanceof PartitionedAllocator) {
+                PartitionedAllocator a = (PartitionedAllocator) allocator;
+                return new AllocatorState(a::stateBytes, a::writeState, a::readState);
+            }
+            return NONE;
+        }
+    }
+
+    /** Tamaños en orden de offset (negativos para huecos) y nombres de los procesos. */
+    private static final class Layout {
+        final long capacity;
+        final long[] sizes;
+        final String[] names;
+        private byte[][] encoded;
+
+        Layout(long capacity, long[] sizes, String[] names) {
+            this.capacity = capacity;
+            this.sizes = sizes;
+            this.names = names;
+        }
+
+        static Layout of(MemoryAllocator allocator) {
+            List<Block> blocks = allocator.blocks();
+            long[] sizes = new long[blocks.size()];
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < sizes.length; i++) {
+                Block block = blocks.get(i);
+                sizes[i] = block.isFree() ? -block.getSize() : block.getSize();
+                if (!block.isFree()) names.add(block.getOwner());
+            }
+            return new Layout(allocator.getTotalMemory(), sizes, names.toArray(new String[0]));
+        }
+
+        static Layout of(BlockStore store) {
+            long[] sizes = new long[store.getBlockCount()];
+            String[] names = new String[store.getProcessCount()];
+            int[] position = new int[2];
+            store.forEach((offset, size, owner) -> {
+                sizes[position[0]++] = owner == BlockStore.FREE ? -size : size;
+                if (owner != BlockStore.FREE) names[position[1]++] = store.nameOf(owner);
+            });
+            return new Layout(store.getCapacity(), sizes, names);
+        }
+
+        long bytes() {
+            encoded = new byte[names.length][];
+            long bytes = Long.BYTES + 2L * Integer.BYTES + (long) Long.BYTES * sizes.length;
+            for (int i = 0; i < names.length; i++) {
+                encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+                bytes += Integer.BYTES + encoded[i].length;
+            }
+            return bytes;
+        }
+
+        void write(ByteBuffer out) {
+            out.putLong(capacity).putInt(sizes.length);
+            out.asLongBuffer().put(sizes);
+            out.position(out.position() + Long.BYTES * sizes.length);
+            out.putInt(encoded.length);
+            for (byte[] name : encoded) {
+                out.putInt(name.length).put(name);
+            }
+        }
+
+        static Layout read(ByteBuffer in) {
+            long capacity = in.getLong();
+            long[] sizes = new long[getLength(in, Long.BYTES)];
+            in.asLongBuffer().get(sizes);
+            in.position(in.position() + Long.BYTES * sizes.length);
+            String[] names = new String[getLength(in, Integer.BYTES)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = getString(in);
+            }
+            return new Layout(capacity, sizes, names);
+        }
+
+        List<Block> toBlocks() {
+            List<Block> blocks = new ArrayList<>(sizes.length);
+            long offset = 0;
+            int named = 0;
+            for (long size : sizes) {
+                if (size > 0 && named == names.length) {
+                    throw new IllegalArgumentException("Faltan nombres de proceso en la instantánea");
+                }
+                int mb = Math.toIntExact(Math.abs(size));
+                blocks.add(new Block(Math.toIntExact(offset), mb, size < 0 ? null : names[named++]));
+                offset += mb;
+            }
+            return blocks;
+        }
+    }
+}
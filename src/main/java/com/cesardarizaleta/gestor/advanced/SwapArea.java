@@ -0,0 +1,497 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Área de swap respaldada por un fichero de tamaño fijo mapeado en memoria. Cada MB simulado
+ * ocupa una ranura de {@code bytesPerMb} bytes reales; las ranuras de un proceso no necesitan
+ * ser contiguas y se reservan desde una pila de ranuras libres.
+ * <p>
+ * Delante del fichero puede haber un nivel comprimido en RAM, como zswap: con
+ * {@link #setCompressedCapacity(int)} mayor que cero las imágenes se comprimen con {@link LzCodec}
+ * y se guardan en memoria mientras quepan. Si no caben, las más antiguas se escriben al fichero
+ * para hacer sitio; las que no comprimen nada van directamente al fichero.
+ */
+public class SwapArea implements Closeable {
+    public static final int DEFAULT_CAPACITY = 2048;
+    public static final int DEFAULT_BYTES_PER_MB = 4096;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int bytesPerMb;
+    private final int[] freeSlots;
+    private int freeCount;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final byte[] page;
+    private final LzCodec codec = new LzCodec();
+    private byte[] staging = new byte[0];
+    private int compressedCapacity;
+    private long compressedUsed;
+
+    private long swapOuts;
+    private long swapIns;
+    private long swapOutNanos;
+    private long swapInNanos;
+    private long bytesWritten;
+    private long bytesRead;
+    private long compressedStores;
+    private long ramSwapIns;
+    private long writebacks;
+    private long rawCompressedBytes;
+    private long compressedBytes;
+    private long compressNanos;
+    private long decompressNanos;
+
+    public SwapArea(Path file, int capacity, int bytesPerMb) {
+        if (capacity <= 0 || bytesPerMb <= 0 || (long) capacity * bytesPerMb > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamaño de swap inválido: " + capacity + " x " + bytesPerMb);
+        }
+        this.file = file;
+        this.capacity = capacity;
+        this.bytesPerMb = bytesPerMb;
+        this.page = new byte[bytesPerMb];
+        this.freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        this.freeCount = capacity;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * bytesPerMb);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el fichero de swap " + file, e);
+        }
+    }
+
+    public static SwapArea createTemporary() {
+        return createTemporary(DEFAULT_CAPACITY, DEFAULT_BYTES_PER_MB);
+    }
+
+    public static SwapArea createTemporary(int capacity, int bytesPerMb) {
+        try {
+            Path file = Files.createTempFile("gestor-swap", ".bin");
+            file.toFile().deleteOnExit();
+            return new SwapArea(file, capacity, bytesPerMb);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el fichero de swap", e);
+        }
+    }
+
+    /** Escribe la imagen del proceso en ranuras libres; false si no caben sus {@code size} MB. */
+    public boolean swapOut(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño debe ser positivo: " + size);
+        }
+        if (entries.containsKey(name)) return false;
+
+        long start = System.nanoTime();
+        Entry entry = compressedCapacity > 0 ? compress(name, size) : null;
+        long compressed = System.nanoTime();
+        if (entry != null && makeRoom(entry.data.length, compressedCapacity)) {
+            compressNanos += compressed - start;
+            compressedUsed += entry.data.length;
+            compressedStores++;
+            rawCompressedBytes += (long) size * bytesPerMb;
+            compressedBytes += entry.data.length;
+        } else {
+            if (size > freeCount) return false;
+            entry = writeToDisk(name, size);
+        }
+        entries.put(name, entry);
+        swapOutNanos += System.nanoTime() - start;
+        swapOuts++;
+        return true;
+    }
+
+    private Entry writeToDisk(String name, int size) {
+        int[] slots = new int[size];
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < size; i++) {
+            int slot = freeSlots[--freeCount];
+            slots[i] = slot;
+            ProcessImage.fill(name, i, page);
+            crc.update(page);
+            buffer.put(slot * bytesPerMb, page);
+        }
+        buffer.force();
+        bytesWritten += (long) size * bytesPerMb;
+        return Entry.onDisk(name, slots, crc.getValue());
+    }
+
+    // Comprime página a página; null si la imagen no ocupa menos comprimida.
+    private Entry compress(String name, int size) {
+        int bound = LzCodec.maxCompressedLength(bytesPerMb);
+        int[] ends = new int[size];
+        int length = 0;
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < size; i++) {
+            ProcessImage.fill(name, i, page);
+            crc.update(page);
+            if (staging.length < length + bound) staging = Arrays.copyOf(staging, Math.max(length + bound, staging.length * 2));
+            length += codec.compress(page, bytesPerMb, staging, length);
+            ends[i] = length;
+        }
+        if (length >= (long) size * bytesPerMb) return null;
+        return Entry.compressed(name, Arrays.copyOf(staging, length), ends, crc.getValue());
+    }
+
+    // Escribe al fichero las imágenes comprimidas más antiguas hasta que lo guardado en RAM más
+    // {@code bytes} quepa en {@code limit}, saltando las que no caben en las ranuras libres. Si ni
+    // así hay sitio, no escribe nada y devuelve false.
+    private boolean makeRoom(int bytes, long limit) {
+        if (bytes > limit) return false;
+        List<Entry> victims = new ArrayList<>();
+        long needed = compressedUsed + bytes - limit;
+        int slots = freeCount;
+        for (Entry entry : entries.values()) {
+            if (needed <= 0) break;
+            if (entry.data == null || entry.size > slots) continue;
+            victims.add(entry);
+            needed -= entry.data.length;
+            slots -= entry.size;
+        }
+        if (needed > 0) return false;
+        for (Entry entry : victims) writeBack(entry);
+        if (!victims.isEmpty()) buffer.force();
+        return true;
+    }
+
+    // Sin force: quien llama sincroniza el fichero una sola vez tras todas las escrituras.
+    private void writeBack(Entry entry) {
+        int[] slots = new int[entry.size];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = freeSlots[--freeCount];
+            decompressPage(entry, i);
+            buffer.put(slots[i] * bytesPerMb, page);
+        }
+        compressedUsed -= entry.data.length;
+        entry.data = null;
+        entry.ends = null;
+        entry.slots = slots;
+        writebacks++;
+        bytesWritten += (long) slots.length * bytesPerMb;
+    }
+
+    private void decompressPage(Entry entry, int index) {
+        int start = index == 0 ? 0 : entry.ends[index - 1];
+        if (LzCodec.decompress(entry.data, start, entry.ends[index], page) != bytesPerMb) {
+            throw new IllegalStateException("Imagen comprimida corrupta para " + entry.name);
+        }
+    }
+
+    /**
+     * Tamaño del nivel comprimido en MB del swap ({@code bytesPerMb} bytes reales cada uno); 0 lo
+     * desactiva. Si lo ya guardado no cabe, las imágenes más antiguas se escriben al fichero; si
+     * no hay ranuras libres para dejarlo por debajo del nuevo tamaño, devuelve false sin cambiar
+     * nada.
+     */
+    public boolean setCompressedCapacity(int megabytes) {
+        if (megabytes < 0) {
+            throw new IllegalArgumentException("Capacidad comprimida negativa: " + megabytes);
+        }
+        int bytes = Math.toIntExact((long) megabytes * bytesPerMb);
+        if (!makeRoom(0, bytes)) return false;
+        compressedCapacity = bytes;
+        return true;
+    }
+
+    /** Lee y verifica la imagen del proceso y libera sus ranuras; devuelve los MB leídos o 0. */
+    public int swapIn(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) return 0;
+
+        long start = System.nanoTime();
+        CRC32 crc = new CRC32();
+        if (entry.data != null) {
+            for (int i = 0; i < entry.size; i++) {
+                decompressPage(entry, i);
+                crc.update(page);
+            }
+            decompressNanos += System.nanoTime() - start;
+        } else {
+            for (int slot : entry.slots) {
+                buffer.get(slot * bytesPerMb, page);
+                crc.update(page);
+            }
+        }
+        if (crc.getValue() != entry.checksum) {
+            throw new IllegalStateException("Imagen de swap corrupta para " + name);
+        }
+        release(entry);
+        swapInNanos += System.nanoTime() - start;
+        swapIns++;
+        if (entry.data != null) ramSwapIns++; else bytesRead += (long) entry.size * bytesPerMb;
+        return entry.size;
+    }
+
+    private void release(Entry entry) {
+        entries.remove(entry.name);
+        if (entry.data != null) {
+            compressedUsed -= entry.data.length;
+            return;
+        }
+        for (int slot : entry.slots) {
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    /** Descarta la imagen sin leerla (el proceso terminó mientras estaba en swap). */
+    public boolean discard(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) return false;
+        release(entry);
+        return true;
+    }
+
+    public boolean contains(String name) { return entries.containsKey(name); }
+
+    public int sizeOf(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? 0 : entry.size;
+    }
+
+    /** Procesos en swap, en orden de llegada, con su tamaño en MB. */
+    public Map<String, Integer> getProcesses() {
+        Map<String, Integer> processes = new LinkedHashMap<>();
+        entries.values().forEach(e -> processes.put(e.name, e.size));
+        return processes;
+    }
+
+    public Path getFile() { return file; }
+    /** MB del fichero; el nivel comprimido no cuenta. */
+    public int getCapacity() { return capacity; }
+    public int getUsed() { return capacity - freeCount; }
+    public int getBytesPerMb() { return bytesPerMb; }
+    public long getSwapOuts() { return swapOuts; }
+    public long getSwapIns() { return swapIns; }
+    public long getBytesWritten() { return bytesWritten; }
+    public long getBytesRead() { return bytesRead; }
+
+    public double getAverageSwapOutMicros() {
+        return swapOuts == 0 ? 0 : swapOutNanos / 1e3 / swapOuts;
+    }
+
+    public double getAverageSwapInMicros() {
+        return swapIns == 0 ? 0 : swapInNanos / 1e3 / swapIns;
+    }
+
+    /** Capacidad del nivel comprimido en bytes reales. */
+    public int getCompressedCapacity() { return compressedCapacity; }
+    public long getCompressedUsed() { return compressedUsed; }
+    /** Procesos guardados comprimidos en RAM. */
+    public long getCompressedStores() { return compressedStores; }
+    /** Imágenes comprimidas que se escribieron al fichero para hacer sitio. */
+    public long getWritebacks() { return writebacks; }
+
+    /** Bytes originales entre bytes comprimidos de lo guardado en RAM (1 si no hay nada). */
+    public double getCompressionRatio() {
+        return compressedBytes == 0 ? 1 : (double) rawCompressedBytes / compressedBytes;
+    }
+
+    public double getAverageCompressMicros() {
+        return compressedStores == 0 ? 0 : compressNanos / 1e3 / compressedStores;
+    }
+
+    public double getAverageDecompressMicros() {
+        return ramSwapIns == 0 ? 0 : decompressNanos / 1e3 / ramSwapIns;
+    }
+
+    /** Fracción de las entradas servidas desde RAM sin leer el fichero. */
+    public double getRamSwapInShare() {
+        return swapIns == 0 ? 0 : (double) ramSwapIns / swapIns;
+    }
+
+    /** Bytes que ocupa el área en una instantánea binaria, imágenes incluidas. */
+    long stateBytes() {
+        long bytes = 4L * Integer.BYTES + STAT_COUNT * Long.BYTES;
+        for (Entry entry : entries.values()) {
+            bytes += StateFile.stringBytes(entry.name) + Long.BYTES + Integer.BYTES + 1;
+            bytes += entry.data != null
+                    ? (long) entry.size * Integer.BYTES + Integer.BYTES + entry.data.length
+                    : (long) entry.size * (Integer.BYTES + bytesPerMb);
+        }
+        return bytes;
+    }
+
+    void writeState(ByteBuffer out) {
+        out.putInt(capacity).putInt(bytesPerMb).putInt(compressedCapacity);
+        for (long stat : stats()) out.putLong(stat);
+        out.putInt(entries.size());
+        for (Entry entry : entries.values()) {
+            StateFile.putString(out, entry.name);
+            out.putLong(entry.checksum).putInt(entry.size);
+            if (entry.data != null) {
+                out.put((byte) 1);
+                for (int end : entry.ends) out.putInt(end);
+                out.putInt(entry.data.length).put(entry.data);
+                continue;
+            }
+            out.put((byte) 0);
+            for (int slot : entry.slots) out.putInt(slot);
+            for (int slot : entry.slots) {
+                out.put(out.position(), buffer, slot * bytesPerMb, bytesPerMb);
+                out.position(out.position() + bytesPerMb);
+            }
+        }
+    }
+
+    /**
+     * Lee y valida el contenido guardado sin tocar el área; el resultado lo sustituye, capacidad
+     * del nivel comprimido incluida. La geometría del fichero debe coincidir.
+     */
+    Runnable readState(ByteBuffer in) {
+        int savedCapacity = in.getInt();
+        int savedBytesPerMb = in.getInt();
+        if (savedCapacity != capacity || savedBytesPerMb != bytesPerMb) {
+            throw new IllegalArgumentException("El swap guardado (" + savedCapacity + " x " + savedBytesPerMb
+                    + ") no coincide con el actual (" + capacity + " x " + bytesPerMb + ")");
+        }
+        int savedCompressedCapacity = in.getInt();
+        long[] stats = new long[STAT_COUNT];
+        for (int i = 0; i < stats.length; i++) stats[i] = in.getLong();
+
+        // Primero se valida todo; las imágenes se copian al final para no dejar el área a medias.
+        List<Entry> restored = new ArrayList<>();
+        List<Integer> pages = new ArrayList<>();
+        boolean[] used = new boolean[capacity];
+        long restoredCompressed = 0;
+        int count = StateFile.getLength(in, Integer.BYTES);
+        for (int e = 0; e < count; e++) {
+            String name = StateFile.getString(in);
+            long checksum = in.getLong();
+            int size = in.getInt();
+            if (size < 0 || size > in.remaining() / Integer.BYTES) {
+                throw new IllegalArgumentException("Tamaño inválido en el swap para " + name + ": " + size);
+            }
+            if (in.get() != 0) {
+                int[] ends = new int[size];
+                for (int i = 0; i < size; i++) ends[i] = in.getInt();
+                byte[] data = new byte[StateFile.getLength(in, 1)];
+                in.get(data);
+                for (int i = 0; i < size; i++) {
+                    if (ends[i] < (i == 0 ? 0 : ends[i - 1]) || ends[i] > data.length) {
+                        throw new IllegalArgumentException("Imagen comprimida inválida para " + name);
+                    }
+                }
+                restored.add(Entry.compressed(name, data, ends, checksum));
+                pages.add(-1);
+                restoredCompressed += data.length;
+                continue;
+            }
+            int[] slots = new int[size];
+            for (int i = 0; i < slots.length; i++) {
+                int slot = in.getInt();
+                if (slot < 0 || slot >= capacity || used[slot]) {
+                    throw new IllegalArgumentException("Ranura de swap inválida para " + name + ": " + slot);
+                }
+                used[slot] = true;
+                slots[i] = slot;
+            }
+            restored.add(Entry.onDisk(name, slots, checksum));
+            pages.add(in.position());
+            in.position(in.position() + slots.length * bytesPerMb);
+        }
+        long compressed = restoredCompressed;
+        return () -> apply(in, restored, pages, used, savedCompressedCapacity, compressed, stats);
+    }
+
+    private void apply(ByteBuffer in, List<Entry> restored, List<Integer> pages, boolean[] used,
+                       int savedCompressedCapacity, long restoredCompressed, long[] stats) {
+        entries.clear();
+        for (int e = 0; e < restored.size(); e++) {
+            Entry entry = restored.get(e);
+            int position = pages.get(e);
+            if (entry.slots != null) {
+                for (int slot : entry.slots) {
+                    buffer.put(slot * bytesPerMb, in, position, bytesPerMb);
+                    position += bytesPerMb;
+                }
+            }
+            entries.put(entry.name, entry);
+        }
+        buffer.force();
+        freeCount = 0;
+        for (int slot = capacity - 1; slot >= 0; slot--) {
+            if (!used[slot]) freeSlots[freeCount++] = slot;
+        }
+        compressedCapacity = savedCompressedCapacity;
+        compressedUsed = restoredCompressed;
+        swapOuts = stats[0];
+        swapIns = stats[1];
+        swapOutNanos = stats[2];
+        swapInNanos = stats[3];
+        bytesWritten = stats[4];
+        bytesRead = stats[5];
+        compressedStores = stats[6];
+        ramSwapIns = stats[7];
+        writebacks = stats[8];
+        rawCompressedBytes = stats[9];
+        compressedBytes = stats[10];
+        compressNanos = stats[11];
+        decompressNanos = stats[12];
+    }
+
+    private static final int STAT_COUNT = 13;
+
+    private long[] stats() {
+        return new long[] {
+                swapOuts, swapIns, swapOutNanos, swapInNanos, bytesWritten, bytesRead,
+                compressedStores, ramSwapIns, writebacks, rawCompressedBytes, compressedBytes, compressNanos, decompressNanos
+        };
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // En el fichero (slots) o comprimida en RAM (data, con el final de cada página en ends).
+    private static final class Entry {
+        final String name;
+        final int size;
+        final long checksum;
+        int[] slots;
+        byte[] data;
+        int[] ends;
+
+        private Entry(String name, int size, long checksum) {
+            this.name = name;
+            this.size = size;
+            this.checksum = checksum;
+        }
+
+        static Entry onDisk(String name, int[] slots, long checksum) {
+            Entry entry = new Entry(name, slots.length, checksum);
+            entry.slots = slots;
+            return entry;
+        }
+
+        static Entry compressed(String name, byte[] data, int[] ends, long checksum) {
+            Entry entry = new Entry(name, ends.length, checksum);
+            entry.data = data;
+            entry.ends = ends;
+            return entry;
+        }
+    }
+}
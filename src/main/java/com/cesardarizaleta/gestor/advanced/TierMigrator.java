@@ -0,0 +1,168 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Motor de migración entre los niveles de un {@link TieredAllocator}. Lleva la temperatura de
+ * cada proceso, que sube con cada acceso y se reduce a la mitad en cada pasada, y en cada pasada
+ * promueve los procesos más calientes de un nivel al siguiente más rápido, degradando a cambio
+ * los más fríos de este si hace falta sitio. La temperatura forma parte de las instantáneas para
+ * que la colocación de las operaciones repetidas por el historial sea la misma.
+ */
+public final class TierMigrator {
+    /** Temperatura que suma un acceso; un acceso aislado deja de contar tras unas cinco pasadas. */
+    public static final int HEAT_PER_ACCESS = 16;
+    /** MB que puede mover una pasada por defecto. */
+    public static final int DEFAULT_BUDGET = 64;
+
+    private final Map<String, Integer> heat = new HashMap<>();
+
+    public void recordAccess(String name) {
+        heat.merge(name, HEAT_PER_ACCESS, Integer::sum);
+    }
+
+    /** Un proceso con accesos recientes, que se coloca en el nivel más rápido con sitio. */
+    public boolean isHot(String name) { return heat.containsKey(name); }
+
+    public int heatOf(String name) { return heat.getOrDefault(name, 0); }
+
+    public void forget(String name) { heat.remove(name); }
+
+    /** Olvida los procesos que ya no existen, p. ej. al cambiar de asignador. */
+    public void retain(Predicate<String> exists) { heat.keySet().removeIf(exists.negate()); }
+
+    /**
+     * Enfría todos los procesos y migra, de los niveles rápidos a los lentos, hasta mover
+     * {@code budget} MB o no encontrar intercambios que mejoren la colocación.
+     */
+    public Pass migrate(TieredAllocator allocator, int budget) {
+        heat.replaceAll((name, value) -> value >> 1);
+        heat.values().removeIf(value -> value == 0);
+        Pass pass = new Pass();
+        for (int upper = 0; upper < allocator.getTiers().size() - 1; upper++) {
+            int lower = upper + 1;
+            List<String> candidates = byHeat(allocator.residents(lower), true);
+            List<String> victims = byHeat(allocator.residents(upper), false);
+            for (String candidate : candidates) {
+                if (pass.moved >= budget || heatOf(candidate) == 0) break;
+                promote(allocator, candidate, upper, victims, pass);
+            }
+        }
+        return pass;
+    }
+
+    // Degrada los más fríos que el candidato hasta que este quepa; si no se puede, no mueve nada.
+    private void promote(TieredAllocator allocator, String candidate, int upper, List<String> victims, Pass pass) {
+        int size = allocator.sizeOf(candidate);
+        int candidateHeat = heatOf(candidate);
+        List<String> demoted = new ArrayList<>();
+        int freed = allocator.getFreeMemory(upper);
+        int demotedSize = 0;
+        for (String victim : victims) {
+            if (freed >= size) break;
+            // Solo se cambia por uno claramente más frío, para no intercambiar dos procesos igual de usados en cada pasada.
+            if (2 * heatOf(victim) >= candidateHeat) break;
+            demoted.add(victim);
+            freed += allocator.sizeOf(victim);
+            demotedSize += allocator.sizeOf(victim);
+        }
+        int lower = upper + 1;
+        if (freed < size || demotedSize > allocator.getFreeMemory(lower) + size) return;
+
+        // El candidato sube antes de bajar a nadie para que su hueco quede libre para las víctimas.
+        List<Integer> sizes = new ArrayList<>();
+        for (String victim : demoted) {
+            sizes.add(allocator.sizeOf(victim));
+            allocator.release(victim);
+        }
+        int placed = -1;
+        if (allocator.move(candidate, upper)) {
+            placed = 0;
+            while (placed < demoted.size() && allocator.allocateIn(demoted.get(placed), sizes.get(placed), lower)) placed++;
+        }
+        if (placed < demoted.size()) {
+            undoPromotion(allocator, candidate, upper, demoted, sizes, placed);
+            return;
+        }
+        victims.removeAll(demoted);
+        pass.promotions++;
+        pass.demotions += demoted.size();
+        pass.moved += size + demotedSize;
+    }
+
+    // Las comprobaciones de promote aseguran el sitio, y allocateIn compacta el nivel si hace falta;
+    // si aun así algo no cabe, cada proceso vuelve a su nivel en lugar de perderse. {@code placed}
+    // es cuántas víctimas se bajaron, o -1 si el candidato no llegó a subir.
+    private static void undoPromotion(TieredAllocator allocator, String candidate, int upper, List<String> demoted,
+                                      List<Integer> sizes, int placed) {
+        for (int i = 0; i < placed; i++) allocator.release(demoted.get(i));
+        if (placed >= 0 && !allocator.move(candidate, upper + 1)) {
+            throw new IllegalStateException("Sin sitio para devolver " + candidate + " al nivel " + (upper + 1));
+        }
+        for (int i = 0; i < demoted.size(); i++) {
+            if (!allocator.allocateIn(demoted.get(i), sizes.get(i), upper)) {
+                throw new IllegalStateException("Sin sitio para devolver " + demoted.get(i) + " al nivel " + upper);
+            }
+        }
+    }
+
+    // Por temperatura y, a igualdad, por nombre, para que las pasadas sean deterministas.
+    private List<String> byHeat(List<String> names, boolean hottestFirst) {
+        Comparator<String> order = Comparator.comparingInt(this::heatOf);
+        if (hottestFirst) order = order.reversed();
+        names.sort(order.thenComparing(Comparator.naturalOrder()));
+        return names;
+    }
+
+    int stateBytes() {
+        int bytes = Integer.BYTES;
+        for (String name : heat.keySet()) bytes += StateFile.stringBytes(name) + Integer.BYTES;
+        return bytes;
+    }
+
+    // En orden de nombre, para que dos estados iguales den los mismos bytes.
+    void writeState(ByteBuffer out) {
+        out.putInt(heat.size());
+        for (Map.Entry<String, Integer> entry : new TreeMap<>(heat).entrySet()) {
+            StateFile.putString(out, entry.getKey());
+            out.putInt(entry.getValue());
+        }
+    }
+
+    /** Lee y valida las temperaturas guardadas; el resultado sustituye a las actuales. */
+    Runnable readState(ByteBuffer in) {
+        Map<String, Integer> restored = new HashMap<>();
+        int count = StateFile.getLength(in, 2 * Integer.BYTES);
+        for (int i = 0; i < count; i++) {
+            String name = StateFile.getString(in);
+            int value = in.getInt();
+            if (value <= 0) {
+                throw new IllegalArgumentException("Temperatura inválida para " + name + ": " + value);
+            }
+            restored.put(name, value);
+        }
+        return () -> {
+            heat.clear();
+            heat.putAll(restored);
+        };
+    }
+
+    /** Resultado de una pasada de migración. */
+    public static final class Pass {
+        private int promotions;
+        private int demotions;
+        private int moved;
+
+        public int getPromotions() { return promotions; }
+        public int getDemotions() { return demotions; }
+        /** MB copiados entre niveles, sin contar la compactación de los destinos. */
+        public int getMoved() { return moved; }
+    }
+}
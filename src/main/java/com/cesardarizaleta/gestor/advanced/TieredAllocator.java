@@ -0,0 +1,109 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memoria por niveles, del más rápido al más lento, cada uno una partición de
+ * {@link PartitionedAllocator}. Los procesos calientes se colocan en el nivel más
+ * rápido con sitio y los fríos en el más lento; {@link TierMigrator} los promueve y degrada
+ * después según sus accesos. El disco es el área de swap del gestor.
+ */
+public class TieredAllocator extends PartitionedAllocator {
+    /** Coste simulado de traer un proceso del disco en un fallo. */
+    public static final int DISK_ACCESS_NANOS = 100_000;
+    public static final int FAST_ACCESS_NANOS = 80;
+    public static final int SLOW_ACCESS_NANOS = 300;
+
+    private final List<MemoryTier> tiers;
+
+    /** Un cuarto de la memoria rápida y el resto lenta. */
+    public TieredAllocator(int totalMemory) {
+        this(List.of(new MemoryTier("Rápida", totalMemory / 4, FAST_ACCESS_NANOS),
+                new MemoryTier("Lenta", totalMemory - totalMemory / 4, SLOW_ACCESS_NANOS)));
+    }
+
+    /** @param tiers niveles ordenados del más rápido al más lento. */
+    public TieredAllocator(List<MemoryTier> tiers) {
+        super(capacities(tiers));
+        this.tiers = List.copyOf(tiers);
+    }
+
+    private static int[] capacities(List<MemoryTier> tiers) {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("Hace falta al menos un nivel de memoria");
+        }
+        int[] capacities = new int[tiers.size()];
+        for (int i = 0; i < capacities.length; i++) {
+            if (i > 0 && tiers.get(i).getAccessNanos() < tiers.get(i - 1).getAccessNanos()) {
+                throw new IllegalArgumentException("Los niveles deben ir del más rápido al más lento: " + tiers);
+            }
+            capacities[i] = tiers.get(i).getCapacity();
+        }
+        return capacities;
+    }
+
+    /**
+     * Niveles en la forma {@code MB:ns,MB:ns,...}, del más rápido al más lento; el primero se
+     * llama "Rápida", el último "Lenta" y los intermedios por su número.
+     */
+    public static TieredAllocator parse(String spec) {
+        String[] parts = spec.split(",");
+        List<MemoryTier> tiers = new ArrayList<>();
+        for (int i = 0; i < parts.length; i++) {
+            String[] values = parts[i].split(":");
+            if (values.length != 2) {
+                throw new IllegalArgumentException("Nivel mal escrito, se esperaba MB:ns: " + parts[i]);
+            }
+            String name = i == 0 ? "Rápida" : i == parts.length - 1 ? "Lenta" : "Nivel " + (i + 1);
+            tiers.add(new MemoryTier(name, Integer.parseInt(values[0].strip()), Integer.parseInt(values[1].strip())));
+        }
+        return new TieredAllocator(tiers);
+    }
+
+    /** Como {@link #allocate(String, int, boolean)} con un proceso caliente. */
+    @Override
+    public boolean allocate(String name, int size) {
+        return allocate(name, size, true);
+    }
+
+    /** Un proceso caliente va al nivel más rápido con sitio; uno frío, al más lento. */
+    public boolean allocate(String name, int size, boolean hot) {
+        List<Integer> order = new ArrayList<>();
+        for (int n = 0; n < pools.length; n++) order.add(hot ? n : pools.length - 1 - n);
+        return allocateInOrder(name, size, order);
+    }
+
+    /**
+     * Lleva el proceso a otro nivel, compactando el destino si hay memoria libre pero no un hueco
+     * suficiente. Devuelve false sin cambiar nada si no cabe.
+     */
+    public boolean move(String name, int tier) {
+        int from = tierOf(name);
+        if (from < 0 || from == tier) return false;
+        int size = pools[from].sizeOf(name);
+        if (size > pools[tier].getFreeMemory()) return false;
+        release(name);
+        if (allocateIn(name, size, tier)) return true;
+        // Su hueco en el nivel de origen sigue libre, así que vuelve a caber allí.
+        if (!allocateIn(name, size, from)) {
+            throw new IllegalStateException("Sin sitio para devolver " + name + " al nivel " + from);
+        }
+        return false;
+    }
+
+    public List<MemoryTier> getTiers() { return tiers; }
+
+    /** Nivel del proceso (0 es el más rápido), o -1 si no es residente. */
+    public int tierOf(String name) { return partitionOf(name); }
+
+    /**
+     * Coste medio de un acceso si la colocación ignorase los niveles: la media de los costes
+     * ponderada por capacidad, la referencia para medir lo que aporta la migración.
+     */
+    public double getFlatAccessNanos() {
+        double nanos = 0;
+        for (MemoryTier tier : tiers) nanos += (double) tier.getCapacity() * tier.getAccessNanos();
+        return nanos / getTotalMemory();
+    }
+}
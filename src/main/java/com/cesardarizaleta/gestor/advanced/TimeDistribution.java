@@ -0,0 +1,34 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.SplittableRandom;
+
+/** Distribución de los intervalos entre llegadas y de las vidas en {@link EventSimulation}. */
+public enum TimeDistribution {
+    EXPONENTIAL("Exponencial"),
+    UNIFORM("Uniforme"),
+    CONSTANT("Constante"),
+    PARETO("Pareto (cola pesada)");
+
+    // Con forma 1.5 la media es finita pero la varianza no: muchas vidas cortas y pocas muy largas.
+    private static final double PARETO_SHAPE = 1.5;
+
+    private final String label;
+
+    TimeDistribution(String label) {
+        this.label = label;
+    }
+
+    /** Muestra un valor positivo con media {@code mean}. */
+    public double sample(SplittableRandom random, double mean) {
+        double u = 1 - random.nextDouble();
+        return switch (this) {
+            case EXPONENTIAL -> -mean * Math.log(u);
+            case UNIFORM -> 2 * mean * u;
+            case CONSTANT -> mean;
+            case PARETO -> mean * (PARETO_SHAPE - 1) / PARETO_SHAPE / Math.pow(u, 1 / PARETO_SHAPE);
+        };
+    }
+
+    @Override
+    public String toString() { return label; }
+}
@@ -0,0 +1,110 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * TLB simulado asociativo por conjuntos con reemplazo LRU dentro de cada conjunto. Las entradas se
+ * identifican por proceso y página virtual; el marco no se guarda porque la simulación solo cuenta
+ * aciertos y fallos.
+ */
+public final class Tlb {
+    private static final long EMPTY = -1;
+
+    private final int sets;
+    private final int ways;
+    private final long[] keys;
+    private final long[] lastUse;
+    private long clock;
+    private long hits;
+    private long misses;
+
+    /** @param sets número de conjuntos, potencia de dos. */
+    public Tlb(int sets, int ways) {
+        if (sets <= 0 || Integer.bitCount(sets) != 1 || ways <= 0) {
+            throw new IllegalArgumentException("Geometría de TLB inválida: " + sets + " conjuntos x " + ways + " vías");
+        }
+        this.sets = sets;
+        this.ways = ways;
+        this.keys = new long[sets * ways];
+        this.lastUse = new long[sets * ways];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /** Busca la traducción y, si falla, la carga en la vía menos usada de su conjunto. */
+    public boolean lookup(int process, int page) {
+        long key = key(process, page);
+        int base = setOf(key) * ways;
+        int victim = base;
+        for (int i = base; i < base + ways; i++) {
+            if (keys[i] == key) {
+                lastUse[i] = ++clock;
+                hits++;
+                return true;
+            }
+            // Las vías vacías tienen uso 0, así que se eligen antes que cualquier ocupada.
+            if (lastUse[i] < lastUse[victim]) victim = i;
+        }
+        keys[victim] = key;
+        lastUse[victim] = ++clock;
+        misses++;
+        return false;
+    }
+
+    /** Descarta las traducciones del proceso, como al liberar su espacio de direcciones. */
+    public void invalidate(int process) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && (int) (keys[i] >>> 32) == process) {
+                keys[i] = EMPTY;
+                lastUse[i] = 0;
+            }
+        }
+    }
+
+    public int getSets() { return sets; }
+
+    public int getWays() { return ways; }
+
+    public int getEntries() { return keys.length; }
+
+    public long getHits() { return hits; }
+
+    public long getMisses() { return misses; }
+
+    /** Bytes que ocupa el TLB en una instantánea binaria. */
+    int stateBytes() {
+        return 2 * Integer.BYTES + 3 * Long.BYTES + 2 * Long.BYTES * keys.length;
+    }
+
+    void writeState(ByteBuffer out) {
+        out.putInt(sets).putInt(ways).putLong(clock).putLong(hits).putLong(misses);
+        for (int i = 0; i < keys.length; i++) out.putLong(keys[i]).putLong(lastUse[i]);
+    }
+
+    /** Carga las entradas guardadas; la geometría debe coincidir. */
+    void readState(ByteBuffer in) {
+        int savedSets = in.getInt();
+        int savedWays = in.getInt();
+        if (savedSets != sets || savedWays != ways) {
+            throw new IllegalArgumentException("El TLB guardado (" + savedSets + " x " + savedWays
+                    + ") no coincide con el actual (" + sets + " x " + ways + ")");
+        }
+        clock = in.getLong();
+        hits = in.getLong();
+        misses = in.getLong();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = in.getLong();
+            lastUse[i] = in.getLong();
+        }
+    }
+
+    private static long key(int process, int page) {
+        return (long) process << 32 | (page & 0xFFFFFFFFL);
+    }
+
+    // Las páginas consecutivas caen en conjuntos consecutivos; el proceso desplaza el punto de partida.
+    private int setOf(long key) {
+        int process = (int) (key >>> 32);
+        return ((int) key + process * 0x9E3779B9) & (sets - 1);
+    }
+}
@@ -0,0 +1,278 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reproduce una traza de operaciones línea a línea contra un {@link MemoryManager} sin cargarla
+ * entera, y emite cada {@code interval} operaciones una fila CSV con rendimiento, tasa de fallos
+ * y fragmentación. Formato de la traza, una operación por línea ({@code #} inicia un comentario):
+ *
+ * <pre>
+ * add &lt;nombre&gt; &lt;MB&gt;
+ * remove &lt;nombre&gt;
+ * swap &lt;nombre&gt;
+ * swapin &lt;nombre&gt;
+ * access &lt;nombre&gt;
+ * compact
+ * </pre>
+ */
+public class TraceReplay {
+    public static final String CSV_HEADER =
+            "ops,elapsed_ms,ops_per_sec,failure_rate,used_mb,free_blocks,largest_free_mb,ext_fragmentation,int_fragmentation_mb";
+
+    private final MemoryManager manager;
+    private final int interval;
+    private final PrintStream out;
+    private int migrationInterval;
+    private int migrationBudget;
+
+    private long ops;
+    private long failures;
+    private long intervalFailures;
+    private long runStart;
+    private long intervalStart;
+
+    public TraceReplay(MemoryManager manager, int interval, PrintStream out) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("El intervalo debe ser positivo: " + interval);
+        }
+        this.manager = manager;
+        this.interval = interval;
+        this.out = out;
+    }
+
+    /**
+     * Con memoria por niveles o NUMA, una pasada de migración o de reequilibrado de hasta
+     * {@code budget} MB cada {@code interval} operaciones; 0 la desactiva.
+     */
+    public void setMigration(int interval, int budget) {
+        this.migrationInterval = interval;
+        this.migrationBudget = budget;
+    }
+
+    public Summary run(BufferedReader reader) throws IOException {
+        out.println(CSV_HEADER);
+        long start = System.nanoTime();
+        runStart = start;
+        intervalStart = start;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.strip();
+            if (line.isEmpty()) continue;
+
+            boolean ok;
+            try {
+                ok = apply(line);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": " + e.getMessage(), e);
+            }
+            ops++;
+            if (!ok) {
+                failures++;
+                intervalFailures++;
+            }
+            if (migrationInterval > 0 && ops % migrationInterval == 0) {
+                manager.migrate(migrationBudget);
+                manager.rebalance(migrationBudget);
+            }
+            if (ops % interval == 0) report(System.nanoTime());
+        }
+        long end = System.nanoTime();
+        if (ops % interval != 0) report(end);
+        return new Summary(ops, failures, end - start, manager.getAllocator().getExternalFragmentation(), manager.getMetrics(),
+                manager.getSwapArea());
+    }
+
+    private boolean apply(String line) {
+        int space = line.indexOf(' ');
+        String op = space < 0 ? line : line.substring(0, space);
+        String args = space < 0 ? "" : line.substring(space + 1).strip();
+        switch (op) {
+            case "add": {
+                int sep = args.lastIndexOf(' ');
+                if (sep < 0) throw new IllegalArgumentException("add requiere nombre y tamaño");
+                return manager.add(args.substring(0, sep).strip(), Integer.parseInt(args.substring(sep + 1)));
+            }
+            case "remove":
+                return manager.remove(requireName(op, args));
+            case "swap":
+                return manager.swapOut(requireName(op, args));
+            case "swapin":
+                return manager.swapIn(requireName(op, args));
+            case "access":
+                return manager.access(requireName(op, args));
+            case "compact":
+                manager.compact();
+                return true;
+            default:
+                throw new IllegalArgumentException("Operación desconocida: " + op);
+        }
+    }
+
+    private static String requireName(String op, String args) {
+        if (args.isEmpty()) throw new IllegalArgumentException(op + " requiere un nombre");
+        return args;
+    }
+
+    private void report(long now) {
+        MemoryAllocator allocator = manager.getAllocator();
+        long intervalOps = ops % interval == 0 ? interval : ops % interval;
+        double seconds = (now - intervalStart) / 1e9;
+        out.printf("%d,%d,%.0f,%.4f,%d,%d,%d,%.4f,%d%n",
+                ops, (now - runStart) / 1_000_000, seconds > 0 ? intervalOps / seconds : 0, (double) intervalFailures / intervalOps,
+                allocator.getUsedMemory(), allocator.getFreeBlockCount(), allocator.getLargestFreeBlock(),
+                allocator.getExternalFragmentation(), allocator.getInternalFragmentation());
+        intervalFailures = 0;
+        intervalStart = System.nanoTime();
+    }
+
+    /**
+     * Totales de una reproducción. Las funciones opcionales se resumen al terminar en
+     * {@link #getSections()}; sus cifras siguen en las métricas del gestor y en su área de swap.
+     */
+    public static final class Summary {
+        private final long operations;
+        private final long failures;
+        private final long elapsedNanos;
+        private final double externalFragmentation;
+        private final long compactionNanos;
+        private final long movedMemory;
+        private final List<String> sections;
+
+        Summary(long operations, long failures, long elapsedNanos, double externalFragmentation, MemoryMetrics metrics,
+                SwapArea swap) {
+            this.operations = operations;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+            this.externalFragmentation = externalFragmentation;
+            this.compactionNanos = metrics.getCompactLatency().getTotal();
+            this.movedMemory = metrics.getMovedMemory();
+            this.sections = List.copyOf(FeatureReport.sections(metrics, swap));
+        }
+
+        public long getOperations() { return operations; }
+        public long getFailures() { return failures; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public double getExternalFragmentation() { return externalFragmentation; }
+        /** Tiempo total medido en compactaciones completas. */
+        public long getCompactionNanos() { return compactionNanos; }
+        /** MB movidos por compactaciones completas y dirigidas. */
+        public long getMovedMemory() { return movedMemory; }
+        /** Una línea por cada función opcional que se usó: swap comprimido, niveles, nodos o paginación. */
+        public List<String> getSections() { return sections; }
+
+        public double getOpsPerSecond() {
+            return elapsedNanos == 0 ? 0 : operations / (elapsedNanos / 1e9);
+        }
+
+        public double getFailureRate() {
+            return operations == 0 ? 0 : (double) failures / operations;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format(
+                    "%d operaciones en %.2f s (%.0f ops/s) | fallos: %d (%.2f%%) | fragmentación externa final: %.3f"
+                            + " | compactación: %.2f ms, %d MB movidos",
+                    operations, elapsedNanos / 1e9, getOpsPerSecond(), failures, getFailureRate() * 100,
+                    externalFragmentation, compactionNanos / 1e6, movedMemory));
+            for (String section : sections) text.append(System.lineSeparator()).append(section);
+            return text.toString();
+        }
+    }
+
+    /**
+     * Uso: {@code TraceReplay <traza> [--mode VARIABLE_PARTITIONS|BUDDY|SEGREGATED|PAGED|...]
+     * [--strategy FIRST_FIT|...] [--policy LRU|CLOCK|LFU|ARC] [--auto-swap] [--memory MB]
+     * [--page-size MB] [--tlb CONJUNTOSxVÍAS] [--tiers MB:ns,MB:ns] [--nodes N] [--migrate-every N]
+     * [--zswap MB] [--interval N] [--out fichero.csv]}; las dos opciones de página solo afectan al
+     * modo {@code PAGED}, {@code --tiers} elige los niveles del modo {@code TIERED},
+     * {@code --nodes} los nodos del modo {@code NUMA}, {@code --migrate-every 0} desactiva la
+     * migración y el reequilibrado de ambos, y {@code --zswap} pone un nivel comprimido de ese
+     * tamaño delante del swap.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Uso: TraceReplay <traza> [--mode M] [--strategy S] [--policy P] [--auto-swap]"
+                    + " [--memory MB] [--page-size MB] [--tlb CONJUNTOSxVÍAS]"
+                    + " [--tiers MB:ns,MB:ns] [--nodes N] [--migrate-every N] [--zswap MB] [--interval N] [--out fichero.csv]");
+            System.exit(2);
+        }
+        Path trace = Path.of(args[0]);
+        AllocatorMode mode = AllocatorMode.VARIABLE_PARTITIONS;
+        AllocationStrategy strategy = AllocationStrategy.FIRST_FIT;
+        EvictionPolicyType policy = EvictionPolicyType.LRU;
+        boolean autoSwap = false;
+        int memory = 1024;
+        int pageSize = PagedAllocator.DEFAULT_PAGE_SIZE;
+        int tlbSets = PagedAllocator.DEFAULT_TLB_SETS;
+        int tlbWays = PagedAllocator.DEFAULT_TLB_WAYS;
+        String tiers = null;
+        int nodes = NumaAllocator.DEFAULT_NODES;
+        int migrateEvery = 1000;
+        int zswap = 0;
+        int interval = 100_000;
+        Path csv = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode" -> mode = AllocatorMode.valueOf(args[++i]);
+                case "--strategy" -> strategy = AllocationStrategy.valueOf(args[++i]);
+                case "--policy" -> policy = EvictionPolicyType.valueOf(args[++i]);
+                case "--auto-swap" -> autoSwap = true;
+                case "--memory" -> memory = Integer.parseInt(args[++i]);
+                case "--page-size" -> pageSize = Integer.parseInt(args[++i]);
+                case "--tlb" -> {
+                    String[] geometry = args[++i].split("x");
+                    tlbSets = Integer.parseInt(geometry[0]);
+                    tlbWays = Integer.parseInt(geometry[1]);
+                }
+                case "--tiers" -> tiers = args[++i];
+                case "--nodes" -> nodes = Integer.parseInt(args[++i]);
+                case "--migrate-every" -> migrateEvery = Integer.parseInt(args[++i]);
+                case "--zswap" -> zswap = Integer.parseInt(args[++i]);
+                case "--interval" -> interval = Integer.parseInt(args[++i]);
+                case "--out" -> csv = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        Logger.getLogger(MemoryManager.class.getName()).setLevel(Level.WARNING);
+
+        MemoryAllocator allocator;
+        if (mode == AllocatorMode.PAGED) {
+            allocator = new PagedAllocator(memory, pageSize, tlbSets, tlbWays);
+        } else if (mode == AllocatorMode.TIERED && tiers != null) {
+            allocator = TieredAllocator.parse(tiers);
+        } else if (mode == AllocatorMode.NUMA) {
+            allocator = new NumaAllocator(memory, nodes);
+        } else {
+            allocator = mode.create(memory);
+        }
+        allocator.setStrategy(strategy);
+        PrintStream out = csv == null ? System.out : new PrintStream(csv.toFile(), StandardCharsets.UTF_8);
+        try (SwapArea swap = SwapArea.createTemporary();
+             BufferedReader reader = Files.newBufferedReader(trace, StandardCharsets.UTF_8)) {
+            swap.setCompressedCapacity(zswap);
+            MemoryManager manager = new MemoryManager(allocator, swap);
+            manager.setPolicy(policy);
+            manager.setAutoSwap(autoSwap);
+            TraceReplay replay = new TraceReplay(manager, interval, out);
+            replay.setMigration(migrateEvery, TierMigrator.DEFAULT_BUDGET);
+            Summary summary = replay.run(reader);
+            System.err.println(summary);
+        } finally {
+            if (out != System.out) out.close();
+        }
+    }
+}
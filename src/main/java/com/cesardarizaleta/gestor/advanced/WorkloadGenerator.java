@@ -0,0 +1,70 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genera una secuencia reproducible de altas y bajas de procesos. La decisión depende solo de la
+ * semilla y de la carga emitida, no del resultado de cada asignación, así que configuraciones
+ * distintas reciben exactamente la misma secuencia. Mientras la carga viva está por debajo de
+ * {@code targetLoad} MB predominan las altas; por encima, las bajas.
+ */
+public class WorkloadGenerator {
+    private final WorkloadType type;
+    private final int targetLoad;
+    private final SplittableRandom random;
+    private final List<String> live = new ArrayList<>();
+    private final List<Integer> liveSizes = new ArrayList<>();
+    private long load;
+    private long created;
+
+    public WorkloadGenerator(WorkloadType type, int targetLoad, long seed) {
+        if (targetLoad <= 0) {
+            throw new IllegalArgumentException("La carga objetivo debe ser positiva: " + targetLoad);
+        }
+        this.type = type;
+        this.targetLoad = targetLoad;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public Operation next() {
+        double addProbability = load < targetLoad ? 0.7 : 0.3;
+        if (live.isEmpty() || random.nextDouble() < addProbability) {
+            String name = "w" + created++;
+            int size = type.nextSize(random);
+            live.add(name);
+            liveSizes.add(size);
+            load += size;
+            return new Operation(true, name, size);
+        }
+        int index = random.nextInt(live.size());
+        int last = live.size() - 1;
+        String name = live.get(index);
+        int size = liveSizes.get(index);
+        live.set(index, live.get(last));
+        liveSizes.set(index, liveSizes.get(last));
+        live.remove(last);
+        liveSizes.remove(last);
+        load -= size;
+        return new Operation(false, name, size);
+    }
+
+    public WorkloadType getType() { return type; }
+
+    public static final class Operation {
+        private final boolean add;
+        private final String name;
+        private final int size;
+
+        Operation(boolean add, String name, int size) {
+            this.add = add;
+            this.name = name;
+            this.size = size;
+        }
+
+        public boolean isAdd() { return add; }
+        public String getName() { return name; }
+        public int getSize() { return size; }
+    }
+}
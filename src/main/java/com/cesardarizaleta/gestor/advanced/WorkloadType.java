@@ -0,0 +1,32 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.SplittableRandom;
+
+/** Distribución de tamaños de los procesos generados por {@link WorkloadGenerator}. */
+public enum WorkloadType {
+    UNIFORM("Uniforme 1-64 MB", 64),
+    SMALL("Pequeños 1-16 MB", 16),
+    BIMODAL("Bimodal 1-16 / 128-256 MB", 256);
+
+    private final String label;
+    private final int maxSize;
+
+    WorkloadType(String label, int maxSize) {
+        this.label = label;
+        this.maxSize = maxSize;
+    }
+
+    /** Mayor tamaño que puede devolver {@link #nextSize}. */
+    public int getMaxSize() { return maxSize; }
+
+    public int nextSize(SplittableRandom random) {
+        return switch (this) {
+            case UNIFORM -> 1 + random.nextInt(64);
+            case SMALL -> 1 + random.nextInt(16);
+            case BIMODAL -> random.nextInt(10) == 0 ? 128 + random.nextInt(129) : 1 + random.nextInt(16);
+        };
+    }
+
+    @Override
+    public String toString() { return label; }
+}
@@ -12,6 +12,7 @@ module com.cesardarizaleta.gestor {
     requires com.almasb.fxgl.all;
     requires java.desktop;
     requires java.logging;
+    requires java.management;
 
     opens com.cesardarizaleta.gestor to javafx.fxml;
     exports com.cesardarizaleta.gestor;
@@ -0,0 +1,182 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockStoreTest {
+    private static final long CAPACITY = 1L << 40;
+    private static final long MAX_BLOCK = 1L << 35;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void releaseCoalescesWithBothNeighbours() {
+        BlockStore store = new BlockStore(100);
+        store.allocate("a", 10);
+        store.allocate("b", 20);
+        store.allocate("c", 30);
+        store.release("a");
+        store.release("c");
+        assertEquals(2, store.getHoleCount());
+        store.release("b");
+        assertEquals(1, store.getBlockCount());
+        assertEquals(100, store.getLargestHole());
+        assertEquals(List.of("0:100:null"), describe(store));
+    }
+
+    @Test
+    void everyStrategyMatchesLinearScan() {
+        for (AllocationStrategy strategy : AllocationStrategy.values()) matchesLinearScan(strategy);
+    }
+
+    @Test
+    void releasedNamesCanBeReused() {
+        BlockStore store = new BlockStore(1000);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) assertTrue(store.allocate("p" + i, 10));
+            for (int i = 0; i < 50; i++) assertTrue(store.release("p" + i));
+        }
+        assertEquals(0, store.getProcessCount());
+        assertFalse(store.contains("p0"));
+        assertEquals(List.of("0:1000:null"), describe(store));
+    }
+
+    @Test
+    void restoreMatchesTheSavedLayout() {
+        for (AllocationStrategy strategy : AllocationStrategy.values()) {
+            BlockStore store = randomStore(strategy, 12);
+            List<Long> sizes = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            store.forEach((offset, size, owner) -> {
+                // Partir los huecos en dos comprueba que restore los vuelve a fusionar.
+                if (owner == BlockStore.FREE && size > 1) {
+                    sizes.add(-1L);
+                    sizes.add(1 - size);
+                } else {
+                    sizes.add(owner == BlockStore.FREE ? -size : size);
+                    if (owner != BlockStore.FREE) names.add(store.nameOf(owner));
+                }
+            });
+            BlockStore restored = new BlockStore(CAPACITY);
+            restored.restore(sizes.stream().mapToLong(Long::longValue).toArray(), names.toArray(new String[0]));
+            assertSameStore(store, restored);
+            continueInLockstep(store, restored, strategy, 13);
+        }
+    }
+
+    @Test
+    void saveAndLoadRoundTrip() {
+        Path file = dir.resolve("store.bin");
+        for (AllocationStrategy strategy : AllocationStrategy.values()) {
+            BlockStore store = randomStore(strategy, 21);
+            StateFile.save(file, store);
+            BlockStore loaded = StateFile.loadStore(file);
+            assertEquals(strategy, loaded.getStrategy());
+            assertSameStore(store, loaded);
+            continueInLockstep(store, loaded, strategy, 22);
+        }
+    }
+
+    @Test
+    void restoreRejectsInvalidLayouts() {
+        assertThrows(IllegalArgumentException.class, () -> new BlockStore(100).restore(new long[] {60, -30}, new String[] {"a"}));
+        assertThrows(IllegalArgumentException.class, () -> new BlockStore(100).restore(new long[] {60, 50}, new String[] {"a", "b"}));
+        assertThrows(IllegalArgumentException.class, () -> new BlockStore(100).restore(new long[] {50, 50}, new String[] {"a", "a"}));
+    }
+
+    private static void matchesLinearScan(AllocationStrategy strategy) {
+        long capacity = 100_000;
+        BlockStore store = new BlockStore(capacity, 4);
+        LinearScanOracle oracle = new LinearScanOracle(capacity);
+        store.setStrategy(strategy);
+        oracle.setStrategy(strategy);
+        SplittableRandom random = new SplittableRandom(strategy.ordinal());
+        for (int step = 0; step < 20_000; step++) {
+            String name = "p" + random.nextInt(200);
+            int op = random.nextInt(100);
+            if (op < 55) {
+                long size = 1 + random.nextInt(4000);
+                assertEquals(oracle.allocate(name, size), store.allocate(name, size), strategy + ": asignar " + name);
+            } else if (op < 99) {
+                assertEquals(oracle.release(name), store.release(name), strategy + ": liberar " + name);
+            } else {
+                assertEquals(oracle.compact(), store.compact());
+            }
+            assertEquals(oracle.blocks(), describe(store), strategy + ", paso " + step);
+            assertInvariants(store, oracle, capacity);
+        }
+    }
+
+    private static void assertInvariants(BlockStore store, LinearScanOracle oracle, long capacity) {
+        long[] expectedOffset = {0};
+        boolean[] previousFree = {false};
+        store.forEach((offset, size, owner) -> {
+            assertEquals(expectedOffset[0], offset);
+            assertTrue(size > 0);
+            assertFalse(previousFree[0] && owner == BlockStore.FREE, "huecos contiguos sin fusionar");
+            if (owner != BlockStore.FREE) {
+                String name = store.nameOf(owner);
+                assertEquals(offset, store.offsetOf(name));
+                assertEquals(size, store.sizeOf(name));
+            }
+            expectedOffset[0] = offset + size;
+            previousFree[0] = owner == BlockStore.FREE;
+        });
+        assertEquals(capacity, expectedOffset[0]);
+        assertEquals(oracle.usedMemory(), store.getUsedBytes());
+        assertEquals(oracle.holeCount(), store.getHoleCount());
+        assertEquals(oracle.largestHole(), store.getLargestHole());
+    }
+
+    private static BlockStore randomStore(AllocationStrategy strategy, long seed) {
+        BlockStore store = new BlockStore(CAPACITY);
+        store.setStrategy(strategy);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < 500; i++) {
+            store.allocate("p" + i, 1 + random.nextLong(MAX_BLOCK));
+            if (random.nextBoolean()) store.release("p" + random.nextInt(i + 1));
+        }
+        return store;
+    }
+
+    private static void assertSameStore(BlockStore expected, BlockStore actual) {
+        assertEquals(describe(expected), describe(actual));
+        assertEquals(expected.getUsedBytes(), actual.getUsedBytes());
+        assertEquals(expected.getHoleCount(), actual.getHoleCount());
+        assertEquals(expected.getLargestHole(), actual.getLargestHole());
+    }
+
+    // Con el mismo cursor del siguiente ajuste, los índices reconstruidos eligen los mismos huecos.
+    private static void continueInLockstep(BlockStore expected, BlockStore actual, AllocationStrategy strategy, long seed) {
+        expected.setStrategy(strategy);
+        actual.setStrategy(strategy);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < 300; i++) {
+            String name = "q" + random.nextInt(100);
+            if (random.nextBoolean()) {
+                long size = 1 + random.nextLong(MAX_BLOCK);
+                assertEquals(expected.allocate(name, size), actual.allocate(name, size));
+            } else {
+                assertEquals(expected.release(name), actual.release(name));
+            }
+        }
+        assertSameStore(expected, actual);
+    }
+
+    private static List<String> describe(BlockStore store) {
+        List<String> result = new ArrayList<>();
+        store.forEach((offset, size, owner) -> result.add(LinearScanOracle.describe(offset, size, store.nameOf(owner))));
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuddyAllocatorTest {
+    private static final int MEMORY = 1024;
+
+    @Test
+    void splitsDownAndMergesBackUp() {
+        BuddyAllocator allocator = new BuddyAllocator(16);
+        assertTrue(allocator.allocate("a", 1));
+        for (int order = 0; order < 4; order++) assertEquals(1, allocator.getFreeBlockCount(order), "orden " + order);
+        assertEquals(8, allocator.getLargestFreeBlock());
+        assertTrue(allocator.release("a"));
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(1, allocator.getFreeBlockCount(allocator.getMaxOrder()));
+        assertEquals(List.of(new Block(0, 16, null)).toString(), allocator.blocks().toString());
+    }
+
+    @Test
+    void roundsUpToAPowerOfTwo() {
+        BuddyAllocator allocator = new BuddyAllocator(64);
+        assertTrue(allocator.allocate("a", 5));
+        assertTrue(allocator.allocate("b", 17));
+        assertEquals(5, allocator.sizeOf("a"));
+        assertEquals(8 + 32, allocator.getUsedMemory());
+        assertEquals(3 + 15, allocator.getInternalFragmentation());
+        assertFalse(allocator.allocate("c", 17));
+        assertFalse(allocator.allocate("a", 1));
+        assertFalse(allocator.allocate("d", 65));
+        assertEquals(0, allocator.compact());
+    }
+
+    @Test
+    void rejectsSizesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new BuddyAllocator(1000));
+        assertThrows(IllegalArgumentException.class, () -> new BuddyAllocator(16).allocate("a", 0));
+    }
+
+    @Test
+    void blocksStayAlignedAndFullyMerged() {
+        BuddyAllocator allocator = new BuddyAllocator(MEMORY);
+        Map<String, Integer> live = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(2);
+        for (int step = 0; step < 20_000; step++) {
+            String name = "p" + random.nextInt(150);
+            if (random.nextInt(100) < 55) {
+                int size = 1 + random.nextInt(random.nextBoolean() ? 8 : 100);
+                if (allocator.allocate(name, size)) live.put(name, size);
+            } else {
+                assertEquals(live.remove(name) != null, allocator.release(name), "liberar " + name);
+            }
+            assertInvariants(allocator, live, step);
+        }
+    }
+
+    private static void assertInvariants(BuddyAllocator allocator, Map<String, Integer> live, int step) {
+        List<Block> blocks = allocator.blocks();
+        int cursor = 0;
+        int used = 0;
+        int requested = 0;
+        int free = 0;
+        int largest = 0;
+        Block previous = null;
+        for (Block block : blocks) {
+            int size = block.getSize();
+            assertEquals(cursor, block.getOffset(), "paso " + step);
+            assertEquals(1, Integer.bitCount(size), "paso " + step);
+            assertEquals(0, block.getOffset() % size, "bloque desalineado en el paso " + step);
+            if (block.isFree()) {
+                free++;
+                largest = Math.max(largest, size);
+                // Dos buddies libres del mismo orden tendrían que haberse fusionado.
+                boolean buddies = previous != null && previous.getSize() == size
+                        && (previous.getOffset() ^ size) == block.getOffset();
+                assertFalse(buddies && previous.isFree(), "buddies sin fusionar en el paso " + step);
+            } else {
+                used += size;
+                requested += live.get(block.getOwner());
+                assertEquals(live.get(block.getOwner()), allocator.sizeOf(block.getOwner()));
+            }
+            cursor += size;
+            previous = block;
+        }
+        assertEquals(MEMORY, cursor);
+        assertEquals(used, allocator.getUsedMemory(), "paso " + step);
+        assertEquals(used - requested, allocator.getInternalFragmentation(), "paso " + step);
+        assertEquals(free, allocator.getFreeBlockCount(), "paso " + step);
+        assertEquals(largest, allocator.getLargestFreeBlock(), "paso " + step);
+    }
+}
@@ -0,0 +1,133 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactionPlannerTest {
+    private static final int MEMORY = 1000;
+
+    @Test
+    void skipsWindowsWhoseProcessesDoNotFitOutside() {
+        FreeListAllocator allocator = new FreeListAllocator(100);
+        allocator.allocate("a", 30);
+        allocator.allocate("b", 10);
+        allocator.allocate("c", 20);
+        allocator.allocate("d", 5);
+        allocator.allocate("e", 15);
+        allocator.release("b");
+        allocator.release("d");
+        // Huecos de 10, 5 y 20 MB. La ventana más barata, desde "d" hasta el final, necesita sitio
+        // para los 15 MB de "e" y no lo hay; la siguiente vacía [b, c, d] llevando "c" al final.
+        CompactionPlanner planner = new CompactionPlanner(allocator);
+        CompactionPlanner.Plan plan = planner.plan(35);
+        assertNotNull(plan);
+        assertEquals(30, plan.getHoleOffset());
+        assertEquals(20, plan.getMovedMemory());
+        assertEquals(List.of("c"), plan.getMoves().stream().map(CompactionPlanner.Move::getProcess).toList());
+        assertTrue(planner.execute(plan, "x"));
+        assertEquals(30, allocator.blockOf("x").getOffset());
+        assertNull(planner.plan(1));
+    }
+
+    @Test
+    void matchesAPlannerThatRebuildsTheHolesPerWindow() {
+        SplittableRandom random = new SplittableRandom(4);
+        int planned = 0;
+        for (int round = 0; round < 300; round++) {
+            FreeListAllocator allocator = fragmented(random);
+            String before = allocator.blocks().toString();
+            int size = 1 + random.nextInt(Math.max(1, allocator.getFreeMemory() + 20));
+            CompactionPlanner.Plan plan = new CompactionPlanner(allocator).plan(size);
+            assertEquals(before, allocator.blocks().toString(), "planificar no cambia la memoria");
+            assertEquals(describe(rebuildingPlan(allocator.blocks(), size, allocator.getFreeMemory())), describe(plan),
+                    "ronda " + round + ", " + size + " MB");
+            if (plan == null) continue;
+            planned++;
+
+            int moved = 0;
+            for (CompactionPlanner.Move move : plan.getMoves()) moved += move.getSize();
+            assertEquals(plan.getMovedMemory(), moved);
+            assertTrue(plan.getMovedMemory() <= plan.getFullCompactionMemory());
+            int used = allocator.getUsedMemory();
+            assertTrue(new CompactionPlanner(allocator).execute(plan, "nuevo"));
+            assertEquals(plan.getHoleOffset(), allocator.blockOf("nuevo").getOffset());
+            assertEquals(used + size, allocator.getUsedMemory());
+        }
+        assertTrue(planned > 50, "planes encontrados: " + planned);
+    }
+
+    private static FreeListAllocator fragmented(SplittableRandom random) {
+        FreeListAllocator allocator = new FreeListAllocator(MEMORY);
+        for (int i = 0; allocator.allocate("p" + i, 1 + random.nextInt(40)); i++) {
+            if (random.nextInt(3) == 0) allocator.release("p" + random.nextInt(i + 1));
+        }
+        for (int i = 0; i < 40; i++) allocator.release("p" + random.nextInt(60));
+        return allocator;
+    }
+
+    // Lo mismo que CompactionPlanner#plan, reconstruyendo la lista de huecos en cada ventana.
+    private static List<int[]> rebuildingPlan(List<Block> blocks, int size, int freeMemory) {
+        if (size > freeMemory) return null;
+        List<int[]> windows = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            int j = i;
+            while (j < blocks.size() && blocks.get(j).getOffset() - blocks.get(i).getOffset() < size) j++;
+            if (blocks.get(j - 1).getEnd() - blocks.get(i).getOffset() < size) break;
+            int used = 0;
+            for (int k = i; k < j; k++) used += blocks.get(k).isFree() ? 0 : blocks.get(k).getSize();
+            windows.add(new int[]{i, j, used});
+        }
+        windows.sort(Comparator.comparingInt(w -> w[2]));
+        for (int[] window : windows.subList(0, Math.min(windows.size(), CompactionPlanner.MAX_WINDOWS))) {
+            List<int[]> holes = new ArrayList<>();
+            List<Block> movers = new ArrayList<>();
+            for (int k = 0; k < blocks.size(); k++) {
+                Block block = blocks.get(k);
+                boolean inside = k >= window[0] && k < window[1];
+                if (block.isFree() && !inside) holes.add(new int[]{block.getOffset(), block.getSize()});
+                if (!block.isFree() && inside) movers.add(block);
+            }
+            movers.sort(Comparator.comparingInt(Block::getSize).reversed());
+            List<int[]> result = new ArrayList<>();
+            result.add(new int[]{blocks.get(window[0]).getOffset(), window[2]});
+            for (Block mover : movers) {
+                int[] best = null;
+                for (int[] hole : holes) {
+                    if (hole[1] >= mover.getSize() && (best == null || hole[1] < best[1] || hole[1] == best[1] && hole[0] < best[0])) best = hole;
+                }
+                if (best == null) {
+                    result = null;
+                    break;
+                }
+                result.add(new int[]{best[0], mover.getSize()});
+                best[0] += mover.getSize();
+                best[1] -= mover.getSize();
+            }
+            if (result != null) return result;
+        }
+        return null;
+    }
+
+    private static String describe(List<int[]> plan) {
+        if (plan == null) return "null";
+        StringBuilder text = new StringBuilder();
+        for (int[] step : plan) text.append(step[0]).append(':').append(step[1]).append(' ');
+        return text.toString();
+    }
+
+    private static String describe(CompactionPlanner.Plan plan) {
+        if (plan == null) return "null";
+        StringBuilder text = new StringBuilder().append(plan.getHoleOffset()).append(':').append(plan.getMovedMemory()).append(' ');
+        for (CompactionPlanner.Move move : plan.getMoves()) text.append(move.getTarget()).append(':').append(move.getSize()).append(' ');
+        return text.toString();
+    }
+}
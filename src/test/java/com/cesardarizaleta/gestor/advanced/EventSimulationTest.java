@@ -0,0 +1,101 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventSimulationTest {
+    private static final double HOUR = 3600;
+
+    @Test
+    void sameSeedSameRun() {
+        try (SwapArea swap = SwapArea.createTemporary(512, 16);
+             SwapArea otherSwap = SwapArea.createTemporary(512, 16)) {
+            EventSimulation first = new EventSimulation(manager(1024, swap), WorkloadType.UNIFORM, 42);
+            EventSimulation second = new EventSimulation(manager(1024, otherSwap), WorkloadType.UNIFORM, 42);
+            first.runUntil(5 * HOUR);
+            second.runUntil(5 * HOUR);
+            assertEquals(summary(first), summary(second));
+            assertTrue(first.getEvents() > 1000);
+        }
+    }
+
+    @Test
+    void constantArrivalsAreEvenlySpaced() {
+        try (SwapArea swap = SwapArea.createTemporary(512, 16)) {
+            EventSimulation simulation = new EventSimulation(manager(1 << 16, swap), WorkloadType.SMALL, 1);
+            simulation.setArrivals(TimeDistribution.CONSTANT, 10);
+            simulation.setLifetimes(TimeDistribution.CONSTANT, 100);
+            simulation.runUntil(HOUR);
+            assertEquals(HOUR, simulation.getTime());
+            // La primera llegada ya estaba en el calendario con la media por defecto.
+            assertEquals(HOUR / 10, simulation.getArrived(), 2);
+            assertEquals(10, simulation.getLive(), 1);
+            assertEquals(0, simulation.getRejected());
+        }
+    }
+
+    @Test
+    void populationMatchesTheManager() {
+        try (SwapArea swap = SwapArea.createTemporary(2048, 16)) {
+            MemoryManager manager = manager(512, swap);
+            EventSimulation simulation = new EventSimulation(manager, WorkloadType.UNIFORM, 7);
+            simulation.setSwapTrigger(10, 0.1, 0.2);
+            for (int hour = 1; hour <= 10; hour++) {
+                simulation.runUntil(hour * HOUR);
+                assertEquals(simulation.getArrived() - simulation.getDeparted(), simulation.getLive());
+                int resident = 0;
+                for (Block block : manager.getAllocator().blocks()) {
+                    if (!block.isFree()) resident++;
+                }
+                assertEquals(simulation.getLive(), resident + manager.getSwapArea().getProcesses().size(), "hora " + hour);
+            }
+            assertTrue(simulation.getSwapOuts() > 0);
+        }
+    }
+
+    @Test
+    void advanceStopsAtTheEventCapAndReportsTheLag() {
+        try (SwapArea swap = SwapArea.createTemporary(512, 16)) {
+            EventSimulation simulation = new EventSimulation(manager(1 << 16, swap), WorkloadType.SMALL, 3);
+            simulation.setArrivals(TimeDistribution.EXPONENTIAL, 0.001);
+            simulation.setLifetimes(TimeDistribution.EXPONENTIAL, 0.01);
+            simulation.setAcceleration(1000);
+            assertEquals(EventSimulation.MAX_EVENTS_PER_ADVANCE, simulation.advance(1));
+            assertTrue(simulation.isLagging());
+            assertTrue(simulation.getTime() < 1000);
+            simulation.setArrivals(TimeDistribution.EXPONENTIAL, 1000);
+            simulation.setAcceleration(0.001);
+            simulation.advance(1);
+            assertFalse(simulation.isLagging());
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        try (SwapArea swap = SwapArea.createTemporary(64, 16)) {
+            EventSimulation simulation = new EventSimulation(manager(64, swap), WorkloadType.SMALL, 0);
+            assertThrows(IllegalArgumentException.class, () -> simulation.setArrivals(TimeDistribution.CONSTANT, 0));
+            assertThrows(IllegalArgumentException.class, () -> simulation.setMeanAccessInterval(-1));
+            assertThrows(IllegalArgumentException.class, () -> simulation.setAccessSkew(0.5, 1.5));
+            assertThrows(IllegalArgumentException.class, () -> simulation.setSwapTrigger(10, 0.3, 0.2));
+            assertThrows(IllegalArgumentException.class, () -> simulation.setMigration(10, -1));
+            assertThrows(IllegalArgumentException.class, () -> simulation.setAcceleration(Double.NaN));
+        }
+    }
+
+    private static MemoryManager manager(int memory, SwapArea swap) {
+        MemoryManager manager = new MemoryManager(new FreeListAllocator(memory), swap);
+        manager.setAutoSwap(true);
+        return manager;
+    }
+
+    private static String summary(EventSimulation simulation) {
+        return simulation.getEvents() + " " + simulation.getArrived() + " " + simulation.getDeparted() + " "
+                + simulation.getRejected() + " " + simulation.getAccesses() + " " + simulation.getCompactions() + " "
+                + simulation.getSwapOuts() + " " + simulation.getSwapIns() + " " + simulation.getAverageFragmentation();
+    }
+}
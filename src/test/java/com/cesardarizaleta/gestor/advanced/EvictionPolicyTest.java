@@ -0,0 +1,167 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EvictionPolicyTest {
+    @Test
+    void lruEvictsTheLeastRecentlyUsed() {
+        EvictionPolicy policy = EvictionPolicyType.LRU.create();
+        insert(policy, "a", "b", "c");
+        policy.recordHit("a");
+        assertEquals(List.of("b", "c", "a"), drain(policy));
+    }
+
+    @Test
+    void clockGivesReferencedProcessesASecondChance() {
+        EvictionPolicy policy = EvictionPolicyType.CLOCK.create();
+        insert(policy, "a", "b", "c");
+        // Todos entran referenciados: la manecilla da la vuelta quitando bits y elige el primero.
+        assertEquals("a", policy.selectVictim());
+        policy.recordHit("c");
+        insert(policy, "d");
+        assertEquals(List.of("b", "c", "d"), drain(policy));
+    }
+
+    @Test
+    void lfuEvictsTheLeastFrequentOldestFirst() {
+        EvictionPolicy policy = EvictionPolicyType.LFU.create();
+        insert(policy, "a", "b", "c", "d");
+        policy.recordHit("a");
+        policy.recordHit("a");
+        policy.recordHit("c");
+        assertEquals(List.of("b", "d", "c", "a"), drain(policy));
+    }
+
+    @Test
+    void arcAdaptsOnGhostHitsAndForgetsRemovedProcesses() {
+        ArcPolicy policy = (ArcPolicy) EvictionPolicyType.ARC.create();
+        insert(policy, "a", "b", "c");
+        assertEquals("a", policy.selectVictim());
+        assertEquals(0, policy.getTarget());
+        // "a" vuelve desde la lista fantasma B1: el objetivo se desplaza hacia la recencia.
+        policy.recordMiss("a");
+        assertTrue(policy.getTarget() > 0);
+
+        ArcPolicy other = (ArcPolicy) EvictionPolicyType.ARC.create();
+        insert(other, "a", "b", "c");
+        assertEquals("a", other.selectVictim());
+        other.recordRemoval("a");
+        assertFalse(mentions(other, "a"));
+        other.recordMiss("a");
+        assertEquals(0, other.getTarget());
+    }
+
+    @Test
+    void cancelEvictionRestoresTheExactState() {
+        for (EvictionPolicyType type : EvictionPolicyType.values()) {
+            AbstractEvictionPolicy policy = (AbstractEvictionPolicy) type.create();
+            SplittableRandom random = new SplittableRandom(type.ordinal());
+            List<String> residents = new ArrayList<>();
+            for (int step = 0; step < 3000; step++) {
+                String name = "p" + random.nextInt(60);
+                int op = random.nextInt(10);
+                if (op < 3 && !residents.contains(name)) {
+                    policy.recordInsert(name);
+                    residents.add(name);
+                } else if (op < 6 && residents.contains(name)) {
+                    policy.recordHit(name);
+                } else if (op < 7 && residents.remove(name)) {
+                    policy.recordRemoval(name);
+                } else if (op < 8 && !residents.contains(name)) {
+                    policy.recordMiss(name);
+                    residents.add(name);
+                } else if (!residents.isEmpty()) {
+                    byte[] before = state(policy);
+                    String victim = policy.selectVictim();
+                    assertTrue(residents.contains(victim), type + ": víctima no residente " + victim);
+                    if (random.nextBoolean()) {
+                        policy.cancelEviction(victim);
+                        assertArrayEquals(before, state(policy), type + ", paso " + step);
+                    } else {
+                        residents.remove(victim);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void cancelEvictionOnlyUndoesTheLastVictim() {
+        for (EvictionPolicyType type : EvictionPolicyType.values()) {
+            EvictionPolicy policy = type.create();
+            insert(policy, "a", "b");
+            String victim = policy.selectVictim();
+            policy.recordHit(victim.equals("a") ? "b" : "a");
+            assertThrows(IllegalStateException.class, () -> policy.cancelEviction(victim), type.toString());
+            assertNull(EvictionPolicyType.LRU.create().selectVictim());
+        }
+    }
+
+    @Test
+    void managerVictimsAreAlwaysResident() {
+        for (EvictionPolicyType type : EvictionPolicyType.values()) {
+            for (AllocatorMode mode : List.of(AllocatorMode.VARIABLE_PARTITIONS, AllocatorMode.PAGED, AllocatorMode.SEGREGATED)) {
+                try (SwapArea swap = SwapArea.createTemporary(128, 16)) {
+                    MemoryManager manager = new MemoryManager(mode.create(512), swap);
+                    manager.setPolicy(type);
+                    manager.setAutoSwap(true);
+                    SplittableRandom random = new SplittableRandom(type.ordinal() * 31L + mode.ordinal());
+                    for (int step = 0; step < 3000; step++) {
+                        String name = "p" + random.nextInt(80);
+                        switch (random.nextInt(6)) {
+                            case 0, 1 -> manager.add(name, 1 + random.nextInt(40));
+                            case 2 -> manager.remove(name);
+                            case 3 -> manager.swapOut(name);
+                            default -> manager.access(name);
+                        }
+                    }
+                    // Un proceso eliminado desde el swap tampoco queda en el historial de la política.
+                    for (String name : new ArrayList<>(swap.getProcesses().keySet())) {
+                        assertTrue(manager.remove(name));
+                        assertFalse(mentions((AbstractEvictionPolicy) manager.getPolicy(), name), type + ", " + mode + ": " + name);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void insert(EvictionPolicy policy, String... names) {
+        for (String name : names) policy.recordInsert(name);
+    }
+
+    private static List<String> drain(EvictionPolicy policy) {
+        List<String> victims = new ArrayList<>();
+        for (String victim = policy.selectVictim(); victim != null; victim = policy.selectVictim()) victims.add(victim);
+        return victims;
+    }
+
+    private static byte[] state(AbstractEvictionPolicy policy) {
+        ByteBuffer out = ByteBuffer.allocate((int) policy.stateBytes());
+        policy.writeState(out);
+        return out.array();
+    }
+
+    // Si el estado guardado contiene el nombre tal como lo escribe StateFile#putString.
+    private static boolean mentions(AbstractEvictionPolicy policy, String name) {
+        ByteBuffer needle = ByteBuffer.allocate(StateFile.stringBytes(name));
+        StateFile.putString(needle, name);
+        byte[] state = state(policy);
+        for (int i = 0; i + needle.capacity() <= state.length; i++) {
+            if (Arrays.equals(state, i, i + needle.capacity(), needle.array(), 0, needle.capacity())) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,129 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FreeListAllocatorTest {
+    private static final int MEMORY = 1000;
+
+    @Test
+    void releaseCoalescesWithBothNeighbours() {
+        FreeListAllocator allocator = new FreeListAllocator(100);
+        allocator.allocate("a", 10);
+        allocator.allocate("b", 20);
+        allocator.allocate("c", 30);
+        allocator.release("a");
+        allocator.release("c");
+        assertEquals(2, allocator.getFreeBlockCount());
+        allocator.release("b");
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(100, allocator.getLargestFreeBlock());
+        assertEquals(List.of("0:100:null"), describe(allocator));
+    }
+
+    @Test
+    void rejectsDuplicatesAndOversizedRequests() {
+        FreeListAllocator allocator = new FreeListAllocator(100);
+        assertTrue(allocator.allocate("a", 60));
+        assertFalse(allocator.allocate("a", 10));
+        assertFalse(allocator.allocate("b", 41));
+        assertFalse(allocator.release("b"));
+    }
+
+    @Test
+    void everyStrategyMatchesLinearScan() {
+        for (AllocationStrategy strategy : AllocationStrategy.values()) matchesLinearScan(strategy);
+    }
+
+    @Test
+    void restoreRebuildsTheIndex() {
+        for (AllocationStrategy strategy : AllocationStrategy.values()) restoreRebuildsTheIndex(strategy);
+    }
+
+    private static void matchesLinearScan(AllocationStrategy strategy) {
+        FreeListAllocator allocator = new FreeListAllocator(MEMORY);
+        LinearScanOracle oracle = new LinearScanOracle(MEMORY);
+        allocator.setStrategy(strategy);
+        oracle.setStrategy(strategy);
+        SplittableRandom random = new SplittableRandom(strategy.ordinal());
+        for (int step = 0; step < 20_000; step++) {
+            String name = "p" + random.nextInt(200);
+            int op = random.nextInt(100);
+            if (op < 55) {
+                int size = 1 + random.nextInt(40);
+                assertEquals(oracle.allocate(name, size), allocator.allocate(name, size), strategy + ": asignar " + name);
+            } else if (op < 99) {
+                assertEquals(oracle.release(name), allocator.release(name), "liberar " + name);
+            } else {
+                assertEquals(oracle.compact(), allocator.compact());
+            }
+            assertEquals(oracle.blocks(), describe(allocator), strategy + ", paso " + step);
+            assertInvariants(allocator, oracle);
+        }
+    }
+
+    private static void restoreRebuildsTheIndex(AllocationStrategy strategy) {
+        FreeListAllocator allocator = new FreeListAllocator(MEMORY);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 200; i++) {
+            allocator.allocate("p" + i, 1 + random.nextInt(20));
+            if (random.nextBoolean()) allocator.release("p" + random.nextInt(i + 1));
+        }
+        // Partir los huecos en trozos comprueba que restore los vuelve a fusionar.
+        List<Block> layout = new ArrayList<>();
+        for (Block block : allocator.blocks()) {
+            if (block.isFree() && block.getSize() > 1) {
+                layout.add(new Block(block.getOffset(), 1, null));
+                layout.add(new Block(block.getOffset() + 1, block.getSize() - 1, null));
+            } else {
+                layout.add(block);
+            }
+        }
+        FreeListAllocator restored = new FreeListAllocator(MEMORY);
+        restored.restore(layout, Map.of());
+        assertEquals(describe(allocator), describe(restored));
+        assertEquals(allocator.getUsedMemory(), restored.getUsedMemory());
+        assertEquals(allocator.getFreeBlockCount(), restored.getFreeBlockCount());
+        assertEquals(allocator.getLargestFreeBlock(), restored.getLargestFreeBlock());
+
+        allocator.setStrategy(strategy);
+        restored.setStrategy(strategy);
+        for (int i = 0; i < 100; i++) {
+            int size = 1 + random.nextInt(20);
+            assertEquals(allocator.allocate("q" + i, size), restored.allocate("q" + i, size));
+        }
+        assertEquals(describe(allocator), describe(restored));
+    }
+
+    private static void assertInvariants(FreeListAllocator allocator, LinearScanOracle oracle) {
+        int offset = 0;
+        Block previous = null;
+        for (Block block : allocator.blocks()) {
+            assertEquals(offset, block.getOffset());
+            assertTrue(block.getSize() > 0);
+            assertFalse(previous != null && previous.isFree() && block.isFree(), "huecos contiguos sin fusionar");
+            offset = block.getEnd();
+            previous = block;
+        }
+        assertEquals(MEMORY, offset);
+        assertEquals(oracle.usedMemory(), allocator.getUsedMemory());
+        assertEquals(oracle.holeCount(), allocator.getFreeBlockCount());
+        assertEquals(oracle.largestHole(), allocator.getLargestFreeBlock());
+    }
+
+    private static List<String> describe(FreeListAllocator allocator) {
+        List<String> result = new ArrayList<>();
+        for (Block block : allocator.blocks()) {
+            result.add(LinearScanOracle.describe(block.getOffset(), block.getSize(), block.getOwner()));
+        }
+        return result;
+    }
+}
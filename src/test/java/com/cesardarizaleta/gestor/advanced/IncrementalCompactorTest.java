@@ -0,0 +1,90 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalCompactorTest {
+    private static final int MEMORY = 1000;
+
+    @Test
+    void endsWithTheSameLayoutAsAFullCompaction() {
+        for (int seed = 0; seed < 50; seed++) {
+            FreeListAllocator incremental = fragmented(seed);
+            FreeListAllocator full = fragmented(seed);
+            int fullMoved = full.compact();
+            IncrementalCompactor compactor = new IncrementalCompactor(incremental);
+            int budget = 1 + seed % 17;
+            TreeMap<String, Integer> sizes = sizes(incremental);
+            IncrementalCompactor.Step step;
+            do {
+                step = compactor.step(budget);
+                assertTrue(step.getMoved() <= budget);
+                // Entre pasos la disposición es válida y cada proceso conserva su tamaño.
+                assertEquals(sizes, sizes(incremental), "semilla " + seed);
+            } while (!step.isFinished());
+            assertEquals(1.0, step.getProgress());
+            assertEquals(full.blocks().toString(), incremental.blocks().toString(), "semilla " + seed);
+            assertEquals(fullMoved, compactor.getTotalMoved(), "semilla " + seed);
+        }
+    }
+
+    @Test
+    void restartsTheCopyWhenTheHoleChanges() {
+        FreeListAllocator allocator = new FreeListAllocator(100);
+        allocator.allocate("a", 10);
+        allocator.allocate("b", 30);
+        allocator.release("a");
+        IncrementalCompactor compactor = new IncrementalCompactor(allocator);
+        IncrementalCompactor.Step step = compactor.step(20);
+        assertEquals(20, step.getMoved());
+        assertEquals(0, step.getRelocated());
+        assertEquals(10, allocator.blockOf("b").getOffset());
+
+        // El hueco de delante se ocupa: la copia de "b" empieza de nuevo hacia el siguiente hueco.
+        allocator.allocate("c", 5);
+        step = compactor.step(20);
+        assertEquals(0, step.getRelocated());
+        step = compactor.step(20);
+        assertEquals(1, step.getRelocated());
+        assertEquals(5, allocator.blockOf("b").getOffset());
+        assertTrue(compactor.isFinished());
+        // Los 20 MB de la primera copia se descartaron y "b" se copió entera otra vez.
+        assertEquals(20 + 30, compactor.getTotalMoved());
+    }
+
+    @Test
+    void rejectsAnEmptyBudget() {
+        IncrementalCompactor compactor = new IncrementalCompactor(new FreeListAllocator(10));
+        assertThrows(IllegalArgumentException.class, () -> compactor.step(0));
+        assertTrue(compactor.step(1).isFinished());
+        assertEquals(1, compactor.getSteps());
+    }
+
+    private static FreeListAllocator fragmented(int seed) {
+        FreeListAllocator allocator = new FreeListAllocator(MEMORY);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; allocator.allocate("p" + i, 1 + random.nextInt(40)); i++) {
+            if (random.nextInt(3) == 0) allocator.release("p" + random.nextInt(i + 1));
+        }
+        for (int i = 0; i < 30; i++) allocator.release("p" + random.nextInt(60));
+        return allocator;
+    }
+
+    private static TreeMap<String, Integer> sizes(FreeListAllocator allocator) {
+        TreeMap<String, Integer> sizes = new TreeMap<>();
+        int cursor = 0;
+        for (Block block : allocator.blocks()) {
+            assertEquals(cursor, block.getOffset());
+            cursor += block.getSize();
+            if (!block.isFree()) sizes.put(block.getOwner(), block.getSize());
+        }
+        assertEquals(allocator.getTotalMemory(), cursor);
+        return sizes;
+    }
+}
@@ -0,0 +1,141 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modelo de referencia de las particiones variables: una lista de bloques por offset que se
+ * recorre entera en cada búsqueda. Sigue las mismas reglas que los treaps: se asigna al principio
+ * del hueco elegido, los empates del mejor ajuste van al menor offset y los del peor al mayor, y
+ * el siguiente ajuste busca desde el final de la última asignación, que solo vuelve al inicio
+ * cuando una compactación mueve algo.
+ */
+final class LinearScanOracle {
+    private final List<Span> spans = new ArrayList<>();
+    private AllocationStrategy strategy = AllocationStrategy.FIRST_FIT;
+    private long cursor;
+
+    LinearScanOracle(long capacity) {
+        spans.add(new Span(0, capacity, null));
+    }
+
+    void setStrategy(AllocationStrategy strategy) {
+        this.strategy = strategy;
+        cursor = 0;
+    }
+
+    boolean allocate(String name, long size) {
+        if (indexOf(name) >= 0) return false;
+        int hole = find(size);
+        if (hole < 0) return false;
+        Span free = spans.get(hole);
+        spans.add(hole, new Span(free.offset, size, name));
+        free.offset += size;
+        free.size -= size;
+        if (free.size == 0) spans.remove(hole + 1);
+        cursor = free.offset;
+        return true;
+    }
+
+    boolean release(String name) {
+        int i = indexOf(name);
+        if (i < 0) return false;
+        spans.get(i).owner = null;
+        if (i + 1 < spans.size() && spans.get(i + 1).owner == null) {
+            spans.get(i).size += spans.remove(i + 1).size;
+        }
+        if (i > 0 && spans.get(i - 1).owner == null) {
+            spans.get(i - 1).size += spans.remove(i).size;
+        }
+        return true;
+    }
+
+    long compact() {
+        long moved = 0;
+        long offset = 0;
+        List<Span> packed = new ArrayList<>();
+        for (Span span : spans) {
+            if (span.owner == null) continue;
+            if (span.offset != offset) moved += span.size;
+            packed.add(new Span(offset, span.size, span.owner));
+            offset += span.size;
+        }
+        long capacity = spans.get(spans.size() - 1).offset + spans.get(spans.size() - 1).size;
+        if (offset < capacity) packed.add(new Span(offset, capacity - offset, null));
+        spans.clear();
+        spans.addAll(packed);
+        if (moved > 0) cursor = 0;
+        return moved;
+    }
+
+    /** Bloques por offset en la forma {@code offset:tamaño:dueño}, con {@code null} para los huecos. */
+    List<String> blocks() {
+        List<String> result = new ArrayList<>();
+        for (Span span : spans) result.add(describe(span.offset, span.size, span.owner));
+        return result;
+    }
+
+    static String describe(long offset, long size, String owner) {
+        return offset + ":" + size + ":" + owner;
+    }
+
+    long usedMemory() {
+        long used = 0;
+        for (Span span : spans) if (span.owner != null) used += span.size;
+        return used;
+    }
+
+    int holeCount() {
+        int holes = 0;
+        for (Span span : spans) if (span.owner == null) holes++;
+        return holes;
+    }
+
+    long largestHole() {
+        long largest = 0;
+        for (Span span : spans) if (span.owner == null) largest = Math.max(largest, span.size);
+        return largest;
+    }
+
+    private int find(long size) {
+        int chosen = -1;
+        for (int i = 0; i < spans.size(); i++) {
+            Span span = spans.get(i);
+            if (span.owner != null || span.size < size) continue;
+            switch (strategy) {
+                case FIRST_FIT:
+                    return i;
+                case NEXT_FIT:
+                    if (span.offset >= cursor) return i;
+                    if (chosen < 0) chosen = i;
+                    break;
+                case BEST_FIT:
+                    if (chosen < 0 || span.size < spans.get(chosen).size) chosen = i;
+                    break;
+                case WORST_FIT:
+                    if (chosen < 0 || span.size >= spans.get(chosen).size) chosen = i;
+                    break;
+            }
+        }
+        return chosen;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < spans.size(); i++) {
+            if (name.equals(spans.get(i).owner)) return i;
+        }
+        return -1;
+    }
+
+    private static final class Span {
+        long offset;
+        long size;
+        String owner;
+
+        Span(long offset, long size, String owner) {
+            this.offset = offset;
+            this.size = size;
+            this.owner = owner;
+        }
+    }
+}
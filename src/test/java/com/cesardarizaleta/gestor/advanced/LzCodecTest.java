@@ -0,0 +1,79 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LzCodecTest {
+    private final LzCodec codec = new LzCodec();
+
+    @Test
+    void roundTripsShortInputs() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int length = 0; length < 40; length++) {
+            byte[] input = new byte[length];
+            random.nextBytes(input);
+            assertRoundTrip(input);
+        }
+    }
+
+    @Test
+    void roundTripsRepetitiveAndRandomData() {
+        assertRoundTrip(new byte[70_000]);
+        assertRoundTrip("abcabcabcabcabcabcabcabc-abcabcabcabc".repeat(500).getBytes(StandardCharsets.UTF_8));
+        byte[] noise = new byte[70_000];
+        new SplittableRandom(2).nextBytes(noise);
+        assertRoundTrip(noise);
+    }
+
+    @Test
+    void roundTripsProcessImages() {
+        byte[] page = new byte[4096];
+        for (int i = 0; i < 50; i++) {
+            ProcessImage.fill("p" + i, i, page);
+            assertRoundTrip(page);
+        }
+    }
+
+    @Test
+    void compressesRepetitiveData() {
+        byte[] zeros = new byte[65_536];
+        byte[] compressed = new byte[LzCodec.maxCompressedLength(zeros.length)];
+        assertTrue(codec.compress(zeros, zeros.length, compressed, 0) < zeros.length / 100);
+    }
+
+    @Test
+    void rejectsCorruptedInputWithoutOverflowing() {
+        byte[] page = new byte[4096];
+        ProcessImage.fill("p", 0, page);
+        byte[] compressed = new byte[LzCodec.maxCompressedLength(page.length)];
+        int length = codec.compress(page, page.length, compressed, 0);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int k = 0; k < 2000; k++) {
+            byte[] bad = Arrays.copyOf(compressed, length);
+            bad[random.nextInt(length)] ^= (byte) (1 << random.nextInt(8));
+            int end = k % 2 == 0 ? length : random.nextInt(length);
+            try {
+                assertTrue(LzCodec.decompress(bad, 0, end, new byte[page.length]) <= page.length);
+            } catch (IllegalStateException expected) {
+                // Los datos dañados solo pueden rechazarse con este error.
+            }
+        }
+    }
+
+    private void assertRoundTrip(byte[] input) {
+        int offset = 3;
+        byte[] compressed = new byte[offset + LzCodec.maxCompressedLength(input.length)];
+        int length = codec.compress(input, input.length, compressed, offset);
+        assertTrue(length <= LzCodec.maxCompressedLength(input.length));
+        byte[] output = new byte[input.length];
+        assertEquals(input.length, LzCodec.decompress(compressed, offset, offset + length, output));
+        assertArrayEquals(input, output);
+    }
+}
@@ -0,0 +1,52 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemoryMetricsTest {
+    private static final int COUNTERS_OFFSET = 3 * LatencyHistogram.STATE_BYTES;
+
+    @Test
+    void everyCounterSurvivesASnapshot() {
+        // Cada contador con un valor distinto: si el orden de escritura y el de lectura no
+        // coinciden, o falta alguno, los bytes no vuelven iguales.
+        ByteBuffer saved = ByteBuffer.allocate(MemoryMetrics.STATE_BYTES);
+        saved.position(COUNTERS_OFFSET);
+        for (long value = 1; saved.hasRemaining(); value++) saved.putLong(value * 1_000_003);
+        MemoryMetrics metrics = new MemoryMetrics();
+        metrics.readState(saved.flip()).run();
+
+        ByteBuffer written = ByteBuffer.allocate(MemoryMetrics.STATE_BYTES);
+        metrics.writeState(written);
+        assertArrayEquals(saved.array(), written.array());
+        assertEquals(1_000_003, metrics.getAllocationFailures());
+        assertEquals(4 * 1_000_003, metrics.getSwapOuts());
+        assertEquals(24 * 1_000_003, metrics.getRebalancedMemory());
+    }
+
+    @Test
+    void resetClearsEveryCounter() {
+        MemoryMetrics metrics = new MemoryMetrics();
+        metrics.recordAllocate(1_000);
+        metrics.recordSwapOut();
+        metrics.recordTranslations(4, 3, 100, 1);
+        metrics.recordTierAccess(true, 80, 200);
+        metrics.recordMigration(1, 2, 30);
+        metrics.recordNodeAllocation(true);
+        metrics.recordNodeAccess(true, 500);
+        metrics.recordRebalance(1, 10);
+        metrics.reset();
+        metrics.updateGauges(new FreeListAllocator(100));
+
+        ByteBuffer written = ByteBuffer.allocate(MemoryMetrics.STATE_BYTES);
+        metrics.writeState(written);
+        ByteBuffer empty = ByteBuffer.allocate(MemoryMetrics.STATE_BYTES);
+        new MemoryMetrics().writeState(empty);
+        assertArrayEquals(empty.array(), written.array());
+        assertEquals(0, metrics.getAllocateCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NameTableTest {
+    @Test
+    void internReturnsTheSameIdForTheSameName() {
+        NameTable table = new NameTable();
+        int a = table.intern("a");
+        int b = table.intern("b");
+        assertTrue(a != b);
+        assertEquals(a, table.intern("a"));
+        assertEquals(b, table.find("b"));
+        assertEquals("a", table.name(a));
+        assertEquals(-1, table.find("c"));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void removedIdsAreReused() {
+        NameTable table = new NameTable();
+        for (int i = 0; i < 10; i++) table.intern("p" + i);
+        int removed = table.find("p4");
+        table.remove(removed);
+        assertEquals(-1, table.find("p4"));
+        assertNull(table.name(removed));
+        assertEquals(9, table.size());
+        assertEquals(removed, table.intern("q"));
+        assertEquals(10, table.size());
+    }
+
+    @Test
+    void removingKeepsTheOtherNamesReachable() {
+        // Muchos nombres en una tabla pequeña fuerzan colisiones y el desplazamiento hacia atrás.
+        NameTable table = new NameTable();
+        Map<String, Integer> oracle = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int step = 0; step < 20_000; step++) {
+            String name = "p" + random.nextInt(500);
+            if (random.nextInt(3) == 0 && oracle.containsKey(name)) {
+                table.remove(oracle.remove(name));
+            } else {
+                int id = table.intern(name);
+                Integer known = oracle.putIfAbsent(name, id);
+                if (known != null) assertEquals(known, id);
+            }
+            assertEquals(oracle.size(), table.size());
+        }
+        for (int i = 0; i < 500; i++) {
+            String name = "p" + i;
+            assertEquals(oracle.getOrDefault(name, -1), table.find(name));
+        }
+        // Los ids se reutilizan, así que no pasan del máximo de nombres vivos a la vez.
+        for (int id : oracle.values()) assertTrue(id < 500);
+    }
+}
@@ -0,0 +1,102 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumaAllocatorTest {
+    @Test
+    void allocatesOnTheHomeNodeFirst() {
+        NumaAllocator allocator = new NumaAllocator(400, 4);
+        for (int i = 0; i < 20; i++) {
+            String name = "p" + i;
+            assertTrue(allocator.allocate(name, 5));
+            assertEquals(allocator.homeOf(name), allocator.nodeOf(name), name);
+        }
+        assertEquals(0, allocator.getRemoteMemory(0) + allocator.getRemoteMemory(1)
+                + allocator.getRemoteMemory(2) + allocator.getRemoteMemory(3));
+    }
+
+    @Test
+    void rebalanceMovesFromTheFullestNode() {
+        NumaAllocator allocator = loaded(new NumaAllocator(400, 2));
+        NumaAllocator.Rebalance pass = allocator.rebalance(NumaAllocator.DEFAULT_REBALANCE_BUDGET);
+        assertTrue(pass.getMoves() > 0);
+        assertTrue(allocator.utilisation(0) - allocator.utilisation(1) < NumaAllocator.REBALANCE_THRESHOLD);
+    }
+
+    @Test
+    void failedMoveReturnsTheProcessToItsNode() {
+        FlakyNodes allocator = loaded(new FlakyNodes());
+        TreeMap<String, String> before = placement(allocator);
+        allocator.failures = 1;
+        NumaAllocator.Rebalance pass = allocator.rebalance(NumaAllocator.DEFAULT_REBALANCE_BUDGET);
+        assertEquals(0, pass.getMoves());
+        assertEquals(before, placement(allocator));
+    }
+
+    @Test
+    void rebalanceNeverLosesProcesses() {
+        SplittableRandom random = new SplittableRandom(24);
+        NumaAllocator allocator = new NumaAllocator(600, 3);
+        for (int step = 0; step < 4000; step++) {
+            String name = "p" + random.nextInt(100);
+            switch (random.nextInt(6)) {
+                case 0, 1, 2 -> allocator.allocate(name, 1 + random.nextInt(30));
+                case 3, 4 -> allocator.release(name);
+                default -> {
+                    TreeMap<String, String> before = sizes(allocator);
+                    allocator.rebalance(1 + random.nextInt(128));
+                    assertEquals(before, sizes(allocator), "paso " + step);
+                }
+            }
+        }
+    }
+
+    // El nodo 0 ocupado en tres cuartos por procesos locales y el nodo 1 vacío.
+    private static <T extends NumaAllocator> T loaded(T allocator) {
+        for (int i = 0; allocator.getUsedMemory(0) < 150; i++) {
+            if (allocator.homeOf("p" + i) == 0) assertTrue(allocator.allocate("p" + i, 10));
+        }
+        assertEquals(0, allocator.getUsedMemory(1));
+        return allocator;
+    }
+
+    private static TreeMap<String, String> placement(NumaAllocator allocator) {
+        TreeMap<String, String> placement = new TreeMap<>();
+        for (int node = 0; node < allocator.getNodeCount(); node++) {
+            for (String name : allocator.residents(node)) placement.put(name, node + ":" + allocator.sizeOf(name));
+        }
+        return placement;
+    }
+
+    private static TreeMap<String, String> sizes(NumaAllocator allocator) {
+        TreeMap<String, String> sizes = new TreeMap<>();
+        for (int node = 0; node < allocator.getNodeCount(); node++) {
+            for (String name : allocator.residents(node)) sizes.put(name, String.valueOf(allocator.sizeOf(name)));
+        }
+        return sizes;
+    }
+
+    // Rechaza las siguientes asignaciones en el nodo 1 aunque quepan, para probar la vuelta atrás.
+    private static final class FlakyNodes extends NumaAllocator {
+        private int failures;
+
+        FlakyNodes() {
+            super(400, 2);
+        }
+
+        @Override
+        public boolean allocateIn(String name, int size, int partition) {
+            if (partition == 1 && failures > 0) {
+                failures--;
+                return false;
+            }
+            return super.allocateIn(name, size, partition);
+        }
+    }
+}
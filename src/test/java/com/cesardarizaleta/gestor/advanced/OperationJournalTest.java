@@ -0,0 +1,179 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OperationJournalTest {
+    private static final int MEMORY = 1024;
+    private static final int SWAP = 256;
+    private static final int BYTES_PER_MB = 64;
+
+    @Test
+    void checkpointsLeaveTheLiveManagerUnchanged() {
+        for (AllocatorMode mode : AllocatorMode.values()) {
+            try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB);
+                 SwapArea plainSwap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+                MemoryManager journaled = manager(mode, swap);
+                MemoryManager plain = manager(mode, plainSwap);
+                OperationJournal journal = new OperationJournal(journaled, mode, 8, 4096);
+                SplittableRandom random = new SplittableRandom(mode.ordinal());
+                for (int step = 0; step < 600; step++) {
+                    long seed = random.nextLong();
+                    apply(journal, new SplittableRandom(seed));
+                    apply(plain, new SplittableRandom(seed));
+                    assertEquals(fingerprint(plain), fingerprint(journaled), mode + ", paso " + step);
+                }
+            }
+        }
+    }
+
+    @Test
+    void seekReproducesEveryRecordedState() {
+        for (AllocatorMode mode : AllocatorMode.values()) {
+            try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+                MemoryManager manager = manager(mode, swap);
+                OperationJournal journal = new OperationJournal(manager, mode, 16, 4096);
+                List<String> states = new ArrayList<>();
+                states.add(fingerprint(manager));
+                SplittableRandom random = new SplittableRandom(10 + mode.ordinal());
+                for (int step = 0; step < 300; step++) {
+                    if (step % 97 == 50) {
+                        manager.setPolicy(EvictionPolicyType.values()[step % EvictionPolicyType.values().length]);
+                        journal.recordState("Política", mode);
+                    } else {
+                        apply(journal, random);
+                    }
+                    states.add(fingerprint(manager));
+                }
+                assertEquals(states.size() - 1, journal.getLast());
+                for (int k = 0; k < 100; k++) {
+                    int index = random.nextInt(states.size());
+                    journal.seek(index);
+                    assertEquals(index, journal.getPosition());
+                    assertTrue(journal.getLastReplayed() < 16);
+                    assertEquals(states.get(index), fingerprint(manager), mode + ", estado " + index);
+                }
+                assertEquals(states.size() - 1, journal.getLast());
+            }
+        }
+    }
+
+    @Test
+    void undoRedoAndNewOperationsDiscardTheFuture() {
+        try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+            MemoryManager manager = manager(AllocatorMode.VARIABLE_PARTITIONS, swap);
+            OperationJournal journal = new OperationJournal(manager, AllocatorMode.VARIABLE_PARTITIONS, 2, 64);
+            assertFalse(journal.undo());
+            assertTrue(journal.add("a", 10));
+            assertTrue(journal.add("b", 20));
+            assertTrue(journal.remove("a"));
+            assertFalse(journal.redo());
+
+            assertTrue(journal.undo());
+            assertTrue(journal.undo());
+            assertEquals(1, journal.getPosition());
+            assertTrue(manager.contains("a"));
+            assertFalse(manager.contains("b"));
+            assertTrue(journal.redo());
+            assertTrue(manager.contains("b"));
+
+            // Una operación nueva después de retroceder descarta lo que quedaba por delante.
+            assertTrue(journal.add("c", 5));
+            assertEquals(3, journal.getLast());
+            assertEquals(OperationJournal.Kind.ADD, journal.getEntry(3).getKind());
+            assertFalse(journal.redo());
+            assertTrue(manager.contains("a"));
+        }
+    }
+
+    @Test
+    void seekRefusesAnUnrecordedChange() {
+        try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+            MemoryManager manager = manager(AllocatorMode.VARIABLE_PARTITIONS, swap);
+            OperationJournal journal = new OperationJournal(manager, AllocatorMode.VARIABLE_PARTITIONS);
+            journal.add("a", 10);
+            journal.add("b", 10);
+            journal.undo();
+            manager.remove("a");
+            journal.markChanged("Cambio externo");
+            assertThrows(IllegalStateException.class, () -> journal.seek(0));
+            assertEquals(2, journal.getLast());
+
+            journal.flush();
+            assertEquals(2, journal.getLast());
+            assertEquals(OperationJournal.Kind.STATE, journal.getEntry(2).getKind());
+            journal.seek(1);
+            assertTrue(manager.contains("a"));
+            journal.seek(2);
+            assertFalse(manager.contains("a"));
+        }
+    }
+
+    @Test
+    void oldEntriesAreForgottenInWholeCheckpointIntervals() {
+        try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+            MemoryManager manager = manager(AllocatorMode.VARIABLE_PARTITIONS, swap);
+            OperationJournal journal = new OperationJournal(manager, AllocatorMode.VARIABLE_PARTITIONS, 4, 8);
+            for (int i = 0; i < 30; i++) journal.access("p" + i);
+            assertTrue(journal.getLast() - journal.getFirst() <= 8);
+            assertEquals(0, journal.getFirst() % 4);
+            assertThrows(IllegalArgumentException.class, () -> journal.seek(journal.getFirst() - 1));
+            journal.seek(journal.getFirst());
+            assertEquals(journal.getFirst(), journal.getPosition());
+        }
+    }
+
+    private static MemoryManager manager(AllocatorMode mode, SwapArea swap) {
+        MemoryManager manager = new MemoryManager(mode.create(MEMORY), swap);
+        manager.setAutoSwap(true);
+        return manager;
+    }
+
+    private static void apply(OperationJournal journal, SplittableRandom random) {
+        String name = "p" + random.nextInt(120);
+        switch (random.nextInt(12)) {
+            case 0, 1, 2, 3 -> journal.add(name, 1 + random.nextInt(60));
+            case 4, 5 -> journal.remove(name);
+            case 6 -> journal.swapOut(name);
+            case 7 -> journal.swapIn(name);
+            case 8 -> journal.compact();
+            default -> journal.access(name);
+        }
+    }
+
+    private static void apply(MemoryManager manager, SplittableRandom random) {
+        String name = "p" + random.nextInt(120);
+        switch (random.nextInt(12)) {
+            case 0, 1, 2, 3 -> manager.add(name, 1 + random.nextInt(60));
+            case 4, 5 -> manager.remove(name);
+            case 6 -> manager.swapOut(name);
+            case 7 -> manager.swapIn(name);
+            case 8 -> manager.compact();
+            default -> manager.access(name);
+        }
+    }
+
+    // Todo lo que decide las operaciones siguientes; las métricas y el swap también guardan tiempos
+    // medidos, que cambian al repetir, así que del swap solo se comparan los procesos.
+    private static String fingerprint(MemoryManager manager) {
+        AbstractEvictionPolicy policy = (AbstractEvictionPolicy) manager.getPolicy();
+        ByteBuffer policyState = ByteBuffer.allocate((int) policy.stateBytes());
+        policy.writeState(policyState);
+        ByteBuffer migratorState = ByteBuffer.allocate(manager.getMigrator().stateBytes());
+        manager.getMigrator().writeState(migratorState);
+        MemoryAllocator allocator = manager.getAllocator();
+        return allocator.blocks() + " " + allocator.getInternalFragmentation() + " " + manager.getSwapArea().getProcesses()
+                + " " + policy.getType() + Arrays.toString(policyState.array()) + Arrays.toString(migratorState.array())
+                + Arrays.toString(StateFile.allocatorState(allocator)) + " " + manager.getMetrics().getAllocateCount();
+    }
+}
@@ -0,0 +1,118 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagedAllocatorTest {
+    @Test
+    void pagesUseAnyFreeFrame() {
+        PagedAllocator allocator = new PagedAllocator(64, 4, 16, 4);
+        assertTrue(allocator.allocate("a", 8));
+        assertTrue(allocator.allocate("b", 8));
+        assertTrue(allocator.allocate("c", 8));
+        allocator.release("b");
+        // Cuatro páginas: los dos marcos que dejó "b" y los dos siguientes libres.
+        assertTrue(allocator.allocate("d", 13));
+        assertEquals(4, allocator.pageCountOf("d"));
+        assertEquals(2, allocator.frameOf("d", 0));
+        assertEquals(3, allocator.frameOf("d", 1));
+        assertEquals(6, allocator.frameOf("d", 2));
+        assertEquals(13, allocator.sizeOf("d"));
+        assertEquals(3, allocator.getInternalFragmentation());
+        assertEquals(0, allocator.compact());
+        assertEquals(64 - 32, allocator.getLargestFreeBlock());
+        assertFalse(allocator.allocate("e", 33));
+    }
+
+    @Test
+    void repeatedWalksHitTheTlb() {
+        PagedAllocator allocator = new PagedAllocator(256, 4, 16, 4);
+        allocator.allocate("a", 40);
+        assertEquals(0, allocator.touch("a"));
+        assertEquals(10, allocator.touch("a"));
+        assertEquals(-1, allocator.touch("b"));
+        assertEquals(10 * PagedAllocator.TLB_HIT_NANOS, PagedAllocator.translationNanos(10, 10));
+        assertEquals(10 * PagedAllocator.TLB_HIT_NANOS + 4L * PagedAllocator.PAGE_TABLE_LEVELS * PagedAllocator.WALK_LEVEL_NANOS,
+                PagedAllocator.translationNanos(10, 6));
+
+        // Al liberar se invalidan sus traducciones; un proceso nuevo no hereda ninguna.
+        allocator.release("a");
+        allocator.allocate("a", 40);
+        assertEquals(0, allocator.touch("a"));
+    }
+
+    @Test
+    void fullyAssociativeTlbIsLru() {
+        Tlb tlb = new Tlb(1, 8);
+        LinkedHashMap<Long, Boolean> lru = new LinkedHashMap<>(16, 0.75f, true);
+        SplittableRandom random = new SplittableRandom(20);
+        int lookups = 0;
+        for (int step = 0; step < 20_000; step++) {
+            int process = random.nextInt(3);
+            if (random.nextInt(50) == 0) {
+                tlb.invalidate(process);
+                lru.keySet().removeIf(key -> key >>> 32 == process);
+                continue;
+            }
+            int page = random.nextInt(12);
+            long key = (long) process << 32 | page;
+            boolean expected = lru.get(key) != null;
+            if (!expected) {
+                lru.put(key, true);
+                if (lru.size() > 8) lru.remove(lru.keySet().iterator().next());
+            }
+            assertEquals(expected, tlb.lookup(process, page), "paso " + step);
+            lookups++;
+        }
+        assertEquals(lookups, tlb.getHits() + tlb.getMisses());
+    }
+
+    @Test
+    void setAssociativeTlbKeepsTheLastWaysOfEachSet() {
+        Tlb tlb = new Tlb(4, 2);
+        // Una pasada por tantas páginas como entradas las deja todas: llenan cada conjunto.
+        for (int page = 0; page < tlb.getEntries(); page++) assertFalse(tlb.lookup(7, page));
+        for (int page = 0; page < tlb.getEntries(); page++) assertTrue(tlb.lookup(7, page), "página " + page);
+        tlb.invalidate(7);
+        assertFalse(tlb.lookup(7, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Tlb(3, 2));
+    }
+
+    @Test
+    void accountingMatchesTheFrames() {
+        PagedAllocator allocator = new PagedAllocator(512);
+        Map<String, Integer> live = new LinkedHashMap<>();
+        SplittableRandom random = new SplittableRandom(21);
+        for (int step = 0; step < 10_000; step++) {
+            String name = "p" + random.nextInt(120);
+            if (random.nextInt(100) < 55) {
+                int size = 1 + random.nextInt(40);
+                if (allocator.allocate(name, size)) live.put(name, size);
+            } else {
+                assertEquals(live.remove(name) != null, allocator.release(name));
+            }
+            Set<Integer> frames = new HashSet<>();
+            int used = 0;
+            int requested = 0;
+            for (Map.Entry<String, Integer> entry : live.entrySet()) {
+                int pages = allocator.pageCountOf(entry.getKey());
+                assertEquals((entry.getValue() + 3) / 4, pages);
+                for (int page = 0; page < pages; page++) assertTrue(frames.add(allocator.frameOf(entry.getKey(), page)));
+                used += pages * 4;
+                requested += entry.getValue();
+            }
+            assertEquals(used, allocator.getUsedMemory(), "paso " + step);
+            assertEquals(used - requested, allocator.getInternalFragmentation(), "paso " + step);
+        }
+    }
+}
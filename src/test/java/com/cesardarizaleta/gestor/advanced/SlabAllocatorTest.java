@@ -0,0 +1,110 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlabAllocatorTest {
+    private static final int MEMORY = 1024;
+
+    @Test
+    void smallRequestsShareASlabOfTheirClass() {
+        SlabAllocator allocator = new SlabAllocator(MEMORY);
+        assertTrue(allocator.allocate("a", 3));
+        assertTrue(allocator.allocate("b", 4));
+        assertTrue(allocator.allocate("c", 40));
+        assertEquals(4, allocator.sizeClassOf("a"));
+        assertEquals(4, allocator.sizeClassOf("b"));
+        assertEquals(0, allocator.sizeClassOf("c"));
+        assertEquals(3, allocator.sizeOf("a"));
+        // Un slab de 64 MB para "a" y "b" y el bloque general de "c".
+        assertEquals(SlabAllocator.DEFAULT_SLAB_SIZE + 40, allocator.getUsedMemory());
+        assertEquals(SlabAllocator.DEFAULT_SLAB_SIZE - 7, allocator.getInternalFragmentation());
+        SlabAllocator.SizeClassStats stats = allocator.getClassStats().get(0);
+        assertEquals(1, stats.getSlabs());
+        assertEquals(16, stats.getTotalSlots());
+        assertEquals(2, stats.getUsedSlots());
+        assertEquals(7, stats.getRequested());
+    }
+
+    @Test
+    void keepsOneEmptySlabPerClass() {
+        SlabAllocator allocator = new SlabAllocator(MEMORY);
+        for (int i = 0; i < 17; i++) assertTrue(allocator.allocate("p" + i, 4));
+        assertEquals(2, allocator.getClassStats().get(0).getSlabs());
+        for (int i = 0; i < 17; i++) assertTrue(allocator.release("p" + i));
+        assertEquals(1, allocator.getClassStats().get(0).getSlabs());
+        assertEquals(SlabAllocator.DEFAULT_SLAB_SIZE, allocator.getUsedMemory());
+        assertFalse(allocator.release("p0"));
+    }
+
+    @Test
+    void processesCanUseSlabNames() {
+        SlabAllocator allocator = new SlabAllocator(MEMORY);
+        assertTrue(allocator.allocate("[slab 4MB #0]", 40));
+        assertTrue(allocator.allocate("a", 2));
+        assertEquals(40, allocator.sizeOf("[slab 4MB #0]"));
+        assertEquals(4, allocator.sizeClassOf("a"));
+        assertTrue(allocator.release("[slab 4MB #0]"));
+        assertTrue(allocator.contains("a"));
+        assertEquals(SlabAllocator.DEFAULT_SLAB_SIZE, allocator.getUsedMemory());
+    }
+
+    @Test
+    void accountingMatchesTheBlocks() {
+        SlabAllocator allocator = new SlabAllocator(MEMORY);
+        Map<String, Integer> live = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int step = 0; step < 20_000; step++) {
+            String name = "p" + random.nextInt(200);
+            int op = random.nextInt(100);
+            if (op < 55) {
+                int size = 1 + random.nextInt(random.nextInt(4) == 0 ? 80 : 32);
+                if (allocator.allocate(name, size)) assertEquals(null, live.put(name, size));
+            } else if (op < 99) {
+                assertEquals(live.remove(name) != null, allocator.release(name), "liberar " + name);
+            } else {
+                allocator.compact();
+            }
+            assertAccounting(allocator, live, step);
+        }
+    }
+
+    private static void assertAccounting(SlabAllocator allocator, Map<String, Integer> live, int step) {
+        TreeMap<String, Integer> owners = new TreeMap<>();
+        int cursor = 0;
+        int used = 0;
+        for (Block block : allocator.blocks()) {
+            assertEquals(cursor, block.getOffset(), "paso " + step);
+            cursor += block.getSize();
+            if (block.isFree()) continue;
+            used += block.getSize();
+            assertEquals(null, owners.put(block.getOwner(), allocator.sizeOf(block.getOwner())), "paso " + step);
+            int classSize = allocator.sizeClassOf(block.getOwner());
+            assertEquals(classSize == 0 ? live.get(block.getOwner()) : classSize, block.getSize(), "paso " + step);
+        }
+        assertEquals(MEMORY, cursor);
+        assertEquals(new TreeMap<>(live), owners, "paso " + step);
+
+        int requested = live.values().stream().mapToInt(Integer::intValue).sum();
+        int slotRequested = 0;
+        int reserved = 0;
+        int occupied = 0;
+        for (SlabAllocator.SizeClassStats stats : allocator.getClassStats()) {
+            slotRequested += stats.getRequested();
+            reserved += stats.getSlabs() * SlabAllocator.DEFAULT_SLAB_SIZE;
+            occupied += stats.getOccupiedMemory();
+        }
+        int large = requested - slotRequested;
+        assertEquals(used, occupied + large, "paso " + step);
+        assertEquals(reserved + large, allocator.getUsedMemory(), "paso " + step);
+        assertEquals(allocator.getUsedMemory() - requested, allocator.getInternalFragmentation(), "paso " + step);
+    }
+}
@@ -0,0 +1,154 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StateFileTest {
+    private static final int MEMORY = 1024;
+    private static final int SWAP = 256;
+    private static final int BYTES_PER_MB = 64;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void captureAndRestoreEveryMode() {
+        for (AllocatorMode mode : AllocatorMode.values()) {
+            try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB);
+                 SwapArea restoredSwap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+                MemoryManager manager = populated(mode, swap);
+                MemoryManager restored = new MemoryManager(new FreeListAllocator(10), restoredSwap);
+                assertEquals(mode, StateFile.restore(StateFile.capture(manager, mode), restored));
+                assertSameState(mode, manager, restored);
+                continueInLockstep(mode, manager, restored);
+            }
+        }
+    }
+
+    @Test
+    void saveAndLoadRoundTrip() {
+        Path file = dir.resolve("gestor.bin");
+        try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB);
+             SwapArea loadedSwap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+            MemoryManager manager = populated(AllocatorMode.PAGED, swap);
+            StateFile.save(file, manager, AllocatorMode.PAGED);
+            MemoryManager loaded = new MemoryManager(new FreeListAllocator(10), loadedSwap);
+            assertEquals(AllocatorMode.PAGED, StateFile.load(file, loaded));
+            assertSameState(AllocatorMode.PAGED, manager, loaded);
+            // Las imágenes guardadas en el swap vuelven igual que en el gestor original.
+            for (String name : swap.getProcesses().keySet()) assertEquals(manager.swapIn(name), loaded.swapIn(name), name);
+            assertEquals(manager.getAllocator().blocks().toString(), loaded.getAllocator().blocks().toString());
+        }
+    }
+
+    @Test
+    void corruptedSnapshotsLeaveTheManagerUnchanged() {
+        try (SwapArea swap = SwapArea.createTemporary(SWAP, BYTES_PER_MB);
+             SwapArea targetSwap = SwapArea.createTemporary(SWAP, BYTES_PER_MB)) {
+            byte[] state = StateFile.capture(populated(AllocatorMode.VARIABLE_PARTITIONS, swap), AllocatorMode.VARIABLE_PARTITIONS);
+            MemoryManager target = new MemoryManager(new FreeListAllocator(100), targetSwap);
+            target.add("x", 5);
+            String before = fingerprint(target);
+            SplittableRandom random = new SplittableRandom(5);
+            for (int k = 0; k < 600; k++) {
+                byte[] bad = k < 300 ? Arrays.copyOf(state, random.nextInt(state.length)) : state.clone();
+                if (k >= 300) bad[12 + random.nextInt(bad.length - 12)] ^= (byte) (1 << random.nextInt(8));
+                try {
+                    StateFile.restore(bad, target);
+                } catch (IllegalArgumentException e) {
+                    assertEquals(before, fingerprint(target), "instantánea rechazada que cambió el gestor");
+                    continue;
+                }
+                // Un bit cambiado en un contador puede seguir siendo válido; se vuelve al estado inicial.
+                target = new MemoryManager(new FreeListAllocator(100), targetSwap);
+                target.add("x", 5);
+                before = fingerprint(target);
+            }
+        }
+    }
+
+    private static MemoryManager populated(AllocatorMode mode, SwapArea swap) {
+        MemoryManager manager = new MemoryManager(mode.create(MEMORY), swap);
+        manager.getAllocator().setStrategy(AllocationStrategy.BEST_FIT);
+        manager.setPolicy(EvictionPolicyType.CLOCK);
+        manager.setAutoSwap(true);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 200; i++) {
+            manager.add("p" + i, 1 + random.nextInt(30));
+            if (random.nextInt(3) == 0) manager.remove("p" + random.nextInt(i + 1));
+            if (random.nextInt(4) == 0) manager.access("p" + random.nextInt(i + 1));
+        }
+        for (int i = 0; i < 200; i += 7) manager.swapOut("p" + i);
+        return manager;
+    }
+
+    private static void assertSameState(AllocatorMode mode, MemoryManager expected, MemoryManager actual) {
+        MemoryAllocator allocator = expected.getAllocator();
+        MemoryAllocator restored = actual.getAllocator();
+        assertEquals(allocator.blocks().toString(), restored.blocks().toString(), mode.toString());
+        assertEquals(allocator.getUsedMemory(), restored.getUsedMemory(), mode.toString());
+        assertEquals(allocator.getInternalFragmentation(), restored.getInternalFragmentation(), mode.toString());
+        assertEquals(residents(allocator), residents(restored), mode.toString());
+        assertEquals(allocator.getStrategy(), restored.getStrategy(), mode.toString());
+        assertEquals(expected.getSwapArea().getProcesses(), actual.getSwapArea().getProcesses(), mode.toString());
+        assertEquals(expected.getPolicy().getType(), actual.getPolicy().getType(), mode.toString());
+        assertEquals(expected.isAutoSwap(), actual.isAutoSwap(), mode.toString());
+        assertEquals(expected.getMetrics().getAllocateCount(), actual.getMetrics().getAllocateCount(), mode.toString());
+        assertEquals(expected.getMetrics().getSwapOuts(), actual.getMetrics().getSwapOuts(), mode.toString());
+    }
+
+    // Con la política y el asignador restaurados, las mismas operaciones dan los mismos resultados.
+    private static void continueInLockstep(AllocatorMode mode, MemoryManager expected, MemoryManager actual) {
+        SplittableRandom random = new SplittableRandom(9);
+        for (int i = 0; i < 300; i++) {
+            String name = "p" + random.nextInt(260);
+            boolean done;
+            switch (random.nextInt(5)) {
+                case 0:
+                    int size = 1 + random.nextInt(30);
+                    done = expected.add(name, size);
+                    assertEquals(done, actual.add(name, size), mode + ": añadir " + name);
+                    break;
+                case 1:
+                    done = expected.remove(name);
+                    assertEquals(done, actual.remove(name), mode + ": eliminar " + name);
+                    break;
+                case 2:
+                    done = expected.swapOut(name);
+                    assertEquals(done, actual.swapOut(name), mode + ": sacar " + name);
+                    break;
+                case 3:
+                    done = expected.swapIn(name);
+                    assertEquals(done, actual.swapIn(name), mode + ": traer " + name);
+                    break;
+                default:
+                    done = expected.access(name);
+                    assertEquals(done, actual.access(name), mode + ": acceder " + name);
+            }
+        }
+        assertEquals(expected.getAllocator().blocks().toString(), actual.getAllocator().blocks().toString(), mode.toString());
+        assertEquals(expected.getSwapArea().getProcesses(), actual.getSwapArea().getProcesses(), mode.toString());
+    }
+
+    private static TreeMap<String, Integer> residents(MemoryAllocator allocator) {
+        TreeMap<String, Integer> sizes = new TreeMap<>();
+        for (Block block : allocator.blocks()) {
+            if (!block.isFree() && !block.getOwner().startsWith("[")) sizes.put(block.getOwner(), allocator.sizeOf(block.getOwner()));
+        }
+        return sizes;
+    }
+
+    private static String fingerprint(MemoryManager manager) {
+        List<Block> blocks = manager.getAllocator().blocks();
+        return blocks + " " + manager.getSwapArea().getProcesses() + " " + manager.getMetrics().getAllocateCount()
+                + " " + manager.getPolicy().getType();
+    }
+}
@@ -0,0 +1,70 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SwapAreaTest {
+    private static final int BYTES_PER_MB = 1024;
+
+    @Test
+    void writeBackSkipsImagesThatDoNotFitInTheFile() {
+        try (SwapArea swap = SwapArea.createTemporary(8, BYTES_PER_MB)) {
+            assertTrue(swap.setCompressedCapacity(100));
+            assertTrue(swap.swapOut("grande", 10));
+            assertTrue(swap.swapOut("pequeño", 2));
+            long used = swap.getCompressedUsed();
+            // Un MB menos obliga a sacar algo; "grande" es más antigua pero no cabe en las 8 ranuras.
+            assertTrue(swap.setCompressedCapacity((int) ((used - 1) / BYTES_PER_MB)));
+            assertEquals(1, swap.getWritebacks());
+            assertEquals(2, swap.getUsed());
+            assertTrue(swap.getCompressedUsed() <= swap.getCompressedCapacity());
+            assertEquals(10, swap.swapIn("grande"));
+            assertEquals(2, swap.swapIn("pequeño"));
+        }
+    }
+
+    @Test
+    void capacityThatCannotBeMetIsRejected() {
+        try (SwapArea swap = SwapArea.createTemporary(4, BYTES_PER_MB)) {
+            assertTrue(swap.setCompressedCapacity(100));
+            assertTrue(swap.swapOut("a", 6));
+            assertTrue(swap.swapOut("b", 6));
+            long used = swap.getCompressedUsed();
+            assertFalse(swap.setCompressedCapacity(0));
+            assertEquals(100 * BYTES_PER_MB, swap.getCompressedCapacity());
+            assertEquals(used, swap.getCompressedUsed());
+            assertEquals(0, swap.getWritebacks());
+            assertEquals(0, swap.getUsed());
+        }
+    }
+
+    @Test
+    void compressedTierNeverExceedsItsCapacity() {
+        SplittableRandom random = new SplittableRandom(21);
+        try (SwapArea swap = SwapArea.createTemporary(64, BYTES_PER_MB)) {
+            Map<String, Integer> stored = new HashMap<>();
+            for (int step = 0; step < 3000; step++) {
+                String name = "p" + random.nextInt(40);
+                switch (random.nextInt(8)) {
+                    case 0 -> swap.setCompressedCapacity(random.nextInt(48));
+                    case 1, 2 -> assertEquals(stored.getOrDefault(name, 0), swap.swapIn(name));
+                    case 3 -> assertEquals(stored.containsKey(name), swap.discard(name));
+                    default -> {
+                        int size = 1 + random.nextInt(12);
+                        if (swap.swapOut(name, size)) stored.put(name, size);
+                    }
+                }
+                stored.keySet().retainAll(swap.getProcesses().keySet());
+                assertTrue(swap.getCompressedUsed() <= swap.getCompressedCapacity(), "paso " + step);
+                assertEquals(stored, swap.getProcesses(), "paso " + step);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.cesardarizaleta.gestor.advanced;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TierMigratorTest {
+    @Test
+    void promotesHotProcessesAndDemotesColdOnes() {
+        TieredAllocator allocator = filled(new TieredAllocator(tiers()));
+        TierMigrator migrator = heated(new TierMigrator());
+        TierMigrator.Pass pass = migrator.migrate(allocator, TierMigrator.DEFAULT_BUDGET);
+        assertEquals(1, pass.getPromotions());
+        assertEquals(1, pass.getDemotions());
+        assertEquals(20, pass.getMoved());
+        assertEquals(0, allocator.tierOf("caliente"));
+        assertEquals(1, allocator.tierOf("frío0"));
+    }
+
+    @Test
+    void failedDemotionPutsEveryProcessBack() {
+        // En el nivel 0 falla la subida del candidato; en el 1, la bajada de la víctima.
+        for (int tier = 0; tier <= 1; tier++) {
+            FlakyTiers allocator = filled(new FlakyTiers());
+            TierMigrator migrator = heated(new TierMigrator());
+            TreeMap<String, String> before = placement(allocator);
+            allocator.fail(tier, 1);
+            TierMigrator.Pass pass = migrator.migrate(allocator, TierMigrator.DEFAULT_BUDGET);
+            assertEquals(0, pass.getMoved());
+            assertEquals(before, placement(allocator), "fallo en el nivel " + tier);
+        }
+    }
+
+    @Test
+    void failedMoveLeavesTheProcessWhereItWas() {
+        FlakyTiers allocator = filled(new FlakyTiers());
+        allocator.release("frío1");
+        allocator.fail(0, 1);
+        assertFalse(allocator.move("caliente", 0));
+        assertEquals(1, allocator.tierOf("caliente"));
+        assertTrue(allocator.move("caliente", 0));
+        assertEquals(0, allocator.tierOf("caliente"));
+    }
+
+    @Test
+    void migrationNeverLosesProcesses() {
+        SplittableRandom random = new SplittableRandom(23);
+        try (SwapArea swap = SwapArea.createTemporary(256, 16)) {
+            MemoryManager manager = new MemoryManager(new TieredAllocator(512), swap);
+            manager.setAutoSwap(true);
+            for (int step = 0; step < 4000; step++) {
+                String name = "p" + random.nextInt(80);
+                switch (random.nextInt(8)) {
+                    case 0, 1 -> manager.add(name, 1 + random.nextInt(40));
+                    case 2 -> manager.remove(name);
+                    case 3 -> {
+                        TreeMap<String, String> before = sizes(manager.getAllocator());
+                        manager.migrate(1 + random.nextInt(128));
+                        assertEquals(before, sizes(manager.getAllocator()), "paso " + step);
+                    }
+                    default -> manager.access(name);
+                }
+            }
+        }
+    }
+
+    private static List<MemoryTier> tiers() {
+        return List.of(new MemoryTier("Rápida", 40, TieredAllocator.FAST_ACCESS_NANOS),
+                new MemoryTier("Lenta", 200, TieredAllocator.SLOW_ACCESS_NANOS));
+    }
+
+    // El nivel rápido lleno de procesos fríos y uno caliente en el lento.
+    private static <T extends TieredAllocator> T filled(T allocator) {
+        for (int i = 0; i < 4; i++) assertTrue(allocator.allocate("frío" + i, 10, true));
+        assertTrue(allocator.allocate("caliente", 10, false));
+        assertEquals(1, allocator.tierOf("caliente"));
+        return allocator;
+    }
+
+    private static TierMigrator heated(TierMigrator migrator) {
+        for (int i = 0; i < 4; i++) migrator.recordAccess("caliente");
+        return migrator;
+    }
+
+    private static TreeMap<String, String> placement(TieredAllocator allocator) {
+        TreeMap<String, String> placement = new TreeMap<>();
+        for (int tier = 0; tier < allocator.getTiers().size(); tier++) {
+            for (String name : allocator.residents(tier)) placement.put(name, tier + ":" + allocator.sizeOf(name));
+        }
+        return placement;
+    }
+
+    private static TreeMap<String, String> sizes(MemoryAllocator allocator) {
+        TreeMap<String, String> sizes = new TreeMap<>();
+        for (Block block : allocator.blocks()) {
+            if (!block.isFree()) sizes.put(block.getOwner(), String.valueOf(allocator.sizeOf(block.getOwner())));
+        }
+        return sizes;
+    }
+
+    // Rechaza las siguientes asignaciones en un nivel aunque quepan, para probar la vuelta atrás.
+    private static final class FlakyTiers extends TieredAllocator {
+        private int tier;
+        private int failures;
+
+        FlakyTiers() {
+            super(tiers());
+        }
+
+        void fail(int tier, int failures) {
+            this.tier = tier;
+            this.failures = failures;
+        }
+
+        @Override
+        public boolean allocateIn(String name, int size, int partition) {
+            if (partition == tier && failures > 0) {
+                failures--;
+                return false;
+            }
+            return super.allocateIn(name, size, partition);
+        }
+    }
+}